@@ -0,0 +1,225 @@
+package org.hbrs.mongodb.jmh;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.hbrs.ia.code.ConsistencyProfile;
+import org.hbrs.ia.code.InMemoryManagePersonal;
+import org.hbrs.ia.code.ManagePersonal;
+import org.hbrs.ia.code.ManagePersonalImpl;
+import org.hbrs.ia.model.PerformanceStatistics;
+import org.hbrs.ia.model.SalesMan;
+import org.hbrs.ia.model.SocialPerformanceRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Every ManagePersonal operation against a data set of size salesmen with RECORDS_PER_SALESMAN
+ * records each. backend=inmemory uses InMemoryManagePersonal (no server needed), backend=mongo a
+ * mongod at mongoUri; its database is dropped before and after the trial.
+ * Write benchmarks undo their write in the same invocation, so the data set keeps its size.
+ *
+ * consistency is the ConsistencyProfile of the mongo manager (all operations).
+ *
+ * Example: -p backend=inmemory -p size=100000 -prof gc
+ *          -p backend=mongo -p size=100000 -p consistency=FAST_INGEST,DEFAULT,DURABLE
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ManagePersonalBenchmark {
+
+    private static final String DATABASE = "JmhBenchmarkDatabase";
+    private static final int FIRST_SID = 1_000_000;
+    private static final int FIRST_YEAR = 2020;
+    private static final int RECORDS_PER_SALESMAN = 3;
+    private static final int LOAD_CHUNK = 10_000;
+    private static final int MULTI_GET_SIZE = 100;
+
+    @Param({"inmemory", "mongo"})
+    public String backend;
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    @Param("mongodb://localhost:27017")
+    public String mongoUri;
+
+    @Param("DEFAULT")
+    public String consistency;
+
+    private ManagePersonal manager;
+    private MongoClient client;
+    // sids above the data set for create / delete benchmarks
+    private final AtomicInteger nextNewSid = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        if ("mongo".equals(backend)) {
+            client = MongoClients.create(mongoUri);
+            client.getDatabase(DATABASE).drop();
+            ManagePersonalImpl impl = new ManagePersonalImpl(client, DATABASE);
+            impl.setConsistencyProfile(ConsistencyProfile.valueOf(consistency));
+            manager = impl;
+        } else if ("inmemory".equals(backend)) {
+            manager = new InMemoryManagePersonal();
+        } else {
+            throw new IllegalArgumentException("Unknown backend: " + backend);
+        }
+        nextNewSid.set(FIRST_SID + size);
+        load();
+    }
+
+    private void load() {
+        for (int from = 0; from < size; from += LOAD_CHUNK) {
+            int to = Math.min(size, from + LOAD_CHUNK);
+            List<SalesMan> salesMen = new ArrayList<>(to - from);
+            Map<SalesMan, List<SocialPerformanceRecord>> records = new LinkedHashMap<>();
+            for (int i = from; i < to; i++) {
+                int sid = FIRST_SID + i;
+                SalesMan salesMan = new SalesMan("FirstName" + i, "LastName" + i, sid);
+                salesMen.add(salesMan);
+                List<SocialPerformanceRecord> ofSalesMan = new ArrayList<>(RECORDS_PER_SALESMAN);
+                for (int r = 0; r < RECORDS_PER_SALESMAN; r++) {
+                    int score = 1 + (i + r) % 5;
+                    ofSalesMan.add(new SocialPerformanceRecord(sid, score, score, score, score, score, score,
+                            FIRST_YEAR + r));
+                }
+                records.put(salesMan, ofSalesMan);
+            }
+            manager.createSalesMen(salesMen);
+            manager.addSocialPerformanceRecords(records);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        manager.close();
+        if (client != null) {
+            client.getDatabase(DATABASE).drop();
+            client.close();
+        }
+    }
+
+    private int randomSid() {
+        return FIRST_SID + ThreadLocalRandom.current().nextInt(size);
+    }
+
+    private SalesMan randomSalesMan() {
+        return new SalesMan("FirstName", "LastName", randomSid());
+    }
+
+    @Benchmark
+    public SalesMan readSalesMan() {
+        return manager.readSalesMan(randomSid());
+    }
+
+    @Benchmark
+    public Map<Integer, SalesMan> readSalesMen() {
+        List<Integer> sids = new ArrayList<>(MULTI_GET_SIZE);
+        for (int i = 0; i < MULTI_GET_SIZE; i++) {
+            sids.add(randomSid());
+        }
+        return manager.readSalesMen(sids);
+    }
+
+    @Benchmark
+    public List<SalesMan> readAllSalesMen() {
+        return manager.readAllSalesMen();
+    }
+
+    @Benchmark
+    public long streamAllSalesMen() {
+        try (Stream<SalesMan> salesMen = manager.streamAllSalesMen()) {
+            return salesMen.count();
+        }
+    }
+
+    @Benchmark
+    public List<SocialPerformanceRecord> readSocialPerformanceRecord() {
+        return manager.readSocialPerformanceRecord(randomSalesMan());
+    }
+
+    @Benchmark
+    public List<SocialPerformanceRecord> readByYearSocialPerformanceRecord() {
+        return manager.readByYearSocialPerformanceRecord(randomSalesMan(), FIRST_YEAR + 1);
+    }
+
+    @Benchmark
+    public SocialPerformanceRecord readLastSocialPerformanceRecord() {
+        return manager.readLastSocialPerformanceRecord(randomSalesMan());
+    }
+
+    @Benchmark
+    public List<PerformanceStatistics> readPerformanceStatisticsPerYear() {
+        return manager.readPerformanceStatisticsPerYear();
+    }
+
+    @Benchmark
+    public List<PerformanceStatistics> readPerformanceStatisticsPerYearOfSalesMan() {
+        return manager.readPerformanceStatisticsPerYear(randomSalesMan());
+    }
+
+    @Benchmark
+    public List<PerformanceStatistics> readPerformanceStatisticsPerSalesMan() {
+        return manager.readPerformanceStatisticsPerSalesMan(FIRST_YEAR);
+    }
+
+    @Benchmark
+    public PerformanceStatistics readCompanyPerformanceStatistics() {
+        return manager.readCompanyPerformanceStatistics(null);
+    }
+
+    @Benchmark
+    public void createAndDeleteSalesMan() {
+        int sid = nextNewSid.getAndIncrement();
+        manager.createSalesMan(new SalesMan("New", "SalesMan", sid));
+        manager.deleteSalesMan(sid);
+    }
+
+    // only the changed lastname is sent, a salesman without changes would cost no round trip at all
+    @Benchmark
+    public void updateSalesMan() {
+        int sid = randomSid();
+        SalesMan salesMan = new SalesMan("FirstName" + (sid - FIRST_SID), "LastName" + (sid - FIRST_SID), sid);
+        salesMan.setLastname("Updated");
+        manager.updateSalesMan(salesMan);
+    }
+
+    // the added record has the newest year, so deleteLast removes exactly this record again
+    @Benchmark
+    public void addAndDeleteLastSocialPerformanceRecord() {
+        SalesMan salesMan = randomSalesMan();
+        manager.addSocialPerformanceRecord(new SocialPerformanceRecord(salesMan.getId(), 3, 3, 3, 3, 3, 3,
+                FIRST_YEAR + RECORDS_PER_SALESMAN), salesMan);
+        manager.deleteLastSocialPerformanceRecord(salesMan);
+    }
+
+    // deleting a year that no salesman has, measures the lookup and the no-op delete
+    @Benchmark
+    public void deleteByYearSocialPerformanceRecord() {
+        manager.deleteByYearSocialPerformanceRecord(randomSalesMan(), FIRST_YEAR - 1);
+    }
+}
@@ -0,0 +1,112 @@
+package org.hbrs.mongodb.jmh;
+
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinaryWriter;
+import org.bson.Document;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+import org.hbrs.ia.codec.SalesManCodec;
+import org.hbrs.ia.codec.SocialPerformanceRecordCodec;
+import org.hbrs.ia.model.SalesMan;
+import org.hbrs.ia.model.SocialPerformanceRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the model mappers (toDocument / fromDocument) and, for comparison, of decoding
+ * the same raw BSON through the model codecs. Use -prof gc to see the allocation per call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MapperBenchmark {
+
+    private static final DecoderContext DECODER_CONTEXT = DecoderContext.builder().build();
+
+    private final DocumentCodec documentCodec = new DocumentCodec();
+    private final SalesManCodec salesManCodec = new SalesManCodec();
+    private final SocialPerformanceRecordCodec recordCodec = new SocialPerformanceRecordCodec();
+
+    private SalesMan salesMan;
+    private Document salesManDocument;
+    private byte[] salesManBson;
+    private SocialPerformanceRecord record;
+    private Document recordDocument;
+    private byte[] recordBson;
+
+    @Setup
+    public void setUp() {
+        salesMan = new SalesMan("Sascha", "Alda", 90133);
+        salesManDocument = new Document("firstname", "Sascha").append("lastname", "Alda").append("sid", 90133);
+        salesManBson = encode(salesManDocument);
+        record = new SocialPerformanceRecord(90133, 4, 3, 4, 5, 4, 4, 2024);
+        recordDocument = record.toDocument();
+        recordBson = encode(recordDocument);
+    }
+
+    @Benchmark
+    public Document salesManToDocument() {
+        return salesMan.toDocument();
+    }
+
+    @Benchmark
+    public SalesMan salesManFromDocument() {
+        return SalesMan.fromDocument(salesManDocument);
+    }
+
+    @Benchmark
+    public SalesMan salesManDecodeViaDocument() {
+        return SalesMan.fromDocument(documentCodec.decode(reader(salesManBson), DECODER_CONTEXT));
+    }
+
+    @Benchmark
+    public SalesMan salesManDecodeViaCodec() {
+        return salesManCodec.decode(reader(salesManBson), DECODER_CONTEXT);
+    }
+
+    @Benchmark
+    public Document recordToDocument() {
+        return record.toDocument();
+    }
+
+    @Benchmark
+    public SocialPerformanceRecord recordFromDocument() {
+        return SocialPerformanceRecord.fromDocument(recordDocument);
+    }
+
+    @Benchmark
+    public SocialPerformanceRecord recordDecodeViaDocument() {
+        return SocialPerformanceRecord.fromDocument(documentCodec.decode(reader(recordBson), DECODER_CONTEXT));
+    }
+
+    @Benchmark
+    public SocialPerformanceRecord recordDecodeViaCodec() {
+        return recordCodec.decode(reader(recordBson), DECODER_CONTEXT);
+    }
+
+    private byte[] encode(Document document) {
+        BasicOutputBuffer buffer = new BasicOutputBuffer();
+        documentCodec.encode(new BsonBinaryWriter(buffer), document, EncoderContext.builder().build());
+        return buffer.toByteArray();
+    }
+
+    private static BsonBinaryReader reader(byte[] bytes) {
+        return new BsonBinaryReader(ByteBuffer.wrap(bytes));
+    }
+}
@@ -0,0 +1,227 @@
+package org.hbrs.ia.bonus;
+
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.WriteModel;
+import org.bson.Document;
+import org.hbrs.ia.codec.ModelCodecs;
+import org.hbrs.ia.model.BonusResult;
+import org.hbrs.ia.model.SocialPerformanceRecord;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Computes the bonus of every salesman for a year from the performanceRecords collection.
+ * The records are read in cursor batches by the calling thread, every batch is scored on a
+ * ForkJoinPool of the configured parallelism, and the results are upserted into the
+ * "bonuses" collection with unordered bulk writes (one document per salesman and year).
+ */
+public class BonusEngine {
+
+    private final MongoCollection<SocialPerformanceRecord> recordsCollection;
+    private final MongoCollection<Document> bonusCollection;
+    private final BonusWeights weights;
+    private final int parallelism;
+
+    // records per cursor batch = records per scoring task
+    private int readBatchSize = 10_000;
+    // upserts per bulk write
+    private int writeBatchSize = 1_000;
+
+    public BonusEngine(MongoDatabase database, BonusWeights weights, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1");
+        }
+        MongoDatabase typedDatabase = database.withCodecRegistry(ModelCodecs.REGISTRY);
+        this.recordsCollection = typedDatabase.getCollection("performanceRecords", SocialPerformanceRecord.class);
+        this.bonusCollection = typedDatabase.getCollection("bonuses");
+        this.weights = weights;
+        this.parallelism = parallelism;
+    }
+
+    // compute the bonuses of the year and store them, returns the results by salesmanId
+    public Map<Integer, BonusResult> computeAndStore(int year) {
+        Map<Integer, BonusResult> results;
+        try (MongoCursor<SocialPerformanceRecord> cursor = recordsCollection.find(Filters.eq("year", year))
+                .batchSize(readBatchSize)
+                .iterator()) {
+            results = compute(year, new BatchIterator(cursor, readBatchSize));
+        }
+        store(results.values());
+        return results;
+    }
+
+    // score the record batches in parallel and combine them per salesman. At most two batches
+    // per worker are in flight, so memory stays bounded by the batch size, not by the record count.
+    public Map<Integer, BonusResult> compute(int year, Iterator<List<SocialPerformanceRecord>> batches) {
+        ConcurrentHashMap<Integer, ScoreSum> sums = new ConcurrentHashMap<>();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        Semaphore inFlight = new Semaphore(parallelism * 2);
+        Phaser running = new Phaser(1);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        try {
+            while (batches.hasNext() && failure.get() == null) {
+                List<SocialPerformanceRecord> batch = batches.next();
+                inFlight.acquireUninterruptibly();
+                running.register();
+                pool.execute(() -> {
+                    try {
+                        for (Map.Entry<Integer, ScoreSum> partial : scoreBatch(batch).entrySet()) {
+                            sums.merge(partial.getKey(), partial.getValue(), ScoreSum::add);
+                        }
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    } finally {
+                        inFlight.release();
+                        running.arriveAndDeregister();
+                    }
+                });
+            }
+            running.arriveAndAwaitAdvance();
+        } finally {
+            pool.shutdown();
+        }
+        if (failure.get() != null) {
+            throw new RuntimeException("Failed to compute bonuses for year " + year, failure.get());
+        }
+
+        Map<Integer, BonusResult> results = new HashMap<>(sums.size() * 2);
+        for (Map.Entry<Integer, ScoreSum> entry : sums.entrySet()) {
+            ScoreSum sum = entry.getValue();
+            double score = sum.score / sum.count;
+            results.put(entry.getKey(), new BonusResult(entry.getKey(), year, sum.count, score,
+                    score * weights.getBonusPerPoint()));
+        }
+        return results;
+    }
+
+    // per salesman sums of one batch, merged into the shared map once per salesman and batch
+    private Map<Integer, ScoreSum> scoreBatch(List<SocialPerformanceRecord> batch) {
+        Map<Integer, ScoreSum> partial = new HashMap<>();
+        for (SocialPerformanceRecord record : batch) {
+            partial.computeIfAbsent(record.getSalesmanId(), id -> new ScoreSum()).add(weights.score(record));
+        }
+        return partial;
+    }
+
+    // upsert the results by (salesmanId, year) in parallel chunks of writeBatchSize
+    private void store(Iterable<BonusResult> results) {
+        // no-op if the index already exists
+        bonusCollection.createIndex(Indexes.ascending("salesmanId", "year"),
+                new IndexOptions().unique(true).name("salesmanId_year"));
+
+        List<List<WriteModel<Document>>> chunks = new ArrayList<>();
+        List<WriteModel<Document>> chunk = new ArrayList<>();
+        for (BonusResult result : results) {
+            chunk.add(new ReplaceOneModel<>(
+                    Filters.and(Filters.eq("salesmanId", result.getSalesmanId()), Filters.eq("year", result.getYear())),
+                    result.toDocument(),
+                    new ReplaceOptions().upsert(true)));
+            if (chunk.size() == writeBatchSize) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.submit(() -> chunks.parallelStream().forEach(models ->
+                    bonusCollection.bulkWrite(models, new BulkWriteOptions().ordered(false)))).get();
+        } catch (Exception e) {
+            throw new MongoException("Failed to store bonuses", e);
+        } finally {
+            pool.shutdown();
+            try {
+                pool.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public int getReadBatchSize() {
+        return readBatchSize;
+    }
+
+    public void setReadBatchSize(int readBatchSize) {
+        if (readBatchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be at least 1");
+        }
+        this.readBatchSize = readBatchSize;
+    }
+
+    public int getWriteBatchSize() {
+        return writeBatchSize;
+    }
+
+    public void setWriteBatchSize(int writeBatchSize) {
+        if (writeBatchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be at least 1");
+        }
+        this.writeBatchSize = writeBatchSize;
+    }
+
+    private static final class ScoreSum {
+        private int count;
+        private double score;
+
+        private void add(double recordScore) {
+            count++;
+            score += recordScore;
+        }
+
+        // called inside ConcurrentHashMap.merge, i.e. atomically per salesman
+        private ScoreSum add(ScoreSum other) {
+            count += other.count;
+            score += other.score;
+            return this;
+        }
+    }
+
+    // groups the cursor into lists of batchSize records
+    private static final class BatchIterator implements Iterator<List<SocialPerformanceRecord>> {
+        private final MongoCursor<SocialPerformanceRecord> cursor;
+        private final int batchSize;
+
+        private BatchIterator(MongoCursor<SocialPerformanceRecord> cursor, int batchSize) {
+            this.cursor = cursor;
+            this.batchSize = batchSize;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return cursor.hasNext();
+        }
+
+        @Override
+        public List<SocialPerformanceRecord> next() {
+            List<SocialPerformanceRecord> batch = new ArrayList<>(batchSize);
+            while (batch.size() < batchSize && cursor.hasNext()) {
+                batch.add(cursor.next());
+            }
+            return batch;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package org.hbrs.ia.bonus;
+
+import org.hbrs.ia.model.PerformanceCriterion;
+import org.hbrs.ia.model.SocialPerformanceRecord;
+
+import java.util.Arrays;
+
+/**
+ * Weighting of the six criteria of a SocialPerformanceRecord and the bonus paid per weighted point.
+ * By default every criterion has weight 1.
+ */
+public class BonusWeights {
+
+    // indexed by PerformanceCriterion.ordinal()
+    private final double[] weights = new double[PerformanceCriterion.values().length];
+    private double bonusPerPoint;
+
+    public BonusWeights(double bonusPerPoint) {
+        this.bonusPerPoint = bonusPerPoint;
+        Arrays.fill(weights, 1.0);
+    }
+
+    public double getWeight(PerformanceCriterion criterion) {
+        return weights[criterion.ordinal()];
+    }
+
+    public void setWeight(PerformanceCriterion criterion, double weight) {
+        if (weight < 0) {
+            throw new IllegalArgumentException("Weight must not be negative");
+        }
+        weights[criterion.ordinal()] = weight;
+    }
+
+    public double getBonusPerPoint() {
+        return bonusPerPoint;
+    }
+
+    public void setBonusPerPoint(double bonusPerPoint) {
+        this.bonusPerPoint = bonusPerPoint;
+    }
+
+    // sum of weight * score over all criteria
+    public double score(SocialPerformanceRecord record) {
+        double score = 0;
+        for (PerformanceCriterion criterion : PerformanceCriterion.values()) {
+            score += weights[criterion.ordinal()] * criterion.scoreOf(record);
+        }
+        return score;
+    }
+}
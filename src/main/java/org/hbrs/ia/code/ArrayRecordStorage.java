@@ -0,0 +1,387 @@
+package org.hbrs.ia.code;
+
+import com.mongodb.MongoException;
+import com.mongodb.client.AggregateIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.MongoIterable;
+import com.mongodb.client.model.Accumulators;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.MergeOptions;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.hbrs.ia.model.PerformanceCriterion;
+import org.hbrs.ia.model.SocialPerformanceRecord;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records as array elements of container documents (the salesman itself or a bucket). Every element
+ * gets its own ObjectId _id, so ids, read order and paging are the same as in the separate layout.
+ * A read fetches the containers of the salesman with one indexed query and unpacks the arrays
+ * on the client, the order within the result is established here and not by an index.
+ */
+abstract class ArrayRecordStorage implements RecordStorage {
+
+    // newest year first, then the latest added first
+    private static final Comparator<Entry> NEWEST_FIRST = Comparator.comparingInt((Entry entry) -> entry.year)
+            .thenComparing(entry -> entry.id)
+            .reversed();
+
+    final MongoCollection<RawBsonDocument> collection;
+    final MongoCollection<Document> salesmenCollection;
+    final QueryPlanGuard queryPlanGuard;
+    // field of the container with the sid of the salesman and the name of the records array
+    final String ownerField;
+    final String arrayField;
+    // server side limit of the reads of single salesmen, 0 = no limit
+    final long maxTimeMillis;
+    private final Codec<SocialPerformanceRecord> codec;
+    private final DecoderContext decoderContext = DecoderContext.builder().build();
+
+    ArrayRecordStorage(MongoDatabase database, String collectionName, String ownerField, String arrayField,
+                       QueryPlanGuard queryPlanGuard, long maxTimeMillis) {
+        this.collection = database.getCollection(collectionName, RawBsonDocument.class);
+        this.salesmenCollection = database.getCollection("salesmen");
+        this.queryPlanGuard = queryPlanGuard;
+        this.ownerField = ownerField;
+        this.arrayField = arrayField;
+        this.maxTimeMillis = maxTimeMillis;
+        this.codec = database.getCodecRegistry().get(SocialPerformanceRecord.class);
+    }
+
+    // containers that may hold records of the year
+    abstract Bson yearFilter(int year);
+
+    // filter of the container a new record is added to
+    abstract Bson insertFilter(SocialPerformanceRecord record);
+
+    // update adding the record document to the container
+    abstract Bson insertUpdate(SocialPerformanceRecord record, Document recordDocument);
+
+    abstract UpdateOptions insertOptions();
+
+    // update removing the elements matching the condition from a container
+    abstract Bson removeUpdate(Bson condition);
+
+    // removes all records of the year from the containers of the salesman
+    abstract void removeYear(int salesmanId, int year);
+
+    // $replaceRoot expression turning an unwound container into a record document
+    abstract Object recordRoot();
+
+    @Override
+    public String getCollectionName() {
+        return collection.getNamespace().getCollectionName();
+    }
+
+    @Override
+    public void insert(SocialPerformanceRecord record) {
+        Bson filter = insertFilter(record);
+        queryPlanGuard.check("addSocialPerformanceRecord (" + getLayout() + ")", collection, filter, null);
+        UpdateResult result = collection.updateOne(filter, insertUpdate(record, recordDocument(record)),
+                insertOptions());
+        if (result.getMatchedCount() == 0 && result.getUpsertedId() == null) {
+            throw new IllegalArgumentException("No salesman with sid " + record.getSalesmanId());
+        }
+    }
+
+    // one update per record, so the write errors map to the records of the chunk
+    @Override
+    public Set<Integer> insertChunk(List<SocialPerformanceRecord> chunk,
+                                    BulkWriteReport<SocialPerformanceRecord> report) {
+        List<WriteModel<RawBsonDocument>> models = new ArrayList<>(chunk.size());
+        for (SocialPerformanceRecord record : chunk) {
+            models.add(new UpdateOneModel<>(insertFilter(record), insertUpdate(record, recordDocument(record)),
+                    insertOptions()));
+        }
+        try {
+            collection.bulkWrite(models, new BulkWriteOptions().ordered(false));
+            return report.addChunk(chunk, null);
+        } catch (MongoException e) {
+            return report.addChunk(chunk, e);
+        }
+    }
+
+    static Document recordDocument(SocialPerformanceRecord record) {
+        Document document = new Document("_id", new ObjectId());
+        document.putAll(record.toDocument());
+        return document;
+    }
+
+    @Override
+    public List<SocialPerformanceRecord> find(int salesmanId, Integer year) {
+        List<SocialPerformanceRecord> records = new ArrayList<>();
+        for (Entry entry : load(salesmanId, year,
+                year == null ? "readSocialPerformanceRecord" : "readByYearSocialPerformanceRecord")) {
+            records.add(entry.record);
+        }
+        return records;
+    }
+
+    @Override
+    public Page<SocialPerformanceRecord> findPage(int salesmanId, Integer afterYear, ObjectId afterId, int limit) {
+        List<SocialPerformanceRecord> records = new ArrayList<>(limit + 1);
+        List<String> ids = new ArrayList<>(limit + 1);
+        for (Entry entry : load(salesmanId, null, "readSocialPerformanceRecordsPage")) {
+            if (afterYear != null && (entry.year > afterYear
+                    || (entry.year == afterYear && (afterId == null || entry.id.compareTo(afterId) >= 0)))) {
+                continue;
+            }
+            records.add(entry.record);
+            ids.add(entry.id.toHexString());
+            if (records.size() > limit) {
+                break;
+            }
+        }
+        return Page.of(records, limit, SocialPerformanceRecord::getYear, ids);
+    }
+
+    @Override
+    public SocialPerformanceRecord findLast(int salesmanId) {
+        List<Entry> entries = load(salesmanId, null, "readLastSocialPerformanceRecord (records)");
+        return entries.isEmpty() ? null : entries.get(0).record;
+    }
+
+    @Override
+    public Map<Integer, List<SocialPerformanceRecord>> findAll(List<Integer> salesmanIds) {
+        Bson query = Filters.in(ownerField, salesmanIds);
+        queryPlanGuard.check("readSalesMen (records)", collection, query, null);
+        Map<Integer, List<Entry>> entriesBySid = new HashMap<>();
+        for (RawBsonDocument container : collection.find(query).projection(containerProjection())
+                .maxTime(maxTimeMillis, TimeUnit.MILLISECONDS)) {
+            List<Entry> entries = new ArrayList<>();
+            unpack(container, null, entries);
+            if (!entries.isEmpty()) {
+                entriesBySid.computeIfAbsent(entries.get(0).record.getSalesmanId(), sid -> new ArrayList<>())
+                        .addAll(entries);
+            }
+        }
+
+        Map<Integer, List<SocialPerformanceRecord>> recordsBySid = new HashMap<>();
+        for (Map.Entry<Integer, List<Entry>> entries : entriesBySid.entrySet()) {
+            entries.getValue().sort(NEWEST_FIRST);
+            List<SocialPerformanceRecord> records = new ArrayList<>(entries.getValue().size());
+            for (Entry entry : entries.getValue()) {
+                records.add(entry.record);
+            }
+            recordsBySid.put(entries.getKey(), records);
+        }
+        return recordsBySid;
+    }
+
+    @Override
+    public long deleteByYear(int salesmanId, int year) {
+        long deleted = load(salesmanId, year, "deleteByYearSocialPerformanceRecord").size();
+        if (deleted > 0) {
+            removeYear(salesmanId, year);
+        }
+        return deleted;
+    }
+
+    // elements written without an _id (e.g. by QuickDBPopulator) are removed by their whole content.
+    // The filter also requires the element, so if a concurrent delete removed it first nothing is updated
+    // (no count drift in removeUpdate) and 0 is returned
+    @Override
+    public int deleteLast(int salesmanId) {
+        List<Entry> entries = load(salesmanId, null, "deleteLastSocialPerformanceRecord");
+        if (entries.isEmpty()) {
+            return -1;
+        }
+        Entry last = entries.get(0);
+        Bson condition = last.storedId ? new Document("_id", last.id) : last.element;
+        Bson container = Filters.and(Filters.eq("_id", last.containerId), Filters.elemMatch(arrayField, condition));
+        return (int) collection.updateOne(container, removeUpdate(condition)).getModifiedCount();
+    }
+
+    @Override
+    public MongoIterable<RawBsonDocument> findRaw(Integer year) {
+        return aggregate(null, year, new ArrayList<>(), RawBsonDocument.class);
+    }
+
+    // $match on the containers (indexed) -> $unwind the array -> $replaceRoot with the record -> $match the year
+    @Override
+    public <T> AggregateIterable<T> aggregate(Integer salesmanId, Integer year, List<Bson> stages,
+                                              Class<T> resultClass) {
+        List<Bson> filters = new ArrayList<>();
+        if (salesmanId != null) {
+            filters.add(Filters.eq(ownerField, salesmanId));
+        }
+        if (year != null) {
+            filters.add(yearFilter(year));
+        }
+        List<Bson> pipeline = new ArrayList<>();
+        if (!filters.isEmpty()) {
+            pipeline.add(Aggregates.match(filters.size() == 1 ? filters.get(0) : Filters.and(filters)));
+        }
+        pipeline.add(Aggregates.project(Projections.include(ownerField, arrayField)));
+        pipeline.add(Aggregates.unwind("$" + arrayField));
+        pipeline.add(Aggregates.replaceRoot(recordRoot()));
+        if (year != null) {
+            pipeline.add(Aggregates.match(Filters.eq("year", year)));
+        }
+        pipeline.addAll(stages);
+        return collection.aggregate(pipeline, resultClass);
+    }
+
+    // the summaries are removed first, salesmen without records keep none
+    @Override
+    public void rebuildLatestRecords() {
+        // the summary has the fields of a record document without the element _id
+        Document latestRecord = new Document("salesmanId", "$_id");
+        for (PerformanceCriterion criterion : PerformanceCriterion.values()) {
+            latestRecord.append(criterion.getFieldName(), "$latest." + criterion.getFieldName());
+        }
+        latestRecord.append("year", "$latest.year");
+
+        salesmenCollection.updateMany(new Document(), Updates.unset("latestRecord"));
+        aggregate(null, null, Arrays.asList(
+                Aggregates.sort(Sorts.descending("year", "_id")),
+                Aggregates.group("$salesmanId", Accumulators.first("latest", "$$ROOT")),
+                Aggregates.project(new Document("_id", 0)
+                        .append("sid", "$_id")
+                        .append("latestRecord", latestRecord)),
+                Aggregates.merge("salesmen", new MergeOptions()
+                        .uniqueIdentifier("sid")
+                        .whenMatched(MergeOptions.WhenMatched.MERGE)
+                        .whenNotMatched(MergeOptions.WhenNotMatched.DISCARD))), Document.class)
+                .allowDiskUse(true)
+                .toCollection();
+    }
+
+    @Override
+    public Map<Integer, List<Document>> findDocuments(List<Integer> salesmanIds) {
+        Bson query = Filters.in(ownerField, salesmanIds);
+        queryPlanGuard.check("findDocuments (" + getLayout() + ")", collection, query, null);
+        Map<Integer, List<Document>> recordsBySid = new HashMap<>();
+        for (RawBsonDocument container : collection.find(query).projection(containerProjection())) {
+            List<Entry> entries = new ArrayList<>();
+            unpack(container, null, entries);
+            for (Entry entry : entries) {
+                Document record = new Document("_id", entry.id);
+                record.putAll(entry.record.toDocument());
+                recordsBySid.computeIfAbsent(entry.record.getSalesmanId(), sid -> new ArrayList<>()).add(record);
+            }
+        }
+        return recordsBySid;
+    }
+
+    // sums the array sizes of the containers, uses the index on the owner field
+    @Override
+    public long countRecords(long fromSid, long toSid) {
+        Document count = collection.aggregate(Arrays.asList(
+                Aggregates.match(Filters.and(Filters.gte(ownerField, fromSid), Filters.lt(ownerField, toSid))),
+                Aggregates.group(null, Accumulators.sum("count", new Document("$size",
+                        new Document("$ifNull", Arrays.asList("$" + arrayField, Collections.emptyList())))))),
+                Document.class).first();
+        return count == null ? 0 : count.get("count", Number.class).longValue();
+    }
+
+    // all records of the salesman (of one year) in read order
+    private List<Entry> load(int salesmanId, Integer year, String shape) {
+        Bson query = Filters.eq(ownerField, salesmanId);
+        if (year != null) {
+            query = Filters.and(query, yearFilter(year));
+        }
+        queryPlanGuard.check(shape + " (" + getLayout() + ")", collection, query, null);
+
+        List<Entry> entries = new ArrayList<>();
+        for (RawBsonDocument container : collection.find(query).projection(containerProjection())
+                .maxTime(maxTimeMillis, TimeUnit.MILLISECONDS)) {
+            unpack(container, year, entries);
+        }
+        entries.sort(NEWEST_FIRST);
+        return entries;
+    }
+
+    private Bson containerProjection() {
+        return Projections.include(ownerField, arrayField);
+    }
+
+    private void unpack(RawBsonDocument container, Integer year, List<Entry> entries) {
+        BsonValue array = container.get(arrayField);
+        if (array == null || !array.isArray()) {
+            return;
+        }
+        int salesmanId = container.getNumber(ownerField).intValue();
+        int position = 0;
+        for (BsonValue value : array.asArray()) {
+            position++;
+            if (!(value instanceof RawBsonDocument)) {
+                continue;
+            }
+            RawBsonDocument element = (RawBsonDocument) value;
+            SocialPerformanceRecord record;
+            try (BsonBinaryReader reader = new BsonBinaryReader(element.getByteBuffer().asNIO())) {
+                record = codec.decode(reader, decoderContext);
+            }
+            if (year != null && record.getYear() != year) {
+                continue;
+            }
+            record.setSalesmanId(salesmanId);
+            BsonValue id = element.get("_id");
+            entries.add(id != null && id.isObjectId()
+                    ? new Entry(container.get("_id"), id.asObjectId().getValue(), true, element, record)
+                    : new Entry(container.get("_id"), positionId(salesmanId, position), false, element, record));
+        }
+    }
+
+    // stand-in id of an element without _id: lower than every real ObjectId, later elements are higher,
+    // unique over all salesmen (a migration stores it as the real _id)
+    private static ObjectId positionId(int salesmanId, int position) {
+        byte[] bytes = new byte[12];
+        bytes[4] = (byte) (salesmanId >>> 24);
+        bytes[5] = (byte) (salesmanId >>> 16);
+        bytes[6] = (byte) (salesmanId >>> 8);
+        bytes[7] = (byte) salesmanId;
+        bytes[8] = (byte) (position >>> 24);
+        bytes[9] = (byte) (position >>> 16);
+        bytes[10] = (byte) (position >>> 8);
+        bytes[11] = (byte) position;
+        return new ObjectId(bytes);
+    }
+
+    private static final class Entry {
+        private final BsonValue containerId;
+        private final ObjectId id;
+        // false if the id is a stand-in
+        private final boolean storedId;
+        private final BsonDocument element;
+        private final SocialPerformanceRecord record;
+        private final int year;
+
+        private Entry(BsonValue containerId, ObjectId id, boolean storedId, BsonDocument element,
+                      SocialPerformanceRecord record) {
+            this.containerId = containerId;
+            this.id = id;
+            this.storedId = storedId;
+            this.element = element;
+            this.record = record;
+            this.year = record.getYear();
+        }
+    }
+}
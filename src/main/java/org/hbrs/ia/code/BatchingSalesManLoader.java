@@ -0,0 +1,180 @@
+package org.hbrs.ia.code;
+
+import org.hbrs.ia.model.SalesMan;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Coalesces concurrent readSalesMan calls: all sids requested within the batching window
+ * (or until maxBatchSize sids are collected) are read with one readSalesMen ($in) query.
+ * Concurrent requests for the same sid share one future.
+ */
+public class BatchingSalesManLoader implements AutoCloseable {
+
+    // upper bounds of the batch size histogram buckets, the last bucket is unbounded
+    private static final int[] BUCKET_BOUNDS = {1, 4, 16, 64, 256, Integer.MAX_VALUE};
+
+    private final ManagePersonal manager;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final ScheduledExecutorService scheduler;
+
+    private final Object lock = new Object();
+    // requests of the batch that is currently collected, guarded by lock
+    private Map<Integer, CompletableFuture<SalesMan>> pending = new HashMap<>();
+
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder loadedKeys = new LongAdder();
+    private final AtomicInteger largestBatch = new AtomicInteger();
+    private final LongAdder[] batchSizeHistogram = new LongAdder[BUCKET_BOUNDS.length];
+
+    public BatchingSalesManLoader(ManagePersonal manager, Duration window, int maxBatchSize, int threads) {
+        if (manager == null) {
+            throw new IllegalArgumentException("Manager cannot be null");
+        }
+        if (maxBatchSize < 1 || threads < 1) {
+            throw new IllegalArgumentException("Batch size and threads must be at least 1");
+        }
+        this.manager = manager;
+        this.windowNanos = window.toNanos();
+        this.maxBatchSize = maxBatchSize;
+        this.scheduler = Executors.newScheduledThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "salesman-batch-loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < batchSizeHistogram.length; i++) {
+            batchSizeHistogram[i] = new LongAdder();
+        }
+    }
+
+    // queue the sid for the current batch
+    public CompletableFuture<SalesMan> load(int sid) {
+        synchronized (lock) {
+            if (scheduler.isShutdown()) {
+                throw new IllegalStateException("Loader is closed");
+            }
+            CompletableFuture<SalesMan> future = pending.get(sid);
+            if (future != null) {
+                return future;
+            }
+
+            future = new CompletableFuture<>();
+            pending.put(sid, future);
+            Map<Integer, CompletableFuture<SalesMan>> batch = pending;
+            if (batch.size() >= maxBatchSize) {
+                pending = new HashMap<>();
+                scheduler.execute(() -> dispatch(batch));
+            } else if (batch.size() == 1) {
+                // first request of a new batch opens the window
+                scheduler.schedule(() -> dispatchIfCurrent(batch), windowNanos, TimeUnit.NANOSECONDS);
+            }
+            return future;
+        }
+    }
+
+    // blocking variant of load, drop-in replacement for ManagePersonal.readSalesMan
+    public SalesMan readSalesMan(int sid) {
+        try {
+            return load(sid).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private void dispatchIfCurrent(Map<Integer, CompletableFuture<SalesMan>> batch) {
+        synchronized (lock) {
+            // the batch may already have been sent because it was full
+            if (pending != batch) {
+                return;
+            }
+            pending = new HashMap<>();
+        }
+        dispatch(batch);
+    }
+
+    private void dispatch(Map<Integer, CompletableFuture<SalesMan>> batch) {
+        recordBatch(batch.size());
+        try {
+            Map<Integer, SalesMan> salesMen = manager.readSalesMen(batch.keySet());
+            for (Map.Entry<Integer, CompletableFuture<SalesMan>> request : batch.entrySet()) {
+                request.getValue().complete(salesMen.get(request.getKey()));
+            }
+        } catch (Throwable e) {
+            for (CompletableFuture<SalesMan> future : batch.values()) {
+                future.completeExceptionally(e);
+            }
+        }
+    }
+
+    private void recordBatch(int size) {
+        batches.increment();
+        loadedKeys.add(size);
+        largestBatch.accumulateAndGet(size, Math::max);
+        for (int i = 0; i < BUCKET_BOUNDS.length; i++) {
+            if (size <= BUCKET_BOUNDS[i]) {
+                batchSizeHistogram[i].increment();
+                break;
+            }
+        }
+    }
+
+    public long getBatchCount() {
+        return batches.sum();
+    }
+
+    public long getLoadedKeyCount() {
+        return loadedKeys.sum();
+    }
+
+    public double getAverageBatchSize() {
+        long count = batches.sum();
+        return count == 0 ? 0 : (double) loadedKeys.sum() / count;
+    }
+
+    public int getLargestBatchSize() {
+        return largestBatch.get();
+    }
+
+    // number of batches per size bucket: 1, 2-4, 5-16, 17-64, 65-256, more than 256
+    public long[] getBatchSizeHistogram() {
+        long[] histogram = new long[batchSizeHistogram.length];
+        for (int i = 0; i < histogram.length; i++) {
+            histogram[i] = batchSizeHistogram[i].sum();
+        }
+        return histogram;
+    }
+
+    public String toString() {
+        return "batches: " + getBatchCount() + "\n" +
+                "loaded sids: " + getLoadedKeyCount() + "\n" +
+                "average batch size: " + getAverageBatchSize() + "\n" +
+                "largest batch: " + getLargestBatchSize() + "\n";
+    }
+
+    // sends the batch that is still collected and stops the loader threads, later loads are rejected
+    @Override
+    public void close() {
+        Map<Integer, CompletableFuture<SalesMan>> batch;
+        synchronized (lock) {
+            batch = pending;
+            pending = new HashMap<>();
+            scheduler.shutdown();
+        }
+        if (!batch.isEmpty()) {
+            dispatch(batch);
+        }
+    }
+}
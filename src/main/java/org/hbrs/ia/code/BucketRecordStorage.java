@@ -0,0 +1,154 @@
+package org.hbrs.ia.code;
+
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.hbrs.ia.model.SocialPerformanceRecord;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * RecordLayout.BUCKET: the performanceBuckets collection, one document per salesman holding at most
+ * bucketSize records with their count and year range. A record is pushed into the open bucket of its
+ * salesman (count < bucketSize) or upserts a new one, so a write rewrites at most one bucket and a read
+ * fetches about records / bucketSize documents. Reads of one year skip buckets outside the year range.
+ */
+class BucketRecordStorage extends ArrayRecordStorage {
+
+    static final String COLLECTION = "performanceBuckets";
+
+    private static final UpdateOptions INSERT_OPTIONS = new UpdateOptions().upsert(true);
+
+    private final int bucketSize;
+
+    BucketRecordStorage(MongoDatabase database, int bucketSize, QueryPlanGuard queryPlanGuard, long maxTimeMillis) {
+        super(database, COLLECTION, "salesmanId", "records", queryPlanGuard, maxTimeMillis);
+        if (bucketSize < 1) {
+            throw new IllegalArgumentException("Bucket size must be at least 1");
+        }
+        this.bucketSize = bucketSize;
+    }
+
+    @Override
+    public RecordLayout getLayout() {
+        return RecordLayout.BUCKET;
+    }
+
+    // equality on salesmanId for the reads, range on count finds the open bucket
+    @Override
+    public void ensureIndexes() {
+        collection.createIndex(Indexes.ascending("salesmanId", "count"),
+                new IndexOptions().name("salesmanId_count"));
+    }
+
+    @Override
+    Bson yearFilter(int year) {
+        return Filters.and(Filters.lte("minYear", year), Filters.gte("maxYear", year));
+    }
+
+    @Override
+    Bson insertFilter(SocialPerformanceRecord record) {
+        return Filters.and(Filters.eq("salesmanId", record.getSalesmanId()), Filters.lt("count", bucketSize));
+    }
+
+    // a new bucket gets salesmanId from the filter and starts with count 1
+    @Override
+    Bson insertUpdate(SocialPerformanceRecord record, Document recordDocument) {
+        return Updates.combine(
+                Updates.push("records", recordDocument),
+                Updates.inc("count", 1),
+                Updates.min("minYear", record.getYear()),
+                Updates.max("maxYear", record.getYear()));
+    }
+
+    @Override
+    UpdateOptions insertOptions() {
+        return INSERT_OPTIONS;
+    }
+
+    // the year range may become wider than the remaining records, it only has to contain them.
+    // Only applied to a bucket that still holds the element (see deleteLast), so count stays exact
+    @Override
+    Bson removeUpdate(Bson condition) {
+        return Updates.combine(Updates.pull("records", condition), Updates.inc("count", -1));
+    }
+
+    // $filter instead of $pull, so count is recomputed in the same update; empty buckets are removed
+    @Override
+    void removeYear(int salesmanId, int year) {
+        Bson buckets = Filters.and(Filters.eq("salesmanId", salesmanId), yearFilter(year));
+        collection.updateMany(buckets, Arrays.asList(
+                new Document("$set", new Document("records", new Document("$filter", new Document("input", "$records")
+                        .append("cond", new Document("$ne", Arrays.asList("$$this.year", year)))))),
+                new Document("$set", new Document("count", new Document("$size", "$records")))));
+        removeEmptyBuckets(salesmanId);
+    }
+
+    @Override
+    public int deleteLast(int salesmanId) {
+        int deleted = super.deleteLast(salesmanId);
+        if (deleted > 0) {
+            removeEmptyBuckets(salesmanId);
+        }
+        return deleted;
+    }
+
+    private void removeEmptyBuckets(int salesmanId) {
+        collection.deleteMany(Filters.and(Filters.eq("salesmanId", salesmanId), Filters.lte("count", 0)));
+    }
+
+    // new full buckets per salesman, the last one stays open for later records
+    @Override
+    public void insertDocuments(List<Document> records) {
+        Map<Integer, List<Document>> recordsBySid = new LinkedHashMap<>();
+        for (Document record : records) {
+            recordsBySid.computeIfAbsent(record.getInteger("salesmanId"), sid -> new ArrayList<>()).add(record);
+        }
+        List<Document> buckets = new ArrayList<>();
+        for (Map.Entry<Integer, List<Document>> entry : recordsBySid.entrySet()) {
+            List<Document> salesManRecords = entry.getValue();
+            for (int from = 0; from < salesManRecords.size(); from += bucketSize) {
+                List<Document> bucket = salesManRecords.subList(from,
+                        Math.min(salesManRecords.size(), from + bucketSize));
+                int minYear = Integer.MAX_VALUE;
+                int maxYear = Integer.MIN_VALUE;
+                for (Document record : bucket) {
+                    minYear = Math.min(minYear, record.getInteger("year"));
+                    maxYear = Math.max(maxYear, record.getInteger("year"));
+                }
+                buckets.add(new Document("salesmanId", entry.getKey())
+                        .append("count", bucket.size())
+                        .append("minYear", minYear)
+                        .append("maxYear", maxYear)
+                        .append("records", new ArrayList<>(bucket)));
+            }
+        }
+        if (!buckets.isEmpty()) {
+            collection.withDocumentClass(Document.class).insertMany(buckets, new InsertManyOptions().ordered(false));
+        }
+    }
+
+    @Override
+    public void deleteAll(List<Integer> salesmanIds) {
+        collection.deleteMany(Filters.in("salesmanId", salesmanIds));
+    }
+
+    @Override
+    Object recordRoot() {
+        return "$records";
+    }
+
+    int getBucketSize() {
+        return bucketSize;
+    }
+}
@@ -0,0 +1,113 @@
+package org.hbrs.ia.code;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoException;
+import com.mongodb.bulk.BulkWriteError;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Outcome of a batch operation: how many items were requested, how many were
+ * written and which items failed (with the server error code and message).
+ */
+public class BulkWriteReport<T> {
+
+    private int requestedCount;
+    private int succeededCount;
+    private final List<Failure<T>> failures = new ArrayList<>();
+
+    public int getRequestedCount() {
+        return requestedCount;
+    }
+
+    public int getSucceededCount() {
+        return succeededCount;
+    }
+
+    public List<Failure<T>> getFailures() {
+        return Collections.unmodifiableList(failures);
+    }
+
+    public boolean hasFailures() {
+        return !failures.isEmpty();
+    }
+
+    void addRequested(int count) {
+        this.requestedCount += count;
+    }
+
+    void addSucceeded(int count) {
+        this.succeededCount += count;
+    }
+
+    void addFailure(T item, int code, String message) {
+        failures.add(new Failure<>(item, code, message));
+    }
+
+    // adds the outcome of one unordered bulk write of the chunk (error null = everything written)
+    // and returns the indexes of the chunk items that failed
+    Set<Integer> addChunk(List<T> chunk, MongoException error) {
+        addRequested(chunk.size());
+        Set<Integer> failedIndexes = new HashSet<>();
+
+        if (error == null) {
+            addSucceeded(chunk.size());
+        } else if (error instanceof MongoBulkWriteException) {
+            MongoBulkWriteException bulkError = (MongoBulkWriteException) error;
+            List<BulkWriteError> writeErrors = bulkError.getWriteErrors();
+            for (BulkWriteError writeError : writeErrors) {
+                failedIndexes.add(writeError.getIndex());
+                addFailure(chunk.get(writeError.getIndex()), writeError.getCode(), writeError.getMessage());
+            }
+            addSucceeded(chunk.size() - writeErrors.size());
+        } else {
+            // the outcome of the chunk is unknown, so every item of it is reported
+            for (int i = 0; i < chunk.size(); i++) {
+                failedIndexes.add(i);
+                addFailure(chunk.get(i), error.getCode(), error.getMessage());
+            }
+        }
+        return failedIndexes;
+    }
+
+    public String toString() {
+        return "requested: " + requestedCount + "\n" +
+                "succeeded: " + succeededCount + "\n" +
+                "failed: " + failures.size() + "\n";
+    }
+
+    /**
+     * A single item that could not be written.
+     */
+    public static class Failure<T> {
+        private final T item;
+        private final int code;
+        private final String message;
+
+        Failure(T item, int code, String message) {
+            this.item = item;
+            this.code = code;
+            this.message = message;
+        }
+
+        public T getItem() {
+            return item;
+        }
+
+        public int getCode() {
+            return code;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public String toString() {
+            return "code: " + code + ", message: " + message;
+        }
+    }
+}
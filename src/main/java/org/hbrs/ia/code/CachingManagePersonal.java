@@ -0,0 +1,374 @@
+package org.hbrs.ia.code;
+
+import org.hbrs.ia.model.PerformanceStatistics;
+import org.hbrs.ia.model.SalesMan;
+import org.hbrs.ia.model.SalesManView;
+import org.hbrs.ia.model.SocialPerformanceRecord;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Read-through cache for readSalesMan in front of another ManagePersonal (decorator).
+ * The cache is bounded (least recently used salesman is evicted first) and entries expire
+ * after the time to live. All salesman writes going through this object invalidate it.
+ * Concurrent misses for the same sid share a single readSalesMan call on the delegate.
+ */
+public class CachingManagePersonal implements ManagePersonal {
+
+    private final ManagePersonal delegate;
+    private final int maximumSize;
+    private final long timeToLiveNanos;
+
+    // access ordered, guarded by itself
+    private final LinkedHashMap<Integer, CacheEntry> entries;
+    // misses that are currently loaded from the delegate, an invalidation removes the entry,
+    // so a read starting after a write never joins a load that began before it
+    private final ConcurrentHashMap<Integer, CompletableFuture<SalesMan>> loading = new ConcurrentHashMap<>();
+    // incremented on every invalidation, a load that raced with a write is not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    // timeToLive of Duration.ZERO keeps entries until they are evicted or invalidated
+    public CachingManagePersonal(ManagePersonal delegate, int maximumSize, Duration timeToLive) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("Delegate cannot be null");
+        }
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("Maximum size must be at least 1");
+        }
+        this.delegate = delegate;
+        this.maximumSize = maximumSize;
+        this.timeToLiveNanos = timeToLive.toNanos();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, CacheEntry> eldest) {
+                if (size() > CachingManagePersonal.this.maximumSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    // read a SalesMan by sid, from the cache if present
+    @Override
+    public SalesMan readSalesMan(int sid) {
+        synchronized (entries) {
+            CacheEntry entry = entries.get(sid);
+            if (entry != null) {
+                if (!entry.isExpired()) {
+                    hits.increment();
+                    return copy(entry.salesMan);
+                }
+                entries.remove(sid);
+                evictions.increment();
+            }
+        }
+        misses.increment();
+
+        CompletableFuture<SalesMan> load = new CompletableFuture<>();
+        CompletableFuture<SalesMan> running = loading.putIfAbsent(sid, load);
+        if (running != null) {
+            return copy(join(running));
+        }
+
+        long loadGeneration = generation.get();
+        try {
+            SalesMan salesMan = delegate.readSalesMan(sid);
+            if (salesMan != null) {
+                synchronized (entries) {
+                    if (generation.get() == loadGeneration) {
+                        entries.put(sid, new CacheEntry(salesMan, System.nanoTime() + timeToLiveNanos));
+                    }
+                }
+            }
+            load.complete(salesMan);
+            return copy(salesMan);
+        } catch (Throwable e) {
+            // waiting readers get the same exception
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(sid, load);
+        }
+    }
+
+    // only the header is cached, the other views are always read from the delegate
+    @Override
+    public SalesMan readSalesMan(int sid, SalesManView view) {
+        return view == SalesManView.HEADER ? readSalesMan(sid) : delegate.readSalesMan(sid, view);
+    }
+
+    @Override
+    public Map<Integer, SalesMan> readSalesMen(Collection<Integer> sids, SalesManView view) {
+        return view == SalesManView.HEADER ? readSalesMen(sids) : delegate.readSalesMen(sids, view);
+    }
+
+    // cached salesmen are served from the cache, all others are read with one readSalesMen call
+    @Override
+    public Map<Integer, SalesMan> readSalesMen(Collection<Integer> sids) {
+        if (sids == null) {
+            return delegate.readSalesMen(sids);
+        }
+        Map<Integer, SalesMan> salesMen = new HashMap<>();
+        List<Integer> missing = new ArrayList<>();
+        synchronized (entries) {
+            for (Integer sid : sids) {
+                CacheEntry entry = entries.get(sid);
+                if (entry != null && !entry.isExpired()) {
+                    hits.increment();
+                    salesMen.put(sid, copy(entry.salesMan));
+                } else {
+                    if (entry != null) {
+                        entries.remove(sid);
+                        evictions.increment();
+                    }
+                    misses.increment();
+                    missing.add(sid);
+                }
+            }
+        }
+        if (missing.isEmpty()) {
+            return salesMen;
+        }
+
+        long loadGeneration = generation.get();
+        Map<Integer, SalesMan> loaded = delegate.readSalesMen(missing);
+        long expiresAt = System.nanoTime() + timeToLiveNanos;
+        synchronized (entries) {
+            if (generation.get() == loadGeneration) {
+                for (Map.Entry<Integer, SalesMan> entry : loaded.entrySet()) {
+                    entries.put(entry.getKey(), new CacheEntry(entry.getValue(), expiresAt));
+                }
+            }
+        }
+        for (Map.Entry<Integer, SalesMan> entry : loaded.entrySet()) {
+            salesMen.put(entry.getKey(), copy(entry.getValue()));
+        }
+        return salesMen;
+    }
+
+    public void invalidate(int sid) {
+        synchronized (entries) {
+            generation.incrementAndGet();
+            entries.remove(sid);
+            loading.remove(sid);
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            generation.incrementAndGet();
+            entries.clear();
+            loading.clear();
+        }
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public String toString() {
+        return "hits: " + getHitCount() + "\n" +
+                "misses: " + getMissCount() + "\n" +
+                "evictions: " + getEvictionCount() + "\n" +
+                "size: " + size() + "\n";
+    }
+
+    @Override
+    public void createSalesMan(SalesMan record) {
+        delegate.createSalesMan(record);
+        invalidate(record.getId());
+    }
+
+    @Override
+    public BulkWriteReport<SalesMan> createSalesMen(Collection<SalesMan> records) {
+        BulkWriteReport<SalesMan> report = delegate.createSalesMen(records);
+        if (records != null) {
+            for (SalesMan record : records) {
+                invalidate(record.getId());
+            }
+        }
+        return report;
+    }
+
+    @Override
+    public List<SalesMan> readAllSalesMen() {
+        return delegate.readAllSalesMen();
+    }
+
+    @Override
+    public List<SalesMan> readAllSalesMen(SalesManView view) {
+        return delegate.readAllSalesMen(view);
+    }
+
+    @Override
+    public Stream<SalesMan> streamAllSalesMen() {
+        return delegate.streamAllSalesMen();
+    }
+
+    @Override
+    public Page<SalesMan> readSalesMenPage(Integer afterSid, int limit) {
+        return delegate.readSalesMenPage(afterSid, limit);
+    }
+
+    @Override
+    public List<SocialPerformanceRecord> readSocialPerformanceRecord(SalesMan salesMan) {
+        return delegate.readSocialPerformanceRecord(salesMan);
+    }
+
+    @Override
+    public List<SocialPerformanceRecord> readByYearSocialPerformanceRecord(SalesMan salesMan, Integer year) {
+        return delegate.readByYearSocialPerformanceRecord(salesMan, year);
+    }
+
+    @Override
+    public SocialPerformanceRecord readLastSocialPerformanceRecord(SalesMan salesMan) {
+        return delegate.readLastSocialPerformanceRecord(salesMan);
+    }
+
+    @Override
+    public Page<SocialPerformanceRecord> readSocialPerformanceRecordsPage(SalesMan salesMan, Integer afterYear,
+                                                                         String afterId, int limit) {
+        return delegate.readSocialPerformanceRecordsPage(salesMan, afterYear, afterId, limit);
+    }
+
+    @Override
+    public List<PerformanceStatistics> readPerformanceStatisticsPerYear() {
+        return delegate.readPerformanceStatisticsPerYear();
+    }
+
+    @Override
+    public List<PerformanceStatistics> readPerformanceStatisticsPerYear(SalesMan salesMan) {
+        return delegate.readPerformanceStatisticsPerYear(salesMan);
+    }
+
+    @Override
+    public List<PerformanceStatistics> readPerformanceStatisticsPerSalesMan(Integer year) {
+        return delegate.readPerformanceStatisticsPerSalesMan(year);
+    }
+
+    @Override
+    public PerformanceStatistics readCompanyPerformanceStatistics(Integer year) {
+        return delegate.readCompanyPerformanceStatistics(year);
+    }
+
+    @Override
+    public void updateSalesMan(SalesMan record) {
+        delegate.updateSalesMan(record);
+        invalidate(record.getId());
+    }
+
+    @Override
+    public BulkWriteReport<SalesMan> updateSalesMen(Collection<SalesMan> records) {
+        BulkWriteReport<SalesMan> report = delegate.updateSalesMen(records);
+        if (records != null) {
+            for (SalesMan record : records) {
+                invalidate(record.getId());
+            }
+        }
+        return report;
+    }
+
+    @Override
+    public void addSocialPerformanceRecord(SocialPerformanceRecord record, SalesMan salesMan) {
+        delegate.addSocialPerformanceRecord(record, salesMan);
+    }
+
+    @Override
+    public BulkWriteReport<SocialPerformanceRecord> addSocialPerformanceRecords(
+            Map<SalesMan, List<SocialPerformanceRecord>> records) {
+        return delegate.addSocialPerformanceRecords(records);
+    }
+
+    @Override
+    public void deleteSalesMan(int sid) {
+        delegate.deleteSalesMan(sid);
+        invalidate(sid);
+    }
+
+    @Override
+    public void deleteAllSalesMan() {
+        delegate.deleteAllSalesMan();
+        invalidateAll();
+    }
+
+    @Override
+    public void deleteByYearSocialPerformanceRecord(SalesMan salesMan, int year) {
+        delegate.deleteByYearSocialPerformanceRecord(salesMan, year);
+    }
+
+    @Override
+    public void deleteLastSocialPerformanceRecord(SalesMan salesMan) {
+        delegate.deleteLastSocialPerformanceRecord(salesMan);
+    }
+
+    @Override
+    public void close() {
+        invalidateAll();
+        delegate.close();
+    }
+
+    // callers get their own copy, so changing it does not change the cached salesman
+    private static SalesMan copy(SalesMan salesMan) {
+        if (salesMan == null) {
+            return null;
+        }
+        return new SalesMan(salesMan.getFirstname(), salesMan.getLastname(), salesMan.getId());
+    }
+
+    private static SalesMan join(CompletableFuture<SalesMan> load) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private final class CacheEntry {
+        private final SalesMan salesMan;
+        private final long expiresAtNanos;
+
+        private CacheEntry(SalesMan salesMan, long expiresAtNanos) {
+            this.salesMan = salesMan;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+
+        private boolean isExpired() {
+            return timeToLiveNanos > 0 && System.nanoTime() - expiresAtNanos > 0;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package org.hbrs.ia.code;
+
+import com.mongodb.ReadConcern;
+import com.mongodb.WriteConcern;
+import com.mongodb.client.MongoDatabase;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Named durability / consistency guarantees of ManagePersonalImpl, for the whole manager or per operation
+ * (MongoConnectionSettings.setConsistencyProfile, ManagePersonalImpl.setConsistencyProfile,
+ *  ManagePersonalReactiveImpl for the whole manager only).
+ *   FAST_INGEST: w:1 without waiting for the journal, local reads. For imports that are simply
+ *                repeated if the primary crashes: an acknowledged write may still be lost.
+ *   DEFAULT:     the write / read concern of the MongoClient (connection string), no timeouts.
+ *   DURABLE:     w:majority with journal, majority reads and 5 s timeouts (replica acknowledgement,
+ *                reads of single salesmen). An acknowledged write survives a failover,
+ *                a read never returns data that could be rolled back.
+ * Reads always go to the primary, the profiles only change what is acknowledged and returned.
+ */
+public enum ConsistencyProfile {
+
+    FAST_INGEST(WriteConcern.W1.withJournal(false), ReadConcern.LOCAL, 0, 0),
+    DEFAULT(null, null, 0, 0),
+    DURABLE(WriteConcern.MAJORITY.withJournal(true), ReadConcern.MAJORITY, 5_000, 5_000);
+
+    // null = the concern of the MongoClient
+    private final WriteConcern writeConcern;
+    private final ReadConcern readConcern;
+    // how long a write waits for the acknowledgement of the replicas (wtimeout), 0 = no limit
+    private final long writeTimeoutMillis;
+    // server side limit of a read of single salesmen / pages (maxTimeMS), 0 = no limit.
+    // Full scans (streams, statistics, record blocks) are not limited.
+    private final long maxTimeMillis;
+
+    ConsistencyProfile(WriteConcern writeConcern, ReadConcern readConcern, long writeTimeoutMillis,
+                       long maxTimeMillis) {
+        this.writeConcern = writeConcern == null || writeTimeoutMillis == 0
+                ? writeConcern : writeConcern.withWTimeout(writeTimeoutMillis, TimeUnit.MILLISECONDS);
+        this.readConcern = readConcern;
+        this.writeTimeoutMillis = writeTimeoutMillis;
+        this.maxTimeMillis = maxTimeMillis;
+    }
+
+    public WriteConcern getWriteConcern() {
+        return writeConcern;
+    }
+
+    public ReadConcern getReadConcern() {
+        return readConcern;
+    }
+
+    public long getWriteTimeoutMillis() {
+        return writeTimeoutMillis;
+    }
+
+    public long getMaxTimeMillis() {
+        return maxTimeMillis;
+    }
+
+    // the collections of the returned database inherit the concerns
+    MongoDatabase apply(MongoDatabase database) {
+        MongoDatabase applied = database;
+        if (writeConcern != null) {
+            applied = applied.withWriteConcern(writeConcern);
+        }
+        if (readConcern != null) {
+            applied = applied.withReadConcern(readConcern);
+        }
+        return applied;
+    }
+}
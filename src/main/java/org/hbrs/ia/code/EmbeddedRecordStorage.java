@@ -0,0 +1,149 @@
+package org.hbrs.ia.code;
+
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.conversions.Bson;
+import org.hbrs.ia.model.SocialPerformanceRecord;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * RecordLayout.EMBEDDED: the performanceRecords array inside the salesman document.
+ * A FULL read gets the records with the salesman in one round trip, but every added record
+ * rewrites the whole (growing) salesman document and a salesman is limited to 16 MB of records.
+ * Records can only be added to existing salesmen and are deleted together with them.
+ */
+class EmbeddedRecordStorage extends ArrayRecordStorage {
+
+    private static final UpdateOptions INSERT_OPTIONS = new UpdateOptions();
+
+    EmbeddedRecordStorage(MongoDatabase database, QueryPlanGuard queryPlanGuard, long maxTimeMillis) {
+        super(database, "salesmen", "sid", "performanceRecords", queryPlanGuard, maxTimeMillis);
+    }
+
+    @Override
+    public RecordLayout getLayout() {
+        return RecordLayout.EMBEDDED;
+    }
+
+    // the sid_unique index of the salesmen is all the layout needs
+    @Override
+    public void ensureIndexes() {
+    }
+
+    // records of unknown salesmen would be dropped silently by the $push, so they are reported as failed
+    @Override
+    public Set<Integer> insertChunk(List<SocialPerformanceRecord> chunk,
+                                    BulkWriteReport<SocialPerformanceRecord> report) {
+        Set<Integer> sids = new HashSet<>();
+        for (SocialPerformanceRecord record : chunk) {
+            sids.add(record.getSalesmanId());
+        }
+        Set<Integer> knownSids = new HashSet<>();
+        for (RawBsonDocument salesMan : collection.find(Filters.in("sid", sids)).projection(
+                Projections.fields(Projections.include("sid"), Projections.excludeId()))) {
+            knownSids.add(salesMan.getNumber("sid").intValue());
+        }
+
+        List<SocialPerformanceRecord> known = new ArrayList<>(chunk.size());
+        List<Integer> knownIndexes = new ArrayList<>(chunk.size());
+        Set<Integer> failedIndexes = new HashSet<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            SocialPerformanceRecord record = chunk.get(i);
+            if (knownSids.contains(record.getSalesmanId())) {
+                known.add(record);
+                knownIndexes.add(i);
+            } else {
+                report.addRequested(1);
+                report.addFailure(record, 0, "No salesman with sid " + record.getSalesmanId());
+                failedIndexes.add(i);
+            }
+        }
+        if (!known.isEmpty()) {
+            for (int index : super.insertChunk(known, report)) {
+                failedIndexes.add(knownIndexes.get(index));
+            }
+        }
+        return failedIndexes;
+    }
+
+    @Override
+    Bson yearFilter(int year) {
+        return Filters.eq("performanceRecords.year", year);
+    }
+
+    @Override
+    Bson insertFilter(SocialPerformanceRecord record) {
+        return Filters.eq("sid", record.getSalesmanId());
+    }
+
+    @Override
+    Bson insertUpdate(SocialPerformanceRecord record, Document recordDocument) {
+        return Updates.push("performanceRecords", recordDocument);
+    }
+
+    @Override
+    UpdateOptions insertOptions() {
+        return INSERT_OPTIONS;
+    }
+
+    @Override
+    Bson removeUpdate(Bson condition) {
+        return Updates.pull("performanceRecords", condition);
+    }
+
+    @Override
+    void removeYear(int salesmanId, int year) {
+        collection.updateOne(Filters.eq("sid", salesmanId),
+                Updates.pull("performanceRecords", new Document("year", year)));
+    }
+
+    // the records of old documents may leave out the salesmanId, the sid of the salesman is used instead
+    @Override
+    Object recordRoot() {
+        return new Document("$mergeObjects", Arrays.asList("$performanceRecords", new Document("salesmanId", "$sid")));
+    }
+
+    // the records are part of the FULL projection of the salesman, nothing to fetch
+    @Override
+    public Map<Integer, List<SocialPerformanceRecord>> findAll(List<Integer> salesmanIds) {
+        return Collections.emptyMap();
+    }
+
+    // one $push per salesman, the records keep their order
+    @Override
+    public void insertDocuments(List<Document> records) {
+        Map<Integer, List<Document>> recordsBySid = new LinkedHashMap<>();
+        for (Document record : records) {
+            recordsBySid.computeIfAbsent(record.getInteger("salesmanId"), sid -> new ArrayList<>()).add(record);
+        }
+        List<WriteModel<RawBsonDocument>> models = new ArrayList<>(recordsBySid.size());
+        for (Map.Entry<Integer, List<Document>> entry : recordsBySid.entrySet()) {
+            models.add(new UpdateOneModel<>(Filters.eq("sid", entry.getKey()),
+                    Updates.pushEach("performanceRecords", entry.getValue())));
+        }
+        if (!models.isEmpty()) {
+            collection.bulkWrite(models, new BulkWriteOptions().ordered(false));
+        }
+    }
+
+    @Override
+    public void deleteAll(List<Integer> salesmanIds) {
+        collection.updateMany(Filters.in("sid", salesmanIds), Updates.unset("performanceRecords"));
+    }
+}
@@ -0,0 +1,696 @@
+package org.hbrs.ia.code;
+
+import org.hbrs.ia.model.PackedPerformanceRecord;
+import org.hbrs.ia.model.PerformanceCriterion;
+import org.hbrs.ia.model.PerformanceStatistics;
+import org.hbrs.ia.model.SalesMan;
+import org.hbrs.ia.model.SalesManView;
+import org.hbrs.ia.model.SocialPerformanceRecord;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * ManagePersonal kept completely in memory, for load tests and nodes without a mongod.
+ * Salesmen and records are split over lock stripes by sid; every stripe has a read/write lock
+ * and two int-keyed maps (salesman headers and record lists), so readers of different or the same
+ * stripe never block each other and writers only block their own stripe.
+ * Records are stored packed (see PackedPerformanceRecord) and sorted by year per salesman.
+ *
+ * Behaves like ManagePersonalImpl: records live independently of the salesman (deleting a
+ * salesman keeps its records), same-year records are ordered by insertion, every read returns
+ * new objects and a duplicate sid is rejected (code 11000 in batch reports, like the unique index).
+ */
+public class InMemoryManagePersonal implements ManagePersonal {
+
+    static final int DUPLICATE_KEY_CODE = 11000;
+    private static final int DEFAULT_STRIPES = 64;
+    private static final int MAX_STRIPES = 1 << 16;
+    private static final PerformanceCriterion[] CRITERIA = PerformanceCriterion.values();
+
+    private final Stripe[] stripes;
+    private final int stripeMask;
+    // record ids for the pagination, increasing in insertion order
+    private final AtomicLong nextRecordId = new AtomicLong();
+
+    public InMemoryManagePersonal() {
+        this(DEFAULT_STRIPES);
+    }
+
+    // stripes is rounded up to a power of two
+    public InMemoryManagePersonal(int stripes) {
+        if (stripes < 1 || stripes > MAX_STRIPES) {
+            throw new IllegalArgumentException("Stripes must be between 1 and " + MAX_STRIPES);
+        }
+        int count = 1;
+        while (count < stripes) {
+            count <<= 1;
+        }
+        this.stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            this.stripes[i] = new Stripe();
+        }
+        this.stripeMask = count - 1;
+    }
+
+    /** Create **/
+    @Override
+    public void createSalesMan(SalesMan salesMan) {
+        if (!insert(salesMan)) {
+            throw new IllegalStateException("Duplicate key error: sid " + salesMan.getId() + " already exists");
+        }
+    }
+
+    // every salesman is inserted on its own, duplicates are reported like the unique sid index does
+    @Override
+    public BulkWriteReport<SalesMan> createSalesMen(Collection<SalesMan> salesMen) {
+        BulkWriteReport<SalesMan> report = new BulkWriteReport<>();
+        if (salesMen == null || salesMen.isEmpty()) {
+            return report;
+        }
+        report.addRequested(salesMen.size());
+        int succeeded = 0;
+        for (SalesMan salesMan : salesMen) {
+            if (insert(salesMan)) {
+                succeeded++;
+            } else {
+                report.addFailure(salesMan, DUPLICATE_KEY_CODE,
+                        "Duplicate key error: sid " + salesMan.getId() + " already exists");
+            }
+        }
+        report.addSucceeded(succeeded);
+        return report;
+    }
+
+    private boolean insert(SalesMan salesMan) {
+        if (salesMan == null || salesMan.getId() == null) {
+            throw new IllegalArgumentException("SalesMan and its sid cannot be null");
+        }
+        int sid = salesMan.getId();
+        Stripe stripe = stripeOf(sid);
+        Lock lock = stripe.lock.writeLock();
+        lock.lock();
+        try {
+            if (stripe.salesmen.get(sid) != null) {
+                return false;
+            }
+            stripe.salesmen.put(sid, new Header(salesMan.getFirstname(), salesMan.getLastname()));
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Read **/
+    @Override
+    public SalesMan readSalesMan(int sid) {
+        return readSalesMan(sid, SalesManView.HEADER);
+    }
+
+    // header and records come from the same stripe, so the view is consistent
+    @Override
+    public SalesMan readSalesMan(int sid, SalesManView view) {
+        checkView(view);
+        Stripe stripe = stripeOf(sid);
+        Lock lock = stripe.lock.readLock();
+        lock.lock();
+        try {
+            Header header = stripe.salesmen.get(sid);
+            return header == null ? null : toSalesMan(stripe, sid, header, view);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // caller holds the lock of the stripe
+    private static SalesMan toSalesMan(Stripe stripe, int sid, Header header, SalesManView view) {
+        SalesMan salesMan = header.toSalesMan(sid);
+        if (view != SalesManView.HEADER) {
+            RecordList records = stripe.records.get(sid);
+            if (records != null && records.size > 0) {
+                salesMan.setLatestRecord(records.get(records.size - 1));
+                if (view == SalesManView.FULL) {
+                    salesMan.setRecords(records.read(null));
+                }
+            }
+        }
+        return salesMan;
+    }
+
+    private static void checkView(SalesManView view) {
+        if (view == null) {
+            throw new IllegalArgumentException("View cannot be null");
+        }
+    }
+
+    @Override
+    public Map<Integer, SalesMan> readSalesMen(Collection<Integer> sids) {
+        return readSalesMen(sids, SalesManView.HEADER);
+    }
+
+    @Override
+    public Map<Integer, SalesMan> readSalesMen(Collection<Integer> sids, SalesManView view) {
+        checkView(view);
+        Map<Integer, SalesMan> salesMen = new HashMap<>();
+        if (sids == null) {
+            return salesMen;
+        }
+        for (Integer sid : sids) {
+            if (sid != null) {
+                SalesMan salesMan = readSalesMan(sid, view);
+                if (salesMan != null) {
+                    salesMen.put(sid, salesMan);
+                }
+            }
+        }
+        return salesMen;
+    }
+
+    // ordered by sid; every stripe is read under its own lock, so this is not one atomic snapshot
+    @Override
+    public List<SalesMan> readAllSalesMen() {
+        return readAllSalesMen(SalesManView.HEADER);
+    }
+
+    @Override
+    public List<SalesMan> readAllSalesMen(SalesManView view) {
+        checkView(view);
+        List<SalesMan> salesMen = new ArrayList<>();
+        for (Stripe stripe : stripes) {
+            Lock lock = stripe.lock.readLock();
+            lock.lock();
+            try {
+                stripe.salesmen.forEach((sid, header) -> salesMen.add(toSalesMan(stripe, sid, header, view)));
+            } finally {
+                lock.unlock();
+            }
+        }
+        salesMen.sort(Comparator.comparing(SalesMan::getId));
+        return salesMen;
+    }
+
+    @Override
+    public Stream<SalesMan> streamAllSalesMen() {
+        return readAllSalesMen().stream();
+    }
+
+    // there is no sorted index over all stripes: every stripe is scanned once and only the
+    // limit + 1 smallest sids after afterSid are kept (max-heap), O(n log limit) per page
+    @Override
+    public Page<SalesMan> readSalesMenPage(Integer afterSid, int limit) {
+        Page.checkLimit(limit);
+        PriorityQueue<SalesMan> smallest = new PriorityQueue<>(limit + 1,
+                Comparator.comparing(SalesMan::getId).reversed());
+        for (Stripe stripe : stripes) {
+            Lock lock = stripe.lock.readLock();
+            lock.lock();
+            try {
+                stripe.salesmen.forEach((sid, header) -> {
+                    if ((afterSid == null || sid > afterSid)
+                            && (smallest.size() <= limit || sid < smallest.peek().getId())) {
+                        smallest.add(header.toSalesMan(sid));
+                        if (smallest.size() > limit + 1) {
+                            smallest.poll();
+                        }
+                    }
+                });
+            } finally {
+                lock.unlock();
+            }
+        }
+        List<SalesMan> salesMen = new ArrayList<>(smallest);
+        salesMen.sort(Comparator.comparing(SalesMan::getId));
+        return Page.of(salesMen, limit, SalesMan::getId, null);
+    }
+
+    @Override
+    public List<SocialPerformanceRecord> readSocialPerformanceRecord(SalesMan salesMan) {
+        return readByYearSocialPerformanceRecord(salesMan, null);
+    }
+
+    // newest year first, within a year the latest added record first
+    @Override
+    public List<SocialPerformanceRecord> readByYearSocialPerformanceRecord(SalesMan salesMan, Integer year) {
+        if (salesMan == null) {
+            return new ArrayList<>();
+        }
+        int sid = salesMan.getId();
+        Stripe stripe = stripeOf(sid);
+        Lock lock = stripe.lock.readLock();
+        lock.lock();
+        try {
+            RecordList records = stripe.records.get(sid);
+            return records == null ? new ArrayList<>() : records.read(year);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public SocialPerformanceRecord readLastSocialPerformanceRecord(SalesMan salesMan) {
+        if (salesMan == null) {
+            throw new IllegalArgumentException("SalesMan cannot be null");
+        }
+        int sid = salesMan.getId();
+        Stripe stripe = stripeOf(sid);
+        Lock lock = stripe.lock.readLock();
+        lock.lock();
+        try {
+            RecordList records = stripe.records.get(sid);
+            return records == null || records.size == 0 ? null : records.get(records.size - 1);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // record ids are the insertion sequence numbers as hex strings
+    @Override
+    public Page<SocialPerformanceRecord> readSocialPerformanceRecordsPage(SalesMan salesMan, Integer afterYear,
+                                                                         String afterId, int limit) {
+        if (salesMan == null) {
+            throw new IllegalArgumentException("SalesMan cannot be null");
+        }
+        if (afterYear == null && afterId != null) {
+            throw new IllegalArgumentException("afterId needs afterYear");
+        }
+        Page.checkLimit(limit);
+        long afterRecordId;
+        try {
+            afterRecordId = afterId == null ? 0 : Long.parseLong(afterId, 16);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid record id: " + afterId, e);
+        }
+
+        int sid = salesMan.getId();
+        Stripe stripe = stripeOf(sid);
+        Lock lock = stripe.lock.readLock();
+        lock.lock();
+        try {
+            RecordList records = stripe.records.get(sid);
+            List<SocialPerformanceRecord> page = new ArrayList<>();
+            List<String> ids = new ArrayList<>();
+            if (records != null) {
+                int index = afterYear == null ? records.size : records.indexOf(afterYear, afterRecordId);
+                for (int i = index - 1; i >= 0 && page.size() <= limit; i--) {
+                    page.add(records.get(i));
+                    ids.add(Long.toHexString(records.ids[i]));
+                }
+            }
+            return Page.of(page, limit, SocialPerformanceRecord::getYear, ids);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Statistics **/
+    @Override
+    public List<PerformanceStatistics> readPerformanceStatisticsPerYear() {
+        return aggregateStatistics(null, null, false, true);
+    }
+
+    @Override
+    public List<PerformanceStatistics> readPerformanceStatisticsPerYear(SalesMan salesMan) {
+        if (salesMan == null) {
+            throw new IllegalArgumentException("SalesMan cannot be null");
+        }
+        return aggregateStatistics(salesMan.getId(), null, true, true);
+    }
+
+    @Override
+    public List<PerformanceStatistics> readPerformanceStatisticsPerSalesMan(Integer year) {
+        return aggregateStatistics(null, year, true, year != null);
+    }
+
+    @Override
+    public PerformanceStatistics readCompanyPerformanceStatistics(Integer year) {
+        List<PerformanceStatistics> statistics = aggregateStatistics(null, year, false, year != null);
+        return statistics.isEmpty() ? new PerformanceStatistics(null, year, 0) : statistics.get(0);
+    }
+
+    // groups the records (optionally of one salesman / one year) by salesman and / or year,
+    // ordered like the $sort on the group _id of ManagePersonalImpl
+    private List<PerformanceStatistics> aggregateStatistics(Integer onlySalesmanId, Integer onlyYear,
+                                                            boolean bySalesman, boolean byYear) {
+        TreeMap<Long, StatisticsAccumulator> groups = new TreeMap<>();
+        Stripe[] scanned = onlySalesmanId == null ? stripes : new Stripe[]{stripeOf(onlySalesmanId)};
+        for (Stripe stripe : scanned) {
+            Lock lock = stripe.lock.readLock();
+            lock.lock();
+            try {
+                stripe.records.forEachValue(records -> {
+                    if (onlySalesmanId != null && records.salesmanId != onlySalesmanId) {
+                        return;
+                    }
+                    for (int i = 0; i < records.size; i++) {
+                        long packed = records.packed[i];
+                        int year = PackedPerformanceRecord.year(packed);
+                        if (onlyYear != null && year != onlyYear) {
+                            continue;
+                        }
+                        long key = ((bySalesman ? (long) records.salesmanId : 0L) << 32) | (byYear ? year : 0);
+                        groups.computeIfAbsent(key, k -> new StatisticsAccumulator(
+                                bySalesman ? records.salesmanId : null, byYear ? year : null))
+                                .add(packed);
+                    }
+                });
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        List<PerformanceStatistics> statistics = new ArrayList<>(groups.size());
+        for (StatisticsAccumulator accumulator : groups.values()) {
+            statistics.add(accumulator.toStatistics());
+        }
+        return statistics;
+    }
+
+    /** Update **/
+    // the changed fields replace the header, the changes stay dirty if the sid is unknown
+    @Override
+    public void updateSalesMan(SalesMan salesMan) {
+        if (salesMan == null || salesMan.getId() == null) {
+            throw new IllegalArgumentException("SalesMan and its sid cannot be null");
+        }
+        if (salesMan.isDirty() && update(salesMan)) {
+            salesMan.clearDirtyFields();
+        }
+    }
+
+    // like the unordered bulk write, unknown sids only fail themselves
+    @Override
+    public BulkWriteReport<SalesMan> updateSalesMen(Collection<SalesMan> salesMen) {
+        BulkWriteReport<SalesMan> report = new BulkWriteReport<>();
+        if (salesMen == null || salesMen.isEmpty()) {
+            return report;
+        }
+        report.addRequested(salesMen.size());
+        int succeeded = 0;
+        for (SalesMan salesMan : salesMen) {
+            if (salesMan == null || salesMan.getId() == null) {
+                throw new IllegalArgumentException("SalesMan and its sid cannot be null");
+            }
+            if (!salesMan.isDirty()) {
+                succeeded++;
+            } else if (update(salesMan)) {
+                salesMan.clearDirtyFields();
+                succeeded++;
+            } else {
+                report.addFailure(salesMan, 0, "No salesman with sid " + salesMan.getId());
+            }
+        }
+        report.addSucceeded(succeeded);
+        return report;
+    }
+
+    private boolean update(SalesMan salesMan) {
+        int sid = salesMan.getId();
+        Set<String> dirtyFields = salesMan.getDirtyFields();
+        Stripe stripe = stripeOf(sid);
+        Lock lock = stripe.lock.writeLock();
+        lock.lock();
+        try {
+            Header header = stripe.salesmen.get(sid);
+            if (header == null) {
+                return false;
+            }
+            stripe.salesmen.put(sid, new Header(
+                    dirtyFields.contains("firstname") ? salesMan.getFirstname() : header.firstname,
+                    dirtyFields.contains("lastname") ? salesMan.getLastname() : header.lastname));
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void addSocialPerformanceRecord(SocialPerformanceRecord record, SalesMan salesMan) {
+        int sid = salesMan.getId();
+        record.setSalesmanId(sid);
+        Stripe stripe = stripeOf(sid);
+        Lock lock = stripe.lock.writeLock();
+        lock.lock();
+        try {
+            recordsOf(stripe, sid).add(record.getPacked(), nextRecordId.incrementAndGet());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // records are already validated by their packed form, so every record is written
+    @Override
+    public BulkWriteReport<SocialPerformanceRecord> addSocialPerformanceRecords(
+            Map<SalesMan, List<SocialPerformanceRecord>> records) {
+        BulkWriteReport<SocialPerformanceRecord> report = new BulkWriteReport<>();
+        if (records == null || records.isEmpty()) {
+            return report;
+        }
+        for (Map.Entry<SalesMan, List<SocialPerformanceRecord>> entry : records.entrySet()) {
+            if (entry.getValue() == null || entry.getValue().isEmpty()) {
+                continue;
+            }
+            int sid = entry.getKey().getId();
+            Stripe stripe = stripeOf(sid);
+            Lock lock = stripe.lock.writeLock();
+            lock.lock();
+            try {
+                RecordList list = recordsOf(stripe, sid);
+                for (SocialPerformanceRecord record : entry.getValue()) {
+                    record.setSalesmanId(sid);
+                    list.add(record.getPacked(), nextRecordId.incrementAndGet());
+                }
+            } finally {
+                lock.unlock();
+            }
+            report.addRequested(entry.getValue().size());
+            report.addSucceeded(entry.getValue().size());
+        }
+        return report;
+    }
+
+    /** Delete **/
+    // removes the salesman only, its records stay (as in the performanceRecords collection)
+    @Override
+    public void deleteSalesMan(int sid) {
+        Stripe stripe = stripeOf(sid);
+        Lock lock = stripe.lock.writeLock();
+        lock.lock();
+        try {
+            stripe.salesmen.remove(sid);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void deleteAllSalesMan() {
+        for (Stripe stripe : stripes) {
+            Lock lock = stripe.lock.writeLock();
+            lock.lock();
+            try {
+                stripe.salesmen.clear();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public void deleteByYearSocialPerformanceRecord(SalesMan salesMan, int year) {
+        if (salesMan == null) {
+            throw new IllegalArgumentException("SalesMan cannot be null");
+        }
+        int sid = salesMan.getId();
+        Stripe stripe = stripeOf(sid);
+        Lock lock = stripe.lock.writeLock();
+        lock.lock();
+        try {
+            RecordList records = stripe.records.get(sid);
+            if (records != null) {
+                records.removeYear(year);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void deleteLastSocialPerformanceRecord(SalesMan salesMan) {
+        if (salesMan == null) {
+            throw new IllegalArgumentException("SalesMan cannot be null");
+        }
+        int sid = salesMan.getId();
+        Stripe stripe = stripeOf(sid);
+        Lock lock = stripe.lock.writeLock();
+        lock.lock();
+        try {
+            RecordList records = stripe.records.get(sid);
+            if (records != null && records.size > 0) {
+                records.size--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Lifecycle **/
+    // nothing to release
+    @Override
+    public void close() {
+    }
+
+    // the maps inside a stripe use the low bits of the hash, so the stripe is chosen by the high bits
+    private Stripe stripeOf(int sid) {
+        return stripes[(IntObjectHashMap.mix(sid) >>> 16) & stripeMask];
+    }
+
+    // caller holds the write lock of the stripe
+    private static RecordList recordsOf(Stripe stripe, int sid) {
+        RecordList records = stripe.records.get(sid);
+        if (records == null) {
+            records = new RecordList(sid);
+            stripe.records.put(sid, records);
+        }
+        return records;
+    }
+
+    private static final class Stripe {
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final IntObjectHashMap<Header> salesmen = new IntObjectHashMap<>();
+        private final IntObjectHashMap<RecordList> records = new IntObjectHashMap<>();
+    }
+
+    private static final class Header {
+        private final String firstname;
+        private final String lastname;
+
+        private Header(String firstname, String lastname) {
+            this.firstname = firstname;
+            this.lastname = lastname;
+        }
+
+        private SalesMan toSalesMan(int sid) {
+            return new SalesMan(firstname, lastname, sid);
+        }
+    }
+
+    // packed records of one salesman, ascending by year and in insertion order within a year,
+    // so (year, id) is ascending as well
+    private static final class RecordList {
+        private final int salesmanId;
+        private long[] packed = new long[4];
+        private long[] ids = new long[4];
+        private int size;
+
+        private RecordList(int salesmanId) {
+            this.salesmanId = salesmanId;
+        }
+
+        private void add(long record, long id) {
+            if (size == packed.length) {
+                packed = Arrays.copyOf(packed, size * 2);
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            // insert behind the last record of the same or an older year (appending is the common case)
+            int year = PackedPerformanceRecord.year(record);
+            int index = size;
+            while (index > 0 && PackedPerformanceRecord.year(packed[index - 1]) > year) {
+                index--;
+            }
+            System.arraycopy(packed, index, packed, index + 1, size - index);
+            System.arraycopy(ids, index, ids, index + 1, size - index);
+            packed[index] = record;
+            ids[index] = id;
+            size++;
+        }
+
+        // index of the first record at or behind (year, id), id 0 = before all records of the year
+        private int indexOf(int year, long id) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                int middleYear = PackedPerformanceRecord.year(packed[middle]);
+                if (middleYear < year || (middleYear == year && ids[middle] < id)) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        private SocialPerformanceRecord get(int index) {
+            return new SocialPerformanceRecord(salesmanId, packed[index]);
+        }
+
+        private List<SocialPerformanceRecord> read(Integer year) {
+            List<SocialPerformanceRecord> records = new ArrayList<>();
+            for (int i = size - 1; i >= 0; i--) {
+                if (year == null || PackedPerformanceRecord.year(packed[i]) == year) {
+                    records.add(get(i));
+                }
+            }
+            return records;
+        }
+
+        private void removeYear(int year) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (PackedPerformanceRecord.year(packed[i]) != year) {
+                    packed[kept] = packed[i];
+                    ids[kept++] = ids[i];
+                }
+            }
+            size = kept;
+        }
+    }
+
+    private static final class StatisticsAccumulator {
+        private final Integer salesmanId;
+        private final Integer year;
+        private long count;
+        private final long[] sums = new long[CRITERIA.length];
+        private final int[] minimums = new int[CRITERIA.length];
+        private final int[] maximums = new int[CRITERIA.length];
+
+        private StatisticsAccumulator(Integer salesmanId, Integer year) {
+            this.salesmanId = salesmanId;
+            this.year = year;
+            Arrays.fill(minimums, Integer.MAX_VALUE);
+            Arrays.fill(maximums, Integer.MIN_VALUE);
+        }
+
+        private void add(long packed) {
+            count++;
+            for (PerformanceCriterion criterion : CRITERIA) {
+                int score = PackedPerformanceRecord.score(packed, criterion);
+                int i = criterion.ordinal();
+                sums[i] += score;
+                minimums[i] = Math.min(minimums[i], score);
+                maximums[i] = Math.max(maximums[i], score);
+            }
+        }
+
+        private PerformanceStatistics toStatistics() {
+            PerformanceStatistics statistics = new PerformanceStatistics(salesmanId, year, count);
+            for (PerformanceCriterion criterion : CRITERIA) {
+                int i = criterion.ordinal();
+                statistics.setStatistics(criterion, (double) sums[i] / count, minimums[i], maximums[i]);
+            }
+            return statistics;
+        }
+    }
+}
@@ -0,0 +1,384 @@
+package org.hbrs.ia.code;
+
+import org.hbrs.ia.metrics.ManagePersonalMetrics;
+import org.hbrs.ia.metrics.ManagePersonalMetrics.Operation;
+import org.hbrs.ia.model.PerformanceStatistics;
+import org.hbrs.ia.model.SalesMan;
+import org.hbrs.ia.model.SalesManView;
+import org.hbrs.ia.model.SocialPerformanceRecord;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Records latency, throughput and errors of every call in front of another ManagePersonal (decorator).
+ * Recording is lock-free and allocation-free (see LatencyHistogram). Exceptions count as errors and
+ * are rethrown unchanged. streamAllSalesMen only measures opening the stream, not consuming it.
+ * For the server round trips and the connection pool add a DriverMetrics to the MongoConnectionSettings.
+ */
+public class InstrumentedManagePersonal implements ManagePersonal {
+
+    private final ManagePersonal delegate;
+    private final ManagePersonalMetrics metrics;
+
+    public InstrumentedManagePersonal(ManagePersonal delegate) {
+        this(delegate, new ManagePersonalMetrics());
+    }
+
+    // several managers may share one metrics object
+    public InstrumentedManagePersonal(ManagePersonal delegate, ManagePersonalMetrics metrics) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("Delegate cannot be null");
+        }
+        if (metrics == null) {
+            throw new IllegalArgumentException("Metrics cannot be null");
+        }
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    public ManagePersonalMetrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public void createSalesMan(SalesMan record) {
+        long start = System.nanoTime();
+        try {
+            delegate.createSalesMan(record);
+        } catch (RuntimeException e) {
+            metrics.recordError(Operation.CREATE_SALES_MAN, start);
+            throw e;
+        }
+        metrics.record(Operation.CREATE_SALES_MAN, start);
+    }
+
+    @Override
+    public BulkWriteReport<SalesMan> createSalesMen(Collection<SalesMan> records) {
+        long start = System.nanoTime();
+        try {
+            BulkWriteReport<SalesMan> report = delegate.createSalesMen(records);
+            metrics.record(Operation.CREATE_SALES_MEN, start);
+            return report;
+        } catch (RuntimeException e) {
+            metrics.recordError(Operation.CREATE_SALES_MEN, start);
+            throw e;
+        }
+    }
+
+    @Override
+    public SalesMan readSalesMan(int sid) {
+        long start = System.nanoTime();
+        try {
+            SalesMan salesMan = delegate.readSalesMan(sid);
+            metrics.record(Operation.READ_SALES_MAN, start);
+            return salesMan;
+        } catch (RuntimeException e) {
+            metrics.recordError(Operation.READ_SALES_MAN, start);
+            throw e;
+        }
+    }
+
+    @Override
+    public SalesMan readSalesMan(int sid, SalesManView view) {
+        long start = System.nanoTime();
+        try {
+            SalesMan salesMan = delegate.readSalesMan(sid, view);
+            metrics.record(Operation.READ_SALES_MAN, start);
+            return salesMan;
+        } catch (RuntimeException e) {
+            metrics.recordError(Operation.READ_SALES_MAN, start);
+            throw e;
+        }
+    }
+
+    @Override
+    public Map<Integer, SalesMan> readSalesMen(Collection<Integer> sids) {
+        long start = System.nanoTime();
+        try {
+            Map<Integer, SalesMan> salesMen = delegate.readSalesMen(sids);
+            metrics.record(Operation.READ_SALES_MEN, start);
+            return salesMen;
+        } catch (RuntimeException e) {
+            metrics.recordError(Operation.READ_SALES_MEN, start);
+            throw e;
+        }
+    }
+
+    @Override
+    public Map<Integer, SalesMan> readSalesMen(Collection<Integer> sids, SalesManView view) {
+        long start = System.nanoTime();
+        try {
+            Map<Integer, SalesMan> salesMen = delegate.readSalesMen(sids, view);
+            metrics.record(Operation.READ_SALES_MEN, start);
+            return salesMen;
+        } catch (RuntimeException e) {
+            metrics.recordError(Operation.READ_SALES_MEN, start);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<SalesMan> readAllSalesMen() {
+        long start = System.nanoTime();
+        try {
+            List<SalesMan> salesMen = delegate.readAllSalesMen();
+            metrics.record(Operation.READ_ALL_SALES_MEN, start);
+            return salesMen;
+        } catch (RuntimeException e) {
+            metrics.recordError(Operation.READ_ALL_SALES_MEN, start);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<SalesMan> readAllSalesMen(SalesManView view) {
+        long start = System.nanoTime();
+        try {
+            List<SalesMan> salesMen = delegate.readAllSalesMen(view);
+            metrics.record(Operation.READ_ALL_SALES_MEN, start);
+            return salesMen;
+        } catch (RuntimeException e) {
+            metrics.recordError(Operation.READ_ALL_SALES_MEN, start);
+            throw e;
+        }
+    }
+
+    @Override
+    public Stream<SalesMan> streamAllSalesMen() {
+        long start = System.nanoTime();
+        try {
+            Stream<SalesMan> salesMen = delegate.streamAllSalesMen();
+            metrics.record(Operation.STREAM_ALL_SALES_MEN, start);
+            return salesMen;
+        } catch (RuntimeException e) {
+            metrics.recordError(Operation.STREAM_ALL_SALES_MEN, start);
+            throw e;
+        }
+    }
+
+    @Override
+    public Page<SalesMan> readSalesMenPage(Integer afterSid, int limit) {
+        long start = System.nanoTime();
+        try {
+            Page<SalesMan> page = delegate.readSalesMenPage(afterSid, limit);
+            metrics.record(Operation.READ_SALES_MEN_PAGE, start);
+            return page;
+        } catch (RuntimeException e) {
+            metrics.recordError(Operation.READ_SALES_MEN_PAGE, start);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<SocialPerformanceRecord> readSocialPerformanceRecord(SalesMan salesMan) {
+        long start = System.nanoTime();
+        try {
+            List<SocialPerformanceRecord> records = delegate.readSocialPerformanceRecord(salesMan);
+            metrics.record(Operation.READ_RECORDS, start);
+            return records;
+        } catch (RuntimeException e) {
+            metrics.recordError(Operation.READ_RECORDS, start);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<SocialPerformanceRecord> readByYearSocialPerformanceRecord(SalesMan salesMan, Integer year) {
+        long start = System.nanoTime();
+        try {
+            List<SocialPerformanceRecord> records = delegate.readByYearSocialPerformanceRecord(salesMan, year);
+            metrics.record(Operation.READ_RECORDS_BY_YEAR, start);
+            return records;
+        } catch (RuntimeException e) {
+            metrics.recordError(Operation.READ_RECORDS_BY_YEAR, start);
+            throw e;
+        }
+    }
+
+    @Override
+    public SocialPerformanceRecord readLastSocialPerformanceRecord(SalesMan salesMan) {
+        long start = System.nanoTime();
+        try {
+            SocialPerformanceRecord record = delegate.readLastSocialPerformanceRecord(salesMan);
+            metrics.record(Operation.READ_LAST_RECORD, start);
+            return record;
+        } catch (RuntimeException e) {
+            metrics.recordError(Operation.READ_LAST_RECORD, start);
+            throw e;
+        }
+    }
+
+    @Override
+    public Page<SocialPerformanceRecord> readSocialPerformanceRecordsPage(SalesMan salesMan, Integer afterYear,
+                                                                         String afterId, int limit) {
+        long start = System.nanoTime();
+        try {
+            Page<SocialPerformanceRecord> page =
+                    delegate.readSocialPerformanceRecordsPage(salesMan, afterYear, afterId, limit);
+            metrics.record(Operation.READ_RECORDS_PAGE, start);
+            return page;
+        } catch (RuntimeException e) {
+            metrics.recordError(Operation.READ_RECORDS_PAGE, start);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<PerformanceStatistics> readPerformanceStatisticsPerYear() {
+        long start = System.nanoTime();
+        try {
+            List<PerformanceStatistics> statistics = delegate.readPerformanceStatisticsPerYear();
+            metrics.record(Operation.READ_STATISTICS_PER_YEAR, start);
+            return statistics;
+        } catch (RuntimeException e) {
+            metrics.recordError(Operation.READ_STATISTICS_PER_YEAR, start);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<PerformanceStatistics> readPerformanceStatisticsPerYear(SalesMan salesMan) {
+        long start = System.nanoTime();
+        try {
+            List<PerformanceStatistics> statistics = delegate.readPerformanceStatisticsPerYear(salesMan);
+            metrics.record(Operation.READ_SALES_MAN_STATISTICS_PER_YEAR, start);
+            return statistics;
+        } catch (RuntimeException e) {
+            metrics.recordError(Operation.READ_SALES_MAN_STATISTICS_PER_YEAR, start);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<PerformanceStatistics> readPerformanceStatisticsPerSalesMan(Integer year) {
+        long start = System.nanoTime();
+        try {
+            List<PerformanceStatistics> statistics = delegate.readPerformanceStatisticsPerSalesMan(year);
+            metrics.record(Operation.READ_STATISTICS_PER_SALES_MAN, start);
+            return statistics;
+        } catch (RuntimeException e) {
+            metrics.recordError(Operation.READ_STATISTICS_PER_SALES_MAN, start);
+            throw e;
+        }
+    }
+
+    @Override
+    public PerformanceStatistics readCompanyPerformanceStatistics(Integer year) {
+        long start = System.nanoTime();
+        try {
+            PerformanceStatistics statistics = delegate.readCompanyPerformanceStatistics(year);
+            metrics.record(Operation.READ_COMPANY_STATISTICS, start);
+            return statistics;
+        } catch (RuntimeException e) {
+            metrics.recordError(Operation.READ_COMPANY_STATISTICS, start);
+            throw e;
+        }
+    }
+
+    @Override
+    public void updateSalesMan(SalesMan record) {
+        long start = System.nanoTime();
+        try {
+            delegate.updateSalesMan(record);
+        } catch (RuntimeException e) {
+            metrics.recordError(Operation.UPDATE_SALES_MAN, start);
+            throw e;
+        }
+        metrics.record(Operation.UPDATE_SALES_MAN, start);
+    }
+
+    @Override
+    public BulkWriteReport<SalesMan> updateSalesMen(Collection<SalesMan> records) {
+        long start = System.nanoTime();
+        try {
+            BulkWriteReport<SalesMan> report = delegate.updateSalesMen(records);
+            metrics.record(Operation.UPDATE_SALES_MEN, start);
+            return report;
+        } catch (RuntimeException e) {
+            metrics.recordError(Operation.UPDATE_SALES_MEN, start);
+            throw e;
+        }
+    }
+
+    @Override
+    public void addSocialPerformanceRecord(SocialPerformanceRecord record, SalesMan salesMan) {
+        long start = System.nanoTime();
+        try {
+            delegate.addSocialPerformanceRecord(record, salesMan);
+        } catch (RuntimeException e) {
+            metrics.recordError(Operation.ADD_RECORD, start);
+            throw e;
+        }
+        metrics.record(Operation.ADD_RECORD, start);
+    }
+
+    @Override
+    public BulkWriteReport<SocialPerformanceRecord> addSocialPerformanceRecords(
+            Map<SalesMan, List<SocialPerformanceRecord>> records) {
+        long start = System.nanoTime();
+        try {
+            BulkWriteReport<SocialPerformanceRecord> report = delegate.addSocialPerformanceRecords(records);
+            metrics.record(Operation.ADD_RECORDS, start);
+            return report;
+        } catch (RuntimeException e) {
+            metrics.recordError(Operation.ADD_RECORDS, start);
+            throw e;
+        }
+    }
+
+    @Override
+    public void deleteSalesMan(int sid) {
+        long start = System.nanoTime();
+        try {
+            delegate.deleteSalesMan(sid);
+        } catch (RuntimeException e) {
+            metrics.recordError(Operation.DELETE_SALES_MAN, start);
+            throw e;
+        }
+        metrics.record(Operation.DELETE_SALES_MAN, start);
+    }
+
+    @Override
+    public void deleteAllSalesMan() {
+        long start = System.nanoTime();
+        try {
+            delegate.deleteAllSalesMan();
+        } catch (RuntimeException e) {
+            metrics.recordError(Operation.DELETE_ALL_SALES_MEN, start);
+            throw e;
+        }
+        metrics.record(Operation.DELETE_ALL_SALES_MEN, start);
+    }
+
+    @Override
+    public void deleteByYearSocialPerformanceRecord(SalesMan salesMan, int year) {
+        long start = System.nanoTime();
+        try {
+            delegate.deleteByYearSocialPerformanceRecord(salesMan, year);
+        } catch (RuntimeException e) {
+            metrics.recordError(Operation.DELETE_RECORDS_BY_YEAR, start);
+            throw e;
+        }
+        metrics.record(Operation.DELETE_RECORDS_BY_YEAR, start);
+    }
+
+    @Override
+    public void deleteLastSocialPerformanceRecord(SalesMan salesMan) {
+        long start = System.nanoTime();
+        try {
+            delegate.deleteLastSocialPerformanceRecord(salesMan);
+        } catch (RuntimeException e) {
+            metrics.recordError(Operation.DELETE_LAST_RECORD, start);
+            throw e;
+        }
+        metrics.record(Operation.DELETE_LAST_RECORD, start);
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+}
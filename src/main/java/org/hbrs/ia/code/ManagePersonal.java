@@ -1,21 +1,38 @@
 package org.hbrs.ia.code;
 
+import org.hbrs.ia.model.PerformanceStatistics;
 import org.hbrs.ia.model.SalesMan;
+import org.hbrs.ia.model.SalesManView;
 import org.hbrs.ia.model.SocialPerformanceRecord;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 /**
  * Code lines are commented for suppressing compile errors.
  * Are there any CRUD-operations missing?
  */
-public interface ManagePersonal {
+public interface ManagePersonal extends AutoCloseable {
 
     /** Create **/
     public void createSalesMan( SalesMan record );
+    // batch insert, failures of single salesmen are reported instead of aborting the batch
+    public BulkWriteReport<SalesMan> createSalesMen( Collection<SalesMan> records );
     /** Read **/
+    // the read methods without a SalesManView return the header only (SalesManView.HEADER)
     public SalesMan readSalesMan( int sid );
+    public SalesMan readSalesMan( int sid, SalesManView view );
+    // one query for many salesmen, sids that do not exist are missing in the map
+    public Map<Integer, SalesMan> readSalesMen( Collection<Integer> sids );
+    public Map<Integer, SalesMan> readSalesMen( Collection<Integer> sids, SalesManView view );
     public List<SalesMan> readAllSalesMen();
+    public List<SalesMan> readAllSalesMen( SalesManView view );
+    // lazily reads all salesmen through one cursor, the stream must be closed (try-with-resources)
+    public Stream<SalesMan> streamAllSalesMen();
+    // keyset pagination ordered by sid: the salesmen after afterSid (null = first page), at most limit
+    public Page<SalesMan> readSalesMenPage( Integer afterSid, int limit );
     public List<SocialPerformanceRecord> readSocialPerformanceRecord( SalesMan salesMan );
 
     //social performance record for a specific year
@@ -23,13 +40,35 @@ public interface ManagePersonal {
 
     // Remark: How do you integrate the year?
     public SocialPerformanceRecord readLastSocialPerformanceRecord(SalesMan salesMan);
+    // keyset pagination newest year first, within a year the latest added record first:
+    // the records after (afterYear, afterId) of the previous page, both null = first page
+    public Page<SocialPerformanceRecord> readSocialPerformanceRecordsPage( SalesMan salesMan, Integer afterYear,
+                                                                          String afterId, int limit );
+    /** Statistics (avg / min / max per criterion, computed on the server) **/
+    // company wide, one entry per year
+    public List<PerformanceStatistics> readPerformanceStatisticsPerYear();
+    // one entry per year for the given salesman
+    public List<PerformanceStatistics> readPerformanceStatisticsPerYear( SalesMan salesMan );
+    // one entry per salesman, for the given year or over all years (null)
+    public List<PerformanceStatistics> readPerformanceStatisticsPerSalesMan( Integer year );
+    // company wide, for the given year or over all years (null)
+    public PerformanceStatistics readCompanyPerformanceStatistics( Integer year );
     /** Update **/
+    // writes only the fields changed by the setters of the salesman (no round trip if nothing changed)
     public void updateSalesMan(SalesMan record);
+    // the changes of many salesmen with unordered bulk writes, unknown sids are reported as failures
+    public BulkWriteReport<SalesMan> updateSalesMen(Collection<SalesMan> salesMen);
     public void addSocialPerformanceRecord(SocialPerformanceRecord record , SalesMan salesMan );
+    public BulkWriteReport<SocialPerformanceRecord> addSocialPerformanceRecords(
+            Map<SalesMan, List<SocialPerformanceRecord>> records );
     // Remark: an SocialPerformanceRecord corresponds to part B of a bonus sheet
     /** Delete **/
     public void deleteSalesMan(int sid);
     public void deleteAllSalesMan();
     public void deleteByYearSocialPerformanceRecord(SalesMan salesMan, int year);
     public void deleteLastSocialPerformanceRecord(SalesMan salesMan);
+    /** Lifecycle **/
+    // releases connections / threads, the manager must not be used afterwards
+    @Override
+    public void close();
 }
@@ -1,108 +1,668 @@
 package org.hbrs.ia.code;
 
+import com.mongodb.MongoException;
+import com.mongodb.bulk.BulkWriteResult;
 import com.mongodb.client.*;
+import com.mongodb.client.model.Accumulators;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.BsonField;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.Sorts;
 import com.mongodb.client.model.Updates;
-import com.mongodb.client.result.DeleteResult;
+import com.mongodb.client.model.WriteModel;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.BsonBinaryReader;
 import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.conversions.Bson;
 import org.bson.types.ObjectId;
+import org.hbrs.ia.codec.ModelCodecs;
+import org.hbrs.ia.metrics.DiagnosticRing;
+import org.hbrs.ia.metrics.DiagnosticRing.Level;
+import org.hbrs.ia.metrics.DiagnosticRing.Outcome;
+import org.hbrs.ia.metrics.ManagePersonalMetrics.Operation;
+import org.hbrs.ia.model.PerformanceCriterion;
+import org.hbrs.ia.model.PerformanceRecordBlock;
+import org.hbrs.ia.model.PerformanceStatistics;
 import org.hbrs.ia.model.SalesMan;
+import org.hbrs.ia.model.SalesManView;
 import org.hbrs.ia.model.SocialPerformanceRecord;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class ManagePersonalImpl implements ManagePersonal{
 
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+    public static final int DEFAULT_BUCKET_SIZE = 50;
+    // compare-and-set rounds of repairLatestRecord before it gives up on a salesman under constant writes
+    static final int REPAIR_ATTEMPTS = 3;
 
     private MongoClient mongoClient;
+    // only a client created by this manager is closed by it, a shared client belongs to the caller
+    private final boolean ownsClient;
     private MongoDatabase mongoDatabase;
-    private MongoCollection<Document> salesmenCollection;
-    private MongoCollection<Document> socialperformanceCollection;
+    private MongoCollection<SalesMan> salesmenCollection;
+    // the performance records in the layout chosen at construction
+    private final RecordStorage recordStorage;
+    // salesmen collection and record storage with the concerns of every ConsistencyProfile
+    private final Map<ConsistencyProfile, Scope> scopes = new EnumMap<>(ConsistencyProfile.class);
+    // profile of the operations without an own one in operationProfiles
+    private ConsistencyProfile consistencyProfile = ConsistencyProfile.DEFAULT;
+    private final Map<Operation, ConsistencyProfile> operationProfiles = new EnumMap<>(Operation.class);
+
+    // number of documents / write models sent to the server per bulk round trip
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    // number of documents per cursor batch for streamed reads, 0 = server default
+    private int cursorBatchSize = 0;
+    // shared with ManagePersonalReactiveImpl, whose reads are always header reads
+    static final Bson HEADER_PROJECTION = Projections.fields(
+            Projections.include("firstname", "lastname", "sid"), Projections.excludeId());
+    private static final Bson HEADER_WITH_LATEST_PROJECTION = Projections.fields(
+            Projections.include("firstname", "lastname", "sid", "latestRecord"), Projections.excludeId());
+    private static final Bson FULL_PROJECTION = Projections.fields(
+            Projections.include("firstname", "lastname", "sid", "latestRecord", "performanceRecords"),
+            Projections.excludeId());
+
+    // explains every query shape once, mode from the system property managePersonal.queryPlanGuard
+    private final QueryPlanGuard queryPlanGuard = QueryPlanGuard.fromSystemProperty();
+    // structured events of the CRUD operations instead of println, level from managePersonal.diagnostics.level
+    private final DiagnosticRing diagnostics = DiagnosticRing.fromSystemProperty();
 
     public ManagePersonalImpl(){
-        this.mongoClient = MongoClients.create("mongodb://localhost:27017");
-        this.mongoDatabase = mongoClient.getDatabase("HighPerformanceDatabase");
-        this.salesmenCollection = this.mongoDatabase.getCollection("salesmen");
-        this.socialperformanceCollection = this.mongoDatabase.getCollection("performanceRecords");
+        this(new MongoConnectionSettings());
+    }
+
+    // the manager creates its own MongoClient from the settings and closes it in close()
+    public ManagePersonalImpl(MongoConnectionSettings settings) {
+        this(MongoClients.create(settings.toMongoClientSettings()), settings.getDatabaseName(), true,
+                settings.getRecordLayout(), settings.getBucketSize());
+        setConsistencyProfile(settings.getConsistencyProfile());
+        if (settings.getWarmUpConnections() > 0) {
+            warmUp(settings.getWarmUpConnections());
+        }
+    }
+
+    // the manager uses a shared MongoClient (one connection pool for many managers), close() leaves it open
+    public ManagePersonalImpl(MongoClient mongoClient, String databaseName) {
+        this(mongoClient, databaseName, RecordLayout.SEPARATE);
+    }
+
+    public ManagePersonalImpl(MongoClient mongoClient, String databaseName, RecordLayout recordLayout) {
+        this(mongoClient, databaseName, recordLayout, DEFAULT_BUCKET_SIZE);
+    }
+
+    // bucketSize is only used by RecordLayout.BUCKET
+    public ManagePersonalImpl(MongoClient mongoClient, String databaseName, RecordLayout recordLayout,
+                              int bucketSize) {
+        this(mongoClient, databaseName, false, recordLayout, bucketSize);
+    }
+
+    private ManagePersonalImpl(MongoClient mongoClient, String databaseName, boolean ownsClient,
+                               RecordLayout recordLayout, int bucketSize) {
+        if (recordLayout == null) {
+            throw new IllegalArgumentException("Record layout cannot be null");
+        }
+        this.mongoClient = mongoClient;
+        this.ownsClient = ownsClient;
+        // the model codecs decode straight from the BsonReader into SalesMan / SocialPerformanceRecord
+        this.mongoDatabase = mongoClient.getDatabase(databaseName)
+                .withCodecRegistry(ModelCodecs.REGISTRY);
+        this.salesmenCollection = this.mongoDatabase.getCollection("salesmen", SalesMan.class);
+        this.recordStorage = RecordStorage.create(recordLayout, this.mongoDatabase, bucketSize, queryPlanGuard);
+        for (ConsistencyProfile profile : ConsistencyProfile.values()) {
+            MongoDatabase database = profile.apply(this.mongoDatabase);
+            long maxTimeMillis = profile.getMaxTimeMillis();
+            scopes.put(profile, new Scope(database.getCollection("salesmen", SalesMan.class),
+                    RecordStorage.create(recordLayout, database, bucketSize, queryPlanGuard, maxTimeMillis),
+                    maxTimeMillis));
+        }
+        ensureIndexes();
+    }
+
+    // open connections up front with concurrent pings, so the first requests do not pay the handshake
+    public void warmUp(int connections) {
+        ExecutorService executor = Executors.newFixedThreadPool(connections);
+        try {
+            List<Future<Document>> pings = new ArrayList<>(connections);
+            for (int i = 0; i < connections; i++) {
+                pings.add(executor.submit(() -> mongoDatabase.runCommand(new Document("ping", 1))));
+            }
+            for (Future<Document> ping : pings) {
+                ping.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            System.err.println("❌ Connection warm-up failed: " + e.getCause().getMessage());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (ownsClient) {
+            mongoClient.close();
+        }
+    }
+
+    // create the indexes all queries rely on, createIndex is a no-op if the index already exists
+    public void ensureIndexes() {
+        try {
+            salesmenCollection.createIndex(Indexes.ascending("sid"),
+                    new IndexOptions().unique(true).name("sid_unique"));
+            recordStorage.ensureIndexes();
+        } catch (MongoException e) {
+            // e.g. duplicate sids in old data, the manager still works but queries are not covered
+            System.err.println("❌ Error creating indexes: " + e.getMessage());
+        }
+    }
+
+    public QueryPlanGuard getQueryPlanGuard() {
+        return queryPlanGuard;
+    }
+
+    public RecordLayout getRecordLayout() {
+        return recordStorage.getLayout();
     }
 
     // create a SalesMan Document in the collection by giving a SalesMan object
     @Override
     public void createSalesMan(SalesMan salesMan) {
-        Document salesManDocument = salesMan.toDocument();
-        salesmenCollection.insertOne(salesManDocument);
+        scope(Operation.CREATE_SALES_MAN).salesmen.insertOne(salesMan);
     }
 
     //delete a SalesMan in the collection by sid
     @Override
     public void deleteSalesMan(int sid) {
-        salesmenCollection.deleteOne(new Document("sid", sid));
+        Document query = new Document("sid", sid);
+        queryPlanGuard.check("deleteSalesMan", salesmenCollection, query, null);
+        scope(Operation.DELETE_SALES_MAN).salesmen.deleteOne(query);
     }
 
     //delete all SalesMan Documents in the collection
     @Override
     public void deleteAllSalesMan() {
-        salesmenCollection.deleteMany(new Document());
+        scope(Operation.DELETE_ALL_SALES_MEN).salesmen.deleteMany(new Document());
     }
 
-    // add a SocialPerformanceRecord to a SalesMan, by searching for the SalesMan by sid
-    // and adding a SocialPerformanceRecord into the records ArrayList of the SalesMan
+    // add a SocialPerformanceRecord to a SalesMan: the record is stored in the record layout
+    // and the latestRecord summary on the salesman document is replaced if the record is at least as recent
     @Override
     public void addSocialPerformanceRecord(SocialPerformanceRecord record, SalesMan salesMan) {
+        long start = System.nanoTime();
         int sid = salesMan.getId();
+        record.setSalesmanId(sid);
+        Scope scope = scope(Operation.ADD_RECORD);
+
+        scope.records.insert(record);
+
+        Bson filter = latestRecordFilter(record);
+        queryPlanGuard.check("addSocialPerformanceRecord", salesmenCollection, filter, null);
+        scope.salesmen.updateOne(filter, Updates.set("latestRecord", record.toDocument()));
+        diagnostics.record(Level.DEBUG, "addSocialPerformanceRecord", sid, record.getYear(), Outcome.OK, 1, start);
+    }
+
+    // matches the salesman only if its latestRecord is missing or not newer than the given record,
+    // so concurrent adds can never move the summary back to an older year
+    static Bson latestRecordFilter(SocialPerformanceRecord record) {
+        return Filters.and(
+                Filters.eq("sid", record.getSalesmanId()),
+                Filters.or(Filters.eq("latestRecord", null), Filters.lte("latestRecord.year", record.getYear())));
+    }
+
+    // set latestRecord of a salesman to its newest remaining record, or null if there is none left.
+    // Compare-and-set on the summary read before the records: if a concurrent add (or repair) changed it
+    // in between, the repair is not applied blindly but started again, so it never moves the summary back
+    private void repairLatestRecord(Scope scope, int salesmanId) {
+        Bson salesmanFilter = Filters.eq("sid", salesmanId);
+        for (int attempt = 0; attempt < REPAIR_ATTEMPTS; attempt++) {
+            Document current = scope.salesmen.find(salesmanFilter, Document.class)
+                    .projection(Projections.fields(Projections.include("latestRecord"), Projections.excludeId()))
+                    .first();
+            if (current == null) {
+                return;
+            }
+            SocialPerformanceRecord latest = scope.records.findLast(salesmanId);
+            UpdateResult result = scope.salesmen.updateOne(
+                    Filters.and(salesmanFilter, latestRecordUnchanged(current)),
+                    Updates.set("latestRecord", latest == null ? null : latest.toDocument()));
+            if (result.getMatchedCount() > 0) {
+                return;
+            }
+        }
+        System.err.println("❌ latestRecord of salesman " + salesmanId
+                + " kept changing during the repair (run rebuildLatestRecords)");
+    }
+
+    // matches while latestRecord is still the (possibly missing) value of the salesman document read before
+    static Bson latestRecordUnchanged(Document salesmanDocument) {
+        return Filters.eq("latestRecord", salesmanDocument.get("latestRecord"));
+    }
+
+    // recompute latestRecord for every salesman from its records (e.g. for data written before the summary
+    // existed). Runs completely on the server and is merged back into the salesmen collection by sid.
+    public void rebuildLatestRecords() {
+        recordStorage.rebuildLatestRecords();
+        System.out.println("✅ Rebuilt latest performance records");
+    }
+
+    // create many SalesMan Documents with unordered insertMany calls of at most batchSize documents,
+    // a duplicate or invalid salesman only fails itself and not the rest of the chunk
+    @Override
+    public BulkWriteReport<SalesMan> createSalesMen(Collection<SalesMan> salesMen) {
+        BulkWriteReport<SalesMan> report = new BulkWriteReport<>();
+        if (salesMen == null || salesMen.isEmpty()) {
+            return report;
+        }
+
+        Scope scope = scope(Operation.CREATE_SALES_MEN);
+        List<SalesMan> chunk = new ArrayList<>(Math.min(batchSize, salesMen.size()));
+        for (SalesMan salesMan : salesMen) {
+            chunk.add(salesMan);
+            if (chunk.size() == batchSize) {
+                insertSalesMenChunk(scope, chunk, report);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            insertSalesMenChunk(scope, chunk, report);
+        }
+        return report;
+    }
+
+    private void insertSalesMenChunk(Scope scope, List<SalesMan> chunk, BulkWriteReport<SalesMan> report) {
+        try {
+            scope.salesmen.insertMany(chunk, new InsertManyOptions().ordered(false));
+            report.addChunk(chunk, null);
+        } catch (MongoException e) {
+            report.addChunk(chunk, e);
+        }
+    }
+
+    // add many SocialPerformanceRecords with unordered bulk writes of at most batchSize records,
+    // afterwards the latestRecord summaries are updated with one conditional update per salesman
+    @Override
+    public BulkWriteReport<SocialPerformanceRecord> addSocialPerformanceRecords(
+            Map<SalesMan, List<SocialPerformanceRecord>> records) {
+        BulkWriteReport<SocialPerformanceRecord> report = new BulkWriteReport<>();
+        if (records == null || records.isEmpty()) {
+            return report;
+        }
+
+        Scope scope = scope(Operation.ADD_RECORDS);
+        // newest successfully inserted record per salesman
+        Map<Integer, SocialPerformanceRecord> latestRecords = new HashMap<>();
+        List<SocialPerformanceRecord> chunk = new ArrayList<>();
+        for (Map.Entry<SalesMan, List<SocialPerformanceRecord>> entry : records.entrySet()) {
+            if (entry.getValue() == null) {
+                continue;
+            }
+            for (SocialPerformanceRecord record : entry.getValue()) {
+                record.setSalesmanId(entry.getKey().getId());
+                chunk.add(record);
+                if (chunk.size() == batchSize) {
+                    insertRecordChunk(scope, chunk, report, latestRecords);
+                    chunk.clear();
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            insertRecordChunk(scope, chunk, report, latestRecords);
+        }
+
+        updateLatestRecords(scope, latestRecords.values());
+        return report;
+    }
+
+    private void insertRecordChunk(Scope scope, List<SocialPerformanceRecord> chunk,
+                                   BulkWriteReport<SocialPerformanceRecord> report,
+                                   Map<Integer, SocialPerformanceRecord> latestRecords) {
+        Set<Integer> failedIndexes = scope.records.insertChunk(chunk, report);
+        mergeLatestRecords(chunk, failedIndexes, latestRecords);
+    }
+
+    // remember the newest written record per salesman
+    static void mergeLatestRecords(List<SocialPerformanceRecord> chunk, Set<Integer> failedIndexes,
+                                   Map<Integer, SocialPerformanceRecord> latestRecords) {
+        for (int i = 0; i < chunk.size(); i++) {
+            if (!failedIndexes.contains(i)) {
+                latestRecords.merge(chunk.get(i).getSalesmanId(), chunk.get(i),
+                        (current, candidate) -> candidate.getYear() >= current.getYear() ? candidate : current);
+            }
+        }
+    }
+
+    private void updateLatestRecords(Scope scope, Collection<SocialPerformanceRecord> latestRecords) {
+        List<WriteModel<SalesMan>> models = new ArrayList<>();
+        for (SocialPerformanceRecord record : latestRecords) {
+            models.add(new UpdateOneModel<>(latestRecordFilter(record),
+                    Updates.set("latestRecord", record.toDocument())));
+            if (models.size() == batchSize) {
+                writeLatestRecordChunk(scope, models);
+                models.clear();
+            }
+        }
+        if (!models.isEmpty()) {
+            writeLatestRecordChunk(scope, models);
+        }
+    }
+
+    private void writeLatestRecordChunk(Scope scope, List<WriteModel<SalesMan>> models) {
+        long start = System.nanoTime();
+        try {
+            scope.salesmen.bulkWrite(models, new BulkWriteOptions().ordered(false));
+        } catch (MongoException e) {
+            // the records themselves are stored, only the summaries are stale (run rebuildLatestRecords)
+            diagnostics.error("updateLatestRecords", 0, 0, start, e);
+        }
+    }
+
+    public ConsistencyProfile getConsistencyProfile() {
+        return consistencyProfile;
+    }
+
+    // profile of every operation without an own one, set it before the manager is shared between threads
+    public void setConsistencyProfile(ConsistencyProfile consistencyProfile) {
+        if (consistencyProfile == null) {
+            throw new IllegalArgumentException("Consistency profile cannot be null");
+        }
+        this.consistencyProfile = consistencyProfile;
+    }
+
+    public ConsistencyProfile getConsistencyProfile(Operation operation) {
+        return operationProfiles.getOrDefault(operation, consistencyProfile);
+    }
+
+    // e.g. FAST_INGEST for ADD_RECORDS and DURABLE for DELETE_RECORDS_BY_YEAR, null = the manager's profile again.
+    // Every operation reads with its own read concern: a majority read may not see a w:1 write yet.
+    public void setConsistencyProfile(Operation operation, ConsistencyProfile consistencyProfile) {
+        if (operation == null) {
+            throw new IllegalArgumentException("Operation cannot be null");
+        }
+        if (consistencyProfile == null) {
+            operationProfiles.remove(operation);
+        } else {
+            operationProfiles.put(operation, consistencyProfile);
+        }
+    }
+
+    private Scope scope(Operation operation) {
+        return scopes.get(getConsistencyProfile(operation));
+    }
+
+    public DiagnosticRing getDiagnostics() {
+        return diagnostics;
+    }
 
-        // Update the SALESMAN document, not the performance collection
-        Document filter = new Document("sid", sid);
-        Document update = new Document("$push",
-                new Document("performanceRecords", record.toDocument())  // Note: lowercase 'p'
-        );
+    public int getCursorBatchSize() {
+        return cursorBatchSize;
+    }
 
-        salesmenCollection.updateOne(filter, update);
-        System.out.println("✅ Added performance record to salesman ID: " + sid);
+    public void setCursorBatchSize(int cursorBatchSize) {
+        if (cursorBatchSize < 0) {
+            throw new IllegalArgumentException("Cursor batch size must not be negative");
+        }
+        this.cursorBatchSize = cursorBatchSize;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be at least 1");
+        }
+        this.batchSize = batchSize;
     }
 
     // read a SalesMan by sid
     @Override
     public SalesMan readSalesMan(int sid) {
+        return readSalesMan(sid, SalesManView.HEADER);
+    }
+
+    // only the fields of the view are fetched, FULL reads the records with a second query
+    @Override
+    public SalesMan readSalesMan(int sid, SalesManView view) {
         Document query = new Document("sid", sid);
-        Document salesman = salesmenCollection.find().first();
-        if(salesman != null){
-            return new SalesMan(
-                    salesman.getString("firstname"),
-                    salesman.getString("lastname"),
-                    salesman.getInteger("sid")
-            );
+        queryPlanGuard.check("readSalesMan", salesmenCollection, query, null);
+        Scope scope = scope(Operation.READ_SALES_MAN);
+        SalesMan salesMan = scope.salesmen.find(query).projection(projectionOf(view))
+                .maxTime(scope.maxTimeMillis, TimeUnit.MILLISECONDS).first();
+        if (salesMan != null && view == SalesManView.FULL) {
+            attachRecords(scope, Collections.singletonList(salesMan));
+        }
+        return salesMan;
+    }
+
+    // projection of the view: an embedded performanceRecords array (old documents) is only sent for FULL
+    private static Bson projectionOf(SalesManView view) {
+        if (view == null) {
+            throw new IllegalArgumentException("View cannot be null");
+        }
+        switch (view) {
+            case HEADER_WITH_LATEST:
+                return HEADER_WITH_LATEST_PROJECTION;
+            case FULL:
+                return FULL_PROJECTION;
+            default:
+                return HEADER_PROJECTION;
+        }
+    }
+
+    // sets the records (newest year first) on the salesmen, one $in query per batchSize salesmen.
+    // Embedded records are already part of the FULL projection.
+    private void attachRecords(Scope scope, List<SalesMan> salesMen) {
+        for (int from = 0; from < salesMen.size(); from += batchSize) {
+            List<SalesMan> chunk = salesMen.subList(from, Math.min(salesMen.size(), from + batchSize));
+            List<Integer> sids = new ArrayList<>(chunk.size());
+            for (SalesMan salesMan : chunk) {
+                sids.add(salesMan.getId());
+            }
+            Map<Integer, List<SocialPerformanceRecord>> recordsBySid = scope.records.findAll(sids);
+            for (SalesMan salesMan : chunk) {
+                List<SocialPerformanceRecord> records = recordsBySid.getOrDefault(salesMan.getId(),
+                        new ArrayList<>());
+                if (!salesMan.getRecords().isEmpty()) {
+                    // embedded records, latest added last in the array
+                    List<SocialPerformanceRecord> embedded = new ArrayList<>(salesMan.getRecords());
+                    Collections.reverse(embedded);
+                    records.addAll(embedded);
+                    records.sort(Comparator.comparing(SocialPerformanceRecord::getYear).reversed());
+                }
+                salesMan.setRecords(records);
+            }
+        }
+    }
+
+    // read many SalesMan by sid with one $in query per batchSize sids
+    @Override
+    public Map<Integer, SalesMan> readSalesMen(Collection<Integer> sids) {
+        return readSalesMen(sids, SalesManView.HEADER);
+    }
+
+    @Override
+    public Map<Integer, SalesMan> readSalesMen(Collection<Integer> sids, SalesManView view) {
+        Bson projection = projectionOf(view);
+        Map<Integer, SalesMan> salesMen = new HashMap<>();
+        if (sids == null || sids.isEmpty()) {
+            return salesMen;
+        }
+
+        Scope scope = scope(Operation.READ_SALES_MEN);
+        List<Integer> chunk = new ArrayList<>(Math.min(batchSize, sids.size()));
+        for (Integer sid : sids) {
+            chunk.add(sid);
+            if (chunk.size() == batchSize) {
+                readSalesMenChunk(scope, chunk, projection, salesMen);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            readSalesMenChunk(scope, chunk, projection, salesMen);
+        }
+        if (view == SalesManView.FULL) {
+            attachRecords(scope, new ArrayList<>(salesMen.values()));
+        }
+        return salesMen;
+    }
+
+    private void readSalesMenChunk(Scope scope, List<Integer> sids, Bson projection,
+                                   Map<Integer, SalesMan> salesMen) {
+        Bson query = Filters.in("sid", sids);
+        queryPlanGuard.check("readSalesMen", salesmenCollection, query, null);
+        for (SalesMan salesMan : scope.salesmen.find(query).projection(projection)
+                .maxTime(scope.maxTimeMillis, TimeUnit.MILLISECONDS)) {
+            if (salesMan.getId() != null) {
+                salesMen.put(salesMan.getId(), salesMan);
+            }
         }
-        return null;
     }
 
     // read all SalesMan in the Collection
     @Override
     public List<SalesMan> readAllSalesMen() {
+        return readAllSalesMen(SalesManView.HEADER);
+    }
+
+    @Override
+    public List<SalesMan> readAllSalesMen(SalesManView view) {
+        long start = System.nanoTime();
         List<SalesMan> salesmanList = new ArrayList<>();
+        Scope scope = scope(Operation.READ_ALL_SALES_MEN);
 
-        try (MongoCursor<Document> cursor = salesmenCollection.find().iterator()) {
-            while (cursor.hasNext()) {
-                Document salesmanDocument = cursor.next();
-                try {
-                    SalesMan salesman = SalesMan.fromDocument(salesmanDocument); // Use model method
-                    salesmanList.add(salesman);
-                } catch (Exception e) {
-                    System.err.println("❌ Error mapping document to SalesMan: " + e.getMessage());
-                    System.err.println("Problematic document: " + salesmanDocument.toJson());
-                    // Continue processing other documents instead of failing completely
-                }
+        try (Stream<SalesMan> salesMen = streamSalesMen(scope, cursorBatchSize, projectionOf(view))) {
+            salesMen.forEach(salesmanList::add);
+            if (view == SalesManView.FULL) {
+                attachRecords(scope, salesmanList);
             }
         } catch (Exception e) {
-            System.err.println("❌ Error reading salesmen from database: " + e.getMessage());
+            diagnostics.error("readAllSalesMen", 0, 0, start, e);
             throw new RuntimeException("Failed to read salesmen", e);
         }
 
-        System.out.println("✅ Retrieved " + salesmanList.size() + " salesmen from database");
+        diagnostics.record(Level.DEBUG, "readAllSalesMen", 0, 0, Outcome.OK, salesmanList.size(), start);
         return salesmanList;
     }
 
+    // one range scan of the sid_unique index, limit + 1 salesmen to know whether there is a next page
+    @Override
+    public Page<SalesMan> readSalesMenPage(Integer afterSid, int limit) {
+        Page.checkLimit(limit);
+        Bson query = afterSid == null ? new Document() : Filters.gt("sid", afterSid);
+        Bson sort = Sorts.ascending("sid");
+        queryPlanGuard.check("readSalesMenPage", salesmenCollection, query, sort);
+
+        Scope scope = scope(Operation.READ_SALES_MEN_PAGE);
+        List<SalesMan> salesMen = new ArrayList<>(limit + 1);
+        try (MongoCursor<SalesMan> cursor = scope.salesmen.find(query).projection(HEADER_PROJECTION)
+                .sort(sort).limit(limit + 1).maxTime(scope.maxTimeMillis, TimeUnit.MILLISECONDS).iterator()) {
+            while (cursor.hasNext()) {
+                SalesMan salesMan = cursor.next();
+                if (hasRequiredFields(salesMan)) {
+                    salesMen.add(salesMan);
+                }
+            }
+        }
+        return Page.of(salesMen, limit, SalesMan::getId, null);
+    }
+
+    // stream all SalesMan in the Collection with the configured cursor batch size
+    @Override
+    public Stream<SalesMan> streamAllSalesMen() {
+        return streamAllSalesMen(cursorBatchSize);
+    }
+
+    // stream all SalesMan in the Collection, only one cursor batch is held in memory at a time.
+    // If fields are given, only these fields are fetched (e.g. "sid", "lastname"), otherwise the header.
+    // Closing the stream closes the MongoCursor.
+    public Stream<SalesMan> streamAllSalesMen(int batchSize, String... fields) {
+        return streamSalesMen(scope(Operation.STREAM_ALL_SALES_MEN), batchSize, fields.length > 0
+                ? Projections.fields(Projections.include(fields), Projections.excludeId())
+                : HEADER_PROJECTION, fields);
+    }
+
+    // stream all SalesMan with the fields of the view; the records of FULL are only the embedded ones
+    // of old documents, readAllSalesMen(FULL) adds the records of the performance collection
+    public Stream<SalesMan> streamAllSalesMen(int batchSize, SalesManView view) {
+        return streamSalesMen(scope(Operation.STREAM_ALL_SALES_MEN), batchSize, projectionOf(view));
+    }
+
+    // a stream may run for long, so it is not limited by the maxTimeMillis of the profile
+    private Stream<SalesMan> streamSalesMen(Scope scope, int batchSize, Bson projection, String... fields) {
+        FindIterable<SalesMan> results = scope.salesmen.find().projection(projection);
+        if (batchSize > 0) {
+            results.batchSize(batchSize);
+        }
+
+        MongoCursor<SalesMan> cursor = results.iterator();
+        Spliterator<SalesMan> spliterator = Spliterators.spliteratorUnknownSize(cursor,
+                Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false)
+                .onClose(cursor::close)
+                .filter(salesMan -> hasRequiredFields(salesMan, fields));
+    }
+
+    // call the action for every SalesMan in the Collection, the cursor is closed even if the action throws
+    public void forEachSalesMan(Consumer<? super SalesMan> action) {
+        try (Stream<SalesMan> salesMen = streamAllSalesMen()) {
+            salesMen.forEach(action);
+        }
+    }
+
+    // the codec leaves missing header fields null instead of failing the whole cursor batch,
+    // such documents are skipped here one by one
+    private boolean hasRequiredFields(SalesMan salesMan, String... fields) {
+        boolean complete;
+        if (fields.length == 0) {
+            complete = salesMan.getFirstname() != null && salesMan.getLastname() != null && salesMan.getId() != null;
+        } else {
+            complete = true;
+            for (String field : fields) {
+                if (("firstname".equals(field) && salesMan.getFirstname() == null)
+                        || ("lastname".equals(field) && salesMan.getLastname() == null)
+                        || ("sid".equals(field) && salesMan.getId() == null)) {
+                    complete = false;
+                }
+            }
+        }
+
+        if (!complete) {
+            // Continue processing other documents instead of failing completely
+            diagnostics.record(Level.WARN, "mapSalesMan (required fields missing)",
+                    salesMan.getId() == null ? 0 : salesMan.getId(), 0, Outcome.FAILED, 0, System.nanoTime());
+        }
+        return complete;
+    }
+
     @Override
     public List<SocialPerformanceRecord> readSocialPerformanceRecord(SalesMan salesMan) {
         return readByYearSocialPerformanceRecord(salesMan, null); // All years
@@ -115,35 +675,46 @@ public class ManagePersonalImpl implements ManagePersonal{
             return Collections.emptyList();
         }
 
+        long start = System.nanoTime();
         int salesmanId = salesMan.getId();
         List<SocialPerformanceRecord> performanceRecords = new ArrayList<>();
 
         try {
-            // Build query - separate collections approach
-            Document query = new Document("salesmanId", salesmanId);
-            if (year != null) {
-                query.append("year", year);
-            }
-
-            // Add sorting by year descending (most recent first)
-            FindIterable<Document> results = socialperformanceCollection.find(query)
-                    .sort(new Document("year", -1));
-
-            try (MongoCursor<Document> cursor = results.iterator()) {
-                while (cursor.hasNext()) {
-                    SocialPerformanceRecord record = SocialPerformanceRecord.fromDocument(cursor.next());
-                    performanceRecords.add(record);
-                }
-            }
-
+            // most recent first
+            performanceRecords.addAll(scope(year == null ? Operation.READ_RECORDS : Operation.READ_RECORDS_BY_YEAR)
+                    .records.find(salesmanId, year));
         } catch (Exception e) {
-            System.err.println("Error reading performance records for salesman " + salesmanId + ": " + e.getMessage());
             // Return empty list instead of propagating exception for read operations
+            diagnostics.error("readByYearSocialPerformanceRecord", salesmanId, year == null ? 0 : year, start, e);
         }
 
         return performanceRecords;
     }
 
+    // SEPARATE: one range scan of the salesmanId_year_id index starting behind (afterYear, afterId),
+    // the array layouts seek in the unpacked records of the salesman. Record ids are ObjectIds as hex strings.
+    @Override
+    public Page<SocialPerformanceRecord> readSocialPerformanceRecordsPage(SalesMan salesMan, Integer afterYear,
+                                                                         String afterId, int limit) {
+        if (salesMan == null) {
+            throw new IllegalArgumentException("SalesMan cannot be null");
+        }
+        if (afterYear == null && afterId != null) {
+            throw new IllegalArgumentException("afterId needs afterYear");
+        }
+        Page.checkLimit(limit);
+
+        ObjectId id = null;
+        if (afterId != null) {
+            try {
+                id = new ObjectId(afterId);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid record id: " + afterId, e);
+            }
+        }
+        return scope(Operation.READ_RECORDS_PAGE).records.findPage(salesMan.getId(), afterYear, id, limit);
+    }
+
     // read the last added SocialPerformanceRecord of a specific salesMan
     @Override
     public SocialPerformanceRecord readLastSocialPerformanceRecord(SalesMan salesMan) {
@@ -151,27 +722,46 @@ public class ManagePersonalImpl implements ManagePersonal{
             throw new IllegalArgumentException("SalesMan cannot be null");
         }
 
+        long start = System.nanoTime();
         int salesmanId = salesMan.getId();
 
+        // Point lookup of the latestRecord summary on the salesman document
+        Document salesmanQuery = new Document("sid", salesmanId);
+        queryPlanGuard.check("readLastSocialPerformanceRecord", salesmenCollection, salesmanQuery, null);
+        Scope scope = scope(Operation.READ_LAST_RECORD);
         try {
-            // Query: Find by salesmanId, sort by year descending, limit to 1
-            Document query = new Document("salesmanId", salesmanId);
-            Document sort = new Document("year", -1); // Most recent first
-
-            Document lastRecordDoc = socialperformanceCollection.find(query)
-                    .sort(sort)
-                    .limit(1)
+            Document salesmanDoc = scope.salesmen.find(salesmanQuery, Document.class)
+                    .projection(Projections.fields(Projections.include("latestRecord"), Projections.excludeId()))
+                    .maxTime(scope.maxTimeMillis, TimeUnit.MILLISECONDS)
                     .first();
+            if (salesmanDoc != null && salesmanDoc.containsKey("latestRecord")) {
+                Document latestRecord = salesmanDoc.get("latestRecord", Document.class);
+                if (latestRecord == null) {
+                    diagnostics.record(Level.INFO, "readLastSocialPerformanceRecord", salesmanId, 0,
+                            Outcome.NOT_FOUND, 0, start);
+                    return null;
+                }
+                return SocialPerformanceRecord.fromDocument(latestRecord);
+            }
+        } catch (Exception e) {
+            diagnostics.error("readLastSocialPerformanceRecord", salesmanId, 0, start, e);
+            return null;
+        }
+
+        // No summary yet (written before latestRecord existed): newest record of the salesman
+        try {
+            SocialPerformanceRecord lastRecord = scope.records.findLast(salesmanId);
 
-            if (lastRecordDoc == null) {
-                System.out.println("No performance records found for salesman: " + salesmanId);
+            if (lastRecord == null) {
+                diagnostics.record(Level.INFO, "readLastSocialPerformanceRecord (records)", salesmanId, 0,
+                        Outcome.NOT_FOUND, 0, start);
                 return null;
             }
 
-            return SocialPerformanceRecord.fromDocument(lastRecordDoc);
+            return lastRecord;
 
         } catch (Exception e) {
-            System.err.println("Error reading last performance record for salesman " + salesmanId + ": " + e.getMessage());
+            diagnostics.error("readLastSocialPerformanceRecord (records)", salesmanId, 0, start, e);
             return null;
         }
     }
@@ -179,11 +769,200 @@ public class ManagePersonalImpl implements ManagePersonal{
 
 
 
-    /**
-     * @param record
-     */
+    // reads all records (of one year, or all years if year is null) into a primitive block,
+    // raw BSON is decoded straight into the arrays, no SocialPerformanceRecord per record
+    public PerformanceRecordBlock readPerformanceRecordBlock(Integer year) {
+        PerformanceRecordBlock block = new PerformanceRecordBlock();
+        MongoIterable<RawBsonDocument> results = scopes.get(consistencyProfile).records.findRaw(year);
+        if (cursorBatchSize > 0) {
+            results.batchSize(cursorBatchSize);
+        }
+        for (RawBsonDocument raw : results) {
+            try (BsonBinaryReader reader = new BsonBinaryReader(raw.getByteBuffer().asNIO())) {
+                block.appendDocument(reader);
+            }
+        }
+        return block;
+    }
+
+    // company wide statistics per year
     @Override
-    public void updateSalesMan(SalesMan record) {
+    public List<PerformanceStatistics> readPerformanceStatisticsPerYear() {
+        return aggregateStatistics(Operation.READ_STATISTICS_PER_YEAR, null, null, new Document("year", "$year"));
+    }
+
+    // statistics per year of one salesman, the $match uses the salesmanId index
+    @Override
+    public List<PerformanceStatistics> readPerformanceStatisticsPerYear(SalesMan salesMan) {
+        if (salesMan == null) {
+            throw new IllegalArgumentException("SalesMan cannot be null");
+        }
+        return aggregateStatistics(Operation.READ_SALES_MAN_STATISTICS_PER_YEAR, salesMan.getId(), null,
+                new Document("salesmanId", "$salesmanId").append("year", "$year"));
+    }
+
+    // statistics per salesman, for one year or over all years
+    @Override
+    public List<PerformanceStatistics> readPerformanceStatisticsPerSalesMan(Integer year) {
+        Document groupId = new Document("salesmanId", "$salesmanId");
+        if (year != null) {
+            groupId.append("year", "$year");
+        }
+        return aggregateStatistics(Operation.READ_STATISTICS_PER_SALES_MAN, null, year, groupId);
+    }
+
+    // company wide statistics, for one year or over all years
+    @Override
+    public PerformanceStatistics readCompanyPerformanceStatistics(Integer year) {
+        List<PerformanceStatistics> statistics = year == null
+                ? aggregateStatistics(Operation.READ_COMPANY_STATISTICS, null, null, null)
+                : aggregateStatistics(Operation.READ_COMPANY_STATISTICS, null, year, new Document("year", "$year"));
+        return statistics.isEmpty() ? new PerformanceStatistics(null, year, 0) : statistics.get(0);
+    }
+
+    // records (of one salesman / one year if given) -> $group with count, avg, min and max of every criterion
+    // -> $sort by group. Only one small document per group is sent back instead of every record.
+    private List<PerformanceStatistics> aggregateStatistics(Operation operation, Integer salesmanId, Integer year,
+                                                            Document groupId) {
+        List<BsonField> accumulators = new ArrayList<>();
+        accumulators.add(Accumulators.sum("count", 1));
+        for (PerformanceCriterion criterion : PerformanceCriterion.values()) {
+            String field = criterion.getFieldName();
+            accumulators.add(Accumulators.avg(field + "Avg", "$" + field));
+            accumulators.add(Accumulators.min(field + "Min", "$" + field));
+            accumulators.add(Accumulators.max(field + "Max", "$" + field));
+        }
+
+        List<Bson> stages = Arrays.asList(
+                Aggregates.group(groupId, accumulators),
+                Aggregates.sort(Sorts.ascending("_id")));
+
+        List<PerformanceStatistics> statistics = new ArrayList<>();
+        for (Document result : scope(operation).records.aggregate(salesmanId, year, stages, Document.class)
+                .allowDiskUse(true)) {
+            statistics.add(PerformanceStatistics.fromDocument(result));
+        }
+        return statistics;
+    }
+
+    // one $set of the fields changed by the setters, an unchanged salesman costs no round trip.
+    // The changes stay dirty if no salesman with the sid exists.
+    @Override
+    public void updateSalesMan(SalesMan salesMan) {
+        checkSalesMan(salesMan);
+        if (!salesMan.isDirty()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        int sid = salesMan.getId();
+        Bson filter = Filters.eq("sid", sid);
+        queryPlanGuard.check("updateSalesMan", salesmenCollection, filter, null);
+        try {
+            UpdateResult result = scope(Operation.UPDATE_SALES_MAN).salesmen.updateOne(filter, setChanges(salesMan));
+            if (result.getMatchedCount() > 0) {
+                salesMan.clearDirtyFields();
+                diagnostics.record(Level.DEBUG, "updateSalesMan", sid, 0, Outcome.OK, 1, start);
+            } else {
+                diagnostics.record(Level.INFO, "updateSalesMan", sid, 0, Outcome.NOT_FOUND, 0, start);
+            }
+        } catch (MongoException e) {
+            diagnostics.error("updateSalesMan", sid, 0, start, e);
+            throw e;
+        }
+    }
+
+    // the changed salesmen with unordered bulk writes of at most batchSize updates,
+    // unchanged salesmen count as succeeded without being sent
+    @Override
+    public BulkWriteReport<SalesMan> updateSalesMen(Collection<SalesMan> salesMen) {
+        BulkWriteReport<SalesMan> report = new BulkWriteReport<>();
+        if (salesMen == null || salesMen.isEmpty()) {
+            return report;
+        }
+
+        Scope scope = scope(Operation.UPDATE_SALES_MEN);
+        int unchanged = 0;
+        List<SalesMan> chunk = new ArrayList<>(Math.min(batchSize, salesMen.size()));
+        for (SalesMan salesMan : salesMen) {
+            checkSalesMan(salesMan);
+            if (!salesMan.isDirty()) {
+                unchanged++;
+                continue;
+            }
+            chunk.add(salesMan);
+            if (chunk.size() == batchSize) {
+                updateSalesMenChunk(scope, chunk, report);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            updateSalesMenChunk(scope, chunk, report);
+        }
+        report.addRequested(unchanged);
+        report.addSucceeded(unchanged);
+        return report;
+    }
+
+    private void updateSalesMenChunk(Scope scope, List<SalesMan> chunk, BulkWriteReport<SalesMan> report) {
+        List<WriteModel<SalesMan>> models = new ArrayList<>(chunk.size());
+        for (SalesMan salesMan : chunk) {
+            models.add(new UpdateOneModel<>(Filters.eq("sid", salesMan.getId()), setChanges(salesMan)));
+        }
+
+        long start = System.nanoTime();
+        Set<Integer> failedIndexes;
+        try {
+            BulkWriteResult result = scope.salesmen.bulkWrite(models, new BulkWriteOptions().ordered(false));
+            failedIndexes = result.getMatchedCount() < chunk.size()
+                    ? unknownSalesMen(scope, chunk) : Collections.emptySet();
+            report.addRequested(chunk.size());
+            report.addSucceeded(chunk.size() - failedIndexes.size());
+            for (int index : failedIndexes) {
+                report.addFailure(chunk.get(index), 0, "No salesman with sid " + chunk.get(index).getId());
+            }
+            diagnostics.record(Level.DEBUG, "updateSalesMen", 0, 0, Outcome.OK,
+                    chunk.size() - failedIndexes.size(), start);
+        } catch (MongoException e) {
+            failedIndexes = report.addChunk(chunk, e);
+            diagnostics.error("updateSalesMen", 0, 0, start, e);
+        }
+
+        for (int i = 0; i < chunk.size(); i++) {
+            if (!failedIndexes.contains(i)) {
+                chunk.get(i).clearDirtyFields();
+            }
+        }
+    }
+
+    // indexes of the chunk whose sid matched no salesman, one $in query (only after a short matched count)
+    private Set<Integer> unknownSalesMen(Scope scope, List<SalesMan> chunk) {
+        Set<Integer> sids = new HashSet<>();
+        for (SalesMan salesMan : chunk) {
+            sids.add(salesMan.getId());
+        }
+        Set<Integer> knownSids = new HashSet<>();
+        for (Document salesMan : scope.salesmen.find(Filters.in("sid", sids), Document.class)
+                .projection(Projections.fields(Projections.include("sid"), Projections.excludeId()))) {
+            knownSids.add(salesMan.get("sid", Number.class).intValue());
+        }
+        Set<Integer> failedIndexes = new HashSet<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            if (!knownSids.contains(chunk.get(i).getId())) {
+                failedIndexes.add(i);
+            }
+        }
+        return failedIndexes;
+    }
+
+    private static Bson setChanges(SalesMan salesMan) {
+        return new Document("$set", salesMan.toChangesDocument());
+    }
+
+    private static void checkSalesMan(SalesMan salesMan) {
+        if (salesMan == null || salesMan.getId() == null) {
+            throw new IllegalArgumentException("SalesMan and its sid cannot be null");
+        }
     }
 
 
@@ -193,24 +972,25 @@ public class ManagePersonalImpl implements ManagePersonal{
             throw new IllegalArgumentException("SalesMan cannot be null");
         }
 
+        long start = System.nanoTime();
         int salesmanId = salesMan.getId();
+        Scope scope = scope(Operation.DELETE_RECORDS_BY_YEAR);
 
         try {
-            // Single operation - delete all records matching salesmanId and year
-            Document query = new Document("salesmanId", salesmanId).append("year", year);
+            // delete all records matching salesmanId and year
+            long deleted = scope.records.deleteByYear(salesmanId, year);
 
-            DeleteResult result = socialperformanceCollection.deleteMany(query);
-
-            if (result.getDeletedCount() > 0) {
-                System.out.println("✅ Deleted " + result.getDeletedCount() +
-                        " performance records for year " + year + " from salesman " + salesmanId);
+            if (deleted > 0) {
+                repairLatestRecord(scope, salesmanId);
+                diagnostics.record(Level.DEBUG, "deleteByYearSocialPerformanceRecord", salesmanId, year,
+                        Outcome.OK, deleted, start);
             } else {
-                System.out.println("ℹ️ No records found to delete for year " + year + " and salesman " + salesmanId);
+                diagnostics.record(Level.INFO, "deleteByYearSocialPerformanceRecord", salesmanId, year,
+                        Outcome.NOT_FOUND, 0, start);
             }
 
         } catch (Exception e) {
-            System.err.println("❌ Error deleting performance records for salesman " + salesmanId +
-                    " and year " + year + ": " + e.getMessage());
+            diagnostics.error("deleteByYearSocialPerformanceRecord", salesmanId, year, start, e);
             throw new RuntimeException("Failed to delete performance records", e);
         }
     }
@@ -221,36 +1001,32 @@ public class ManagePersonalImpl implements ManagePersonal{
             throw new IllegalArgumentException("SalesMan cannot be null");
         }
 
+        long start = System.nanoTime();
         int salesmanId = salesMan.getId();
+        Scope scope = scope(Operation.DELETE_LAST_RECORD);
 
         try {
-            // Find the last record by sorting and limiting
-            Document query = new Document("salesmanId", salesmanId);
-            Document sort = new Document("year", -1).append("_id", -1);
-
-            Document lastRecord = socialperformanceCollection.find(query)
-                    .sort(sort)
-                    .limit(1)
-                    .first();
+            // find the last record and delete it by its _id
+            int deleted = scope.records.deleteLast(salesmanId);
 
-            if (lastRecord == null) {
-                System.out.println("ℹ️ No performance records found for salesman " + salesmanId);
+            if (deleted < 0) {
+                diagnostics.record(Level.INFO, "deleteLastSocialPerformanceRecord", salesmanId, 0,
+                        Outcome.NOT_FOUND, 0, start);
+                return;
             }
 
-            // Delete the specific record by its _id
-            assert lastRecord != null;
-            ObjectId recordId = lastRecord.getObjectId("_id");
-            DeleteResult result = socialperformanceCollection.deleteOne(new Document("_id", recordId));
-
-            if (result.getDeletedCount() > 0) {
-                System.out.println("✅ Deleted last performance record for salesman " + salesmanId);
+            if (deleted > 0) {
+                repairLatestRecord(scope, salesmanId);
+                diagnostics.record(Level.DEBUG, "deleteLastSocialPerformanceRecord", salesmanId, 0,
+                        Outcome.OK, 1, start);
             } else {
-                System.out.println("❌ Failed to delete last performance record for salesman " + salesmanId);
+                // deleted concurrently by someone else
+                diagnostics.record(Level.WARN, "deleteLastSocialPerformanceRecord", salesmanId, 0,
+                        Outcome.NOT_FOUND, 0, start);
             }
 
         } catch (Exception e) {
-            System.err.println("❌ Error deleting last performance record for salesman " + salesmanId +
-                    ": " + e.getMessage());
+            diagnostics.error("deleteLastSocialPerformanceRecord", salesmanId, 0, start, e);
             throw new RuntimeException("Failed to delete last performance record", e);
         }
     }
@@ -260,15 +1036,30 @@ public class ManagePersonalImpl implements ManagePersonal{
 
         // Check salesmen collection
         System.out.println("Salesmen collection documents:");
-        for (Document doc : salesmenCollection.find()) {
+        for (Document doc : salesmenCollection.find(Document.class)) {
             System.out.println(" - " + doc.toJson());
         }
 
-        // Check performance collection
-        System.out.println("Performance collection documents:");
-        for (Document doc : socialperformanceCollection.find()) {
-            System.out.println(" - " + doc.toJson());
+        // Check performance collection, the embedded records were part of the salesmen
+        if (recordStorage.getLayout() != RecordLayout.EMBEDDED) {
+            System.out.println("Performance collection documents (" + recordStorage.getCollectionName() + "):");
+            for (Document doc : mongoDatabase.getCollection(recordStorage.getCollectionName()).find()) {
+                System.out.println(" - " + doc.toJson());
+            }
         }
     }
 
+    // what an operation runs against under its ConsistencyProfile
+    private static final class Scope {
+        private final MongoCollection<SalesMan> salesmen;
+        private final RecordStorage records;
+        // for the reads of single salesmen / pages, 0 = no limit
+        private final long maxTimeMillis;
+
+        private Scope(MongoCollection<SalesMan> salesmen, RecordStorage records, long maxTimeMillis) {
+            this.salesmen = salesmen;
+            this.records = records;
+            this.maxTimeMillis = maxTimeMillis;
+        }
+    }
 }
@@ -0,0 +1,41 @@
+package org.hbrs.ia.code;
+
+import org.hbrs.ia.model.SalesMan;
+import org.hbrs.ia.model.SocialPerformanceRecord;
+import org.reactivestreams.Publisher;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking counterpart of ManagePersonal.
+ * Single results are returned as CompletableFuture, lists as Publisher that only
+ * fetches as many documents from the server as the subscriber requested.
+ */
+public interface ManagePersonalReactive extends AutoCloseable {
+
+    /** Create **/
+    public CompletableFuture<Void> createSalesMan( SalesMan record );
+    public CompletableFuture<BulkWriteReport<SalesMan>> createSalesMen( Collection<SalesMan> records );
+    /** Read **/
+    public CompletableFuture<SalesMan> readSalesMan( int sid );
+    public Publisher<SalesMan> readAllSalesMen();
+    public Publisher<SocialPerformanceRecord> readSocialPerformanceRecord( SalesMan salesMan );
+    public Publisher<SocialPerformanceRecord> readByYearSocialPerformanceRecord( SalesMan salesMan, Integer year );
+    public CompletableFuture<SocialPerformanceRecord> readLastSocialPerformanceRecord( SalesMan salesMan );
+    /** Update **/
+    public CompletableFuture<Void> updateSalesMan( SalesMan record );
+    public CompletableFuture<Void> addSocialPerformanceRecord( SocialPerformanceRecord record, SalesMan salesMan );
+    public CompletableFuture<BulkWriteReport<SocialPerformanceRecord>> addSocialPerformanceRecords(
+            Map<SalesMan, List<SocialPerformanceRecord>> records );
+    /** Delete **/
+    public CompletableFuture<Void> deleteSalesMan( int sid );
+    public CompletableFuture<Void> deleteAllSalesMan();
+    public CompletableFuture<Void> deleteByYearSocialPerformanceRecord( SalesMan salesMan, int year );
+    public CompletableFuture<Void> deleteLastSocialPerformanceRecord( SalesMan salesMan );
+    /** Lifecycle **/
+    @Override
+    public void close();
+}
@@ -0,0 +1,457 @@
+package org.hbrs.ia.code;
+
+import com.mongodb.MongoException;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+import com.mongodb.reactivestreams.client.FindPublisher;
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.mongodb.reactivestreams.client.MongoClients;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import com.mongodb.reactivestreams.client.MongoDatabase;
+import org.bson.BsonType;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.hbrs.ia.codec.ModelCodecs;
+import org.hbrs.ia.model.SalesMan;
+import org.hbrs.ia.model.SocialPerformanceRecord;
+import org.reactivestreams.Publisher;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ManagePersonalReactive on the reactive streams driver: no call blocks the calling thread,
+ * the driver's own I/O threads complete the futures and feed the publishers.
+ * Uses the same collections, indexes and document layout as ManagePersonalImpl, only RecordLayout.SEPARATE.
+ * The ConsistencyProfile of the settings applies to every operation.
+ */
+public class ManagePersonalReactiveImpl implements ManagePersonalReactive {
+
+    private MongoClient mongoClient;
+    // only a client created by this manager is closed by it, a shared client belongs to the caller
+    private final boolean ownsClient;
+    private MongoDatabase mongoDatabase;
+    private MongoCollection<SalesMan> salesmenCollection;
+    private MongoCollection<SocialPerformanceRecord> socialperformanceCollection;
+    private final ConsistencyProfile consistencyProfile;
+
+    // number of documents / write models sent to the server per bulk round trip
+    private int batchSize = ManagePersonalImpl.DEFAULT_BATCH_SIZE;
+    // number of documents per cursor batch for list reads, 0 = derived from the subscriber's demand
+    private int cursorBatchSize = 0;
+
+    public ManagePersonalReactiveImpl() {
+        this(new MongoConnectionSettings());
+    }
+
+    // the manager creates its own MongoClient from the settings and closes it in close()
+    public ManagePersonalReactiveImpl(MongoConnectionSettings settings) {
+        this(MongoClients.create(checkSettings(settings).toMongoClientSettings()), settings.getDatabaseName(),
+                settings.getConsistencyProfile(), true);
+        if (settings.getWarmUpConnections() > 0) {
+            warmUp(settings.getWarmUpConnections());
+        }
+    }
+
+    // the manager uses a shared MongoClient, close() leaves it open
+    public ManagePersonalReactiveImpl(MongoClient mongoClient, String databaseName) {
+        this(mongoClient, databaseName, ConsistencyProfile.DEFAULT);
+    }
+
+    public ManagePersonalReactiveImpl(MongoClient mongoClient, String databaseName,
+                                      ConsistencyProfile consistencyProfile) {
+        this(mongoClient, databaseName, consistencyProfile, false);
+    }
+
+    private ManagePersonalReactiveImpl(MongoClient mongoClient, String databaseName,
+                                       ConsistencyProfile consistencyProfile, boolean ownsClient) {
+        if (consistencyProfile == null) {
+            throw new IllegalArgumentException("Consistency profile cannot be null");
+        }
+        this.mongoClient = mongoClient;
+        this.ownsClient = ownsClient;
+        this.consistencyProfile = consistencyProfile;
+        MongoDatabase database = mongoClient.getDatabase(databaseName)
+                .withCodecRegistry(ModelCodecs.REGISTRY);
+        // the collections inherit the concerns, like ConsistencyProfile.apply for the sync driver
+        if (consistencyProfile.getWriteConcern() != null) {
+            database = database.withWriteConcern(consistencyProfile.getWriteConcern());
+        }
+        if (consistencyProfile.getReadConcern() != null) {
+            database = database.withReadConcern(consistencyProfile.getReadConcern());
+        }
+        this.mongoDatabase = database;
+        this.salesmenCollection = this.mongoDatabase.getCollection("salesmen", SalesMan.class);
+        this.socialperformanceCollection = this.mongoDatabase.getCollection("performanceRecords",
+                SocialPerformanceRecord.class);
+        // not awaited, the constructor must not block
+        ensureIndexes();
+    }
+
+    // checked before the client is created, so a rejected configuration leaks no connections
+    private static MongoConnectionSettings checkSettings(MongoConnectionSettings settings) {
+        if (settings.getRecordLayout() != RecordLayout.SEPARATE) {
+            throw new IllegalArgumentException("ManagePersonalReactiveImpl only supports RecordLayout.SEPARATE, not "
+                    + settings.getRecordLayout());
+        }
+        if (settings.getConsistencyProfile() == null) {
+            throw new IllegalArgumentException("Consistency profile cannot be null");
+        }
+        return settings;
+    }
+
+    // open connections up front with concurrent pings, completes when all pings are answered
+    public CompletableFuture<Void> warmUp(int connections) {
+        CompletableFuture<?>[] pings = new CompletableFuture<?>[connections];
+        for (int i = 0; i < connections; i++) {
+            pings[i] = Publishers.done(mongoDatabase.runCommand(new Document("ping", 1)));
+        }
+        return CompletableFuture.allOf(pings).exceptionally(e -> {
+            System.err.println("❌ Connection warm-up failed: " + unwrap(e).getMessage());
+            return null;
+        });
+    }
+
+    @Override
+    public void close() {
+        if (ownsClient) {
+            mongoClient.close();
+        }
+    }
+
+    // same indexes as ManagePersonalImpl.ensureIndexes, createIndex is a no-op if the index already exists
+    public CompletableFuture<Void> ensureIndexes() {
+        return Publishers.done(salesmenCollection.createIndex(Indexes.ascending("sid"),
+                        new IndexOptions().unique(true).name("sid_unique")))
+                .thenCompose(v -> Publishers.done(socialperformanceCollection.createIndex(Indexes.compoundIndex(
+                                Indexes.ascending("salesmanId"), Indexes.descending("year"), Indexes.descending("_id")),
+                        new IndexOptions().name("salesmanId_year_id"))))
+                .exceptionally(e -> {
+                    System.err.println("❌ Error creating indexes: " + unwrap(e).getMessage());
+                    return null;
+                });
+    }
+
+    @Override
+    public CompletableFuture<Void> createSalesMan(SalesMan salesMan) {
+        return Publishers.done(salesmenCollection.insertOne(salesMan));
+    }
+
+    // chunks are written one after another, each as unordered insertMany
+    @Override
+    public CompletableFuture<BulkWriteReport<SalesMan>> createSalesMen(Collection<SalesMan> salesMen) {
+        BulkWriteReport<SalesMan> report = new BulkWriteReport<>();
+        CompletableFuture<Void> chain = CompletableFuture.completedFuture(null);
+        if (salesMen == null) {
+            return chain.thenApply(v -> report);
+        }
+
+        for (List<SalesMan> chunk : chunks(salesMen)) {
+            chain = chain.thenCompose(v -> Publishers.done(
+                            salesmenCollection.insertMany(chunk, new InsertManyOptions().ordered(false)))
+                    .handle((result, error) -> report.addChunk(chunk, asMongoException(error))))
+                    .thenApply(failedIndexes -> null);
+        }
+        return chain.thenApply(v -> report);
+    }
+
+    // header only like the sync default view, an embedded performanceRecords array is never sent
+    @Override
+    public CompletableFuture<SalesMan> readSalesMan(int sid) {
+        return Publishers.last(limited(salesmenCollection.find(new Document("sid", sid))
+                .projection(ManagePersonalImpl.HEADER_PROJECTION)).first());
+    }
+
+    // incomplete documents are filtered on the server, so the publisher needs no filtering operator
+    @Override
+    public Publisher<SalesMan> readAllSalesMen() {
+        FindPublisher<SalesMan> results = salesmenCollection.find(Filters.and(
+                Filters.type("firstname", BsonType.STRING),
+                Filters.type("lastname", BsonType.STRING),
+                Filters.type("sid", "number")))
+                .projection(ManagePersonalImpl.HEADER_PROJECTION);
+        if (cursorBatchSize > 0) {
+            results.batchSize(cursorBatchSize);
+        }
+        return results;
+    }
+
+    @Override
+    public Publisher<SocialPerformanceRecord> readSocialPerformanceRecord(SalesMan salesMan) {
+        return readByYearSocialPerformanceRecord(salesMan, null); // All years
+    }
+
+    @Override
+    public Publisher<SocialPerformanceRecord> readByYearSocialPerformanceRecord(SalesMan salesMan, Integer year) {
+        if (salesMan == null) {
+            return Publishers.empty();
+        }
+
+        Document query = new Document("salesmanId", salesMan.getId());
+        if (year != null) {
+            query.append("year", year);
+        }
+        FindPublisher<SocialPerformanceRecord> results = socialperformanceCollection.find(query)
+                .sort(new Document("year", -1));
+        if (cursorBatchSize > 0) {
+            results.batchSize(cursorBatchSize);
+        }
+        return results;
+    }
+
+    // point lookup of the latestRecord summary, records query only for summaries that were never built
+    @Override
+    public CompletableFuture<SocialPerformanceRecord> readLastSocialPerformanceRecord(SalesMan salesMan) {
+        if (salesMan == null) {
+            throw new IllegalArgumentException("SalesMan cannot be null");
+        }
+
+        int salesmanId = salesMan.getId();
+        return Publishers.last(limited(salesmenCollection.find(new Document("sid", salesmanId), Document.class))
+                        .projection(Projections.fields(Projections.include("latestRecord"), Projections.excludeId()))
+                        .first())
+                .thenCompose(salesmanDoc -> {
+                    if (salesmanDoc != null && salesmanDoc.containsKey("latestRecord")) {
+                        Document latestRecord = salesmanDoc.get("latestRecord", Document.class);
+                        return CompletableFuture.completedFuture(
+                                latestRecord == null ? null : SocialPerformanceRecord.fromDocument(latestRecord));
+                    }
+                    return Publishers.last(limited(socialperformanceCollection.find(
+                                    new Document("salesmanId", salesmanId)))
+                            .sort(new Document("year", -1).append("_id", -1))
+                            .first());
+                });
+    }
+
+    // like ManagePersonalImpl: one $set of the changed fields, completed at once if nothing changed
+    @Override
+    public CompletableFuture<Void> updateSalesMan(SalesMan record) {
+        if (record == null || record.getId() == null) {
+            throw new IllegalArgumentException("SalesMan and its sid cannot be null");
+        }
+        if (!record.isDirty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return Publishers.last(salesmenCollection.updateOne(Filters.eq("sid", record.getId()),
+                        new Document("$set", record.toChangesDocument())))
+                .thenApply(result -> {
+                    if (result.getMatchedCount() > 0) {
+                        record.clearDirtyFields();
+                    }
+                    return null;
+                });
+    }
+
+    @Override
+    public CompletableFuture<Void> addSocialPerformanceRecord(SocialPerformanceRecord record, SalesMan salesMan) {
+        record.setSalesmanId(salesMan.getId());
+        return Publishers.done(socialperformanceCollection.insertOne(record))
+                .thenCompose(v -> Publishers.done(salesmenCollection.updateOne(
+                        ManagePersonalImpl.latestRecordFilter(record),
+                        Updates.set("latestRecord", record.toDocument()))));
+    }
+
+    @Override
+    public CompletableFuture<BulkWriteReport<SocialPerformanceRecord>> addSocialPerformanceRecords(
+            Map<SalesMan, List<SocialPerformanceRecord>> records) {
+        BulkWriteReport<SocialPerformanceRecord> report = new BulkWriteReport<>();
+        Map<Integer, SocialPerformanceRecord> latestRecords = new HashMap<>();
+        CompletableFuture<Void> chain = CompletableFuture.completedFuture(null);
+        if (records == null) {
+            return chain.thenApply(v -> report);
+        }
+
+        List<SocialPerformanceRecord> allRecords = new ArrayList<>();
+        for (Map.Entry<SalesMan, List<SocialPerformanceRecord>> entry : records.entrySet()) {
+            if (entry.getValue() == null) {
+                continue;
+            }
+            for (SocialPerformanceRecord record : entry.getValue()) {
+                record.setSalesmanId(entry.getKey().getId());
+                allRecords.add(record);
+            }
+        }
+
+        for (List<SocialPerformanceRecord> chunk : chunks(allRecords)) {
+            chain = chain.thenCompose(v -> Publishers.done(
+                            socialperformanceCollection.insertMany(chunk, new InsertManyOptions().ordered(false)))
+                    .handle((result, error) -> {
+                        Set<Integer> failedIndexes = report.addChunk(chunk, asMongoException(error));
+                        ManagePersonalImpl.mergeLatestRecords(chunk, failedIndexes, latestRecords);
+                        return null;
+                    }));
+        }
+
+        return chain.thenCompose(v -> {
+            List<WriteModel<SalesMan>> models = new ArrayList<>();
+            for (SocialPerformanceRecord record : latestRecords.values()) {
+                models.add(new UpdateOneModel<>(ManagePersonalImpl.latestRecordFilter(record),
+                        Updates.set("latestRecord", record.toDocument())));
+            }
+            CompletableFuture<Void> updates = CompletableFuture.completedFuture(null);
+            for (List<WriteModel<SalesMan>> chunk : chunks(models)) {
+                updates = updates.thenCompose(u -> Publishers.done(
+                        salesmenCollection.bulkWrite(chunk, new BulkWriteOptions().ordered(false))));
+            }
+            return updates.exceptionally(e -> {
+                // the records themselves are stored, only the summaries are stale
+                System.err.println("❌ Error updating latest performance records (run rebuildLatestRecords): "
+                        + unwrap(e).getMessage());
+                return null;
+            });
+        }).thenApply(v -> report);
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteSalesMan(int sid) {
+        return Publishers.done(salesmenCollection.deleteOne(new Document("sid", sid)));
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteAllSalesMan() {
+        return Publishers.done(salesmenCollection.deleteMany(new Document()));
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteByYearSocialPerformanceRecord(SalesMan salesMan, int year) {
+        if (salesMan == null) {
+            throw new IllegalArgumentException("SalesMan cannot be null");
+        }
+
+        int salesmanId = salesMan.getId();
+        return Publishers.last(socialperformanceCollection.deleteMany(
+                        new Document("salesmanId", salesmanId).append("year", year)))
+                .thenCompose(result -> result.getDeletedCount() > 0
+                        ? repairLatestRecord(salesmanId)
+                        : CompletableFuture.completedFuture(null));
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteLastSocialPerformanceRecord(SalesMan salesMan) {
+        if (salesMan == null) {
+            throw new IllegalArgumentException("SalesMan cannot be null");
+        }
+
+        int salesmanId = salesMan.getId();
+        return Publishers.last(socialperformanceCollection.find(new Document("salesmanId", salesmanId), Document.class)
+                        .projection(Projections.include("_id"))
+                        .sort(new Document("year", -1).append("_id", -1))
+                        .first())
+                .thenCompose(lastRecord -> {
+                    if (lastRecord == null) {
+                        return CompletableFuture.completedFuture(null);
+                    }
+                    return Publishers.last(socialperformanceCollection.deleteOne(
+                                    new Document("_id", lastRecord.getObjectId("_id"))))
+                            .thenCompose(result -> result.getDeletedCount() > 0
+                                    ? repairLatestRecord(salesmanId)
+                                    : CompletableFuture.completedFuture(null));
+                });
+    }
+
+    // set latestRecord of a salesman to its newest remaining record, or null if there is none left,
+    // compare-and-set like ManagePersonalImpl.repairLatestRecord
+    private CompletableFuture<Void> repairLatestRecord(int salesmanId) {
+        return repairLatestRecord(salesmanId, ManagePersonalImpl.REPAIR_ATTEMPTS);
+    }
+
+    private CompletableFuture<Void> repairLatestRecord(int salesmanId, int attemptsLeft) {
+        if (attemptsLeft == 0) {
+            System.err.println("❌ latestRecord of salesman " + salesmanId
+                    + " kept changing during the repair (run rebuildLatestRecords)");
+            return CompletableFuture.completedFuture(null);
+        }
+        Bson salesmanFilter = Filters.eq("sid", salesmanId);
+        return Publishers.last(salesmenCollection.find(salesmanFilter, Document.class)
+                        .projection(Projections.fields(Projections.include("latestRecord"), Projections.excludeId()))
+                        .first())
+                .thenCompose(current -> {
+                    if (current == null) {
+                        return CompletableFuture.completedFuture(null);
+                    }
+                    return Publishers.last(socialperformanceCollection.find(new Document("salesmanId", salesmanId))
+                                    .sort(new Document("year", -1).append("_id", -1))
+                                    .first())
+                            .thenCompose(latest -> Publishers.last(salesmenCollection.updateOne(
+                                    Filters.and(salesmanFilter, ManagePersonalImpl.latestRecordUnchanged(current)),
+                                    Updates.set("latestRecord", latest == null ? null : latest.toDocument()))))
+                            .thenCompose(result -> result.getMatchedCount() > 0
+                                    ? CompletableFuture.completedFuture(null)
+                                    : repairLatestRecord(salesmanId, attemptsLeft - 1));
+                });
+    }
+
+    // maxTimeMS of the profile on reads of single salesmen, like ManagePersonalImpl
+    private <T> FindPublisher<T> limited(FindPublisher<T> find) {
+        long maxTimeMillis = consistencyProfile.getMaxTimeMillis();
+        return maxTimeMillis > 0 ? find.maxTime(maxTimeMillis, TimeUnit.MILLISECONDS) : find;
+    }
+
+    public ConsistencyProfile getConsistencyProfile() {
+        return consistencyProfile;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be at least 1");
+        }
+        this.batchSize = batchSize;
+    }
+
+    public int getCursorBatchSize() {
+        return cursorBatchSize;
+    }
+
+    public void setCursorBatchSize(int cursorBatchSize) {
+        if (cursorBatchSize < 0) {
+            throw new IllegalArgumentException("Cursor batch size must not be negative");
+        }
+        this.cursorBatchSize = cursorBatchSize;
+    }
+
+    private <T> List<List<T>> chunks(Collection<T> items) {
+        List<List<T>> chunks = new ArrayList<>();
+        List<T> chunk = new ArrayList<>();
+        for (T item : items) {
+            chunk.add(item);
+            if (chunk.size() == batchSize) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    private static MongoException asMongoException(Throwable error) {
+        if (error == null) {
+            return null;
+        }
+        Throwable cause = unwrap(error);
+        return cause instanceof MongoException ? (MongoException) cause : new MongoException(cause.getMessage(), cause);
+    }
+}
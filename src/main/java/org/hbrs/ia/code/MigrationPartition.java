@@ -0,0 +1,168 @@
+package org.hbrs.ia.code;
+
+import org.bson.Document;
+
+import java.util.Date;
+
+/**
+ * Checkpoint of one sid range of a RecordLayoutMigration, stored in the migrationCheckpoints collection.
+ * lastSid is the last salesman whose records are completely in the target layout, a resumed run
+ * continues behind it.
+ */
+public class MigrationPartition {
+
+    public enum State {
+        // not started or interrupted, continues behind lastSid
+        PENDING,
+        // every salesman of the range is migrated, the counts are not verified yet
+        MIGRATED,
+        // no record left in the other layouts and the target holds at least the expected records
+        VERIFIED,
+        // the counts did not match, see remaining / targetCount
+        UNVERIFIED
+    }
+
+    private final String migrationId;
+    private final int index;
+    private final RecordLayout target;
+    // fromSid <= sid < toSid
+    private final long fromSid;
+    private final long toSid;
+    private Integer lastSid;
+    private State state = State.PENDING;
+    // records written to the target by the migration
+    private long migrated;
+    // distinct records of the migrated salesmen (already in the target or moved there)
+    private long expected;
+    // verification: records in the target / still in the other layouts
+    private long targetCount;
+    private long remaining;
+
+    public MigrationPartition(String migrationId, int index, RecordLayout target, long fromSid, long toSid) {
+        this.migrationId = migrationId;
+        this.index = index;
+        this.target = target;
+        this.fromSid = fromSid;
+        this.toSid = toSid;
+    }
+
+    public String getId() {
+        return migrationId + "/" + index;
+    }
+
+    public String getMigrationId() {
+        return migrationId;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public RecordLayout getTarget() {
+        return target;
+    }
+
+    public long getFromSid() {
+        return fromSid;
+    }
+
+    public long getToSid() {
+        return toSid;
+    }
+
+    public Integer getLastSid() {
+        return lastSid;
+    }
+
+    public void setLastSid(Integer lastSid) {
+        this.lastSid = lastSid;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public void setState(State state) {
+        this.state = state;
+    }
+
+    public long getMigrated() {
+        return migrated;
+    }
+
+    public void setMigrated(long migrated) {
+        this.migrated = migrated;
+    }
+
+    public long getExpected() {
+        return expected;
+    }
+
+    public void setExpected(long expected) {
+        this.expected = expected;
+    }
+
+    public long getTargetCount() {
+        return targetCount;
+    }
+
+    public void setTargetCount(long targetCount) {
+        this.targetCount = targetCount;
+    }
+
+    public long getRemaining() {
+        return remaining;
+    }
+
+    public void setRemaining(long remaining) {
+        this.remaining = remaining;
+    }
+
+    public boolean isVerified() {
+        return state == State.VERIFIED;
+    }
+
+    /**
+     * Converts MigrationPartition to Document (instance method)
+     */
+    public Document toDocument() {
+        return new Document("_id", getId())
+                .append("migrationId", migrationId)
+                .append("index", index)
+                .append("target", target.name())
+                .append("fromSid", fromSid)
+                .append("toSid", toSid)
+                .append("lastSid", lastSid)
+                .append("state", state.name())
+                .append("migrated", migrated)
+                .append("expected", expected)
+                .append("targetCount", targetCount)
+                .append("remaining", remaining)
+                .append("updatedAt", new Date());
+    }
+
+    /**
+     * Converts Document to MigrationPartition object (static factory method)
+     */
+    public static MigrationPartition fromDocument(Document doc) {
+        if (doc == null) {
+            throw new IllegalArgumentException("Document cannot be null");
+        }
+        MigrationPartition partition = new MigrationPartition(doc.getString("migrationId"), doc.getInteger("index"),
+                RecordLayout.valueOf(doc.getString("target")), doc.get("fromSid", Number.class).longValue(),
+                doc.get("toSid", Number.class).longValue());
+        partition.setLastSid(doc.getInteger("lastSid"));
+        partition.setState(State.valueOf(doc.getString("state")));
+        partition.setMigrated(doc.get("migrated", 0L));
+        partition.setExpected(doc.get("expected", 0L));
+        partition.setTargetCount(doc.get("targetCount", 0L));
+        partition.setRemaining(doc.get("remaining", 0L));
+        return partition;
+    }
+
+    public String toString() {
+        return "partition " + index + " [" + fromSid + ", " + toSid + "): " + state
+                + ", migrated: " + migrated + ", expected: " + expected
+                + ", target: " + targetCount + ", remaining: " + remaining;
+    }
+}
@@ -0,0 +1,287 @@
+package org.hbrs.ia.code;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.MongoCompressor;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.ConnectionPoolListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Connection settings for the managers: where to connect, connection pool, wire compression
+ * and timeouts. Options that are not set here come from the connection string (e.g. maxPoolSize,
+ * compressors, serverSelectionTimeoutMS), otherwise they are the driver defaults.
+ * Works for the sync (ManagePersonalImpl) and the reactive (ManagePersonalReactiveImpl) driver.
+ */
+public class MongoConnectionSettings {
+
+    private String connectionString = "mongodb://localhost:27017";
+    private String databaseName = "HighPerformanceDatabase";
+
+    // null = not set, the connection string or the driver default applies
+
+    // connection pool
+    private Integer maxPoolSize;
+    private Integer minPoolSize;
+    // connections that may be established at the same time
+    private Integer maxConnecting;
+    // how long a request waits for a free connection before it fails
+    private Long maxWaitTimeMillis;
+    // 0 = idle connections are never closed
+    private Long maxConnectionIdleTimeMillis;
+
+    // timeouts, 0 = no timeout
+    private Integer connectTimeoutMillis;
+    private Integer readTimeoutMillis;
+    private Long serverSelectionTimeoutMillis;
+
+    // wire compression in order of preference: "zstd", "snappy", "zlib" (zstd and snappy need their libraries)
+    private List<String> compressors;
+
+    // connections opened by the manager right after construction, 0 = no warm-up
+    private int warmUpConnections = 0;
+
+    // where ManagePersonalImpl stores the performance records, bucketSize only for RecordLayout.BUCKET.
+    // ManagePersonalReactiveImpl only supports RecordLayout.SEPARATE
+    private RecordLayout recordLayout = RecordLayout.SEPARATE;
+    private int bucketSize = ManagePersonalImpl.DEFAULT_BUCKET_SIZE;
+
+    // write / read concern and timeouts of both managers, single operations of ManagePersonalImpl can get their own
+    private ConsistencyProfile consistencyProfile = ConsistencyProfile.DEFAULT;
+
+    // driver event listeners, e.g. org.hbrs.ia.metrics.DriverMetrics for round trip and pool metrics
+    private List<CommandListener> commandListeners = new ArrayList<>();
+    private List<ConnectionPoolListener> connectionPoolListeners = new ArrayList<>();
+
+    // the connection string first, then only the options that were set explicitly
+    public MongoClientSettings toMongoClientSettings() {
+        MongoClientSettings.Builder builder = MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString(connectionString))
+                .applyToConnectionPoolSettings(pool -> {
+                    if (maxPoolSize != null) {
+                        pool.maxSize(maxPoolSize);
+                    }
+                    if (minPoolSize != null) {
+                        pool.minSize(minPoolSize);
+                    }
+                    if (maxConnecting != null) {
+                        pool.maxConnecting(maxConnecting);
+                    }
+                    if (maxWaitTimeMillis != null) {
+                        pool.maxWaitTime(maxWaitTimeMillis, TimeUnit.MILLISECONDS);
+                    }
+                    if (maxConnectionIdleTimeMillis != null) {
+                        pool.maxConnectionIdleTime(maxConnectionIdleTimeMillis, TimeUnit.MILLISECONDS);
+                    }
+                    pool.connectionPoolListenerList(connectionPoolListeners);
+                })
+                .applyToSocketSettings(socket -> {
+                    if (connectTimeoutMillis != null) {
+                        socket.connectTimeout(connectTimeoutMillis, TimeUnit.MILLISECONDS);
+                    }
+                    if (readTimeoutMillis != null) {
+                        socket.readTimeout(readTimeoutMillis, TimeUnit.MILLISECONDS);
+                    }
+                })
+                .applyToClusterSettings(cluster -> {
+                    if (serverSelectionTimeoutMillis != null) {
+                        cluster.serverSelectionTimeout(serverSelectionTimeoutMillis, TimeUnit.MILLISECONDS);
+                    }
+                })
+                .commandListenerList(commandListeners);
+
+        if (compressors != null) {
+            List<MongoCompressor> mongoCompressors = new ArrayList<>();
+            for (String compressor : compressors) {
+                mongoCompressors.add(toMongoCompressor(compressor));
+            }
+            builder.compressorList(mongoCompressors);
+        }
+        return builder.build();
+    }
+
+    // the settings of the connection string alone, for the getters of options that were not set
+    private MongoClientSettings connectionStringSettings() {
+        return MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString(connectionString))
+                .build();
+    }
+
+    private static MongoCompressor toMongoCompressor(String name) {
+        switch (name) {
+            case "zstd":
+                return MongoCompressor.createZstdCompressor();
+            case "snappy":
+                return MongoCompressor.createSnappyCompressor();
+            case "zlib":
+                return MongoCompressor.createZlibCompressor();
+            default:
+                throw new IllegalArgumentException("Unknown compressor: " + name);
+        }
+    }
+
+    public String getConnectionString() {
+        return connectionString;
+    }
+
+    public void setConnectionString(String connectionString) {
+        this.connectionString = connectionString;
+    }
+
+    public String getDatabaseName() {
+        return databaseName;
+    }
+
+    public void setDatabaseName(String databaseName) {
+        this.databaseName = databaseName;
+    }
+
+    public int getMaxPoolSize() {
+        return maxPoolSize != null ? maxPoolSize
+                : connectionStringSettings().getConnectionPoolSettings().getMaxSize();
+    }
+
+    public void setMaxPoolSize(int maxPoolSize) {
+        this.maxPoolSize = maxPoolSize;
+    }
+
+    public int getMinPoolSize() {
+        return minPoolSize != null ? minPoolSize
+                : connectionStringSettings().getConnectionPoolSettings().getMinSize();
+    }
+
+    public void setMinPoolSize(int minPoolSize) {
+        this.minPoolSize = minPoolSize;
+    }
+
+    public int getMaxConnecting() {
+        return maxConnecting != null ? maxConnecting
+                : connectionStringSettings().getConnectionPoolSettings().getMaxConnecting();
+    }
+
+    public void setMaxConnecting(int maxConnecting) {
+        this.maxConnecting = maxConnecting;
+    }
+
+    public long getMaxWaitTimeMillis() {
+        return maxWaitTimeMillis != null ? maxWaitTimeMillis
+                : connectionStringSettings().getConnectionPoolSettings()
+                        .getMaxWaitTime(TimeUnit.MILLISECONDS);
+    }
+
+    public void setMaxWaitTimeMillis(long maxWaitTimeMillis) {
+        this.maxWaitTimeMillis = maxWaitTimeMillis;
+    }
+
+    public long getMaxConnectionIdleTimeMillis() {
+        return maxConnectionIdleTimeMillis != null ? maxConnectionIdleTimeMillis
+                : connectionStringSettings().getConnectionPoolSettings()
+                        .getMaxConnectionIdleTime(TimeUnit.MILLISECONDS);
+    }
+
+    public void setMaxConnectionIdleTimeMillis(long maxConnectionIdleTimeMillis) {
+        this.maxConnectionIdleTimeMillis = maxConnectionIdleTimeMillis;
+    }
+
+    public int getConnectTimeoutMillis() {
+        return connectTimeoutMillis != null ? connectTimeoutMillis
+                : connectionStringSettings().getSocketSettings().getConnectTimeout(TimeUnit.MILLISECONDS);
+    }
+
+    public void setConnectTimeoutMillis(int connectTimeoutMillis) {
+        this.connectTimeoutMillis = connectTimeoutMillis;
+    }
+
+    public int getReadTimeoutMillis() {
+        return readTimeoutMillis != null ? readTimeoutMillis
+                : connectionStringSettings().getSocketSettings().getReadTimeout(TimeUnit.MILLISECONDS);
+    }
+
+    public void setReadTimeoutMillis(int readTimeoutMillis) {
+        this.readTimeoutMillis = readTimeoutMillis;
+    }
+
+    public long getServerSelectionTimeoutMillis() {
+        return serverSelectionTimeoutMillis != null ? serverSelectionTimeoutMillis
+                : connectionStringSettings().getClusterSettings()
+                        .getServerSelectionTimeout(TimeUnit.MILLISECONDS);
+    }
+
+    public void setServerSelectionTimeoutMillis(long serverSelectionTimeoutMillis) {
+        this.serverSelectionTimeoutMillis = serverSelectionTimeoutMillis;
+    }
+
+    public List<String> getCompressors() {
+        if (compressors != null) {
+            return compressors;
+        }
+        List<String> names = new ArrayList<>();
+        for (MongoCompressor compressor : connectionStringSettings().getCompressorList()) {
+            names.add(compressor.getName());
+        }
+        return names;
+    }
+
+    public void setCompressors(List<String> compressors) {
+        this.compressors = compressors != null ? new ArrayList<>(compressors) : null;
+    }
+
+    public int getWarmUpConnections() {
+        return warmUpConnections;
+    }
+
+    public void setWarmUpConnections(int warmUpConnections) {
+        this.warmUpConnections = warmUpConnections;
+    }
+
+    public RecordLayout getRecordLayout() {
+        return recordLayout;
+    }
+
+    public void setRecordLayout(RecordLayout recordLayout) {
+        this.recordLayout = recordLayout;
+    }
+
+    public int getBucketSize() {
+        return bucketSize;
+    }
+
+    public void setBucketSize(int bucketSize) {
+        this.bucketSize = bucketSize;
+    }
+
+    public ConsistencyProfile getConsistencyProfile() {
+        return consistencyProfile;
+    }
+
+    public void setConsistencyProfile(ConsistencyProfile consistencyProfile) {
+        this.consistencyProfile = consistencyProfile;
+    }
+
+    public List<CommandListener> getCommandListeners() {
+        return commandListeners;
+    }
+
+    public void setCommandListeners(List<CommandListener> commandListeners) {
+        this.commandListeners = new ArrayList<>(commandListeners);
+    }
+
+    public void addCommandListener(CommandListener commandListener) {
+        this.commandListeners.add(commandListener);
+    }
+
+    public List<ConnectionPoolListener> getConnectionPoolListeners() {
+        return connectionPoolListeners;
+    }
+
+    public void setConnectionPoolListeners(List<ConnectionPoolListener> connectionPoolListeners) {
+        this.connectionPoolListeners = new ArrayList<>(connectionPoolListeners);
+    }
+
+    public void addConnectionPoolListener(ConnectionPoolListener connectionPoolListener) {
+        this.connectionPoolListeners.add(connectionPoolListener);
+    }
+}
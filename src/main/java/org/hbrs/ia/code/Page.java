@@ -0,0 +1,97 @@
+package org.hbrs.ia.code;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset (seek) pagination: the items and the position after the last item.
+ * The next page is read by passing that position back, e.g.
+ *   readSalesMenPage(page.getNextAfterSid(), limit)
+ *   readSocialPerformanceRecordsPage(salesMan, page.getNextAfterYear(), page.getNextAfterId(), limit)
+ * The position is null on the last page. getNextToken() is the same position as one string.
+ */
+public class Page<T> {
+
+    private final List<T> items;
+    // sid (salesmen) or year (performance records) of the last item, null if there is no next page
+    private final Integer nextAfterKey;
+    // id of the last performance record, null for salesmen
+    private final String nextAfterId;
+
+    public Page(List<T> items, Integer nextAfterKey, String nextAfterId) {
+        this.items = Collections.unmodifiableList(items);
+        this.nextAfterKey = nextAfterKey;
+        this.nextAfterId = nextAfterId;
+    }
+
+    // the first limit items are the page, one more item means there is a next page;
+    // ids are the record ids in the order of the items (null for salesmen)
+    static <T> Page<T> of(List<T> itemsPlusOne, int limit, Function<T, Integer> key, List<String> ids) {
+        if (itemsPlusOne.size() <= limit) {
+            return new Page<>(itemsPlusOne, null, null);
+        }
+        List<T> items = itemsPlusOne.subList(0, limit);
+        return new Page<>(items, key.apply(items.get(limit - 1)), ids == null ? null : ids.get(limit - 1));
+    }
+
+    static void checkLimit(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be at least 1");
+        }
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public boolean hasNext() {
+        return nextAfterKey != null;
+    }
+
+    public Integer getNextAfterSid() {
+        return nextAfterKey;
+    }
+
+    public Integer getNextAfterYear() {
+        return nextAfterKey;
+    }
+
+    public String getNextAfterId() {
+        return nextAfterId;
+    }
+
+    // "<sid>" or "<year>:<id>", null on the last page
+    public String getNextToken() {
+        if (nextAfterKey == null) {
+            return null;
+        }
+        return nextAfterId == null ? nextAfterKey.toString() : nextAfterKey + ":" + nextAfterId;
+    }
+
+    // sid or year of a token, null for a null token (first page)
+    public static Integer afterKeyOf(String token) {
+        if (token == null) {
+            return null;
+        }
+        int separator = token.indexOf(':');
+        try {
+            return Integer.valueOf(separator < 0 ? token : token.substring(0, separator));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid page token: " + token, e);
+        }
+    }
+
+    // record id of a token, null if the token has none
+    public static String afterIdOf(String token) {
+        if (token == null) {
+            return null;
+        }
+        int separator = token.indexOf(':');
+        return separator < 0 ? null : token.substring(separator + 1);
+    }
+
+    public String toString() {
+        return "items: " + items.size() + ", next: " + getNextToken();
+    }
+}
@@ -0,0 +1,67 @@
+package org.hbrs.ia.code;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Bridges single-result publishers of the reactive streams driver to CompletableFuture.
+ */
+final class Publishers {
+
+    private Publishers() {
+    }
+
+    // completes with the last element, or null if the publisher completes without any
+    static <T> CompletableFuture<T> last(Publisher<T> publisher) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        publisher.subscribe(new Subscriber<T>() {
+            // signals are serialized by the publisher (reactive streams rule 1.3)
+            private T value;
+
+            @Override
+            public void onSubscribe(Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(T item) {
+                value = item;
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                future.completeExceptionally(error);
+            }
+
+            @Override
+            public void onComplete() {
+                future.complete(value);
+            }
+        });
+        return future;
+    }
+
+    // completes when the publisher completes, the result itself is dropped
+    static CompletableFuture<Void> done(Publisher<?> publisher) {
+        return last(publisher).thenApply(result -> null);
+    }
+
+    // completes every subscriber right away
+    static <T> Publisher<T> empty() {
+        return subscriber -> {
+            subscriber.onSubscribe(new Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onComplete();
+        };
+    }
+}
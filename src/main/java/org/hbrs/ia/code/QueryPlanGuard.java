@@ -0,0 +1,106 @@
+package org.hbrs.ia.code;
+
+import com.mongodb.ExplainVerbosity;
+import com.mongodb.MongoException;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Runs explain once per query shape and reports winning plans that scan the whole
+ * collection (COLLSCAN) or sort in memory (blocking SORT stage).
+ * In mode LOG the violation is printed, in mode FAIL an IllegalStateException is thrown
+ * (meant for tests, see the surefire configuration in the pom).
+ */
+public class QueryPlanGuard {
+
+    public static final String MODE_PROPERTY = "managePersonal.queryPlanGuard";
+
+    public enum Mode { OFF, LOG, FAIL }
+
+    private volatile Mode mode;
+    private final Set<String> checkedShapes = ConcurrentHashMap.newKeySet();
+
+    public QueryPlanGuard(Mode mode) {
+        this.mode = mode;
+    }
+
+    // mode taken from the system property managePersonal.queryPlanGuard, OFF if not set
+    public static QueryPlanGuard fromSystemProperty() {
+        return new QueryPlanGuard(Mode.valueOf(System.getProperty(MODE_PROPERTY, Mode.OFF.name())));
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public void setMode(Mode mode) {
+        this.mode = mode;
+        this.checkedShapes.clear();
+    }
+
+    // explain the query shape (filter + sort) if it has not been checked yet
+    public void check(String shape, MongoCollection<?> collection, Bson filter, Bson sort) {
+        if (mode == Mode.OFF || !checkedShapes.add(shape)) {
+            return;
+        }
+
+        Document explain;
+        try {
+            FindIterable<?> query = collection.find(filter);
+            if (sort != null) {
+                query.sort(sort);
+            }
+            explain = query.explain(ExplainVerbosity.QUERY_PLANNER);
+        } catch (MongoException e) {
+            System.err.println("Could not explain query shape " + shape + ": " + e.getMessage());
+            return;
+        }
+
+        List<String> violations = findViolations(explain);
+        if (violations.isEmpty()) {
+            return;
+        }
+
+        String message = "Query shape " + shape + " on " + collection.getNamespace().getCollectionName()
+                + " uses " + violations + " - is an index missing?";
+        if (mode == Mode.FAIL) {
+            throw new IllegalStateException(message);
+        }
+        System.err.println("⚠️ " + message);
+    }
+
+    // stages of the winning plan that scan the collection or sort in memory
+    public static List<String> findViolations(Document explain) {
+        List<String> violations = new ArrayList<>();
+        Document queryPlanner = explain.get("queryPlanner", Document.class);
+        if (queryPlanner != null) {
+            collectViolations(queryPlanner.get("winningPlan"), violations);
+        }
+        return violations;
+    }
+
+    // walks inputStage / inputStages / queryPlan (slot based engine) recursively
+    private static void collectViolations(Object node, List<String> violations) {
+        if (node instanceof Document) {
+            Document stage = (Document) node;
+            String name = stage.getString("stage");
+            if ("COLLSCAN".equals(name) || "SORT".equals(name)) {
+                violations.add(name);
+            }
+            for (Object child : stage.values()) {
+                collectViolations(child, violations);
+            }
+        } else if (node instanceof List) {
+            for (Object child : (List<?>) node) {
+                collectViolations(child, violations);
+            }
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package org.hbrs.ia.code;
+
+/**
+ * Where ManagePersonalImpl stores the performance records. The salesmen collection and its
+ * latestRecord summary are the same for every layout, only the records move.
+ */
+public enum RecordLayout {
+    // one document per record in the performanceRecords collection (default)
+    SEPARATE,
+    // performanceRecords array inside the salesman document, the records are deleted with their salesman
+    EMBEDDED,
+    // performanceBuckets collection, one document per salesman and at most bucketSize records
+    BUCKET
+}
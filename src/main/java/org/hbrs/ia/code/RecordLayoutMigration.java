@@ -0,0 +1,306 @@
+package org.hbrs.ia.code;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.Sorts;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.hbrs.ia.codec.ModelCodecs;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Moves the performance records of all salesmen into one RecordLayout, wherever they are stored today
+ * (embedded arrays, performanceRecords collection, buckets). The salesmen are split into sid ranges,
+ * the partitions are migrated by several threads, batchSize salesmen per round trip:
+ *   read the records of the batch from the target and the other layouts -> write the missing ones
+ *   to the target with one bulk write -> remove them from the other layouts -> checkpoint lastSid.
+ * The records keep their _id, so repeating a batch after a crash writes nothing twice, and a run with
+ * the same migrationId resumes from the checkpoints in the migrationCheckpoints collection.
+ * Afterwards every partition is verified: nothing left in the other layouts and at least the
+ * expected number of records in the target.
+ *
+ * The managers of the application should use the target layout while the migration runs: they write
+ * new records to the target, the records of a salesman are complete there once its batch is migrated.
+ * Records of salesmen that do not exist (any more) are not migrated and show up as remaining.
+ */
+public class RecordLayoutMigration {
+
+    public static final String CHECKPOINTS = "migrationCheckpoints";
+
+    private final MongoCollection<Document> salesmenCollection;
+    private final MongoCollection<Document> checkpoints;
+    private final RecordStorage target;
+    private final List<RecordStorage> sources = new ArrayList<>();
+
+    private int threads = Runtime.getRuntime().availableProcessors();
+    // sid ranges of a new migration, more partitions than threads even out unequally filled ranges
+    private int partitions = 4 * threads;
+    // salesmen per round trip
+    private int batchSize = 500;
+    // records moved per second over all threads, 0 = no limit
+    private int targetOpsPerSecond = 0;
+
+    // set by the first failing partition, the others stop after their current batch
+    private volatile boolean failed;
+
+    public RecordLayoutMigration(MongoClient mongoClient, String databaseName, RecordLayout target) {
+        this(mongoClient, databaseName, target, ManagePersonalImpl.DEFAULT_BUCKET_SIZE);
+    }
+
+    // bucketSize of new buckets if target is RecordLayout.BUCKET
+    public RecordLayoutMigration(MongoClient mongoClient, String databaseName, RecordLayout target, int bucketSize) {
+        if (target == null) {
+            throw new IllegalArgumentException("Target layout cannot be null");
+        }
+        MongoDatabase database = mongoClient.getDatabase(databaseName).withCodecRegistry(ModelCodecs.REGISTRY);
+        this.salesmenCollection = database.getCollection("salesmen");
+        this.checkpoints = database.getCollection(CHECKPOINTS);
+        QueryPlanGuard queryPlanGuard = QueryPlanGuard.fromSystemProperty();
+        this.target = RecordStorage.create(target, database, bucketSize, queryPlanGuard);
+        for (RecordLayout layout : RecordLayout.values()) {
+            if (layout != target) {
+                sources.add(RecordStorage.create(layout, database, bucketSize, queryPlanGuard));
+            }
+        }
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Threads must be at least 1");
+        }
+        this.threads = threads;
+    }
+
+    public int getPartitions() {
+        return partitions;
+    }
+
+    public void setPartitions(int partitions) {
+        if (partitions < 1) {
+            throw new IllegalArgumentException("Partitions must be at least 1");
+        }
+        this.partitions = partitions;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be at least 1");
+        }
+        this.batchSize = batchSize;
+    }
+
+    public int getTargetOpsPerSecond() {
+        return targetOpsPerSecond;
+    }
+
+    public void setTargetOpsPerSecond(int targetOpsPerSecond) {
+        if (targetOpsPerSecond < 0) {
+            throw new IllegalArgumentException("Target ops per second must not be negative");
+        }
+        this.targetOpsPerSecond = targetOpsPerSecond;
+    }
+
+    // runs (or resumes) the migration and returns the verified partitions
+    public List<MigrationPartition> run(String migrationId) {
+        if (migrationId == null || migrationId.isEmpty()) {
+            throw new IllegalArgumentException("Migration id cannot be empty");
+        }
+        ensureIndexes();
+        List<MigrationPartition> partitionList = loadOrCreatePartitions(migrationId);
+        long start = System.nanoTime();
+        System.out.println("🚀 Migrating records to " + target.getLayout() + " in " + partitionList.size()
+                + " partitions with " + threads + " threads (" + migrationId + ")");
+
+        Throttle throttle = new Throttle(targetOpsPerSecond);
+        AtomicInteger nextPartition = new AtomicInteger();
+        failed = false;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    int index;
+                    while (!failed && (index = nextPartition.getAndIncrement()) < partitionList.size()) {
+                        try {
+                            migrate(partitionList.get(index), throttle);
+                            verify(partitionList.get(index));
+                        } catch (InterruptedException e) {
+                            failed = true;
+                            Thread.currentThread().interrupt();
+                            return;
+                        } catch (RuntimeException e) {
+                            failed = true;
+                            throw e;
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("❌ Migration " + migrationId + " interrupted, run it again to resume", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("❌ Migration " + migrationId + " failed, run it again to resume", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        long verified = partitionList.stream().filter(MigrationPartition::isVerified).count();
+        System.out.printf("✅ Migration %s: %d of %d partitions verified in %.1f s%n", migrationId, verified,
+                partitionList.size(), (System.nanoTime() - start) / 1e9);
+        return partitionList;
+    }
+
+    // the checkpoints of an earlier run, or equal sid ranges between the lowest and the highest sid
+    private List<MigrationPartition> loadOrCreatePartitions(String migrationId) {
+        List<MigrationPartition> partitionList = new ArrayList<>();
+        for (Document checkpoint : checkpoints.find(Filters.eq("migrationId", migrationId))
+                .sort(Sorts.ascending("index"))) {
+            MigrationPartition partition = MigrationPartition.fromDocument(checkpoint);
+            if (partition.getTarget() != target.getLayout()) {
+                throw new IllegalStateException("Migration " + migrationId + " migrates to "
+                        + partition.getTarget() + ", not to " + target.getLayout());
+            }
+            partitionList.add(partition);
+        }
+        if (!partitionList.isEmpty()) {
+            return partitionList;
+        }
+
+        Document first = salesmenCollection.find().projection(Projections.include("sid"))
+                .sort(Sorts.ascending("sid")).first();
+        Document last = salesmenCollection.find().projection(Projections.include("sid"))
+                .sort(Sorts.descending("sid")).first();
+        if (first == null || last == null) {
+            return partitionList;
+        }
+        long fromSid = first.get("sid", Number.class).longValue();
+        long toSid = last.get("sid", Number.class).longValue() + 1;
+        long size = Math.max(1, (toSid - fromSid + partitions - 1) / partitions);
+        for (long from = fromSid; from < toSid; from += size) {
+            MigrationPartition partition = new MigrationPartition(migrationId, partitionList.size(),
+                    target.getLayout(), from, Math.min(toSid, from + size));
+            partitionList.add(partition);
+            checkpoints.insertOne(partition.toDocument());
+        }
+        return partitionList;
+    }
+
+    private void migrate(MigrationPartition partition, Throttle throttle) throws InterruptedException {
+        while (partition.getState() == MigrationPartition.State.PENDING && !failed) {
+            Bson query = Filters.and(Filters.gte("sid", partition.getFromSid()), Filters.lt("sid", partition.getToSid()));
+            if (partition.getLastSid() != null) {
+                query = Filters.and(query, Filters.gt("sid", partition.getLastSid()));
+            }
+            List<Integer> sids = new ArrayList<>(batchSize);
+            for (Document salesMan : salesmenCollection.find(query)
+                    .projection(Projections.fields(Projections.include("sid"), Projections.excludeId()))
+                    .sort(Sorts.ascending("sid")).limit(batchSize)) {
+                sids.add(salesMan.get("sid", Number.class).intValue());
+            }
+            if (sids.isEmpty()) {
+                partition.setState(MigrationPartition.State.MIGRATED);
+                checkpoint(partition);
+                return;
+            }
+            migrateBatch(sids, partition, throttle);
+            partition.setLastSid(sids.get(sids.size() - 1));
+            checkpoint(partition);
+        }
+    }
+
+    // everything not in the target yet is written with one bulk write, then removed from the other layouts
+    private void migrateBatch(List<Integer> sids, MigrationPartition partition, Throttle throttle)
+            throws InterruptedException {
+        Set<ObjectId> ids = new HashSet<>();
+        long expected = 0;
+        for (List<Document> records : target.findDocuments(sids).values()) {
+            for (Document record : records) {
+                if (ids.add(record.getObjectId("_id"))) {
+                    expected++;
+                }
+            }
+        }
+        List<Document> missing = new ArrayList<>();
+        for (RecordStorage source : sources) {
+            for (Map.Entry<Integer, List<Document>> records : source.findDocuments(sids).entrySet()) {
+                for (Document record : records.getValue()) {
+                    if (ids.add(record.getObjectId("_id"))) {
+                        missing.add(record);
+                        expected++;
+                    }
+                }
+            }
+        }
+
+        throttle.acquire(missing.size());
+        target.insertDocuments(missing);
+        for (RecordStorage source : sources) {
+            source.deleteAll(sids);
+        }
+        partition.setMigrated(partition.getMigrated() + missing.size());
+        partition.setExpected(partition.getExpected() + expected);
+    }
+
+    private void verify(MigrationPartition partition) {
+        if (partition.getState() != MigrationPartition.State.MIGRATED
+                && partition.getState() != MigrationPartition.State.UNVERIFIED) {
+            return;
+        }
+        long remaining = 0;
+        for (RecordStorage source : sources) {
+            remaining += source.countRecords(partition.getFromSid(), partition.getToSid());
+        }
+        partition.setRemaining(remaining);
+        partition.setTargetCount(target.countRecords(partition.getFromSid(), partition.getToSid()));
+        // the application may have added records to the target in the meantime
+        boolean verified = remaining == 0 && partition.getTargetCount() >= partition.getExpected();
+        partition.setState(verified ? MigrationPartition.State.VERIFIED : MigrationPartition.State.UNVERIFIED);
+        checkpoint(partition);
+        if (!verified) {
+            System.err.println("⚠️ Migration " + partition.getMigrationId() + ", " + partition);
+        }
+    }
+
+    private void checkpoint(MigrationPartition partition) {
+        checkpoints.replaceOne(Filters.eq("_id", partition.getId()), partition.toDocument(),
+                new ReplaceOptions().upsert(true));
+    }
+
+    // the batches are range scans of sid_unique, the records are read by the indexes of the layouts
+    private void ensureIndexes() {
+        salesmenCollection.createIndex(Indexes.ascending("sid"), new IndexOptions().unique(true).name("sid_unique"));
+        target.ensureIndexes();
+        for (RecordStorage source : sources) {
+            source.ensureIndexes();
+        }
+        checkpoints.createIndex(Indexes.ascending("migrationId", "index"));
+    }
+}
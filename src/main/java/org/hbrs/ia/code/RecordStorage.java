@@ -0,0 +1,93 @@
+package org.hbrs.ia.code;
+
+import com.mongodb.client.AggregateIterable;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.MongoIterable;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.hbrs.ia.model.SocialPerformanceRecord;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Storage of the performance records of one RecordLayout. ManagePersonalImpl keeps the salesmen
+ * and their latestRecord summary and delegates everything about the records themselves.
+ * Record ids are ObjectIds, read order is newest year first and the latest added first within a year.
+ */
+interface RecordStorage {
+
+    static RecordStorage create(RecordLayout layout, MongoDatabase database, int bucketSize,
+                                QueryPlanGuard queryPlanGuard) {
+        return create(layout, database, bucketSize, queryPlanGuard, 0);
+    }
+
+    // the write / read concerns come with the database, maxTimeMillis limits the reads of single salesmen
+    // (0 = no limit), the scans of findRaw / aggregate are not limited
+    static RecordStorage create(RecordLayout layout, MongoDatabase database, int bucketSize,
+                                QueryPlanGuard queryPlanGuard, long maxTimeMillis) {
+        switch (layout) {
+            case EMBEDDED:
+                return new EmbeddedRecordStorage(database, queryPlanGuard, maxTimeMillis);
+            case BUCKET:
+                return new BucketRecordStorage(database, bucketSize, queryPlanGuard, maxTimeMillis);
+            default:
+                return new SeparateRecordStorage(database, queryPlanGuard, maxTimeMillis);
+        }
+    }
+
+    RecordLayout getLayout();
+
+    // collection holding the records
+    String getCollectionName();
+
+    void ensureIndexes();
+
+    // stores one record, its salesmanId is set
+    void insert(SocialPerformanceRecord record);
+
+    // one unordered bulk write of the chunk, adds the outcome to the report and returns the failed indexes
+    Set<Integer> insertChunk(List<SocialPerformanceRecord> chunk, BulkWriteReport<SocialPerformanceRecord> report);
+
+    // records of one salesman (of one year, or all years if year is null)
+    List<SocialPerformanceRecord> find(int salesmanId, Integer year);
+
+    // records behind (afterYear, afterId), afterId null = behind all records of afterYear
+    Page<SocialPerformanceRecord> findPage(int salesmanId, Integer afterYear, ObjectId afterId, int limit);
+
+    SocialPerformanceRecord findLast(int salesmanId);
+
+    // records of many salesmen by salesmanId (only salesmen that have records are in the map)
+    Map<Integer, List<SocialPerformanceRecord>> findAll(List<Integer> salesmanIds);
+
+    // number of deleted records
+    long deleteByYear(int salesmanId, int year);
+
+    // 1 if the last record was deleted, 0 if it was deleted concurrently, -1 if there was none
+    int deleteLast(int salesmanId);
+
+    // records of one year (or all) as raw record documents
+    MongoIterable<RawBsonDocument> findRaw(Integer year);
+
+    // the stages run on record documents (salesmanId, criteria, year), filtered by salesman and year if given
+    <T> AggregateIterable<T> aggregate(Integer salesmanId, Integer year, List<Bson> stages, Class<T> resultClass);
+
+    // recompute the latestRecord summary of every salesman on the server
+    void rebuildLatestRecords();
+
+    // record documents (with _id) of many salesmen by salesmanId, for RecordLayoutMigration.
+    // Array elements without _id get a stand-in id that only depends on the salesman and the array position.
+    Map<Integer, List<Document>> findDocuments(List<Integer> salesmanIds);
+
+    // stores record documents that are not stored yet, keeping their _id (the salesmen exist)
+    void insertDocuments(List<Document> records);
+
+    // removes every record of the salesmen
+    void deleteAll(List<Integer> salesmanIds);
+
+    // number of records of the salesmen with fromSid <= sid < toSid
+    long countRecords(long fromSid, long toSid);
+}
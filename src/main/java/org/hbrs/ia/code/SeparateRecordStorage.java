@@ -0,0 +1,268 @@
+package org.hbrs.ia.code;
+
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.AggregateIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.MongoIterable;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.model.MergeOptions;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.Variable;
+import org.bson.BsonBinaryReader;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.hbrs.ia.model.SocialPerformanceRecord;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RecordLayout.SEPARATE: one document per record in the performanceRecords collection.
+ * Every read is a range scan of the salesmanId_year_id index, a write touches only the new document.
+ */
+class SeparateRecordStorage implements RecordStorage {
+
+    static final String COLLECTION = "performanceRecords";
+
+    private static final Bson NEWEST_FIRST = Sorts.descending("year", "_id");
+
+    private final MongoCollection<SocialPerformanceRecord> collection;
+    private final MongoCollection<Document> salesmenCollection;
+    private final QueryPlanGuard queryPlanGuard;
+    private final Codec<SocialPerformanceRecord> codec;
+    // server side limit of the reads of single salesmen, 0 = no limit
+    private final long maxTimeMillis;
+
+    SeparateRecordStorage(MongoDatabase database, QueryPlanGuard queryPlanGuard, long maxTimeMillis) {
+        this.collection = database.getCollection(COLLECTION, SocialPerformanceRecord.class);
+        this.salesmenCollection = database.getCollection("salesmen");
+        this.queryPlanGuard = queryPlanGuard;
+        this.maxTimeMillis = maxTimeMillis;
+        this.codec = database.getCodecRegistry().get(SocialPerformanceRecord.class);
+    }
+
+    @Override
+    public RecordLayout getLayout() {
+        return RecordLayout.SEPARATE;
+    }
+
+    @Override
+    public String getCollectionName() {
+        return COLLECTION;
+    }
+
+    @Override
+    public void ensureIndexes() {
+        // equality on salesmanId, range / sort on year, tie-break on _id (deleteLastSocialPerformanceRecord)
+        collection.createIndex(Indexes.compoundIndex(
+                        Indexes.ascending("salesmanId"), Indexes.descending("year"), Indexes.descending("_id")),
+                new IndexOptions().name("salesmanId_year_id"));
+    }
+
+    @Override
+    public void insert(SocialPerformanceRecord record) {
+        collection.insertOne(record);
+    }
+
+    @Override
+    public Set<Integer> insertChunk(List<SocialPerformanceRecord> chunk,
+                                    BulkWriteReport<SocialPerformanceRecord> report) {
+        try {
+            collection.insertMany(chunk, new InsertManyOptions().ordered(false));
+            return report.addChunk(chunk, null);
+        } catch (MongoException e) {
+            return report.addChunk(chunk, e);
+        }
+    }
+
+    @Override
+    public List<SocialPerformanceRecord> find(int salesmanId, Integer year) {
+        Document query = new Document("salesmanId", salesmanId);
+        if (year != null) {
+            query.append("year", year);
+        }
+        queryPlanGuard.check(year == null ? "readSocialPerformanceRecord" : "readByYearSocialPerformanceRecord",
+                collection, query, NEWEST_FIRST);
+        return collection.find(query).sort(NEWEST_FIRST).maxTime(maxTimeMillis, TimeUnit.MILLISECONDS)
+                .into(new ArrayList<>());
+    }
+
+    // one range scan of the salesmanId_year_id index starting behind (afterYear, afterId)
+    @Override
+    public Page<SocialPerformanceRecord> findPage(int salesmanId, Integer afterYear, ObjectId afterId, int limit) {
+        Bson query = Filters.eq("salesmanId", salesmanId);
+        if (afterYear != null && afterId == null) {
+            query = Filters.and(query, Filters.lt("year", afterYear));
+        } else if (afterYear != null) {
+            query = Filters.and(query, Filters.or(Filters.lt("year", afterYear),
+                    Filters.and(Filters.eq("year", afterYear), Filters.lt("_id", afterId))));
+        }
+        queryPlanGuard.check(afterId == null ? "readSocialPerformanceRecordsPage"
+                : "readSocialPerformanceRecordsPage (after id)", collection, query, NEWEST_FIRST);
+
+        DecoderContext context = DecoderContext.builder().build();
+        List<SocialPerformanceRecord> records = new ArrayList<>(limit + 1);
+        List<String> ids = new ArrayList<>(limit + 1);
+        for (RawBsonDocument raw : collection.find(query, RawBsonDocument.class)
+                .sort(NEWEST_FIRST).limit(limit + 1).maxTime(maxTimeMillis, TimeUnit.MILLISECONDS)) {
+            try (BsonBinaryReader reader = new BsonBinaryReader(raw.getByteBuffer().asNIO())) {
+                records.add(codec.decode(reader, context));
+            }
+            ids.add(raw.getObjectId("_id").getValue().toHexString());
+        }
+        return Page.of(records, limit, SocialPerformanceRecord::getYear, ids);
+    }
+
+    @Override
+    public SocialPerformanceRecord findLast(int salesmanId) {
+        Document query = new Document("salesmanId", salesmanId);
+        queryPlanGuard.check("readLastSocialPerformanceRecord (records)", collection, query, NEWEST_FIRST);
+        return collection.find(query).sort(NEWEST_FIRST).limit(1).maxTime(maxTimeMillis, TimeUnit.MILLISECONDS)
+                .first();
+    }
+
+    @Override
+    public Map<Integer, List<SocialPerformanceRecord>> findAll(List<Integer> salesmanIds) {
+        Bson query = Filters.in("salesmanId", salesmanIds);
+        // salesmanId first, so the sort is the index order even for many sids
+        Bson sort = Sorts.orderBy(Sorts.ascending("salesmanId"), NEWEST_FIRST);
+        queryPlanGuard.check("readSalesMen (records)", collection, query, sort);
+
+        Map<Integer, List<SocialPerformanceRecord>> recordsBySid = new HashMap<>();
+        for (SocialPerformanceRecord record : collection.find(query).sort(sort)
+                .maxTime(maxTimeMillis, TimeUnit.MILLISECONDS)) {
+            recordsBySid.computeIfAbsent(record.getSalesmanId(), sid -> new ArrayList<>()).add(record);
+        }
+        return recordsBySid;
+    }
+
+    @Override
+    public long deleteByYear(int salesmanId, int year) {
+        Document query = new Document("salesmanId", salesmanId).append("year", year);
+        queryPlanGuard.check("deleteByYearSocialPerformanceRecord", collection, query, null);
+        return collection.deleteMany(query).getDeletedCount();
+    }
+
+    @Override
+    public int deleteLast(int salesmanId) {
+        Document query = new Document("salesmanId", salesmanId);
+        queryPlanGuard.check("deleteLastSocialPerformanceRecord", collection, query, NEWEST_FIRST);
+
+        // only the _id is needed, so the record is not decoded at all
+        Document lastRecord = collection.find(query, Document.class)
+                .projection(Projections.include("_id"))
+                .sort(NEWEST_FIRST)
+                .limit(1)
+                .first();
+        if (lastRecord == null) {
+            return -1;
+        }
+        return (int) collection.deleteOne(new Document("_id", lastRecord.getObjectId("_id"))).getDeletedCount();
+    }
+
+    @Override
+    public MongoIterable<RawBsonDocument> findRaw(Integer year) {
+        return collection.find(year == null ? new Document() : Filters.eq("year", year), RawBsonDocument.class);
+    }
+
+    // the records already are record documents, the $match uses the salesmanId index
+    @Override
+    public <T> AggregateIterable<T> aggregate(Integer salesmanId, Integer year, List<Bson> stages,
+                                              Class<T> resultClass) {
+        List<Bson> pipeline = new ArrayList<>();
+        List<Bson> filters = new ArrayList<>();
+        if (salesmanId != null) {
+            filters.add(Filters.eq("salesmanId", salesmanId));
+        }
+        if (year != null) {
+            filters.add(Filters.eq("year", year));
+        }
+        if (!filters.isEmpty()) {
+            pipeline.add(Aggregates.match(filters.size() == 1 ? filters.get(0) : Filters.and(filters)));
+        }
+        pipeline.addAll(stages);
+        return collection.aggregate(pipeline, resultClass);
+    }
+
+    // one indexed lookup per salesman, merged back into the salesmen collection by sid
+    @Override
+    public void rebuildLatestRecords() {
+        List<Bson> pipeline = Arrays.asList(
+                Aggregates.project(Projections.include("sid")),
+                Aggregates.lookup(COLLECTION,
+                        Collections.singletonList(new Variable<>("sid", "$sid")),
+                        Arrays.asList(
+                                Aggregates.match(Filters.expr(new Document("$eq", Arrays.asList("$salesmanId", "$$sid")))),
+                                Aggregates.sort(NEWEST_FIRST),
+                                Aggregates.limit(1),
+                                Aggregates.project(Projections.excludeId())),
+                        "latest"),
+                Aggregates.project(new Document("_id", 0)
+                        .append("sid", 1)
+                        .append("latestRecord", new Document("$ifNull", Arrays.asList(
+                                new Document("$arrayElemAt", Arrays.asList("$latest", 0)), null)))),
+                Aggregates.merge("salesmen", new MergeOptions()
+                        .uniqueIdentifier("sid")
+                        .whenMatched(MergeOptions.WhenMatched.MERGE)
+                        .whenNotMatched(MergeOptions.WhenNotMatched.DISCARD)));
+
+        salesmenCollection.aggregate(pipeline, Document.class).toCollection();
+    }
+
+    @Override
+    public Map<Integer, List<Document>> findDocuments(List<Integer> salesmanIds) {
+        Bson query = Filters.in("salesmanId", salesmanIds);
+        queryPlanGuard.check("findDocuments", collection, query, null);
+        Map<Integer, List<Document>> recordsBySid = new HashMap<>();
+        for (Document record : collection.find(query, Document.class)) {
+            recordsBySid.computeIfAbsent(record.getInteger("salesmanId"), sid -> new ArrayList<>()).add(record);
+        }
+        return recordsBySid;
+    }
+
+    // a record of an interrupted earlier run may already be stored, its duplicate key error is ignored
+    @Override
+    public void insertDocuments(List<Document> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        try {
+            collection.withDocumentClass(Document.class).insertMany(records, new InsertManyOptions().ordered(false));
+        } catch (MongoBulkWriteException e) {
+            for (BulkWriteError error : e.getWriteErrors()) {
+                if (ErrorCategory.fromErrorCode(error.getCode()) != ErrorCategory.DUPLICATE_KEY) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void deleteAll(List<Integer> salesmanIds) {
+        collection.deleteMany(Filters.in("salesmanId", salesmanIds));
+    }
+
+    @Override
+    public long countRecords(long fromSid, long toSid) {
+        return collection.countDocuments(Filters.and(Filters.gte("salesmanId", fromSid), Filters.lt("salesmanId", toSid)));
+    }
+}
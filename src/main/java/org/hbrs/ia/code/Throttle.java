@@ -0,0 +1,39 @@
+package org.hbrs.ia.code;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits the operations of all threads to opsPerSecond together: every acquire reserves the next free
+ * time slots and sleeps until its slot has come. 0 = no limit.
+ */
+class Throttle {
+
+    private final long nanosPerOp;
+    // start of the next free slot
+    private long nextFreeNanos = System.nanoTime();
+
+    Throttle(int opsPerSecond) {
+        if (opsPerSecond < 0) {
+            throw new IllegalArgumentException("Ops per second must not be negative");
+        }
+        this.nanosPerOp = opsPerSecond == 0 ? 0 : TimeUnit.SECONDS.toNanos(1) / opsPerSecond;
+    }
+
+    void acquire(int ops) throws InterruptedException {
+        if (nanosPerOp == 0 || ops <= 0) {
+            return;
+        }
+        long waitNanos = reserve(ops);
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    // no burst after an idle period: the slots start now at the earliest
+    private synchronized long reserve(int ops) {
+        long now = System.nanoTime();
+        long start = Math.max(now, nextFreeNanos);
+        nextFreeNanos = start + ops * nanosPerOp;
+        return start - now;
+    }
+}
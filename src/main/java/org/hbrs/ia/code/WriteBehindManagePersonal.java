@@ -0,0 +1,553 @@
+package org.hbrs.ia.code;
+
+import org.hbrs.ia.metrics.DiagnosticRing;
+import org.hbrs.ia.model.PerformanceStatistics;
+import org.hbrs.ia.model.SalesMan;
+import org.hbrs.ia.model.SalesManView;
+import org.hbrs.ia.model.SocialPerformanceRecord;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Write-behind buffer for addSocialPerformanceRecord in front of another ManagePersonal (decorator).
+ * Records are put into a bounded queue and a background thread writes them with one
+ * addSocialPerformanceRecords call per batch, as soon as flushSize records are queued or the oldest
+ * queued record waited flushInterval. A full queue blocks the adding thread (backpressure).
+ *
+ * ACKNOWLEDGED: addSocialPerformanceRecord returns after the batch with the record is written and
+ * throws if the record failed. FIRE_AND_FORGET: it returns once the record is queued, failures are
+ * only logged and counted.
+ *
+ * Record reads of this manager see queued records, statistics and record deletes flush first.
+ * close() writes everything still queued before closing the delegate.
+ */
+public class WriteBehindManagePersonal implements ManagePersonal {
+
+    public enum Durability {
+        ACKNOWLEDGED,
+        FIRE_AND_FORGET
+    }
+
+    private final ManagePersonal delegate;
+    private final int capacity;
+    private final int flushSize;
+    private final long flushIntervalNanos;
+    private final Durability durability;
+
+    // queue, sequence numbers and state below are guarded by lock
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private final Condition flushNeeded = lock.newCondition();
+    private final Condition flushed = lock.newCondition();
+    private final ArrayDeque<PendingRecord> queue = new ArrayDeque<>();
+    // taken from the queue but not written yet, still visible to reads
+    private List<PendingRecord> inFlight = new ArrayList<>();
+    private long enqueuedSequence;
+    private long writtenSequence;
+    private long requestedSequence;
+    private boolean closed;
+
+    // a batch write excludes record reads and leaves inFlight empty before it releases them,
+    // so a read never sees a record twice (delegate + in flight)
+    private final ReentrantReadWriteLock batchLock = new ReentrantReadWriteLock();
+
+    private final LongAdder writtenRecords = new LongAdder();
+    private final LongAdder failedRecords = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    // failed fire-and-forget records, nobody waits for them
+    private final DiagnosticRing diagnostics = DiagnosticRing.fromSystemProperty();
+    private final Thread flusher;
+
+    public WriteBehindManagePersonal(ManagePersonal delegate, int capacity, int flushSize,
+                                     Duration flushInterval, Durability durability) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("Delegate cannot be null");
+        }
+        if (capacity < 1 || flushSize < 1 || flushSize > capacity) {
+            throw new IllegalArgumentException("Capacity and flush size must be at least 1, flush size at most capacity");
+        }
+        if (flushInterval == null || flushInterval.isNegative() || flushInterval.isZero()) {
+            throw new IllegalArgumentException("Flush interval must be positive");
+        }
+        this.delegate = delegate;
+        this.capacity = capacity;
+        this.flushSize = flushSize;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.durability = durability == null ? Durability.ACKNOWLEDGED : durability;
+        this.flusher = new Thread(this::runFlusher, "write-behind-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    // queue the record, blocks while the queue is full (and in ACKNOWLEDGED mode until it is written)
+    @Override
+    public void addSocialPerformanceRecord(SocialPerformanceRecord record, SalesMan salesMan) {
+        int sid = salesMan.getId();
+        record.setSalesmanId(sid);
+        PendingRecord pending = new PendingRecord(salesMan, new SocialPerformanceRecord(sid, record.getPacked()),
+                durability == Durability.ACKNOWLEDGED ? new CompletableFuture<>() : null);
+
+        lock.lock();
+        try {
+            while (queue.size() >= capacity && !closed) {
+                notFull.await();
+            }
+            if (closed) {
+                throw new IllegalStateException("Write-behind buffer is closed");
+            }
+            pending.enqueuedAtNanos = System.nanoTime();
+            queue.addLast(pending);
+            enqueuedSequence++;
+            if (queue.size() == 1 || queue.size() >= flushSize) {
+                flushNeeded.signal();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for space in the write-behind buffer", e);
+        } finally {
+            lock.unlock();
+        }
+
+        if (pending.written != null) {
+            join(pending.written);
+        }
+    }
+
+    // write everything queued so far and wait for it
+    public void flush() {
+        lock.lock();
+        try {
+            long target = enqueuedSequence;
+            if (writtenSequence >= target) {
+                return;
+            }
+            requestedSequence = Math.max(requestedSequence, target);
+            flushNeeded.signal();
+            while (writtenSequence < target) {
+                flushed.await();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while flushing the write-behind buffer", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getQueueSize() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public DiagnosticRing getDiagnostics() {
+        return diagnostics;
+    }
+
+    public long getWrittenRecordCount() {
+        return writtenRecords.sum();
+    }
+
+    public long getFailedRecordCount() {
+        return failedRecords.sum();
+    }
+
+    public long getBatchCount() {
+        return batches.sum();
+    }
+
+    public String toString() {
+        return "queued: " + getQueueSize() + "\n" +
+                "written: " + getWrittenRecordCount() + "\n" +
+                "failed: " + getFailedRecordCount() + "\n" +
+                "batches: " + getBatchCount() + "\n";
+    }
+
+    private void runFlusher() {
+        while (true) {
+            List<PendingRecord> batch;
+            long batchSequence;
+            lock.lock();
+            try {
+                while (!closed && !flushDue()) {
+                    if (queue.isEmpty()) {
+                        flushNeeded.await();
+                    } else {
+                        long waited = System.nanoTime() - queue.peekFirst().enqueuedAtNanos;
+                        flushNeeded.awaitNanos(flushIntervalNanos - waited);
+                    }
+                }
+                if (queue.isEmpty()) {
+                    // closed and drained
+                    return;
+                }
+                batch = new ArrayList<>(Math.min(queue.size(), flushSize));
+                while (!queue.isEmpty() && batch.size() < flushSize) {
+                    batch.add(queue.pollFirst());
+                }
+                inFlight = batch;
+                batchSequence = writtenSequence + batch.size();
+                notFull.signalAll();
+            } catch (InterruptedException e) {
+                // nobody is supposed to interrupt the flusher, keep draining
+                continue;
+            } finally {
+                lock.unlock();
+            }
+
+            writeBatch(batch, batchSequence);
+        }
+    }
+
+    // caller holds lock
+    private boolean flushDue() {
+        if (queue.isEmpty()) {
+            return false;
+        }
+        return queue.size() >= flushSize
+                || requestedSequence > writtenSequence
+                || System.nanoTime() - queue.peekFirst().enqueuedAtNanos >= flushIntervalNanos;
+    }
+
+    private void writeBatch(List<PendingRecord> batch, long batchSequence) {
+        // one entry per sid, records in queue order
+        Map<Integer, SalesMan> salesMen = new LinkedHashMap<>();
+        Map<SalesMan, List<SocialPerformanceRecord>> records = new LinkedHashMap<>();
+        Map<SocialPerformanceRecord, PendingRecord> byRecord = new IdentityHashMap<>();
+        for (PendingRecord pending : batch) {
+            SalesMan salesMan = salesMen.computeIfAbsent(pending.record.getSalesmanId(), sid -> pending.salesMan);
+            records.computeIfAbsent(salesMan, key -> new ArrayList<>()).add(pending.record);
+            byRecord.put(pending.record, pending);
+        }
+
+        batchLock.writeLock().lock();
+        try {
+            Map<PendingRecord, RuntimeException> failed = new IdentityHashMap<>();
+            try {
+                BulkWriteReport<SocialPerformanceRecord> report = delegate.addSocialPerformanceRecords(records);
+                batches.increment();
+                for (BulkWriteReport.Failure<SocialPerformanceRecord> failure : report.getFailures()) {
+                    PendingRecord pending = byRecord.remove(failure.getItem());
+                    if (pending != null) {
+                        failed.put(pending, new RuntimeException("Failed to write performance record: " + failure));
+                    }
+                }
+                writtenRecords.add(byRecord.size());
+            } catch (RuntimeException e) {
+                for (PendingRecord pending : byRecord.values()) {
+                    failed.put(pending, e);
+                }
+                byRecord.clear();
+            }
+            failedRecords.add(failed.size());
+
+            // the batch leaves inFlight before any caller is woken, its reads then see it in the delegate only
+            finishBatch(batchSequence);
+            for (Map.Entry<PendingRecord, RuntimeException> failure : failed.entrySet()) {
+                fail(failure.getKey(), failure.getValue());
+            }
+            for (PendingRecord pending : byRecord.values()) {
+                if (pending.written != null) {
+                    pending.written.complete(null);
+                }
+            }
+        } finally {
+            batchLock.writeLock().unlock();
+        }
+    }
+
+    // caller holds the batchLock write lock
+    private void finishBatch(long batchSequence) {
+        lock.lock();
+        try {
+            writtenSequence = batchSequence;
+            inFlight = new ArrayList<>();
+            flushed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // failedRecords is counted by the caller
+    private void fail(PendingRecord pending, RuntimeException error) {
+        if (pending.written != null) {
+            pending.written.completeExceptionally(error);
+        } else {
+            diagnostics.error("addSocialPerformanceRecord (write-behind)", pending.record.getSalesmanId(),
+                    pending.record.getYear(), System.nanoTime(), error);
+        }
+    }
+
+    // queued and in-flight records of the salesman, oldest first
+    private List<SocialPerformanceRecord> pendingRecords(int sid, Integer year) {
+        List<SocialPerformanceRecord> records = new ArrayList<>();
+        lock.lock();
+        try {
+            for (PendingRecord pending : inFlight) {
+                pending.addTo(records, sid, year);
+            }
+            for (PendingRecord pending : queue) {
+                pending.addTo(records, sid, year);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return records;
+    }
+
+    @Override
+    public List<SocialPerformanceRecord> readSocialPerformanceRecord(SalesMan salesMan) {
+        return readByYearSocialPerformanceRecord(salesMan, null);
+    }
+
+    // delegate records merged with queued ones, newest year first, queued before stored within a year
+    @Override
+    public List<SocialPerformanceRecord> readByYearSocialPerformanceRecord(SalesMan salesMan, Integer year) {
+        if (salesMan == null) {
+            return delegate.readByYearSocialPerformanceRecord(null, year);
+        }
+        batchLock.readLock().lock();
+        try {
+            List<SocialPerformanceRecord> pending = pendingRecords(salesMan.getId(), year);
+            List<SocialPerformanceRecord> stored = delegate.readByYearSocialPerformanceRecord(salesMan, year);
+            if (pending.isEmpty()) {
+                return stored;
+            }
+            List<SocialPerformanceRecord> records = new ArrayList<>(pending.size() + stored.size());
+            for (int i = pending.size() - 1; i >= 0; i--) {
+                records.add(pending.get(i));
+            }
+            records.addAll(stored);
+            // stable sort keeps the queued (newer) records in front of stored ones of the same year
+            records.sort(Comparator.comparing(SocialPerformanceRecord::getYear).reversed());
+            return records;
+        } finally {
+            batchLock.readLock().unlock();
+        }
+    }
+
+    // queued records have no id yet, so they are written before the page is read
+    @Override
+    public Page<SocialPerformanceRecord> readSocialPerformanceRecordsPage(SalesMan salesMan, Integer afterYear,
+                                                                         String afterId, int limit) {
+        flush();
+        return delegate.readSocialPerformanceRecordsPage(salesMan, afterYear, afterId, limit);
+    }
+
+    // the newest queued record wins over the stored last record if its year is not older
+    @Override
+    public SocialPerformanceRecord readLastSocialPerformanceRecord(SalesMan salesMan) {
+        if (salesMan == null) {
+            throw new IllegalArgumentException("SalesMan cannot be null");
+        }
+        batchLock.readLock().lock();
+        try {
+            List<SocialPerformanceRecord> pending = pendingRecords(salesMan.getId(), null);
+            SocialPerformanceRecord last = delegate.readLastSocialPerformanceRecord(salesMan);
+            for (SocialPerformanceRecord record : pending) {
+                if (last == null || record.getYear() >= last.getYear()) {
+                    last = record;
+                }
+            }
+            return last;
+        } finally {
+            batchLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<PerformanceStatistics> readPerformanceStatisticsPerYear() {
+        flush();
+        return delegate.readPerformanceStatisticsPerYear();
+    }
+
+    @Override
+    public List<PerformanceStatistics> readPerformanceStatisticsPerYear(SalesMan salesMan) {
+        flush();
+        return delegate.readPerformanceStatisticsPerYear(salesMan);
+    }
+
+    @Override
+    public List<PerformanceStatistics> readPerformanceStatisticsPerSalesMan(Integer year) {
+        flush();
+        return delegate.readPerformanceStatisticsPerSalesMan(year);
+    }
+
+    @Override
+    public PerformanceStatistics readCompanyPerformanceStatistics(Integer year) {
+        flush();
+        return delegate.readCompanyPerformanceStatistics(year);
+    }
+
+    // queued records are written first, so the batch keeps the order of all adds
+    @Override
+    public BulkWriteReport<SocialPerformanceRecord> addSocialPerformanceRecords(
+            Map<SalesMan, List<SocialPerformanceRecord>> records) {
+        flush();
+        return delegate.addSocialPerformanceRecords(records);
+    }
+
+    @Override
+    public void deleteByYearSocialPerformanceRecord(SalesMan salesMan, int year) {
+        flush();
+        delegate.deleteByYearSocialPerformanceRecord(salesMan, year);
+    }
+
+    @Override
+    public void deleteLastSocialPerformanceRecord(SalesMan salesMan) {
+        flush();
+        delegate.deleteLastSocialPerformanceRecord(salesMan);
+    }
+
+    @Override
+    public void createSalesMan(SalesMan record) {
+        delegate.createSalesMan(record);
+    }
+
+    @Override
+    public BulkWriteReport<SalesMan> createSalesMen(Collection<SalesMan> records) {
+        return delegate.createSalesMen(records);
+    }
+
+    @Override
+    public SalesMan readSalesMan(int sid) {
+        return delegate.readSalesMan(sid);
+    }
+
+    // views with records are read after the queued records are written
+    @Override
+    public SalesMan readSalesMan(int sid, SalesManView view) {
+        if (view != SalesManView.HEADER) {
+            flush();
+        }
+        return delegate.readSalesMan(sid, view);
+    }
+
+    @Override
+    public Map<Integer, SalesMan> readSalesMen(Collection<Integer> sids) {
+        return delegate.readSalesMen(sids);
+    }
+
+    @Override
+    public Map<Integer, SalesMan> readSalesMen(Collection<Integer> sids, SalesManView view) {
+        if (view != SalesManView.HEADER) {
+            flush();
+        }
+        return delegate.readSalesMen(sids, view);
+    }
+
+    @Override
+    public List<SalesMan> readAllSalesMen() {
+        return delegate.readAllSalesMen();
+    }
+
+    @Override
+    public List<SalesMan> readAllSalesMen(SalesManView view) {
+        if (view != SalesManView.HEADER) {
+            flush();
+        }
+        return delegate.readAllSalesMen(view);
+    }
+
+    @Override
+    public Stream<SalesMan> streamAllSalesMen() {
+        return delegate.streamAllSalesMen();
+    }
+
+    @Override
+    public Page<SalesMan> readSalesMenPage(Integer afterSid, int limit) {
+        return delegate.readSalesMenPage(afterSid, limit);
+    }
+
+    @Override
+    public void updateSalesMan(SalesMan record) {
+        delegate.updateSalesMan(record);
+    }
+
+    @Override
+    public BulkWriteReport<SalesMan> updateSalesMen(Collection<SalesMan> records) {
+        return delegate.updateSalesMen(records);
+    }
+
+    @Override
+    public void deleteSalesMan(int sid) {
+        delegate.deleteSalesMan(sid);
+    }
+
+    @Override
+    public void deleteAllSalesMan() {
+        delegate.deleteAllSalesMan();
+    }
+
+    // drains the queue (waiting adders are released with an exception), then closes the delegate
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            flushNeeded.signal();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        delegate.close();
+    }
+
+    private static void join(CompletableFuture<Void> written) {
+        try {
+            written.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static final class PendingRecord {
+        private final SalesMan salesMan;
+        private final SocialPerformanceRecord record;
+        // null in FIRE_AND_FORGET mode
+        private final CompletableFuture<Void> written;
+        private long enqueuedAtNanos;
+
+        private PendingRecord(SalesMan salesMan, SocialPerformanceRecord record, CompletableFuture<Void> written) {
+            this.salesMan = salesMan;
+            this.record = record;
+            this.written = written;
+        }
+
+        // adds a copy, callers must not change the queued record
+        private void addTo(List<SocialPerformanceRecord> records, int sid, Integer year) {
+            if (record.getSalesmanId() == sid && (year == null || record.getYear().equals(year))) {
+                records.add(new SocialPerformanceRecord(sid, record.getPacked()));
+            }
+        }
+    }
+}
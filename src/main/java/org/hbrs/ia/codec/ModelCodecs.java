@@ -0,0 +1,19 @@
+package org.hbrs.ia.codec;
+
+import com.mongodb.MongoClientSettings;
+import org.bson.codecs.configuration.CodecRegistries;
+import org.bson.codecs.configuration.CodecRegistry;
+
+/**
+ * Codec registry for the model classes, falling back to the driver defaults
+ * (Document, BsonDocument, ...) for everything else.
+ */
+public final class ModelCodecs {
+
+    public static final CodecRegistry REGISTRY = CodecRegistries.fromRegistries(
+            CodecRegistries.fromCodecs(new SalesManCodec(), new SocialPerformanceRecordCodec()),
+            MongoClientSettings.getDefaultCodecRegistry());
+
+    private ModelCodecs() {
+    }
+}
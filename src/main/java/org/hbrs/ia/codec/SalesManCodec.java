@@ -0,0 +1,131 @@
+package org.hbrs.ia.codec;
+
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.hbrs.ia.model.SalesMan;
+import org.hbrs.ia.model.SocialPerformanceRecord;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads and writes a SalesMan directly from / to BSON, without building an intermediate org.bson.Document.
+ * Decodes the header fields (firstname, lastname, sid) and, if the document contains them,
+ * the latestRecord summary and an embedded performanceRecords array; everything else is skipped.
+ * Reads use a projection (SalesManView), so the array is only sent when it is asked for.
+ * Only the header is encoded. Missing header fields stay null, so callers can tolerate incomplete documents.
+ */
+public class SalesManCodec implements Codec<SalesMan> {
+
+    private final SocialPerformanceRecordCodec recordCodec = new SocialPerformanceRecordCodec();
+
+    @Override
+    public SalesMan decode(BsonReader reader, DecoderContext decoderContext) {
+        String firstname = null;
+        String lastname = null;
+        Integer sid = null;
+        SocialPerformanceRecord latestRecord = null;
+        List<SocialPerformanceRecord> records = null;
+
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            String name = reader.readName();
+            switch (name) {
+                case "firstname":
+                    firstname = readString(reader);
+                    break;
+                case "lastname":
+                    lastname = readString(reader);
+                    break;
+                case "sid":
+                    sid = readSid(reader);
+                    break;
+                case "latestRecord":
+                    if (reader.getCurrentBsonType() == BsonType.DOCUMENT) {
+                        latestRecord = recordCodec.decode(reader, decoderContext);
+                    } else {
+                        reader.skipValue();
+                    }
+                    break;
+                case "performanceRecords":
+                    records = readRecords(reader, decoderContext);
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+
+        SalesMan salesMan = new SalesMan(firstname, lastname, sid);
+        salesMan.setLatestRecord(latestRecord);
+        if (records != null) {
+            // embedded records may leave out the salesmanId
+            for (SocialPerformanceRecord record : records) {
+                if (record.getSalesmanId() == 0 && sid != null) {
+                    record.setSalesmanId(sid);
+                }
+            }
+            salesMan.setRecords(records);
+        }
+        return salesMan;
+    }
+
+    @Override
+    public void encode(BsonWriter writer, SalesMan salesMan, EncoderContext encoderContext) {
+        writer.writeStartDocument();
+        if (salesMan.getFirstname() != null) {
+            writer.writeString("firstname", salesMan.getFirstname());
+        }
+        if (salesMan.getLastname() != null) {
+            writer.writeString("lastname", salesMan.getLastname());
+        }
+        if (salesMan.getId() != null) {
+            writer.writeInt32("sid", salesMan.getId());
+        }
+        writer.writeEndDocument();
+    }
+
+    @Override
+    public Class<SalesMan> getEncoderClass() {
+        return SalesMan.class;
+    }
+
+    private List<SocialPerformanceRecord> readRecords(BsonReader reader, DecoderContext decoderContext) {
+        if (reader.getCurrentBsonType() != BsonType.ARRAY) {
+            reader.skipValue();
+            return null;
+        }
+        List<SocialPerformanceRecord> records = new ArrayList<>();
+        reader.readStartArray();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            if (reader.getCurrentBsonType() == BsonType.DOCUMENT) {
+                records.add(recordCodec.decode(reader, decoderContext));
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.readEndArray();
+        return records;
+    }
+
+    private static String readString(BsonReader reader) {
+        if (reader.getCurrentBsonType() == BsonType.STRING) {
+            return reader.readString();
+        }
+        reader.skipValue();
+        return null;
+    }
+
+    private static Integer readSid(BsonReader reader) {
+        BsonType type = reader.getCurrentBsonType();
+        if (type == BsonType.INT32 || type == BsonType.INT64 || type == BsonType.DOUBLE) {
+            return SocialPerformanceRecordCodec.readInt(reader);
+        }
+        reader.skipValue();
+        return null;
+    }
+}
@@ -0,0 +1,106 @@
+package org.hbrs.ia.codec;
+
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.hbrs.ia.model.PackedPerformanceRecord;
+import org.hbrs.ia.model.PerformanceCriterion;
+import org.hbrs.ia.model.SocialPerformanceRecord;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Reads and writes a SocialPerformanceRecord directly from / to BSON,
+ * without building an intermediate org.bson.Document.
+ * Missing or non-numeric fields are decoded as 0, unknown fields (e.g. _id) are skipped.
+ * Stored scores outside 0..255 and years outside 0..65535 do not fit into the packed form,
+ * they are decoded as 0 and counted (getOutOfRangeValueCount) instead of failing the whole cursor.
+ */
+public class SocialPerformanceRecordCodec implements Codec<SocialPerformanceRecord> {
+
+    private static final LongAdder OUT_OF_RANGE_VALUES = new LongAdder();
+
+    @Override
+    public SocialPerformanceRecord decode(BsonReader reader, DecoderContext decoderContext) {
+        int salesmanId = 0;
+        long packed = 0L;
+
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            String name = reader.readName();
+            if ("salesmanId".equals(name)) {
+                salesmanId = readInt(reader);
+            } else if ("year".equals(name)) {
+                int year = readInt(reader);
+                if (PackedPerformanceRecord.isValidYear(year)) {
+                    packed = PackedPerformanceRecord.withYear(packed, year);
+                } else {
+                    OUT_OF_RANGE_VALUES.increment();
+                }
+            } else {
+                PerformanceCriterion criterion = PerformanceCriterion.fromFieldName(name);
+                if (criterion != null) {
+                    int score = readInt(reader);
+                    if (PackedPerformanceRecord.isValidScore(score)) {
+                        packed = PackedPerformanceRecord.withScore(packed, criterion, score);
+                    } else {
+                        OUT_OF_RANGE_VALUES.increment();
+                    }
+                } else {
+                    reader.skipValue();
+                }
+            }
+        }
+        reader.readEndDocument();
+
+        // decoded straight into the packed form, no intermediate Integer per field
+        return new SocialPerformanceRecord(salesmanId, packed);
+    }
+
+    // stored values decoded as 0 because they did not fit, over all codec instances
+    public static long getOutOfRangeValueCount() {
+        return OUT_OF_RANGE_VALUES.sum();
+    }
+
+    @Override
+    public void encode(BsonWriter writer, SocialPerformanceRecord record, EncoderContext encoderContext) {
+        writer.writeStartDocument();
+        writeInt(writer, "salesmanId", record.getSalesmanId());
+        writeInt(writer, "leadership", record.getLeadership());
+        writeInt(writer, "openness", record.getOpenness());
+        writeInt(writer, "behaviour", record.getBehaviour());
+        writeInt(writer, "attitude", record.getAttitude());
+        writeInt(writer, "communication", record.getCommunication());
+        writeInt(writer, "integrity", record.getIntegrity());
+        writeInt(writer, "year", record.getYear());
+        writer.writeEndDocument();
+    }
+
+    @Override
+    public Class<SocialPerformanceRecord> getEncoderClass() {
+        return SocialPerformanceRecord.class;
+    }
+
+    static int readInt(BsonReader reader) {
+        switch (reader.getCurrentBsonType()) {
+            case INT32:
+                return reader.readInt32();
+            case INT64:
+                return (int) reader.readInt64();
+            case DOUBLE:
+                return (int) reader.readDouble();
+            default:
+                reader.skipValue();
+                return 0;
+        }
+    }
+
+    static void writeInt(BsonWriter writer, String name, Integer value) {
+        if (value != null) {
+            writer.writeInt32(name, value);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package org.hbrs.ia.metrics;
+
+import java.time.Instant;
+
+/**
+ * One event read from a DiagnosticRing. Events are only created (and formatted) when the ring is read.
+ */
+public class DiagnosticEvent {
+
+    private final long sequence;
+    private final long timestampMillis;
+    private final DiagnosticRing.Level level;
+    private final String operation;
+    private final int salesmanId;
+    private final int year;
+    private final DiagnosticRing.Outcome outcome;
+    private final long count;
+    private final long durationNanos;
+    private final Throwable error;
+
+    DiagnosticEvent(long sequence, long timestampMillis, DiagnosticRing.Level level, String operation,
+                    int salesmanId, int year, DiagnosticRing.Outcome outcome, long count, long durationNanos,
+                    Throwable error) {
+        this.sequence = sequence;
+        this.timestampMillis = timestampMillis;
+        this.level = level;
+        this.operation = operation;
+        this.salesmanId = salesmanId;
+        this.year = year;
+        this.outcome = outcome;
+        this.count = count;
+        this.durationNanos = durationNanos;
+        this.error = error;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public long getTimestampMillis() {
+        return timestampMillis;
+    }
+
+    public DiagnosticRing.Level getLevel() {
+        return level;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    // 0 if the event is not about one salesman
+    public int getSalesmanId() {
+        return salesmanId;
+    }
+
+    // 0 if the event is not about one year
+    public int getYear() {
+        return year;
+    }
+
+    public DiagnosticRing.Outcome getOutcome() {
+        return outcome;
+    }
+
+    // records / salesmen affected by the operation
+    public long getCount() {
+        return count;
+    }
+
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    public Throwable getError() {
+        return error;
+    }
+
+    public String toString() {
+        StringBuilder out = new StringBuilder();
+        switch (outcome) {
+            case OK:
+                out.append("✅ ");
+                break;
+            case NOT_FOUND:
+                out.append("ℹ️ ");
+                break;
+            default:
+                out.append("❌ ");
+        }
+        out.append(Instant.ofEpochMilli(timestampMillis)).append(' ').append(level).append(' ').append(operation);
+        if (salesmanId != 0) {
+            out.append(" sid=").append(salesmanId);
+        }
+        if (year != 0) {
+            out.append(" year=").append(year);
+        }
+        out.append(' ').append(outcome).append(" count=").append(count)
+                .append(" took=").append(durationNanos / 1_000).append("µs");
+        if (error != null) {
+            out.append(" error=").append(error);
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,197 @@
+package org.hbrs.ia.metrics;
+
+import java.io.PrintStream;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed size ring of structured diagnostic events (operation, sid, year, outcome, count, duration),
+ * replacing println calls in the manager hot paths. Writers claim a slot with one getAndIncrement
+ * and fill pre-allocated arrays: no lock, no allocation and no formatting. Events below the level
+ * are dropped with a single comparison. The oldest events are overwritten when the ring is full.
+ * Events are only turned into DiagnosticEvent objects / text when the ring is read (snapshot, dump),
+ * or when an ERROR is recorded and dumpOnError is set.
+ * A reader skips slots that are being overwritten while it reads them.
+ */
+public class DiagnosticRing {
+
+    public static final String LEVEL_PROPERTY = "managePersonal.diagnostics.level";
+    public static final String DUMP_ON_ERROR_PROPERTY = "managePersonal.diagnostics.dumpOnError";
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    public enum Level { DEBUG, INFO, WARN, ERROR, OFF }
+
+    public enum Outcome { OK, NOT_FOUND, FAILED }
+
+    private static final Level[] LEVELS = Level.values();
+    private static final Outcome[] OUTCOMES = Outcome.values();
+
+    private final int mask;
+    private final AtomicLong next = new AtomicLong();
+    // sequence of the event in the slot, -1 while it is written
+    private final AtomicLongArray published;
+    private final long[] timestamps;
+    private final long[] durations;
+    private final long[] counts;
+    private final int[] salesmanIds;
+    private final int[] years;
+    private final byte[] levels;
+    private final byte[] outcomes;
+    private final String[] operations;
+    private final Throwable[] errors;
+
+    private volatile Level level;
+    private volatile PrintStream dumpOnError;
+
+    // capacity is rounded up to a power of two
+    public DiagnosticRing(int capacity, Level level) {
+        if (capacity < 1 || capacity > 1 << 24) {
+            throw new IllegalArgumentException("Capacity must be between 1 and 2^24");
+        }
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        this.mask = size - 1;
+        this.published = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            published.set(i, -1);
+        }
+        this.timestamps = new long[size];
+        this.durations = new long[size];
+        this.counts = new long[size];
+        this.salesmanIds = new int[size];
+        this.years = new int[size];
+        this.levels = new byte[size];
+        this.outcomes = new byte[size];
+        this.operations = new String[size];
+        this.errors = new Throwable[size];
+        setLevel(level);
+    }
+
+    // level from managePersonal.diagnostics.level (default INFO),
+    // managePersonal.diagnostics.dumpOnError=true dumps the ring to System.err on every ERROR
+    public static DiagnosticRing fromSystemProperty() {
+        DiagnosticRing ring = new DiagnosticRing(DEFAULT_CAPACITY,
+                Level.valueOf(System.getProperty(LEVEL_PROPERTY, Level.INFO.name())));
+        if (Boolean.getBoolean(DUMP_ON_ERROR_PROPERTY)) {
+            ring.setDumpOnError(System.err);
+        }
+        return ring;
+    }
+
+    public boolean isEnabled(Level level) {
+        return level.compareTo(this.level) >= 0 && level != Level.OFF;
+    }
+
+    // operation should be a constant (no string building), startNanos from System.nanoTime()
+    public void record(Level level, String operation, int salesmanId, int year, Outcome outcome,
+                       long count, long startNanos) {
+        record(level, operation, salesmanId, year, outcome, count, startNanos, null);
+    }
+
+    public void error(String operation, int salesmanId, int year, long startNanos, Throwable error) {
+        record(Level.ERROR, operation, salesmanId, year, Outcome.FAILED, 0, startNanos, error);
+    }
+
+    public void record(Level level, String operation, int salesmanId, int year, Outcome outcome,
+                       long count, long startNanos, Throwable error) {
+        if (!isEnabled(level)) {
+            return;
+        }
+        long duration = System.nanoTime() - startNanos;
+        long sequence = next.getAndIncrement();
+        int slot = (int) sequence & mask;
+
+        published.set(slot, -1);
+        VarHandle.storeStoreFence();
+        timestamps[slot] = System.currentTimeMillis();
+        durations[slot] = duration;
+        counts[slot] = count;
+        salesmanIds[slot] = salesmanId;
+        years[slot] = year;
+        levels[slot] = (byte) level.ordinal();
+        outcomes[slot] = (byte) outcome.ordinal();
+        operations[slot] = operation;
+        errors[slot] = error;
+        published.lazySet(slot, sequence);
+
+        PrintStream target = dumpOnError;
+        if (level == Level.ERROR && target != null) {
+            dumpTo(target);
+        }
+    }
+
+    // the events still in the ring, oldest first
+    public List<DiagnosticEvent> snapshot() {
+        long end = next.get();
+        long start = Math.max(0, end - mask - 1);
+        List<DiagnosticEvent> events = new ArrayList<>((int) (end - start));
+        for (long sequence = start; sequence < end; sequence++) {
+            int slot = (int) sequence & mask;
+            if (published.get(slot) != sequence) {
+                continue;
+            }
+            DiagnosticEvent event = new DiagnosticEvent(sequence, timestamps[slot], LEVELS[levels[slot]],
+                    operations[slot], salesmanIds[slot], years[slot], OUTCOMES[outcomes[slot]], counts[slot],
+                    durations[slot], errors[slot]);
+            VarHandle.loadLoadFence();
+            if (published.get(slot) == sequence) {
+                events.add(event);
+            }
+        }
+        return events;
+    }
+
+    public String dump() {
+        StringBuilder out = new StringBuilder();
+        for (DiagnosticEvent event : snapshot()) {
+            out.append(event).append('\n');
+        }
+        return out.toString();
+    }
+
+    public void dumpTo(PrintStream target) {
+        target.print("🔍 DIAGNOSTIC EVENTS:\n" + dump());
+    }
+
+    // drops all events, must not run concurrently with writers
+    public void clear() {
+        for (int i = 0; i <= mask; i++) {
+            published.set(i, -1);
+            errors[i] = null;
+        }
+    }
+
+    // number of events recorded since creation, including overwritten ones
+    public long getRecordedCount() {
+        return next.get();
+    }
+
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    public void setLevel(Level level) {
+        if (level == null) {
+            throw new IllegalArgumentException("Level cannot be null");
+        }
+        this.level = level;
+    }
+
+    public PrintStream getDumpOnError() {
+        return dumpOnError;
+    }
+
+    // null = no dump on error
+    public void setDumpOnError(PrintStream dumpOnError) {
+        this.dumpOnError = dumpOnError;
+    }
+}
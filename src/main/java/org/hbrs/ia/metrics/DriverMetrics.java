@@ -0,0 +1,264 @@
+package org.hbrs.ia.metrics;
+
+import com.mongodb.connection.ServerId;
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandSucceededEvent;
+import com.mongodb.event.ConnectionCheckOutFailedEvent;
+import com.mongodb.event.ConnectionCheckOutStartedEvent;
+import com.mongodb.event.ConnectionCheckedInEvent;
+import com.mongodb.event.ConnectionCheckedOutEvent;
+import com.mongodb.event.ConnectionClosedEvent;
+import com.mongodb.event.ConnectionCreatedEvent;
+import com.mongodb.event.ConnectionPoolClosedEvent;
+import com.mongodb.event.ConnectionPoolCreatedEvent;
+import com.mongodb.event.ConnectionPoolListener;
+
+import javax.management.ObjectName;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Driver level metrics: server round trip per command name (CommandListener) and
+ * connection pool check-out wait and saturation (ConnectionPoolListener).
+ * Add it to MongoConnectionSettings (addCommandListener / addConnectionPoolListener) before the
+ * manager creates its client. The listeners are called on the driver threads, so they only
+ * update counters; only the first command of a new name creates its OperationStats.
+ */
+public class DriverMetrics implements CommandListener, ConnectionPoolListener, DriverMetricsMXBean {
+
+    private final ConcurrentHashMap<String, OperationStats> commands = new ConcurrentHashMap<>();
+    private final OperationStats checkOutWait = new OperationStats("connectionCheckOut");
+
+    // max size of the pool of every server, the pool gauges are summed over all servers
+    private final ConcurrentHashMap<ServerId, Integer> maxPoolSizes = new ConcurrentHashMap<>();
+    private final AtomicInteger openConnections = new AtomicInteger();
+    private final AtomicInteger checkedOut = new AtomicInteger();
+    private final AtomicInteger peakCheckedOut = new AtomicInteger();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final LongAdder checkOutTimeouts = new LongAdder();
+    private final LongAdder checkOutFailures = new LongAdder();
+
+    private final List<ObjectName> registered = new ArrayList<>();
+    // set by registerMBeans, commands seen later are registered when they appear
+    private volatile String jmxName;
+
+    /** CommandListener **/
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        command(event.getCommandName()).record(event.getElapsedTime(TimeUnit.NANOSECONDS));
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        command(event.getCommandName()).recordError(event.getElapsedTime(TimeUnit.NANOSECONDS));
+    }
+
+    private OperationStats command(String commandName) {
+        OperationStats stats = commands.get(commandName);
+        if (stats == null) {
+            stats = commands.computeIfAbsent(commandName, OperationStats::new);
+            String name = jmxName;
+            if (name != null) {
+                registerCommand(name, stats);
+            }
+        }
+        return stats;
+    }
+
+    /** ConnectionPoolListener **/
+    @Override
+    public void connectionPoolCreated(ConnectionPoolCreatedEvent event) {
+        maxPoolSizes.put(event.getServerId(), event.getSettings().getMaxSize());
+    }
+
+    @Override
+    public void connectionPoolClosed(ConnectionPoolClosedEvent event) {
+        maxPoolSizes.remove(event.getServerId());
+    }
+
+    @Override
+    public void connectionCreated(ConnectionCreatedEvent event) {
+        openConnections.incrementAndGet();
+    }
+
+    @Override
+    public void connectionClosed(ConnectionClosedEvent event) {
+        openConnections.decrementAndGet();
+    }
+
+    @Override
+    public void connectionCheckOutStarted(ConnectionCheckOutStartedEvent event) {
+        waiting.incrementAndGet();
+    }
+
+    @Override
+    public void connectionCheckedOut(ConnectionCheckedOutEvent event) {
+        waiting.decrementAndGet();
+        checkOutWait.record(event.getElapsedTime(TimeUnit.NANOSECONDS));
+        int current = checkedOut.incrementAndGet();
+        int peak = peakCheckedOut.get();
+        while (current > peak && !peakCheckedOut.compareAndSet(peak, current)) {
+            peak = peakCheckedOut.get();
+        }
+    }
+
+    @Override
+    public void connectionCheckOutFailed(ConnectionCheckOutFailedEvent event) {
+        waiting.decrementAndGet();
+        checkOutWait.recordError(event.getElapsedTime(TimeUnit.NANOSECONDS));
+        if (event.getReason() == ConnectionCheckOutFailedEvent.Reason.TIMEOUT) {
+            checkOutTimeouts.increment();
+        } else {
+            checkOutFailures.increment();
+        }
+    }
+
+    @Override
+    public void connectionCheckedIn(ConnectionCheckedInEvent event) {
+        checkedOut.decrementAndGet();
+    }
+
+    /** Metrics **/
+    public OperationStats getCommand(String commandName) {
+        return commands.get(commandName);
+    }
+
+    public OperationStats getCheckOutWait() {
+        return checkOutWait;
+    }
+
+    @Override
+    public int getMaxPoolSize() {
+        int size = 0;
+        for (int poolSize : maxPoolSizes.values()) {
+            size += poolSize;
+        }
+        return size;
+    }
+
+    @Override
+    public int getOpenConnections() {
+        return openConnections.get();
+    }
+
+    @Override
+    public int getCheckedOutConnections() {
+        return checkedOut.get();
+    }
+
+    @Override
+    public int getPeakCheckedOutConnections() {
+        return peakCheckedOut.get();
+    }
+
+    @Override
+    public int getWaitingForConnection() {
+        return Math.max(0, waiting.get());
+    }
+
+    @Override
+    public double getPoolSaturation() {
+        int max = getMaxPoolSize();
+        return max == 0 ? 0 : (double) checkedOut.get() / max;
+    }
+
+    @Override
+    public long getCheckOutTimeoutCount() {
+        return checkOutTimeouts.sum();
+    }
+
+    @Override
+    public long getCheckOutFailureCount() {
+        return checkOutFailures.sum();
+    }
+
+    @Override
+    public double getCheckOutWaitP99Micros() {
+        return checkOutWait.getP99Micros();
+    }
+
+    @Override
+    public long getCommandCount() {
+        long count = 0;
+        for (OperationStats stats : commands.values()) {
+            count += stats.getCount();
+        }
+        return count;
+    }
+
+    @Override
+    public long getCommandFailureCount() {
+        long count = 0;
+        for (OperationStats stats : commands.values()) {
+            count += stats.getErrorCount();
+        }
+        return count;
+    }
+
+    @Override
+    public String dump() {
+        StringBuilder out = new StringBuilder();
+        out.append("# TYPE mongodb_command_seconds summary\n");
+        for (Map.Entry<String, OperationStats> command : new TreeMap<>(commands).entrySet()) {
+            command.getValue().appendTo(out, "mongodb_command", "command=\"" + command.getKey() + "\"");
+        }
+        out.append("# TYPE mongodb_pool_checkout_seconds summary\n");
+        checkOutWait.appendTo(out, "mongodb_pool_checkout", "");
+        out.append("mongodb_pool_max_size ").append(getMaxPoolSize()).append('\n');
+        out.append("mongodb_pool_open_connections ").append(getOpenConnections()).append('\n');
+        out.append("mongodb_pool_checked_out ").append(getCheckedOutConnections()).append('\n');
+        out.append("mongodb_pool_checked_out_peak ").append(getPeakCheckedOutConnections()).append('\n');
+        out.append("mongodb_pool_waiting ").append(getWaitingForConnection()).append('\n');
+        out.append("mongodb_pool_saturation ").append(getPoolSaturation()).append('\n');
+        out.append("mongodb_pool_checkout_timeouts_total ").append(getCheckOutTimeoutCount()).append('\n');
+        out.append("mongodb_pool_checkout_failures_total ").append(getCheckOutFailureCount()).append('\n');
+        return out.toString();
+    }
+
+    // counters and histograms start again, the pool gauges keep their current values
+    @Override
+    public void reset() {
+        for (OperationStats stats : commands.values()) {
+            stats.reset();
+        }
+        checkOutWait.reset();
+        peakCheckedOut.set(checkedOut.get());
+        checkOutTimeouts.reset();
+        checkOutFailures.reset();
+    }
+
+    //   org.hbrs.ia:type=MongoDriver,name=<name>
+    //   org.hbrs.ia:type=MongoDriver,name=<name>,command=<command name>
+    public synchronized void registerMBeans(String name) {
+        unregisterMBeans();
+        Jmx.register(this, Jmx.name("type=MongoDriver,name=" + ObjectName.quote(name)), registered);
+        jmxName = name;
+        for (OperationStats stats : commands.values()) {
+            registerCommand(name, stats);
+        }
+    }
+
+    public synchronized void unregisterMBeans() {
+        jmxName = null;
+        Jmx.unregisterAll(registered);
+    }
+
+    private synchronized void registerCommand(String name, OperationStats stats) {
+        ObjectName objectName = Jmx.name("type=MongoDriver,name=" + ObjectName.quote(name)
+                + ",command=" + ObjectName.quote(stats.getName()));
+        if (name.equals(jmxName) && !registered.contains(objectName)) {
+            Jmx.register(stats, objectName, registered);
+        }
+    }
+
+    public String toString() {
+        return dump();
+    }
+}
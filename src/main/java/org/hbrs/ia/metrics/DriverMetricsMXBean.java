@@ -0,0 +1,37 @@
+package org.hbrs.ia.metrics;
+
+/**
+ * JMX view of the driver: connection pool usage and check-out waits.
+ * The server round trips per command are separate MBeans.
+ */
+public interface DriverMetricsMXBean {
+
+    int getMaxPoolSize();
+
+    int getOpenConnections();
+
+    int getCheckedOutConnections();
+
+    int getPeakCheckedOutConnections();
+
+    // threads currently waiting for a connection
+    int getWaitingForConnection();
+
+    // checked out / max pool size, 1.0 = every connection is in use
+    double getPoolSaturation();
+
+    long getCheckOutTimeoutCount();
+
+    long getCheckOutFailureCount();
+
+    double getCheckOutWaitP99Micros();
+
+    long getCommandCount();
+
+    long getCommandFailureCount();
+
+    // pool and commands in Prometheus text format
+    String dump();
+
+    void reset();
+}
@@ -0,0 +1,52 @@
+package org.hbrs.ia.metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+// registration helpers for the platform MBean server, all names live in the domain org.hbrs.ia
+final class Jmx {
+
+    static final String DOMAIN = "org.hbrs.ia";
+
+    private Jmx() {
+    }
+
+    static ObjectName name(String properties) {
+        try {
+            return new ObjectName(DOMAIN + ":" + properties);
+        } catch (JMException e) {
+            throw new IllegalArgumentException("Invalid MBean name: " + properties, e);
+        }
+    }
+
+    // replaces an MBean registered under the same name (e.g. by a previous manager instance)
+    static void register(Object mbean, ObjectName name, List<ObjectName> registered) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(mbean, name);
+            registered.add(name);
+        } catch (JMException e) {
+            throw new RuntimeException("❌ Could not register MBean " + name, e);
+        }
+    }
+
+    static void unregisterAll(List<ObjectName> registered) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (ObjectName name : registered) {
+            try {
+                if (server.isRegistered(name)) {
+                    server.unregisterMBean(name);
+                }
+            } catch (JMException e) {
+                System.err.println("❌ Could not unregister MBean " + name + ": " + e.getMessage());
+            }
+        }
+        registered.clear();
+    }
+}
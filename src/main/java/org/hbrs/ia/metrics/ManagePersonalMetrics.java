@@ -0,0 +1,127 @@
+package org.hbrs.ia.metrics;
+
+import javax.management.ObjectName;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Latency, throughput and errors of every ManagePersonal method, recorded by InstrumentedManagePersonal.
+ * One OperationStats per method, looked up by enum ordinal (no map, no allocation per call).
+ * registerMBeans publishes this object and every operation on the platform MBean server:
+ *   org.hbrs.ia:type=ManagePersonal,name=<name>
+ *   org.hbrs.ia:type=ManagePersonal,name=<name>,operation=<method>
+ */
+public class ManagePersonalMetrics implements ManagePersonalMetricsMXBean {
+
+    public enum Operation {
+        CREATE_SALES_MAN("createSalesMan"),
+        CREATE_SALES_MEN("createSalesMen"),
+        READ_SALES_MAN("readSalesMan"),
+        READ_SALES_MEN("readSalesMen"),
+        READ_ALL_SALES_MEN("readAllSalesMen"),
+        STREAM_ALL_SALES_MEN("streamAllSalesMen"),
+        READ_SALES_MEN_PAGE("readSalesMenPage"),
+        READ_RECORDS("readSocialPerformanceRecord"),
+        READ_RECORDS_BY_YEAR("readByYearSocialPerformanceRecord"),
+        READ_LAST_RECORD("readLastSocialPerformanceRecord"),
+        READ_RECORDS_PAGE("readSocialPerformanceRecordsPage"),
+        READ_STATISTICS_PER_YEAR("readPerformanceStatisticsPerYear"),
+        READ_SALES_MAN_STATISTICS_PER_YEAR("readPerformanceStatisticsPerYearOfSalesMan"),
+        READ_STATISTICS_PER_SALES_MAN("readPerformanceStatisticsPerSalesMan"),
+        READ_COMPANY_STATISTICS("readCompanyPerformanceStatistics"),
+        UPDATE_SALES_MAN("updateSalesMan"),
+        UPDATE_SALES_MEN("updateSalesMen"),
+        ADD_RECORD("addSocialPerformanceRecord"),
+        ADD_RECORDS("addSocialPerformanceRecords"),
+        DELETE_SALES_MAN("deleteSalesMan"),
+        DELETE_ALL_SALES_MEN("deleteAllSalesMan"),
+        DELETE_RECORDS_BY_YEAR("deleteByYearSocialPerformanceRecord"),
+        DELETE_LAST_RECORD("deleteLastSocialPerformanceRecord");
+
+        private final String methodName;
+
+        Operation(String methodName) {
+            this.methodName = methodName;
+        }
+
+        public String getMethodName() {
+            return methodName;
+        }
+    }
+
+    private static final Operation[] OPERATIONS = Operation.values();
+
+    private final OperationStats[] stats = new OperationStats[OPERATIONS.length];
+    private final List<ObjectName> registered = new ArrayList<>();
+
+    public ManagePersonalMetrics() {
+        for (Operation operation : OPERATIONS) {
+            stats[operation.ordinal()] = new OperationStats(operation.getMethodName());
+        }
+    }
+
+    // startNanos from System.nanoTime() before the call
+    public void record(Operation operation, long startNanos) {
+        stats[operation.ordinal()].record(System.nanoTime() - startNanos);
+    }
+
+    public void recordError(Operation operation, long startNanos) {
+        stats[operation.ordinal()].recordError(System.nanoTime() - startNanos);
+    }
+
+    public OperationStats get(Operation operation) {
+        return stats[operation.ordinal()];
+    }
+
+    @Override
+    public long getCallCount() {
+        long count = 0;
+        for (OperationStats operation : stats) {
+            count += operation.getCount();
+        }
+        return count;
+    }
+
+    @Override
+    public long getErrorCount() {
+        long count = 0;
+        for (OperationStats operation : stats) {
+            count += operation.getErrorCount();
+        }
+        return count;
+    }
+
+    @Override
+    public String dump() {
+        StringBuilder out = new StringBuilder();
+        out.append("# TYPE managepersonal_operation_seconds summary\n");
+        for (OperationStats operation : stats) {
+            operation.appendTo(out, "managepersonal_operation", "operation=\"" + operation.getName() + "\"");
+        }
+        return out.toString();
+    }
+
+    @Override
+    public void reset() {
+        for (OperationStats operation : stats) {
+            operation.reset();
+        }
+    }
+
+    public synchronized void registerMBeans(String name) {
+        unregisterMBeans();
+        Jmx.register(this, Jmx.name("type=ManagePersonal,name=" + ObjectName.quote(name)), registered);
+        for (OperationStats operation : stats) {
+            Jmx.register(operation, Jmx.name("type=ManagePersonal,name=" + ObjectName.quote(name)
+                    + ",operation=" + operation.getName()), registered);
+        }
+    }
+
+    public synchronized void unregisterMBeans() {
+        Jmx.unregisterAll(registered);
+    }
+
+    public String toString() {
+        return dump();
+    }
+}
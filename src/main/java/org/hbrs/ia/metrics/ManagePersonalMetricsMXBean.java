@@ -0,0 +1,16 @@
+package org.hbrs.ia.metrics;
+
+/**
+ * JMX view of all ManagePersonal operations, the single operations are separate MBeans.
+ */
+public interface ManagePersonalMetricsMXBean {
+
+    long getCallCount();
+
+    long getErrorCount();
+
+    // all operations in Prometheus text format
+    String dump();
+
+    void reset();
+}
@@ -0,0 +1,105 @@
+package org.hbrs.ia.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram and error count of one operation.
+ */
+public class OperationStats implements OperationStatsMXBean {
+
+    private final String name;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder errors = new LongAdder();
+    private volatile long startNanos = System.nanoTime();
+
+    public OperationStats(String name) {
+        this.name = name;
+    }
+
+    public void record(long nanos) {
+        latency.record(nanos);
+    }
+
+    // failed calls are part of the latency histogram as well
+    public void recordError(long nanos) {
+        latency.record(nanos);
+        errors.increment();
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public long getCount() {
+        return latency.getCount();
+    }
+
+    @Override
+    public long getErrorCount() {
+        return errors.sum();
+    }
+
+    @Override
+    public double getThroughputPerSecond() {
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        return seconds <= 0 ? 0 : getCount() / seconds;
+    }
+
+    @Override
+    public double getMeanMicros() {
+        return latency.getMeanNanos() / 1e3;
+    }
+
+    @Override
+    public double getP50Micros() {
+        return latency.getValueAtPercentile(50) / 1e3;
+    }
+
+    @Override
+    public double getP99Micros() {
+        return latency.getValueAtPercentile(99) / 1e3;
+    }
+
+    @Override
+    public double getP999Micros() {
+        return latency.getValueAtPercentile(99.9) / 1e3;
+    }
+
+    @Override
+    public double getMaxMicros() {
+        return latency.getMaxNanos() / 1e3;
+    }
+
+    @Override
+    public void reset() {
+        latency.reset();
+        errors.reset();
+        startNanos = System.nanoTime();
+    }
+
+    // Prometheus text format: quantiles in seconds, count, sum and errors
+    void appendTo(StringBuilder out, String metric, String labels) {
+        String prefix = labels.isEmpty() ? "" : labels + ",";
+        appendQuantile(out, metric, prefix, "0.5", 50);
+        appendQuantile(out, metric, prefix, "0.99", 99);
+        appendQuantile(out, metric, prefix, "0.999", 99.9);
+        String braces = labels.isEmpty() ? "" : "{" + labels + "}";
+        out.append(metric).append("_seconds_count").append(braces).append(' ').append(getCount()).append('\n');
+        out.append(metric).append("_seconds_sum").append(braces).append(' ')
+                .append(latency.getSumNanos() / 1e9).append('\n');
+        out.append(metric).append("_seconds_max").append(braces).append(' ')
+                .append(latency.getMaxNanos() / 1e9).append('\n');
+        out.append(metric).append("_errors_total").append(braces).append(' ').append(getErrorCount()).append('\n');
+    }
+
+    private void appendQuantile(StringBuilder out, String metric, String prefix, String quantile, double percentile) {
+        out.append(metric).append("_seconds{").append(prefix).append("quantile=\"").append(quantile).append("\"} ")
+                .append(latency.getValueAtPercentile(percentile) / 1e9).append('\n');
+    }
+}
@@ -0,0 +1,28 @@
+package org.hbrs.ia.metrics;
+
+/**
+ * JMX view of one operation (a ManagePersonal method or a driver command), times in microseconds.
+ */
+public interface OperationStatsMXBean {
+
+    String getName();
+
+    long getCount();
+
+    long getErrorCount();
+
+    // calls per second since creation or the last reset
+    double getThroughputPerSecond();
+
+    double getMeanMicros();
+
+    double getP50Micros();
+
+    double getP99Micros();
+
+    double getP999Micros();
+
+    double getMaxMicros();
+
+    void reset();
+}
@@ -0,0 +1,78 @@
+package org.hbrs.ia.model;
+
+import org.bson.Document;
+
+/**
+ * Bonus of one salesman for one year, computed from his SocialPerformanceRecords of that year
+ * (part B of the bonus sheet).
+ */
+public class BonusResult {
+    private Integer salesmanId;
+    private Integer year;
+    private Integer recordCount;
+    // weighted score, averaged over the records of the year
+    private Double score;
+    private Double bonus;
+
+    public BonusResult(int salesmanId, int year, int recordCount, double score, double bonus) {
+        this.salesmanId = salesmanId;
+        this.year = year;
+        this.recordCount = recordCount;
+        this.score = score;
+        this.bonus = bonus;
+    }
+
+    public Integer getSalesmanId() {
+        return salesmanId;
+    }
+
+    public Integer getYear() {
+        return year;
+    }
+
+    public Integer getRecordCount() {
+        return recordCount;
+    }
+
+    public Double getScore() {
+        return score;
+    }
+
+    public Double getBonus() {
+        return bonus;
+    }
+
+    /**
+     * Converts BonusResult to Document (instance method)
+     */
+    public Document toDocument() {
+        org.bson.Document document = new Document();
+        document.append("salesmanId", this.salesmanId);
+        document.append("year", this.year);
+        document.append("recordCount", this.recordCount);
+        document.append("score", this.score);
+        document.append("bonus", this.bonus);
+        return document;
+    }
+
+    /**
+     * Converts Document to BonusResult object (static factory method)
+     */
+    public static BonusResult fromDocument(Document doc) {
+        return new BonusResult(
+                doc.getInteger("salesmanId"),
+                doc.getInteger("year"),
+                doc.getInteger("recordCount"),
+                doc.getDouble("score"),
+                doc.getDouble("bonus")
+        );
+    }
+
+    public String toString(){
+        return  "salesmanId: " + this.getSalesmanId() + "\n" +
+                "year: " + this.getYear() + "\n" +
+                "recordCount: " + this.getRecordCount() + "\n" +
+                "score: " + this.getScore() + "\n" +
+                "bonus: " + this.getBonus() + "\n";
+    }
+}
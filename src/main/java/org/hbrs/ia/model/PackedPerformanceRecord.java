@@ -0,0 +1,67 @@
+package org.hbrs.ia.model;
+
+/**
+ * Packs the six scores and the year of a SocialPerformanceRecord into one long:
+ * bits 0-47 hold one unsigned byte per PerformanceCriterion (in ordinal order),
+ * bits 48-63 hold the year as unsigned 16 bit value. The salesmanId is kept separately as int.
+ */
+public final class PackedPerformanceRecord {
+
+    public static final int MAX_SCORE = 0xFF;
+    public static final int MAX_YEAR = 0xFFFF;
+
+    private static final int SCORE_BITS = 8;
+    private static final int YEAR_SHIFT = 48;
+
+    private PackedPerformanceRecord() {
+    }
+
+    public static long pack(int leadership, int openness, int behaviour, int attitude,
+                            int communication, int integrity, int year) {
+        long packed = withYear(0L, year);
+        packed = withScore(packed, PerformanceCriterion.LEADERSHIP, leadership);
+        packed = withScore(packed, PerformanceCriterion.OPENNESS, openness);
+        packed = withScore(packed, PerformanceCriterion.BEHAVIOUR, behaviour);
+        packed = withScore(packed, PerformanceCriterion.ATTITUDE, attitude);
+        packed = withScore(packed, PerformanceCriterion.COMMUNICATION, communication);
+        packed = withScore(packed, PerformanceCriterion.INTEGRITY, integrity);
+        return packed;
+    }
+
+    public static int score(long packed, PerformanceCriterion criterion) {
+        return (int) (packed >>> shift(criterion)) & MAX_SCORE;
+    }
+
+    public static int year(long packed) {
+        return (int) (packed >>> YEAR_SHIFT) & MAX_YEAR;
+    }
+
+    // the decode paths check stored values with these and do not fail a whole read on one bad document
+    public static boolean isValidScore(int score) {
+        return score >= 0 && score <= MAX_SCORE;
+    }
+
+    public static boolean isValidYear(int year) {
+        return year >= 0 && year <= MAX_YEAR;
+    }
+
+    public static long withScore(long packed, PerformanceCriterion criterion, int score) {
+        if (!isValidScore(score)) {
+            throw new IllegalArgumentException(criterion.getFieldName() + " must be between 0 and " + MAX_SCORE
+                    + ", was " + score);
+        }
+        int shift = shift(criterion);
+        return (packed & ~((long) MAX_SCORE << shift)) | ((long) score << shift);
+    }
+
+    public static long withYear(long packed, int year) {
+        if (!isValidYear(year)) {
+            throw new IllegalArgumentException("year must be between 0 and " + MAX_YEAR + ", was " + year);
+        }
+        return (packed & ~((long) MAX_YEAR << YEAR_SHIFT)) | ((long) year << YEAR_SHIFT);
+    }
+
+    private static int shift(PerformanceCriterion criterion) {
+        return criterion.ordinal() * SCORE_BITS;
+    }
+}
@@ -0,0 +1,41 @@
+package org.hbrs.ia.model;
+
+/**
+ * The six criteria of a SocialPerformanceRecord (part B of the bonus sheet)
+ * with the field name used in the stored documents.
+ */
+public enum PerformanceCriterion {
+    LEADERSHIP("leadership"),
+    OPENNESS("openness"),
+    BEHAVIOUR("behaviour"),
+    ATTITUDE("attitude"),
+    COMMUNICATION("communication"),
+    INTEGRITY("integrity");
+
+    private static final PerformanceCriterion[] VALUES = values();
+
+    private final String fieldName;
+
+    PerformanceCriterion(String fieldName) {
+        this.fieldName = fieldName;
+    }
+
+    public String getFieldName() {
+        return fieldName;
+    }
+
+    // score of this criterion in the record
+    public int scoreOf(SocialPerformanceRecord record) {
+        return record.getScore(this);
+    }
+
+    // criterion stored under the document field name, null for other fields
+    public static PerformanceCriterion fromFieldName(String fieldName) {
+        for (PerformanceCriterion criterion : VALUES) {
+            if (criterion.fieldName.equals(fieldName)) {
+                return criterion;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,195 @@
+package org.hbrs.ia.model;
+
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+
+import java.util.Arrays;
+
+/**
+ * Growable block of records kept as two primitive arrays (salesmanIds and packed values,
+ * see PackedPerformanceRecord), so analytics and caches can hold millions of records
+ * without one object per record. Not thread-safe.
+ */
+public class PerformanceRecordBlock {
+
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    private int[] salesmanIds;
+    private long[] packed;
+    private int size;
+    // documents appendDocument did not append because a value was out of range
+    private long skipped;
+
+    public PerformanceRecordBlock() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public PerformanceRecordBlock(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("initialCapacity must not be negative");
+        }
+        this.salesmanIds = new int[initialCapacity];
+        this.packed = new long[initialCapacity];
+    }
+
+    public void add(int salesmanId, long packedRecord) {
+        ensureCapacity(size + 1);
+        salesmanIds[size] = salesmanId;
+        packed[size] = packedRecord;
+        size++;
+    }
+
+    public void add(SocialPerformanceRecord record) {
+        if (record == null) {
+            throw new IllegalArgumentException("record must not be null");
+        }
+        add(record.getSalesmanId(), record.getPacked());
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int getSalesmanId(int index) {
+        checkIndex(index);
+        return salesmanIds[index];
+    }
+
+    public long getPacked(int index) {
+        checkIndex(index);
+        return packed[index];
+    }
+
+    public int getYear(int index) {
+        return PackedPerformanceRecord.year(getPacked(index));
+    }
+
+    public int getScore(int index, PerformanceCriterion criterion) {
+        return PackedPerformanceRecord.score(getPacked(index), criterion);
+    }
+
+    // materializes one record, only for callers that need the object form
+    public SocialPerformanceRecord get(int index) {
+        checkIndex(index);
+        return new SocialPerformanceRecord(salesmanIds[index], packed[index]);
+    }
+
+    /**
+     * Reads one record document (same fields as SocialPerformanceRecordCodec) and appends it,
+     * missing fields are stored as 0, unknown fields (e.g. _id) are skipped.
+     * A document with a score or year that does not fit into the packed form is read completely
+     * but not appended (counted in getSkippedCount), so one bad record does not fail the whole read.
+     * Returns whether the document was appended.
+     */
+    public boolean appendDocument(BsonReader reader) {
+        int salesmanId = 0;
+        long packedRecord = 0L;
+        boolean valid = true;
+
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            String name = reader.readName();
+            if ("salesmanId".equals(name)) {
+                salesmanId = readInt(reader);
+            } else if ("year".equals(name)) {
+                int year = readInt(reader);
+                if (PackedPerformanceRecord.isValidYear(year)) {
+                    packedRecord = PackedPerformanceRecord.withYear(packedRecord, year);
+                } else {
+                    valid = false;
+                }
+            } else {
+                PerformanceCriterion criterion = PerformanceCriterion.fromFieldName(name);
+                if (criterion != null) {
+                    int score = readInt(reader);
+                    if (PackedPerformanceRecord.isValidScore(score)) {
+                        packedRecord = PackedPerformanceRecord.withScore(packedRecord, criterion, score);
+                    } else {
+                        valid = false;
+                    }
+                } else {
+                    reader.skipValue();
+                }
+            }
+        }
+        reader.readEndDocument();
+
+        if (!valid) {
+            skipped++;
+            return false;
+        }
+        add(salesmanId, packedRecord);
+        return true;
+    }
+
+    // documents skipped by appendDocument since the block was created, clear() keeps the count
+    public long getSkippedCount() {
+        return skipped;
+    }
+
+    /**
+     * Reads a BSON array of record documents (the current value of the reader) and appends all of them
+     */
+    public void appendArray(BsonReader reader) {
+        reader.readStartArray();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            appendDocument(reader);
+        }
+        reader.readEndArray();
+    }
+
+    // writes record index as a document in the layout of SocialPerformanceRecord.toDocument()
+    public void writeDocument(BsonWriter writer, int index) {
+        checkIndex(index);
+        long value = packed[index];
+        writer.writeStartDocument();
+        writer.writeInt32("salesmanId", salesmanIds[index]);
+        for (PerformanceCriterion criterion : PerformanceCriterion.values()) {
+            writer.writeInt32(criterion.getFieldName(), PackedPerformanceRecord.score(value, criterion));
+        }
+        writer.writeInt32("year", PackedPerformanceRecord.year(value));
+        writer.writeEndDocument();
+    }
+
+    // writes all records as a BSON array field
+    public void writeArray(BsonWriter writer, String name) {
+        writer.writeStartArray(name);
+        for (int i = 0; i < size; i++) {
+            writeDocument(writer, i);
+        }
+        writer.writeEndArray();
+    }
+
+    private void ensureCapacity(int required) {
+        if (required > packed.length) {
+            int capacity = Math.max(required, Math.max(16, packed.length + (packed.length >> 1)));
+            salesmanIds = Arrays.copyOf(salesmanIds, capacity);
+            packed = Arrays.copyOf(packed, capacity);
+        }
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index " + index + " out of bounds for size " + size);
+        }
+    }
+
+    private static int readInt(BsonReader reader) {
+        switch (reader.getCurrentBsonType()) {
+            case INT32:
+                return reader.readInt32();
+            case INT64:
+                return (int) reader.readInt64();
+            case DOUBLE:
+                return (int) reader.readDouble();
+            default:
+                reader.skipValue();
+                return 0;
+        }
+    }
+}
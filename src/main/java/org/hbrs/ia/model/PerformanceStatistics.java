@@ -0,0 +1,100 @@
+package org.hbrs.ia.model;
+
+import org.bson.Document;
+
+/**
+ * Average, minimum and maximum of every PerformanceCriterion over a group of SocialPerformanceRecords.
+ * salesmanId and year describe the group, null means "all salesmen" / "all years".
+ */
+public class PerformanceStatistics {
+    private Integer salesmanId;
+    private Integer year;
+    private long count;
+
+    // indexed by PerformanceCriterion.ordinal()
+    private final double[] averages = new double[PerformanceCriterion.values().length];
+    private final int[] minimums = new int[PerformanceCriterion.values().length];
+    private final int[] maximums = new int[PerformanceCriterion.values().length];
+
+    public PerformanceStatistics(Integer salesmanId, Integer year, long count) {
+        this.salesmanId = salesmanId;
+        this.year = year;
+        this.count = count;
+    }
+
+    public Integer getSalesmanId() {
+        return salesmanId;
+    }
+
+    public Integer getYear() {
+        return year;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getAverage(PerformanceCriterion criterion) {
+        return averages[criterion.ordinal()];
+    }
+
+    public int getMin(PerformanceCriterion criterion) {
+        return minimums[criterion.ordinal()];
+    }
+
+    public int getMax(PerformanceCriterion criterion) {
+        return maximums[criterion.ordinal()];
+    }
+
+    public void setStatistics(PerformanceCriterion criterion, double average, int min, int max) {
+        averages[criterion.ordinal()] = average;
+        minimums[criterion.ordinal()] = min;
+        maximums[criterion.ordinal()] = max;
+    }
+
+    /**
+     * Converts a $group result to PerformanceStatistics (static factory method).
+     * Expected fields: _id {salesmanId, year}, count and per criterion &lt;field&gt;Avg, &lt;field&gt;Min, &lt;field&gt;Max
+     */
+    public static PerformanceStatistics fromDocument(Document doc) {
+        if (doc == null) {
+            throw new IllegalArgumentException("Document cannot be null");
+        }
+
+        Document group = doc.get("_id", Document.class);
+        Integer salesmanId = group == null ? null : toInteger(group.get("salesmanId"));
+        Integer year = group == null ? null : toInteger(group.get("year"));
+        PerformanceStatistics statistics = new PerformanceStatistics(salesmanId, year,
+                ((Number) doc.get("count")).longValue());
+
+        for (PerformanceCriterion criterion : PerformanceCriterion.values()) {
+            String field = criterion.getFieldName();
+            Number average = (Number) doc.get(field + "Avg");
+            Number min = (Number) doc.get(field + "Min");
+            Number max = (Number) doc.get(field + "Max");
+            statistics.setStatistics(criterion,
+                    average == null ? 0 : average.doubleValue(),
+                    min == null ? 0 : min.intValue(),
+                    max == null ? 0 : max.intValue());
+        }
+        return statistics;
+    }
+
+    private static Integer toInteger(Object value) {
+        return value == null ? null : ((Number) value).intValue();
+    }
+
+    public String toString(){
+        StringBuilder builder = new StringBuilder()
+                .append("salesmanId: ").append(salesmanId == null ? "all" : salesmanId).append("\n")
+                .append("year: ").append(year == null ? "all" : year).append("\n")
+                .append("count: ").append(count).append("\n");
+        for (PerformanceCriterion criterion : PerformanceCriterion.values()) {
+            builder.append(criterion.getFieldName()).append(": avg ")
+                    .append(String.format("%.2f", getAverage(criterion)))
+                    .append(", min ").append(getMin(criterion))
+                    .append(", max ").append(getMax(criterion)).append("\n");
+        }
+        return builder.toString();
+    }
+}
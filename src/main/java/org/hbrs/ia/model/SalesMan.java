@@ -3,13 +3,24 @@ package org.hbrs.ia.model;
 import org.bson.Document;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
 
 public class SalesMan {
     private String firstname;
     private String lastname;
     private Integer sid;
 
+    // only filled by reads with SalesManView.HEADER_WITH_LATEST / FULL
+    private SocialPerformanceRecord latestRecord;
+    // only filled by reads with SalesManView.FULL
     private ArrayList<SocialPerformanceRecord> records;
+    // header fields changed by the setters since construction / the last update,
+    // updateSalesMan writes only these (the sid identifies the salesman and is never written)
+    private final Set<String> dirtyFields = new LinkedHashSet<>();
 
     public SalesMan(String firstname, String lastname, Integer sid) {
         this.firstname = firstname;
@@ -23,7 +34,10 @@ public class SalesMan {
     }
 
     public void setFirstname(String firstname) {
-        this.firstname = firstname;
+        if (!Objects.equals(this.firstname, firstname)) {
+            this.firstname = firstname;
+            dirtyFields.add("firstname");
+        }
     }
 
     public String getLastname() {
@@ -31,7 +45,10 @@ public class SalesMan {
     }
 
     public void setLastname(String lastname) {
-        this.lastname = lastname;
+        if (!Objects.equals(this.lastname, lastname)) {
+            this.lastname = lastname;
+            dirtyFields.add("lastname");
+        }
     }
 
     public Integer getId() {
@@ -42,6 +59,46 @@ public class SalesMan {
         this.sid = sid;
     }
 
+    public SocialPerformanceRecord getLatestRecord() {
+        return latestRecord;
+    }
+
+    public void setLatestRecord(SocialPerformanceRecord latestRecord) {
+        this.latestRecord = latestRecord;
+    }
+
+    public List<SocialPerformanceRecord> getRecords() {
+        return records;
+    }
+
+    public void setRecords(List<SocialPerformanceRecord> records) {
+        this.records = records == null ? new ArrayList<>() : new ArrayList<>(records);
+    }
+
+    public Set<String> getDirtyFields() {
+        return Collections.unmodifiableSet(dirtyFields);
+    }
+
+    public boolean isDirty() {
+        return !dirtyFields.isEmpty();
+    }
+
+    // called after the changes are written
+    public void clearDirtyFields() {
+        dirtyFields.clear();
+    }
+
+    /**
+     * Converts the changed header fields to a Document (the content of a $set), empty if nothing changed
+     */
+    public Document toChangesDocument() {
+        Document changes = new Document();
+        for (String field : dirtyFields) {
+            changes.append(field, "firstname".equals(field) ? firstname : lastname);
+        }
+        return changes;
+    }
+
     /**
      * Converts SalesMan to Document (instance method)
      */
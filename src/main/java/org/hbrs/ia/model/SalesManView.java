@@ -0,0 +1,14 @@
+package org.hbrs.ia.model;
+
+/**
+ * How much of a salesman a read returns. Only the fields of the view are fetched from the database,
+ * so HEADER and HEADER_WITH_LATEST cost the same no matter how many records the salesman has.
+ */
+public enum SalesManView {
+    // firstname, lastname, sid
+    HEADER,
+    // header and the latestRecord summary
+    HEADER_WITH_LATEST,
+    // header, latestRecord and all performance records (newest year first)
+    FULL
+}
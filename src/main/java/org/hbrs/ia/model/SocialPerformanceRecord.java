@@ -2,90 +2,102 @@ package org.hbrs.ia.model;
 
 import org.bson.Document;
 
+/**
+ * View over the packed form of a record (see PackedPerformanceRecord): the six scores and the year
+ * live in one long, so a record costs 24 bytes of heap instead of nine objects.
+ * Scores must be between 0 and 255, the year between 0 and 65535. Setting null stores 0.
+ */
 public class SocialPerformanceRecord {
-    private Integer salesmanId;
-    private Integer leadership;
-    private Integer openness;
-    private Integer behaviour;
-    private Integer attitude;
-    private Integer communication;
-    private Integer integrity;
-    private Integer year;
+    private int salesmanId;
+    private long packed;
 
     public SocialPerformanceRecord(int salesmanId, int leadership, int openness, int behaviour,
                                    int attitude, int communication, int integrity,
                                    int year){
         this.salesmanId = salesmanId;
-        this.leadership = leadership;
-        this.openness = openness;
-        this.behaviour = behaviour;
-        this.attitude = attitude;
-        this.communication = communication;
-        this.integrity = integrity;
-        this.year = year;
+        this.packed = PackedPerformanceRecord.pack(leadership, openness, behaviour, attitude,
+                communication, integrity, year);
     }
+
+    public SocialPerformanceRecord(int salesmanId, long packed) {
+        this.salesmanId = salesmanId;
+        this.packed = packed;
+    }
+
+    public long getPacked() {
+        return packed;
+    }
+
     public Integer getSalesmanId() {
         return salesmanId;
     }
 
     public void setSalesmanId(Integer salesmanId) {
-        this.salesmanId = salesmanId;
+        this.salesmanId = salesmanId == null ? 0 : salesmanId;
     }
 
     public Integer getLeadership() {
-        return leadership;
+        return getScore(PerformanceCriterion.LEADERSHIP);
     }
 
     public void setLeadership(Integer leadership) {
-        this.leadership = leadership;
+        setScore(PerformanceCriterion.LEADERSHIP, leadership);
     }
 
     public Integer getOpenness() {
-        return openness;
+        return getScore(PerformanceCriterion.OPENNESS);
     }
 
     public void setOpenness(Integer openness) {
-        this.openness = openness;
+        setScore(PerformanceCriterion.OPENNESS, openness);
     }
 
     public Integer getBehaviour() {
-        return behaviour;
+        return getScore(PerformanceCriterion.BEHAVIOUR);
     }
 
     public void setBehaviour(Integer behaviour) {
-        this.behaviour = behaviour;
+        setScore(PerformanceCriterion.BEHAVIOUR, behaviour);
     }
 
     public Integer getAttitude() {
-        return attitude;
+        return getScore(PerformanceCriterion.ATTITUDE);
     }
 
     public void setAttitude(Integer attitude) {
-        this.attitude = attitude;
+        setScore(PerformanceCriterion.ATTITUDE, attitude);
     }
 
     public Integer getCommunication() {
-        return communication;
+        return getScore(PerformanceCriterion.COMMUNICATION);
     }
 
     public void setCommunication(Integer communication) {
-        this.communication = communication;
+        setScore(PerformanceCriterion.COMMUNICATION, communication);
     }
 
     public Integer getIntegrity() {
-        return integrity;
+        return getScore(PerformanceCriterion.INTEGRITY);
     }
 
     public void setIntegrity(Integer integrity) {
-        this.integrity = integrity;
+        setScore(PerformanceCriterion.INTEGRITY, integrity);
     }
 
     public Integer getYear() {
-        return year;
+        return PackedPerformanceRecord.year(packed);
     }
 
     public void setYear(Integer year) {
-        this.year = year;
+        this.packed = PackedPerformanceRecord.withYear(packed, year == null ? 0 : year);
+    }
+
+    public int getScore(PerformanceCriterion criterion) {
+        return PackedPerformanceRecord.score(packed, criterion);
+    }
+
+    public void setScore(PerformanceCriterion criterion, Integer score) {
+        this.packed = PackedPerformanceRecord.withScore(packed, criterion, score == null ? 0 : score);
     }
 
     /**
@@ -93,30 +105,39 @@ public class SocialPerformanceRecord {
      */
     public Document toDocument() {
         org.bson.Document document = new Document();
-        document.append("leadership", this.leadership);
-        document.append("openness", this.openness);
-        document.append("behaviour", this.behaviour);
-        document.append("attitude", this.attitude);
-        document.append("communication", this.communication);
-        document.append("integrity", this.integrity);
-        document.append("year", this.year);
+        document.append("salesmanId", this.salesmanId);
+        document.append("leadership", this.getLeadership());
+        document.append("openness", this.getOpenness());
+        document.append("behaviour", this.getBehaviour());
+        document.append("attitude", this.getAttitude());
+        document.append("communication", this.getCommunication());
+        document.append("integrity", this.getIntegrity());
+        document.append("year", this.getYear());
         return document;
     }
 
     /**
-     * Converts Document to SocialPerformanceRecord object (static factory method)
+     * Converts Document to SocialPerformanceRecord object (static factory method), missing fields are stored as 0.
+     * Like the codec, stored values that do not fit into the packed form are read as 0 instead of failing.
      */
     public static SocialPerformanceRecord fromDocument(Document doc) {
-        return new SocialPerformanceRecord(
-                doc.getInteger("salesmanId"),
-                doc.getInteger("leadership"),
-                doc.getInteger("openness"),
-                doc.getInteger("behaviour"),
-                doc.getInteger("attitude"),
-                doc.getInteger("communication"),
-                doc.getInteger("integrity"),
-                doc.getInteger("year")
-        );
+        long packed = 0L;
+        int year = intOrZero(doc, "year");
+        if (PackedPerformanceRecord.isValidYear(year)) {
+            packed = PackedPerformanceRecord.withYear(packed, year);
+        }
+        for (PerformanceCriterion criterion : PerformanceCriterion.values()) {
+            int score = intOrZero(doc, criterion.getFieldName());
+            if (PackedPerformanceRecord.isValidScore(score)) {
+                packed = PackedPerformanceRecord.withScore(packed, criterion, score);
+            }
+        }
+        return new SocialPerformanceRecord(intOrZero(doc, "salesmanId"), packed);
+    }
+
+    private static int intOrZero(Document doc, String key) {
+        Integer value = doc.getInteger(key);
+        return value == null ? 0 : value;
     }
 
     public String toString(){
@@ -0,0 +1,74 @@
+package org.hbrs.ia.snapshot;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * One fixed-width column of a PerformanceSnapshot, stored in its own memory-mapped file.
+ * Growing the column maps a new, larger buffer; buffers handed out earlier stay valid for the
+ * rows they already contained, so readers never need a lock.
+ */
+class MappedColumn {
+
+    private final Path file;
+    private final int width;
+    private final FileChannel channel;
+    private volatile MappedByteBuffer buffer;
+
+    MappedColumn(Path file, int width, long initialRows) {
+        this.file = file;
+        this.width = width;
+        try {
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            long bytes = Math.max(channel.size(), initialRows * width);
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to map column " + file, e);
+        }
+    }
+
+    MappedByteBuffer buffer() {
+        return buffer;
+    }
+
+    long capacityRows() {
+        return buffer.capacity() / width;
+    }
+
+    // grows the file by at least half of its size, so appends stay amortized O(1)
+    void ensureCapacity(long rows) {
+        if (rows <= capacityRows()) {
+            return;
+        }
+        // a mapped buffer holds at most Integer.MAX_VALUE bytes, the growth stops there
+        long newRows = Math.min(Math.max(rows, capacityRows() + (capacityRows() >> 1) + 1024),
+                Integer.MAX_VALUE / width);
+        if (rows > newRows) {
+            throw new IllegalStateException("Column " + file.getFileName() + " cannot hold " + rows + " rows");
+        }
+        long bytes = newRows * width;
+        try {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to grow column " + file, e);
+        }
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    // the mapping itself is released by the garbage collector, only the channel can be closed
+    void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to close column " + file, e);
+        }
+    }
+}
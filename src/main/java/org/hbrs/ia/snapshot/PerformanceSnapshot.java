@@ -0,0 +1,422 @@
+package org.hbrs.ia.snapshot;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Sorts;
+import org.bson.BsonBinaryReader;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.hbrs.ia.model.PerformanceCriterion;
+import org.hbrs.ia.model.PerformanceRecordBlock;
+import org.hbrs.ia.model.PerformanceStatistics;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Columnar snapshot of the performanceRecords collection for analytics scans.
+ * Every column (salesmanId, year and one per PerformanceCriterion) is a memory-mapped file in
+ * the snapshot directory, so the data lives off-heap and a reopened snapshot is usable at once.
+ *
+ * refresh() appends the records with an _id greater than the last one in the snapshot, ordered
+ * by _id. Records are expected to carry server or driver generated ObjectIds; updates and deletes
+ * of records already in the snapshot are not picked up - delete the directory to start over.
+ * ObjectIds are not monotonic across client processes, and an insert may still be in flight while
+ * a refresh runs. refresh() therefore only reads records whose _id is older than the settle time
+ * (default 5 s), newer ones follow with a later refresh. A record that becomes visible more than
+ * the settle time after its _id was generated (clock skew of the inserting client, long running
+ * inserts) sorts below the snapshot's last _id and is skipped for good.
+ *
+ * Scans never lock: they work on the published row count, appends only write behind it.
+ * Only one refresh / append runs at a time.
+ */
+public class PerformanceSnapshot implements AutoCloseable {
+
+    private static final int MAGIC = 0x50534E50;
+    private static final int VERSION = 1;
+    private static final String META_FILE = "snapshot.meta";
+    private static final int INITIAL_ROWS = 1024;
+    private static final Duration DEFAULT_SETTLE_TIME = Duration.ofSeconds(5);
+    private static final int CRITERIA = PerformanceCriterion.values().length;
+    // limited by the widest column (salesmanId) in a mapped buffer of at most Integer.MAX_VALUE bytes
+    private static final int MAX_ROWS = Integer.MAX_VALUE / Integer.BYTES;
+
+    private final Path directory;
+    private final MappedColumn salesmanIds;
+    private final MappedColumn years;
+    // indexed by PerformanceCriterion.ordinal()
+    private final MappedColumn[] scores = new MappedColumn[CRITERIA];
+    private final Object appendLock = new Object();
+
+    private volatile State state;
+    private volatile boolean closed;
+    private int refreshBatchSize = 10_000;
+    private volatile Duration settleTime = DEFAULT_SETTLE_TIME;
+
+    private PerformanceSnapshot(Path directory, int size, ObjectId lastId) {
+        this.directory = directory;
+        long initialRows = Math.max(size, INITIAL_ROWS);
+        this.salesmanIds = new MappedColumn(directory.resolve("salesmanId.col"), Integer.BYTES, initialRows);
+        this.years = new MappedColumn(directory.resolve("year.col"), Short.BYTES, initialRows);
+        for (PerformanceCriterion criterion : PerformanceCriterion.values()) {
+            scores[criterion.ordinal()] = new MappedColumn(
+                    directory.resolve(criterion.getFieldName() + ".col"), Byte.BYTES, initialRows);
+        }
+        this.state = new State(size, lastId);
+    }
+
+    /**
+     * Opens the snapshot in the directory, or creates an empty one if the directory has none
+     */
+    public static PerformanceSnapshot open(Path directory) {
+        if (directory == null) {
+            throw new IllegalArgumentException("Directory cannot be null");
+        }
+        try {
+            Files.createDirectories(directory);
+            Path metaFile = directory.resolve(META_FILE);
+            if (!Files.exists(metaFile)) {
+                return new PerformanceSnapshot(directory, 0, null);
+            }
+
+            ByteBuffer meta = ByteBuffer.wrap(Files.readAllBytes(metaFile));
+            if (meta.remaining() < 13 || meta.getInt() != MAGIC || meta.getInt() != VERSION) {
+                throw new IllegalStateException("Not a performance snapshot (or unsupported version): " + metaFile);
+            }
+            int size = meta.getInt();
+            ObjectId lastId = null;
+            if (meta.get() == 1) {
+                byte[] id = new byte[12];
+                meta.get(id);
+                lastId = new ObjectId(id);
+            }
+            return new PerformanceSnapshot(directory, size, lastId);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open snapshot " + directory, e);
+        }
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public int size() {
+        return state.size;
+    }
+
+    // _id of the newest record in the snapshot, null while it is empty
+    public ObjectId getLastId() {
+        return state.lastId;
+    }
+
+    public int getRefreshBatchSize() {
+        return refreshBatchSize;
+    }
+
+    public void setRefreshBatchSize(int refreshBatchSize) {
+        if (refreshBatchSize < 1) {
+            throw new IllegalArgumentException("Refresh batch size must be at least 1");
+        }
+        this.refreshBatchSize = refreshBatchSize;
+    }
+
+    /**
+     * Appends the records of the performanceRecords collection that are newer than the snapshot.
+     * Every batch is made durable before the next one is read, so an interrupted refresh
+     * continues where it stopped. Returns the number of appended records.
+     * Records with a score or year that does not fit into the packed form are skipped,
+     * see PerformanceRecordBlock.appendDocument. Records younger than the settle time are left
+     * for the next refresh.
+     */
+    public int refresh(MongoDatabase database) {
+        MongoCollection<RawBsonDocument> records = database.getCollection("performanceRecords", RawBsonDocument.class);
+        synchronized (appendLock) {
+            ObjectId lastId = state.lastId;
+            Bson settled = Filters.lt("_id", settledBound(System.currentTimeMillis() - settleTime.toMillis()));
+            Bson query = lastId == null ? settled : Filters.and(Filters.gt("_id", lastId), settled);
+            PerformanceRecordBlock block = new PerformanceRecordBlock(refreshBatchSize);
+            int appended = 0;
+
+            try (MongoCursor<RawBsonDocument> cursor = records.find(query)
+                    .sort(Sorts.ascending("_id"))
+                    .batchSize(refreshBatchSize)
+                    .iterator()) {
+                while (cursor.hasNext()) {
+                    RawBsonDocument raw = cursor.next();
+                    try (BsonBinaryReader reader = new BsonBinaryReader(raw.getByteBuffer().asNIO())) {
+                        block.appendDocument(reader);
+                    }
+                    lastId = raw.getObjectId("_id").getValue();
+                    if (block.size() == refreshBatchSize) {
+                        append(block, lastId);
+                        appended += block.size();
+                        block.clear();
+                    }
+                }
+            }
+            if (block.size() > 0) {
+                append(block, lastId);
+                appended += block.size();
+            }
+            return appended;
+        }
+    }
+
+    // smallest possible ObjectId of the second the time falls into, every _id generated before it sorts below
+    private static ObjectId settledBound(long epochMillis) {
+        return new ObjectId(ByteBuffer.allocate(12).putInt((int) (epochMillis / 1000)).array());
+    }
+
+    public Duration getSettleTime() {
+        return settleTime;
+    }
+
+    // Duration.ZERO reads everything up to now, then records still in flight may be skipped
+    public void setSettleTime(Duration settleTime) {
+        if (settleTime == null || settleTime.isNegative()) {
+            throw new IllegalArgumentException("Settle time must not be negative");
+        }
+        this.settleTime = settleTime;
+    }
+
+    /**
+     * Appends a block of records; lastId is the _id of the last record of the block
+     * and becomes the starting point of the next refresh.
+     */
+    public void append(PerformanceRecordBlock block, ObjectId lastId) {
+        if (block == null) {
+            throw new IllegalArgumentException("Block cannot be null");
+        }
+        synchronized (appendLock) {
+            checkOpen();
+            int size = state.size;
+            long newSize = (long) size + block.size();
+            if (newSize > MAX_ROWS) {
+                throw new IllegalStateException("Snapshot cannot hold more than " + MAX_ROWS + " records");
+            }
+
+            salesmanIds.ensureCapacity(newSize);
+            years.ensureCapacity(newSize);
+            for (MappedColumn column : scores) {
+                column.ensureCapacity(newSize);
+            }
+
+            ByteBuffer salesmanIdBuffer = salesmanIds.buffer();
+            ByteBuffer yearBuffer = years.buffer();
+            for (int i = 0; i < block.size(); i++) {
+                int row = size + i;
+                salesmanIdBuffer.putInt(row * Integer.BYTES, block.getSalesmanId(i));
+                yearBuffer.putShort(row * Short.BYTES, (short) block.getYear(i));
+            }
+            for (PerformanceCriterion criterion : PerformanceCriterion.values()) {
+                ByteBuffer scoreBuffer = scores[criterion.ordinal()].buffer();
+                for (int i = 0; i < block.size(); i++) {
+                    scoreBuffer.put(size + i, (byte) block.getScore(i, criterion));
+                }
+            }
+
+            // columns first, then the row count: after a crash the meta file never points past written data
+            salesmanIds.force();
+            years.force();
+            for (MappedColumn column : scores) {
+                column.force();
+            }
+            writeMeta((int) newSize, lastId);
+            state = new State((int) newSize, lastId);
+        }
+    }
+
+    /**
+     * Statistics over all records of the salesman (null = all salesmen) with fromYear <= year <= toYear
+     */
+    public PerformanceStatistics aggregate(Integer salesmanId, int fromYear, int toYear) {
+        if (fromYear > toYear) {
+            throw new IllegalArgumentException("fromYear must not be greater than toYear");
+        }
+        State current = snapshotState();
+        int[] rows = selectRows(current, salesmanId, fromYear, toYear);
+        PerformanceStatistics statistics = new PerformanceStatistics(salesmanId,
+                fromYear == toYear ? Integer.valueOf(fromYear) : null, rows.length);
+        if (rows.length == 0) {
+            return statistics;
+        }
+
+        for (PerformanceCriterion criterion : PerformanceCriterion.values()) {
+            ByteBuffer column = scores[criterion.ordinal()].buffer();
+            long sum = 0;
+            int min = Integer.MAX_VALUE;
+            int max = Integer.MIN_VALUE;
+            for (int row : rows) {
+                int score = column.get(row) & 0xFF;
+                sum += score;
+                min = Math.min(min, score);
+                max = Math.max(max, score);
+            }
+            statistics.setStatistics(criterion, (double) sum / rows.length, min, max);
+        }
+        return statistics;
+    }
+
+    /**
+     * Statistics per year for the salesman (null = all salesmen), ordered by year - the trend view
+     */
+    public List<PerformanceStatistics> aggregatePerYear(Integer salesmanId) {
+        State current = snapshotState();
+        int[] rows = selectRows(current, salesmanId, 0, 0xFFFF);
+        List<PerformanceStatistics> result = new ArrayList<>();
+        if (rows.length == 0) {
+            return result;
+        }
+
+        ByteBuffer yearColumn = years.buffer();
+        int[] yearOfRow = new int[rows.length];
+        int minYear = Integer.MAX_VALUE;
+        int maxYear = Integer.MIN_VALUE;
+        for (int i = 0; i < rows.length; i++) {
+            yearOfRow[i] = yearColumn.getShort(rows[i] * Short.BYTES) & 0xFFFF;
+            minYear = Math.min(minYear, yearOfRow[i]);
+            maxYear = Math.max(maxYear, yearOfRow[i]);
+        }
+
+        int yearCount = maxYear - minYear + 1;
+        long[] counts = new long[yearCount];
+        for (int year : yearOfRow) {
+            counts[year - minYear]++;
+        }
+        PerformanceStatistics[] perYear = new PerformanceStatistics[yearCount];
+        for (int y = 0; y < yearCount; y++) {
+            if (counts[y] > 0) {
+                perYear[y] = new PerformanceStatistics(salesmanId, minYear + y, counts[y]);
+            }
+        }
+
+        long[] sums = new long[yearCount];
+        int[] mins = new int[yearCount];
+        int[] maxs = new int[yearCount];
+        for (PerformanceCriterion criterion : PerformanceCriterion.values()) {
+            ByteBuffer column = scores[criterion.ordinal()].buffer();
+            Arrays.fill(sums, 0);
+            Arrays.fill(mins, Integer.MAX_VALUE);
+            Arrays.fill(maxs, Integer.MIN_VALUE);
+            for (int i = 0; i < rows.length; i++) {
+                int y = yearOfRow[i] - minYear;
+                int score = column.get(rows[i]) & 0xFF;
+                sums[y] += score;
+                mins[y] = Math.min(mins[y], score);
+                maxs[y] = Math.max(maxs[y], score);
+            }
+            for (int y = 0; y < yearCount; y++) {
+                if (perYear[y] != null) {
+                    perYear[y].setStatistics(criterion, (double) sums[y] / counts[y], mins[y], maxs[y]);
+                }
+            }
+        }
+
+        for (PerformanceStatistics statistics : perYear) {
+            if (statistics != null) {
+                result.add(statistics);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void close() {
+        synchronized (appendLock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            salesmanIds.close();
+            years.close();
+            for (MappedColumn column : scores) {
+                column.close();
+            }
+        }
+    }
+
+    // filter pass over the salesmanId and year columns, returns the matching row numbers
+    private int[] selectRows(State current, Integer salesmanId, int fromYear, int toYear) {
+        ByteBuffer salesmanIdColumn = salesmanIds.buffer();
+        ByteBuffer yearColumn = years.buffer();
+        int[] rows = new int[Math.min(current.size, 1024)];
+        int matches = 0;
+        for (int row = 0; row < current.size; row++) {
+            if (salesmanId != null && salesmanIdColumn.getInt(row * Integer.BYTES) != salesmanId) {
+                continue;
+            }
+            int year = yearColumn.getShort(row * Short.BYTES) & 0xFFFF;
+            if (year < fromYear || year > toYear) {
+                continue;
+            }
+            if (matches == rows.length) {
+                rows = Arrays.copyOf(rows, rows.length * 2);
+            }
+            rows[matches++] = row;
+        }
+        return Arrays.copyOf(rows, matches);
+    }
+
+    private State snapshotState() {
+        checkOpen();
+        return state;
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Snapshot " + directory + " is closed");
+        }
+    }
+
+    // written to a temporary file and renamed, so the meta file is always complete
+    private void writeMeta(int size, ObjectId lastId) {
+        ByteBuffer meta = ByteBuffer.allocate(4 + 4 + 4 + 1 + 12);
+        meta.putInt(MAGIC).putInt(VERSION).putInt(size);
+        if (lastId != null) {
+            meta.put((byte) 1).put(lastId.toByteArray());
+        } else {
+            meta.put((byte) 0).put(new byte[12]);
+        }
+        meta.flip();
+
+        Path metaFile = directory.resolve(META_FILE);
+        Path tempFile = directory.resolve(META_FILE + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (meta.hasRemaining()) {
+                    channel.write(meta);
+                }
+                channel.force(true);
+            }
+            Files.move(tempFile, metaFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write snapshot meta data " + metaFile, e);
+        }
+    }
+
+    // row count and last _id, published together after an append
+    private static final class State {
+        private final int size;
+        private final ObjectId lastId;
+
+        private State(int size, ObjectId lastId) {
+            this.size = size;
+            this.lastId = lastId;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package org.hbrs.mongodb.benchmark;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoCollection;
+import org.bson.Document;
+import org.hbrs.ia.code.BulkWriteReport;
+import org.hbrs.ia.code.ManagePersonalImpl;
+import org.hbrs.ia.code.MongoConnectionSettings;
+import org.hbrs.ia.model.SalesMan;
+import org.hbrs.ia.model.SocialPerformanceRecord;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares the single-call ingestion path (createSalesMan / addSocialPerformanceRecord)
+ * with the batch path (createSalesMen / addSocialPerformanceRecords).
+ * Needs a running 'mongod' on localhost:27017, the database BatchIngestionBenchmark is dropped!
+ * Both collections are cleared before each path, so the paths and runs start from the same state.
+ *
+ * Arguments: [number of salesmen] [batch size]
+ */
+public class BatchIngestionBenchmark {
+
+    private static final String DATABASE = "BatchIngestionBenchmark";
+    private static final int FIRST_SID = 100_000;
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int batchSize = args.length > 1 ? Integer.parseInt(args[1]) : ManagePersonalImpl.DEFAULT_BATCH_SIZE;
+
+        MongoConnectionSettings settings = new MongoConnectionSettings();
+        try (MongoClient client = MongoClients.create(settings.toMongoClientSettings())) {
+            client.getDatabase(DATABASE).drop();
+            ManagePersonalImpl manager = new ManagePersonalImpl(client, DATABASE);
+            manager.setBatchSize(batchSize);
+            MongoCollection<Document> performanceRecords = client.getDatabase(DATABASE)
+                    .getCollection("performanceRecords");
+            run(manager, performanceRecords, count, batchSize);
+            manager.close();
+            client.getDatabase(DATABASE).drop();
+        }
+    }
+
+    private static void run(ManagePersonalImpl manager, MongoCollection<Document> performanceRecords,
+                            int count, int batchSize) {
+
+        List<SalesMan> salesMen = new ArrayList<>(count);
+        Map<SalesMan, List<SocialPerformanceRecord>> records = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            SalesMan salesMan = new SalesMan("FirstName" + i, "LastName" + i, FIRST_SID + i);
+            salesMen.add(salesMan);
+            records.put(salesMan, Collections.singletonList(
+                    new SocialPerformanceRecord(salesMan.getId(), 4, 3, 4, 5, 4, 4, 2024)));
+        }
+
+        // single-call path
+        clear(manager, performanceRecords);
+        long start = System.nanoTime();
+        for (SalesMan salesMan : salesMen) {
+            manager.createSalesMan(salesMan);
+        }
+        report("createSalesMan (single)", count, start);
+
+        start = System.nanoTime();
+        for (Map.Entry<SalesMan, List<SocialPerformanceRecord>> entry : records.entrySet()) {
+            manager.addSocialPerformanceRecord(entry.getValue().get(0), entry.getKey());
+        }
+        report("addSocialPerformanceRecord (single)", count, start);
+
+        // batch path
+        clear(manager, performanceRecords);
+        start = System.nanoTime();
+        BulkWriteReport<SalesMan> created = manager.createSalesMen(salesMen);
+        report("createSalesMen (batch " + batchSize + ")", created.getSucceededCount(), start);
+
+        start = System.nanoTime();
+        BulkWriteReport<SocialPerformanceRecord> added = manager.addSocialPerformanceRecords(records);
+        report("addSocialPerformanceRecords (batch " + batchSize + ")", added.getSucceededCount(), start);
+    }
+
+    // deleteAllSalesMan leaves the records behind, the benchmark database holds nothing else
+    private static void clear(ManagePersonalImpl manager, MongoCollection<Document> performanceRecords) {
+        manager.deleteAllSalesMan();
+        performanceRecords.deleteMany(new Document());
+    }
+
+    private static void report(String operation, int documents, long startNanos) {
+        double seconds = (System.nanoTime() - startNanos) / 1_000_000_000.0;
+        System.out.printf("%-45s %8d docs in %7.2f s = %10.0f docs/s%n",
+                operation, documents, seconds, documents / seconds);
+    }
+}
@@ -0,0 +1,66 @@
+package org.hbrs.mongodb.benchmark;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.hbrs.ia.bonus.BonusEngine;
+import org.hbrs.ia.bonus.BonusWeights;
+import org.hbrs.ia.model.PerformanceCriterion;
+import org.hbrs.ia.model.SocialPerformanceRecord;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Scaling of BonusEngine.compute for 1..N threads. The record batches are generated in memory,
+ * so only the scoring is measured (no database is contacted).
+ *
+ * Arguments: [number of salesmen] [records per salesman] [max threads]
+ */
+public class BonusEngineBenchmark {
+
+    public static void main(String[] args) {
+        int salesMen = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int recordsPerSalesMan = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int maxThreads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        int batchSize = 10_000;
+
+        Random random = new Random(42);
+        List<List<SocialPerformanceRecord>> batches = new ArrayList<>();
+        List<SocialPerformanceRecord> batch = new ArrayList<>(batchSize);
+        for (int i = 0; i < salesMen * recordsPerSalesMan; i++) {
+            batch.add(new SocialPerformanceRecord(i % salesMen, 1 + random.nextInt(5), 1 + random.nextInt(5),
+                    1 + random.nextInt(5), 1 + random.nextInt(5), 1 + random.nextInt(5), 1 + random.nextInt(5), 2024));
+            if (batch.size() == batchSize) {
+                batches.add(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            batches.add(batch);
+        }
+
+        BonusWeights weights = new BonusWeights(100.0);
+        weights.setWeight(PerformanceCriterion.LEADERSHIP, 2.0);
+        weights.setWeight(PerformanceCriterion.INTEGRITY, 1.5);
+
+        // the client is only needed to construct the engine, compute() does not use it
+        try (MongoClient client = MongoClients.create("mongodb://localhost:27017")) {
+            double singleThreadMillis = 0;
+            for (int threads = 1; threads <= maxThreads; threads *= 2) {
+                BonusEngine engine = new BonusEngine(client.getDatabase("HighPerformanceDatabase"), weights, threads);
+                double best = Double.MAX_VALUE;
+                for (int round = 0; round < 5; round++) {
+                    long start = System.nanoTime();
+                    engine.compute(2024, batches.iterator());
+                    best = Math.min(best, (System.nanoTime() - start) / 1_000_000.0);
+                }
+                if (threads == 1) {
+                    singleThreadMillis = best;
+                }
+                System.out.printf("%2d threads: %8.1f ms for %d records (speedup %.2f)%n",
+                        threads, best, salesMen * recordsPerSalesMan, singleThreadMillis / best);
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package org.hbrs.mongodb.benchmark;
+
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinaryWriter;
+import org.bson.Document;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+import org.hbrs.ia.codec.SalesManCodec;
+import org.hbrs.ia.codec.SocialPerformanceRecordCodec;
+import org.hbrs.ia.model.SalesMan;
+import org.hbrs.ia.model.SocialPerformanceRecord;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares decoding BSON through org.bson.Document + fromDocument with decoding
+ * through the model codecs. Runs without a database: the documents are encoded
+ * once into raw BSON and then decoded repeatedly.
+ *
+ * Arguments: [number of documents] [rounds]
+ */
+public class CodecBenchmark {
+
+    private static final DecoderContext DECODER_CONTEXT = DecoderContext.builder().build();
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        List<byte[]> salesMen = new ArrayList<>(count);
+        List<byte[]> records = new ArrayList<>(count);
+        DocumentCodec documentCodec = new DocumentCodec();
+        for (int i = 0; i < count; i++) {
+            Document salesMan = new Document("firstname", "FirstName" + i)
+                    .append("lastname", "LastName" + i)
+                    .append("sid", 100_000 + i);
+            salesMen.add(encode(documentCodec, salesMan));
+            Document record = new SocialPerformanceRecord(100_000 + i, 4, 3, 4, 5, 4, 4, 2024).toDocument()
+                    .append("salesmanId", 100_000 + i);
+            records.add(encode(documentCodec, record));
+        }
+
+        SalesManCodec salesManCodec = new SalesManCodec();
+        SocialPerformanceRecordCodec recordCodec = new SocialPerformanceRecordCodec();
+
+        for (int round = 0; round < rounds; round++) {
+            long start = System.nanoTime();
+            long checksum = 0;
+            for (byte[] bytes : salesMen) {
+                checksum += SalesMan.fromDocument(documentCodec.decode(reader(bytes), DECODER_CONTEXT)).getId();
+            }
+            report(round, "SalesMan via Document", count, start, checksum);
+
+            start = System.nanoTime();
+            checksum = 0;
+            for (byte[] bytes : salesMen) {
+                checksum += salesManCodec.decode(reader(bytes), DECODER_CONTEXT).getId();
+            }
+            report(round, "SalesMan via SalesManCodec", count, start, checksum);
+
+            start = System.nanoTime();
+            checksum = 0;
+            for (byte[] bytes : records) {
+                checksum += SocialPerformanceRecord.fromDocument(
+                        documentCodec.decode(reader(bytes), DECODER_CONTEXT)).getYear();
+            }
+            report(round, "Record via Document", count, start, checksum);
+
+            start = System.nanoTime();
+            checksum = 0;
+            for (byte[] bytes : records) {
+                checksum += recordCodec.decode(reader(bytes), DECODER_CONTEXT).getYear();
+            }
+            report(round, "Record via SocialPerformanceRecordCodec", count, start, checksum);
+        }
+    }
+
+    private static byte[] encode(DocumentCodec codec, Document document) {
+        BasicOutputBuffer buffer = new BasicOutputBuffer();
+        codec.encode(new BsonBinaryWriter(buffer), document, EncoderContext.builder().build());
+        return buffer.toByteArray();
+    }
+
+    private static BsonBinaryReader reader(byte[] bytes) {
+        return new BsonBinaryReader(ByteBuffer.wrap(bytes));
+    }
+
+    private static void report(int round, String path, int documents, long startNanos, long checksum) {
+        double millis = (System.nanoTime() - startNanos) / 1_000_000.0;
+        System.out.printf("round %2d  %-42s %8.1f ms  %6.0f ns/doc  (checksum %d)%n",
+                round, path, millis, millis * 1_000_000.0 / documents, checksum);
+    }
+}
@@ -0,0 +1,103 @@
+package org.hbrs.mongodb.benchmark;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.hbrs.ia.code.BulkWriteReport;
+import org.hbrs.ia.code.ConsistencyProfile;
+import org.hbrs.ia.code.ManagePersonalImpl;
+import org.hbrs.ia.model.SalesMan;
+import org.hbrs.ia.model.SocialPerformanceRecord;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Throughput of the same workload under every ConsistencyProfile:
+ *   - batch ingestion (createSalesMen / addSocialPerformanceRecords)
+ *   - single writes (addSocialPerformanceRecord, deleteLastSocialPerformanceRecord)
+ *   - point reads (readSalesMan, readLastSocialPerformanceRecord)
+ * On a standalone mongod the difference is the journal flush of DURABLE, on a replica set
+ * the majority acknowledgement adds a replication round trip per write on top.
+ * Needs a running 'mongod' (default localhost:27017), the database ConsistencyProfileBenchmark is dropped!
+ *
+ * Arguments: [number of salesmen] [single operations] [batch size] [connection string]
+ */
+public class ConsistencyProfileBenchmark {
+
+    private static final String DATABASE = "ConsistencyProfileBenchmark";
+    private static final int FIRST_SID = 400_000;
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int singleOps = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+        int batchSize = args.length > 2 ? Integer.parseInt(args[2]) : ManagePersonalImpl.DEFAULT_BATCH_SIZE;
+        String connectionString = args.length > 3 ? args[3] : "mongodb://localhost:27017";
+
+        try (MongoClient client = MongoClients.create(connectionString)) {
+            for (ConsistencyProfile profile : ConsistencyProfile.values()) {
+                client.getDatabase(DATABASE).drop();
+                ManagePersonalImpl manager = new ManagePersonalImpl(client, DATABASE);
+                manager.setConsistencyProfile(profile);
+                manager.setBatchSize(batchSize);
+                System.out.println("🚀 " + profile + " (" + count + " salesmen, " + singleOps + " single operations)");
+                run(manager, count, Math.min(singleOps, count));
+                manager.close();
+            }
+            client.getDatabase(DATABASE).drop();
+        }
+    }
+
+    private static void run(ManagePersonalImpl manager, int count, int singleOps) {
+        List<SalesMan> salesMen = new ArrayList<>(count);
+        Map<SalesMan, List<SocialPerformanceRecord>> records = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            SalesMan salesMan = new SalesMan("FirstName" + i, "LastName" + i, FIRST_SID + i);
+            salesMen.add(salesMan);
+            records.put(salesMan, Collections.singletonList(
+                    new SocialPerformanceRecord(salesMan.getId(), 4, 3, 4, 5, 4, 4, 2024)));
+        }
+
+        long start = System.nanoTime();
+        BulkWriteReport<SalesMan> created = manager.createSalesMen(salesMen);
+        report("createSalesMen (batch)", created.getSucceededCount(), start);
+
+        start = System.nanoTime();
+        BulkWriteReport<SocialPerformanceRecord> added = manager.addSocialPerformanceRecords(records);
+        report("addSocialPerformanceRecords (batch)", added.getSucceededCount(), start);
+
+        start = System.nanoTime();
+        for (int i = 0; i < singleOps; i++) {
+            manager.addSocialPerformanceRecord(new SocialPerformanceRecord(0, 5, 5, 5, 5, 5, 5, 2025),
+                    salesMen.get(i));
+        }
+        report("addSocialPerformanceRecord", singleOps, start);
+
+        start = System.nanoTime();
+        for (int i = 0; i < singleOps; i++) {
+            manager.readSalesMan(salesMen.get(i).getId());
+        }
+        report("readSalesMan", singleOps, start);
+
+        start = System.nanoTime();
+        for (int i = 0; i < singleOps; i++) {
+            manager.readLastSocialPerformanceRecord(salesMen.get(i));
+        }
+        report("readLastSocialPerformanceRecord", singleOps, start);
+
+        // removes the 2025 record again, the summary is repaired with a second write
+        start = System.nanoTime();
+        for (int i = 0; i < singleOps; i++) {
+            manager.deleteLastSocialPerformanceRecord(salesMen.get(i));
+        }
+        report("deleteLastSocialPerformanceRecord", singleOps, start);
+    }
+
+    private static void report(String operation, int documents, long startNanos) {
+        double seconds = (System.nanoTime() - startNanos) / 1_000_000_000.0;
+        System.out.printf("  %-40s %8d ops in %7.2f s = %10.0f ops/s%n",
+                operation, documents, seconds, documents / seconds);
+    }
+}
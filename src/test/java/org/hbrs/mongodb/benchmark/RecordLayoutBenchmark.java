@@ -0,0 +1,186 @@
+package org.hbrs.mongodb.benchmark;
+
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoDatabase;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DocumentCodec;
+import org.hbrs.ia.code.ManagePersonalImpl;
+import org.hbrs.ia.code.RecordLayout;
+import org.hbrs.ia.metrics.LatencyHistogram;
+import org.hbrs.ia.model.SalesMan;
+import org.hbrs.ia.model.SalesManView;
+import org.hbrs.ia.model.SocialPerformanceRecord;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares the record layouts (SEPARATE, EMBEDDED, BUCKET) while the history of every salesman grows.
+ * Records are added one by one with addSocialPerformanceRecord, round robin over the salesmen, like
+ * a yearly review would add them. After every growth step it prints per layout:
+ *   - write latency of addSocialPerformanceRecord (p50 / p99)
+ *   - write amplification: bytes WiredTiger wrote from its cache per byte of record (after an fsync,
+ *     so the checkpoint is included; n/a if serverStatus or fsync is not allowed)
+ *   - average size and number of the documents holding the records
+ *   - read latency (p50 / p99) of all records, the records of one year and a FULL salesman read
+ * Needs a running 'mongod' on localhost:27017, the database RecordLayoutBenchmark is dropped!
+ *
+ * Arguments: [number of salesmen] [history steps, e.g. 10,50,200] [bucket size] [read samples]
+ */
+public class RecordLayoutBenchmark {
+
+    private static final String DATABASE = "RecordLayoutBenchmark";
+    private static final int FIRST_SID = 300_000;
+    private static final int FIRST_YEAR = 1990;
+    // records of a salesman per year
+    private static final int RECORDS_PER_YEAR = 4;
+
+    public static void main(String[] args) {
+        int salesMenCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000;
+        int[] steps = parseSteps(args.length > 1 ? args[1] : "10,50,200");
+        int bucketSize = args.length > 2 ? Integer.parseInt(args[2]) : ManagePersonalImpl.DEFAULT_BUCKET_SIZE;
+        int samples = args.length > 3 ? Integer.parseInt(args[3]) : 500;
+
+        try (MongoClient client = MongoClients.create("mongodb://localhost:27017")) {
+            MongoDatabase database = client.getDatabase(DATABASE);
+            for (RecordLayout layout : RecordLayout.values()) {
+                database.drop();
+                try (ManagePersonalImpl manager = new ManagePersonalImpl(client, DATABASE, layout, bucketSize)) {
+                    run(manager, client, layout, salesMenCount, steps, samples);
+                }
+            }
+            database.drop();
+        }
+    }
+
+    private static void run(ManagePersonalImpl manager, MongoClient client, RecordLayout layout,
+                            int salesMenCount, int[] steps, int samples) {
+        List<SalesMan> salesMen = new ArrayList<>(salesMenCount);
+        for (int i = 0; i < salesMenCount; i++) {
+            salesMen.add(new SalesMan("FirstName" + i, "LastName" + i, FIRST_SID + i));
+        }
+        manager.createSalesMen(salesMen);
+
+        System.out.println("🚀 " + layout);
+        System.out.printf("%8s | %17s | %7s | %9s | %9s | %19s | %19s | %19s%n", "history", "add p50/p99 µs",
+                "w-amp", "avg doc B", "documents", "read all p50/p99 µs", "read year p50/p99", "FULL p50/p99");
+
+        Random random = new Random(42);
+        int history = 0;
+        for (int step : steps) {
+            LatencyHistogram writes = new LatencyHistogram();
+            long writtenBefore = bytesWrittenFromCache(client);
+            long recordBytes = 0;
+            for (; history < step; history++) {
+                for (SalesMan salesMan : salesMen) {
+                    SocialPerformanceRecord record = randomRecord(random, salesMan.getId(), history);
+                    recordBytes += recordSize(record);
+                    long start = System.nanoTime();
+                    manager.addSocialPerformanceRecord(record, salesMan);
+                    writes.record(System.nanoTime() - start);
+                }
+            }
+            long writtenAfter = bytesWrittenFromCache(client);
+            String amplification = writtenBefore < 0 || writtenAfter < 0 || recordBytes == 0 ? "n/a"
+                    : String.format("%.1f", (writtenAfter - writtenBefore) / (double) recordBytes);
+
+            Document stats = storageStats(client.getDatabase(DATABASE), collectionOf(layout));
+            LatencyHistogram readAll = new LatencyHistogram();
+            LatencyHistogram readYear = new LatencyHistogram();
+            LatencyHistogram readFull = new LatencyHistogram();
+            for (int i = 0; i < samples; i++) {
+                SalesMan salesMan = salesMen.get(random.nextInt(salesMen.size()));
+                int year = FIRST_YEAR + random.nextInt((history - 1) / RECORDS_PER_YEAR + 1);
+
+                long start = System.nanoTime();
+                manager.readSocialPerformanceRecord(salesMan);
+                readAll.record(System.nanoTime() - start);
+
+                start = System.nanoTime();
+                manager.readByYearSocialPerformanceRecord(salesMan, year);
+                readYear.record(System.nanoTime() - start);
+
+                start = System.nanoTime();
+                manager.readSalesMan(salesMan.getId(), SalesManView.FULL);
+                readFull.record(System.nanoTime() - start);
+            }
+
+            System.out.printf("%8d | %17s | %7s | %9s | %9s | %19s | %19s | %19s%n", history, percentiles(writes),
+                    amplification, stats.get("avgObjSize", "n/a"), stats.get("count", "n/a"),
+                    percentiles(readAll), percentiles(readYear), percentiles(readFull));
+        }
+    }
+
+    // the collection holding the records of the layout
+    private static String collectionOf(RecordLayout layout) {
+        switch (layout) {
+            case EMBEDDED:
+                return "salesmen";
+            case BUCKET:
+                return "performanceBuckets";
+            default:
+                return "performanceRecords";
+        }
+    }
+
+    private static SocialPerformanceRecord randomRecord(Random random, int sid, int index) {
+        return new SocialPerformanceRecord(sid, 1 + random.nextInt(5), 1 + random.nextInt(5),
+                1 + random.nextInt(5), 1 + random.nextInt(5), 1 + random.nextInt(5), 1 + random.nextInt(5),
+                FIRST_YEAR + index / RECORDS_PER_YEAR);
+    }
+
+    // BSON size of the record as a document of its own
+    private static int recordSize(SocialPerformanceRecord record) {
+        return new RawBsonDocument(record.toDocument(), new DocumentCodec()).getByteBuffer().remaining();
+    }
+
+    // flushes everything with fsync and returns WiredTiger's "bytes written from cache", -1 if not available
+    private static long bytesWrittenFromCache(MongoClient client) {
+        try {
+            MongoDatabase admin = client.getDatabase("admin");
+            admin.runCommand(new Document("fsync", 1));
+            Document wiredTiger = admin.runCommand(new Document("serverStatus", 1)).get("wiredTiger", Document.class);
+            if (wiredTiger == null) {
+                return -1;
+            }
+            Number written = wiredTiger.get("cache", Document.class).get("bytes written from cache", Number.class);
+            return written == null ? -1 : written.longValue();
+        } catch (MongoException e) {
+            return -1;
+        }
+    }
+
+    private static Document storageStats(MongoDatabase database, String collection) {
+        try {
+            Document stats = database.getCollection(collection)
+                    .aggregate(Collections.singletonList(new Document("$collStats",
+                            new Document("storageStats", new Document()))))
+                    .first();
+            return stats == null ? new Document() : stats.get("storageStats", Document.class);
+        } catch (MongoException e) {
+            return new Document();
+        }
+    }
+
+    private static String percentiles(LatencyHistogram histogram) {
+        return String.format("%d / %d", histogram.getValueAtPercentile(50) / 1_000,
+                histogram.getValueAtPercentile(99) / 1_000);
+    }
+
+    private static int[] parseSteps(String steps) {
+        String[] parts = steps.split(",");
+        int[] values = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            values[i] = Integer.parseInt(parts[i].trim());
+            if (values[i] < 1 || (i > 0 && values[i] <= values[i - 1])) {
+                throw new IllegalArgumentException("History steps must be increasing and at least 1: " + steps);
+            }
+        }
+        return values;
+    }
+}
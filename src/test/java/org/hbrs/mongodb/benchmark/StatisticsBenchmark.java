@@ -0,0 +1,95 @@
+package org.hbrs.mongodb.benchmark;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.bson.Document;
+import org.hbrs.ia.code.ManagePersonalImpl;
+import org.hbrs.ia.model.PerformanceCriterion;
+import org.hbrs.ia.model.PerformanceStatistics;
+import org.hbrs.ia.model.SalesMan;
+import org.hbrs.ia.model.SocialPerformanceRecord;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * Compares the old client-side way of computing per-year averages (read every salesman,
+ * read all his records, average in Java) with readPerformanceStatisticsPerYear (aggregation pipeline).
+ * Needs a running 'mongod' on localhost:27017, the salesmen and records are replaced!
+ *
+ * Arguments: [number of salesmen] [years per salesman]
+ */
+public class StatisticsBenchmark {
+
+    public static void main(String[] args) {
+        int salesMenCount = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int years = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        try (ManagePersonalImpl manager = new ManagePersonalImpl()) {
+            seed(manager, salesMenCount, years);
+
+            for (int round = 0; round < 3; round++) {
+                long start = System.nanoTime();
+                Map<Integer, double[]> clientSide = clientSideAverages(manager);
+                long clientNanos = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                List<PerformanceStatistics> serverSide = manager.readPerformanceStatisticsPerYear();
+                long serverNanos = System.nanoTime() - start;
+
+                System.out.printf("round %d: client-side %8.1f ms (%d years), aggregation %8.1f ms (%d years)%n",
+                        round, clientNanos / 1_000_000.0, clientSide.size(),
+                        serverNanos / 1_000_000.0, serverSide.size());
+            }
+        }
+    }
+
+    private static void seed(ManagePersonalImpl manager, int salesMenCount, int years) {
+        manager.deleteAllSalesMan();
+        try (MongoClient client = MongoClients.create("mongodb://localhost:27017")) {
+            client.getDatabase("HighPerformanceDatabase").getCollection("performanceRecords")
+                    .deleteMany(new Document());
+        }
+        Random random = new Random(42);
+        List<SalesMan> salesMen = new ArrayList<>(salesMenCount);
+        Map<SalesMan, List<SocialPerformanceRecord>> records = new LinkedHashMap<>();
+        for (int i = 0; i < salesMenCount; i++) {
+            SalesMan salesMan = new SalesMan("FirstName" + i, "LastName" + i, 200_000 + i);
+            salesMen.add(salesMan);
+            List<SocialPerformanceRecord> salesManRecords = new ArrayList<>(years);
+            for (int year = 2025 - years; year < 2025; year++) {
+                salesManRecords.add(new SocialPerformanceRecord(salesMan.getId(),
+                        1 + random.nextInt(5), 1 + random.nextInt(5), 1 + random.nextInt(5),
+                        1 + random.nextInt(5), 1 + random.nextInt(5), 1 + random.nextInt(5), year));
+            }
+            records.put(salesMan, salesManRecords);
+        }
+        manager.createSalesMen(salesMen);
+        manager.addSocialPerformanceRecords(records);
+    }
+
+    // year -> sum of every criterion, the last slot counts the records
+    private static Map<Integer, double[]> clientSideAverages(ManagePersonalImpl manager) {
+        int criteria = PerformanceCriterion.values().length;
+        Map<Integer, double[]> sums = new TreeMap<>();
+        for (SalesMan salesMan : manager.readAllSalesMen()) {
+            for (SocialPerformanceRecord record : manager.readSocialPerformanceRecord(salesMan)) {
+                double[] sum = sums.computeIfAbsent(record.getYear(), year -> new double[criteria + 1]);
+                for (PerformanceCriterion criterion : PerformanceCriterion.values()) {
+                    sum[criterion.ordinal()] += criterion.scoreOf(record);
+                }
+                sum[criteria]++;
+            }
+        }
+        for (double[] sum : sums.values()) {
+            for (int i = 0; i < criteria; i++) {
+                sum[i] /= sum[criteria];
+            }
+        }
+        return sums;
+    }
+}
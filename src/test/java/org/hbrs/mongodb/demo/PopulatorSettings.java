@@ -0,0 +1,264 @@
+package org.hbrs.mongodb.demo;
+
+import org.hbrs.ia.model.PackedPerformanceRecord;
+
+/**
+ * Settings of QuickDBPopulator. Every setting can be given as key=value program argument,
+ * e.g. salesMen=1000000 recordsPerSalesMan=10 threads=8 layout=EMBEDDED distribution=NORMAL
+ */
+public class PopulatorSettings {
+
+    public enum Layout {
+        // records in the performanceRecords collection, latestRecord summary on the salesman
+        SEPARATE,
+        // records as performanceRecords array inside the salesman document
+        EMBEDDED
+    }
+
+    public enum ScoreDistribution {
+        UNIFORM,
+        // centered between minScore and maxScore
+        NORMAL,
+        // most scores close to maxScore
+        SKEWED_HIGH
+    }
+
+    private String connectionString = "mongodb://localhost:27017";
+    private String databaseName = "HighPerformanceDatabase";
+    private boolean dropFirst = true;
+    private int salesMen = 1_000;
+    private int recordsPerSalesMan = 5;
+    private int firstSid = 100_000;
+    private int fromYear = 2015;
+    private int toYear = 2024;
+    private int minScore = 1;
+    private int maxScore = 5;
+    private ScoreDistribution distribution = ScoreDistribution.UNIFORM;
+    private long seed = 42;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    // salesmen per insertMany (in the SEPARATE layout their records go into one insertMany as well)
+    private int batchSize = 1_000;
+    private Layout layout = Layout.SEPARATE;
+    private int reportIntervalSeconds = 2;
+
+    public static PopulatorSettings fromArgs(String[] args) {
+        PopulatorSettings settings = new PopulatorSettings();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator < 1) {
+                throw new IllegalArgumentException("Expected key=value, got: " + arg);
+            }
+            settings.set(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        settings.validate();
+        return settings;
+    }
+
+    private void set(String key, String value) {
+        switch (key) {
+            case "connectionString":
+                connectionString = value;
+                break;
+            case "databaseName":
+                databaseName = value;
+                break;
+            case "dropFirst":
+                dropFirst = Boolean.parseBoolean(value);
+                break;
+            case "salesMen":
+                salesMen = Integer.parseInt(value);
+                break;
+            case "recordsPerSalesMan":
+                recordsPerSalesMan = Integer.parseInt(value);
+                break;
+            case "firstSid":
+                firstSid = Integer.parseInt(value);
+                break;
+            case "fromYear":
+                fromYear = Integer.parseInt(value);
+                break;
+            case "toYear":
+                toYear = Integer.parseInt(value);
+                break;
+            case "minScore":
+                minScore = Integer.parseInt(value);
+                break;
+            case "maxScore":
+                maxScore = Integer.parseInt(value);
+                break;
+            case "distribution":
+                distribution = ScoreDistribution.valueOf(value.toUpperCase());
+                break;
+            case "seed":
+                seed = Long.parseLong(value);
+                break;
+            case "threads":
+                threads = Integer.parseInt(value);
+                break;
+            case "batchSize":
+                batchSize = Integer.parseInt(value);
+                break;
+            case "layout":
+                layout = Layout.valueOf(value.toUpperCase());
+                break;
+            case "reportIntervalSeconds":
+                reportIntervalSeconds = Integer.parseInt(value);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown setting: " + key);
+        }
+    }
+
+    // the year and score ranges are those of PackedPerformanceRecord, checked before any chunk is inserted
+    public void validate() {
+        if (salesMen < 0 || recordsPerSalesMan < 0) {
+            throw new IllegalArgumentException("salesMen and recordsPerSalesMan must not be negative");
+        }
+        if (fromYear < 0 || toYear > PackedPerformanceRecord.MAX_YEAR || fromYear > toYear) {
+            throw new IllegalArgumentException("Years must satisfy 0 <= fromYear <= toYear <= "
+                    + PackedPerformanceRecord.MAX_YEAR);
+        }
+        if (minScore < 0 || maxScore > PackedPerformanceRecord.MAX_SCORE || minScore > maxScore) {
+            throw new IllegalArgumentException("Scores must satisfy 0 <= minScore <= maxScore <= "
+                    + PackedPerformanceRecord.MAX_SCORE);
+        }
+        if (threads < 1 || batchSize < 1 || reportIntervalSeconds < 1) {
+            throw new IllegalArgumentException("threads, batchSize and reportIntervalSeconds must be at least 1");
+        }
+    }
+
+    public String getConnectionString() {
+        return connectionString;
+    }
+
+    public void setConnectionString(String connectionString) {
+        this.connectionString = connectionString;
+    }
+
+    public String getDatabaseName() {
+        return databaseName;
+    }
+
+    public void setDatabaseName(String databaseName) {
+        this.databaseName = databaseName;
+    }
+
+    public boolean isDropFirst() {
+        return dropFirst;
+    }
+
+    public void setDropFirst(boolean dropFirst) {
+        this.dropFirst = dropFirst;
+    }
+
+    public int getSalesMen() {
+        return salesMen;
+    }
+
+    public void setSalesMen(int salesMen) {
+        this.salesMen = salesMen;
+    }
+
+    public int getRecordsPerSalesMan() {
+        return recordsPerSalesMan;
+    }
+
+    public void setRecordsPerSalesMan(int recordsPerSalesMan) {
+        this.recordsPerSalesMan = recordsPerSalesMan;
+    }
+
+    public int getFirstSid() {
+        return firstSid;
+    }
+
+    public void setFirstSid(int firstSid) {
+        this.firstSid = firstSid;
+    }
+
+    public int getFromYear() {
+        return fromYear;
+    }
+
+    public void setFromYear(int fromYear) {
+        this.fromYear = fromYear;
+    }
+
+    public int getToYear() {
+        return toYear;
+    }
+
+    public void setToYear(int toYear) {
+        this.toYear = toYear;
+    }
+
+    public int getMinScore() {
+        return minScore;
+    }
+
+    public void setMinScore(int minScore) {
+        this.minScore = minScore;
+    }
+
+    public int getMaxScore() {
+        return maxScore;
+    }
+
+    public void setMaxScore(int maxScore) {
+        this.maxScore = maxScore;
+    }
+
+    public ScoreDistribution getDistribution() {
+        return distribution;
+    }
+
+    public void setDistribution(ScoreDistribution distribution) {
+        this.distribution = distribution;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public Layout getLayout() {
+        return layout;
+    }
+
+    public void setLayout(Layout layout) {
+        this.layout = layout;
+    }
+
+    public int getReportIntervalSeconds() {
+        return reportIntervalSeconds;
+    }
+
+    public void setReportIntervalSeconds(int reportIntervalSeconds) {
+        this.reportIntervalSeconds = reportIntervalSeconds;
+    }
+
+    public String toString() {
+        return "salesMen: " + salesMen + ", recordsPerSalesMan: " + recordsPerSalesMan
+                + ", years: " + fromYear + "-" + toYear + ", scores: " + minScore + "-" + maxScore
+                + " (" + distribution + "), seed: " + seed + ", threads: " + threads
+                + ", batchSize: " + batchSize + ", layout: " + layout;
+    }
+}
@@ -1,31 +1,227 @@
 package org.hbrs.mongodb.demo;
 
-import org.hbrs.ia.code.ManagePersonal;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.InsertManyOptions;
+import org.bson.BsonBinaryWriter;
+import org.bson.RawBsonDocument;
+import org.bson.io.BasicOutputBuffer;
 import org.hbrs.ia.code.ManagePersonalImpl;
-import org.hbrs.ia.model.SalesMan;
-import org.hbrs.ia.model.SocialPerformanceRecord;
+import org.hbrs.ia.code.MongoConnectionSettings;
+import org.hbrs.ia.model.PackedPerformanceRecord;
+import org.hbrs.ia.model.PerformanceRecordBlock;
+import org.hbrs.mongodb.demo.PopulatorSettings.Layout;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Synthetic data generator for sizing tests. Salesmen are generated in chunks of batchSize;
+ * several producer threads take the next chunk, build raw BSON directly (no org.bson.Document)
+ * and write it with unordered insertMany calls. The data of a salesman only depends on the seed
+ * and its sid, so the same settings produce the same data set for any number of threads.
+ * The indexes are created after the load, which is faster than maintaining them per insert.
+ *
+ * Needs a running 'mongod'; with dropFirst=true (default) the salesmen and performanceRecords
+ * collections are dropped! Settings: see PopulatorSettings, e.g.
+ *   salesMen=1000000 recordsPerSalesMan=10 threads=8 layout=SEPARATE distribution=NORMAL seed=7
+ */
 public class QuickDBPopulator {
 
-    public static void main(String[] args) {
-        ManagePersonalImpl manager = new ManagePersonalImpl();
+    private final PopulatorSettings settings;
+    private final MongoCollection<RawBsonDocument> salesmenCollection;
+    private final MongoCollection<RawBsonDocument> recordsCollection;
+    private final AtomicInteger nextChunk = new AtomicInteger();
+    private final AtomicLong writtenSalesMen = new AtomicLong();
+    private final AtomicLong writtenRecords = new AtomicLong();
+    // set by the first failing producer, the others stop after their current chunk
+    private volatile boolean failed;
+
+    public QuickDBPopulator(PopulatorSettings settings, MongoDatabase database) {
+        this.settings = settings;
+        this.salesmenCollection = database.getCollection("salesmen", RawBsonDocument.class);
+        this.recordsCollection = database.getCollection("performanceRecords", RawBsonDocument.class);
+    }
+
+    public static void main(String[] args) throws Exception {
+        PopulatorSettings settings = PopulatorSettings.fromArgs(args);
+        MongoConnectionSettings connection = new MongoConnectionSettings();
+        connection.setConnectionString(settings.getConnectionString());
+        connection.setDatabaseName(settings.getDatabaseName());
+        connection.setMaxPoolSize(Math.max(connection.getMaxPoolSize(), settings.getThreads()));
+
+        try (MongoClient client = MongoClients.create(connection.toMongoClientSettings())) {
+            MongoDatabase database = client.getDatabase(settings.getDatabaseName());
+            if (settings.isDropFirst()) {
+                database.getCollection("salesmen").drop();
+                database.getCollection("performanceRecords").drop();
+            }
+
+            System.out.println("🚀 Generating " + settings);
+            new QuickDBPopulator(settings, database).run();
+
+            long start = System.nanoTime();
+            // the constructor creates the indexes
+            new ManagePersonalImpl(client, settings.getDatabaseName()).close();
+            System.out.printf("✅ Indexes created in %.1f s%n", (System.nanoTime() - start) / 1e9);
+        }
+    }
+
+    public void run() throws Exception {
+        long start = System.nanoTime();
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor();
+        AtomicLong lastDocuments = new AtomicLong();
+        AtomicLong lastNanos = new AtomicLong(start);
+        reporter.scheduleAtFixedRate(() -> report(start, lastDocuments, lastNanos),
+                settings.getReportIntervalSeconds(), settings.getReportIntervalSeconds(), TimeUnit.SECONDS);
+
+        ExecutorService producers = Executors.newFixedThreadPool(settings.getThreads());
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < settings.getThreads(); i++) {
+                futures.add(producers.submit(this::produce));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            throw new RuntimeException("❌ Populating failed after " + writtenDocuments() + " documents", e.getCause());
+        } finally {
+            producers.shutdownNow();
+            reporter.shutdownNow();
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("✅ Wrote %d salesmen and %d records (%d documents) in %.1f s = %.0f docs/s, %.0f records/s%n",
+                writtenSalesMen.get(), writtenRecords.get(), writtenDocuments(), seconds,
+                writtenDocuments() / seconds, writtenRecords.get() / seconds);
+    }
+
+    // documents sent to the server: embedded records are part of their salesman document
+    private long writtenDocuments() {
+        return writtenSalesMen.get() + (settings.getLayout() == Layout.SEPARATE ? writtenRecords.get() : 0);
+    }
+
+    private void report(long start, AtomicLong lastDocuments, AtomicLong lastNanos) {
+        long now = System.nanoTime();
+        long documents = writtenDocuments();
+        double current = (documents - lastDocuments.getAndSet(documents)) / ((now - lastNanos.getAndSet(now)) / 1e9);
+        double average = documents / ((now - start) / 1e9);
+        System.out.printf("⏳ %d salesmen, %d records - %.0f docs/s (average %.0f docs/s)%n",
+                writtenSalesMen.get(), writtenRecords.get(), current, average);
+    }
 
-        // Clear any old data
-        manager.deleteAllSalesMan();
+    // takes chunks until all salesmen are written or another producer failed
+    private void produce() {
+        int chunks = (settings.getSalesMen() + settings.getBatchSize() - 1) / settings.getBatchSize();
+        int chunk;
+        while (!failed && (chunk = nextChunk.getAndIncrement()) < chunks) {
+            int from = chunk * settings.getBatchSize();
+            int to = Math.min(settings.getSalesMen(), from + settings.getBatchSize());
+            try {
+                writeChunk(from, to);
+            } catch (RuntimeException e) {
+                failed = true;
+                throw e;
+            }
+        }
+    }
 
-        // Create salesman
-        SalesMan john = new SalesMan("John", "Smith", 1001);
-        manager.createSalesMan(john);
-        System.out.println("✅ Created salesman");
+    private void writeChunk(int from, int to) {
+        boolean embedded = settings.getLayout() == Layout.EMBEDDED;
+        int recordsPerSalesMan = settings.getRecordsPerSalesMan();
+        List<RawBsonDocument> salesMen = new ArrayList<>(to - from);
+        List<RawBsonDocument> records = new ArrayList<>(embedded ? 0 : (to - from) * recordsPerSalesMan);
+        PerformanceRecordBlock block = new PerformanceRecordBlock(recordsPerSalesMan);
 
-        // Add performance record
-        SocialPerformanceRecord record = new SocialPerformanceRecord(1001, 4, 3, 4, 5, 4, 4, 2024);
-        manager.addSocialPerformanceRecord(record, john);
-        System.out.println("✅ Added performance record");
+        for (int i = from; i < to; i++) {
+            int sid = settings.getFirstSid() + i;
+            SplittableRandom random = new SplittableRandom(settings.getSeed() ^ (sid * 0x9E3779B97F4A7C15L));
+            block.clear();
+            int latest = -1;
+            for (int r = 0; r < recordsPerSalesMan; r++) {
+                int year = settings.getFromYear() + random.nextInt(settings.getToYear() - settings.getFromYear() + 1);
+                block.add(sid, PackedPerformanceRecord.pack(score(random), score(random), score(random),
+                        score(random), score(random), score(random), year));
+                // same rule as the latestRecord update: a later record of the same year wins
+                if (latest < 0 || year >= block.getYear(latest)) {
+                    latest = r;
+                }
+                if (!embedded) {
+                    records.add(recordDocument(block, r));
+                }
+            }
+            salesMen.add(salesManDocument(i, sid, block, latest, embedded));
+        }
 
-        // Debug to see what happened
-        manager.debugCollections();
+        InsertManyOptions options = new InsertManyOptions().ordered(false);
+        salesmenCollection.insertMany(salesMen, options);
+        writtenSalesMen.addAndGet(salesMen.size());
+        if (!records.isEmpty()) {
+            recordsCollection.insertMany(records, options);
+        }
+        writtenRecords.addAndGet((long) (to - from) * recordsPerSalesMan);
+    }
+
+    private int score(SplittableRandom random) {
+        int min = settings.getMinScore();
+        int max = settings.getMaxScore();
+        switch (settings.getDistribution()) {
+            case NORMAL:
+                return clamp((int) Math.round((min + max) / 2.0 + gaussian(random) * (max - min) / 4.0), min, max);
+            case SKEWED_HIGH:
+                return clamp(max - (int) Math.floor(Math.abs(gaussian(random)) * (max - min) / 3.0), min, max);
+            default:
+                return min + random.nextInt(max - min + 1);
+        }
+    }
+
+    // Box-Muller, SplittableRandom has no nextGaussian on Java 11
+    private static double gaussian(SplittableRandom random) {
+        double u = 1.0 - random.nextDouble();
+        return Math.sqrt(-2.0 * Math.log(u)) * Math.cos(2.0 * Math.PI * random.nextDouble());
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    private static RawBsonDocument salesManDocument(int index, int sid, PerformanceRecordBlock records,
+                                                    int latest, boolean embedded) {
+        BasicOutputBuffer buffer = new BasicOutputBuffer(256);
+        try (BsonBinaryWriter writer = new BsonBinaryWriter(buffer)) {
+            writer.writeStartDocument();
+            writer.writeString("firstname", "FirstName" + index);
+            writer.writeString("lastname", "LastName" + index);
+            writer.writeInt32("sid", sid);
+            if (latest >= 0) {
+                writer.writeName("latestRecord");
+                records.writeDocument(writer, latest);
+            }
+            if (embedded) {
+                records.writeArray(writer, "performanceRecords");
+            }
+            writer.writeEndDocument();
+        }
+        return new RawBsonDocument(buffer.toByteArray());
+    }
 
-        //manager.close();
+    private static RawBsonDocument recordDocument(PerformanceRecordBlock records, int index) {
+        BasicOutputBuffer buffer = new BasicOutputBuffer(128);
+        try (BsonBinaryWriter writer = new BsonBinaryWriter(buffer)) {
+            records.writeDocument(writer, index);
+        }
+        return new RawBsonDocument(buffer.toByteArray());
     }
 }
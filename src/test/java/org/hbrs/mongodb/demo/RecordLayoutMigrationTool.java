@@ -0,0 +1,92 @@
+package org.hbrs.mongodb.demo;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.hbrs.ia.code.ManagePersonalImpl;
+import org.hbrs.ia.code.MigrationPartition;
+import org.hbrs.ia.code.MongoConnectionSettings;
+import org.hbrs.ia.code.RecordLayout;
+import org.hbrs.ia.code.RecordLayoutMigration;
+
+import java.util.List;
+
+/**
+ * Runs (or resumes) a RecordLayoutMigration. Settings as key=value program arguments, e.g.
+ *   target=BUCKET migrationId=to-buckets threads=8 partitions=64 batchSize=500 targetOpsPerSecond=20000
+ * Run it again with the same migrationId to resume after a crash.
+ */
+public class RecordLayoutMigrationTool {
+
+    public static void main(String[] args) {
+        MongoConnectionSettings connection = new MongoConnectionSettings();
+        RecordLayout target = RecordLayout.SEPARATE;
+        String migrationId = null;
+        int bucketSize = ManagePersonalImpl.DEFAULT_BUCKET_SIZE;
+        Integer threads = null;
+        Integer partitions = null;
+        Integer batchSize = null;
+        int targetOpsPerSecond = 0;
+
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator < 1) {
+                throw new IllegalArgumentException("Expected key=value, got: " + arg);
+            }
+            String value = arg.substring(separator + 1);
+            switch (arg.substring(0, separator)) {
+                case "connectionString":
+                    connection.setConnectionString(value);
+                    break;
+                case "databaseName":
+                    connection.setDatabaseName(value);
+                    break;
+                case "target":
+                    target = RecordLayout.valueOf(value.toUpperCase());
+                    break;
+                case "migrationId":
+                    migrationId = value;
+                    break;
+                case "bucketSize":
+                    bucketSize = Integer.parseInt(value);
+                    break;
+                case "threads":
+                    threads = Integer.parseInt(value);
+                    break;
+                case "partitions":
+                    partitions = Integer.parseInt(value);
+                    break;
+                case "batchSize":
+                    batchSize = Integer.parseInt(value);
+                    break;
+                case "targetOpsPerSecond":
+                    targetOpsPerSecond = Integer.parseInt(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown setting: " + arg.substring(0, separator));
+            }
+        }
+        if (migrationId == null) {
+            migrationId = "to-" + target.name().toLowerCase();
+        }
+
+        try (MongoClient client = MongoClients.create(connection.toMongoClientSettings())) {
+            RecordLayoutMigration migration = new RecordLayoutMigration(client, connection.getDatabaseName(),
+                    target, bucketSize);
+            if (threads != null) {
+                migration.setThreads(threads);
+            }
+            if (partitions != null) {
+                migration.setPartitions(partitions);
+            }
+            if (batchSize != null) {
+                migration.setBatchSize(batchSize);
+            }
+            migration.setTargetOpsPerSecond(targetOpsPerSecond);
+
+            List<MigrationPartition> result = migration.run(migrationId);
+            for (MigrationPartition partition : result) {
+                System.out.println(" - " + partition);
+            }
+        }
+    }
+}
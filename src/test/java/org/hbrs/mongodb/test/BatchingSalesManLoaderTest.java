@@ -0,0 +1,155 @@
+package org.hbrs.mongodb.test;
+
+import org.hbrs.ia.code.BatchingSalesManLoader;
+import org.hbrs.ia.code.InMemoryManagePersonal;
+import org.hbrs.ia.model.SalesMan;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Batching of readSalesMan calls over InMemoryManagePersonal - no MongoDB server needed
+ */
+class BatchingSalesManLoaderTest {
+
+    private static final Duration LONG_WINDOW = Duration.ofHours(1);
+
+    @Test
+    @DisplayName("Should read all sids requested within the window with one query")
+    void window_shouldDispatchOneBatch() throws Exception {
+        RecordingStore store = new RecordingStore(5);
+        try (BatchingSalesManLoader loader = new BatchingSalesManLoader(store, Duration.ofMillis(50), 100, 1)) {
+            CompletableFuture<SalesMan> first = loader.load(1);
+            CompletableFuture<SalesMan> second = loader.load(2);
+            CompletableFuture<SalesMan> missing = loader.load(9);
+
+            assertEquals(1, first.get(5, TimeUnit.SECONDS).getId());
+            assertEquals(2, second.get(5, TimeUnit.SECONDS).getId());
+            assertNull(missing.get(5, TimeUnit.SECONDS));
+            assertEquals(Collections.singletonList(new HashSet<>(Arrays.asList(1, 2, 9))), store.batches());
+            assertEquals(1, loader.getBatchCount());
+        }
+    }
+
+    @Test
+    @DisplayName("Should send a full batch at once without waiting for the window")
+    void maxBatchSize_shouldDispatchImmediately() throws Exception {
+        RecordingStore store = new RecordingStore(5);
+        try (BatchingSalesManLoader loader = new BatchingSalesManLoader(store, LONG_WINDOW, 2, 1)) {
+            CompletableFuture<SalesMan> first = loader.load(1);
+            CompletableFuture<SalesMan> second = loader.load(2);
+
+            assertEquals(1, first.get(5, TimeUnit.SECONDS).getId());
+            assertEquals(2, second.get(5, TimeUnit.SECONDS).getId());
+            assertEquals(2, loader.getLargestBatchSize());
+        }
+    }
+
+    @Test
+    @DisplayName("Should share one future between requests for the same sid")
+    void sameSid_shouldShareOneFuture() throws Exception {
+        RecordingStore store = new RecordingStore(5);
+        try (BatchingSalesManLoader loader = new BatchingSalesManLoader(store, Duration.ofMillis(50), 100, 1)) {
+            CompletableFuture<SalesMan> first = loader.load(3);
+            CompletableFuture<SalesMan> second = loader.load(3);
+
+            assertSame(first, second);
+            assertEquals(3, first.get(5, TimeUnit.SECONDS).getId());
+            assertEquals(1, loader.getLoadedKeyCount());
+            assertEquals(Collections.singletonList(Collections.singleton(3)), store.batches());
+        }
+    }
+
+    @Test
+    @DisplayName("Should fail every request of a batch whose query fails")
+    void failingQuery_shouldFailEveryRequest() {
+        RecordingStore store = new RecordingStore(5);
+        store.failure = new IllegalStateException("delegate down");
+        try (BatchingSalesManLoader loader = new BatchingSalesManLoader(store, Duration.ofMillis(50), 100, 1)) {
+            CompletableFuture<SalesMan> first = loader.load(1);
+            CompletableFuture<SalesMan> second = loader.load(2);
+
+            for (CompletableFuture<SalesMan> future : Arrays.asList(first, second)) {
+                ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+                assertSame(store.failure, e.getCause());
+            }
+            IllegalStateException blocking = assertThrows(IllegalStateException.class, () -> loader.readSalesMan(3));
+            assertEquals("delegate down", blocking.getMessage());
+        }
+    }
+
+    @Test
+    @DisplayName("Should report the batch size histogram, average and largest batch")
+    void statistics_shouldDescribeBatches() throws Exception {
+        RecordingStore store = new RecordingStore(10);
+        BatchingSalesManLoader loader = new BatchingSalesManLoader(store, LONG_WINDOW, 5, 1);
+        List<CompletableFuture<SalesMan>> futures = new ArrayList<>();
+        for (int sid = 1; sid <= 5; sid++) {
+            futures.add(loader.load(sid));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get(5, TimeUnit.SECONDS);
+        CompletableFuture<SalesMan> last = loader.load(6);
+        loader.close();
+
+        assertEquals(6, last.get(5, TimeUnit.SECONDS).getId());
+        assertArrayEquals(new long[]{1, 0, 1, 0, 0, 0}, loader.getBatchSizeHistogram());
+        assertEquals(2, loader.getBatchCount());
+        assertEquals(6, loader.getLoadedKeyCount());
+        assertEquals(3.0, loader.getAverageBatchSize());
+        assertEquals(5, loader.getLargestBatchSize());
+    }
+
+    @Test
+    @DisplayName("Should send the collected batch on close and reject later loads")
+    void close_shouldFlushAndRejectLoads() throws Exception {
+        RecordingStore store = new RecordingStore(5);
+        BatchingSalesManLoader loader = new BatchingSalesManLoader(store, LONG_WINDOW, 100, 1);
+        CompletableFuture<SalesMan> pending = loader.load(4);
+        assertFalse(pending.isDone());
+
+        loader.close();
+
+        assertEquals(4, pending.get(5, TimeUnit.SECONDS).getId());
+        assertThrows(IllegalStateException.class, () -> loader.load(5));
+        assertEquals(1, store.batches().size());
+    }
+
+    // records the sids of every readSalesMen call, fails all of them if failure is set
+    private static final class RecordingStore extends InMemoryManagePersonal {
+        private final List<Set<Integer>> batches = Collections.synchronizedList(new ArrayList<>());
+        private volatile RuntimeException failure;
+
+        RecordingStore(int salesMen) {
+            for (int sid = 1; sid <= salesMen; sid++) {
+                createSalesMan(new SalesMan("Sascha", "Alda", sid));
+            }
+        }
+
+        @Override
+        public Map<Integer, SalesMan> readSalesMen(Collection<Integer> sids) {
+            batches.add(new HashSet<>(sids));
+            if (failure != null) {
+                throw failure;
+            }
+            return super.readSalesMen(sids);
+        }
+
+        List<Set<Integer>> batches() {
+            return new ArrayList<>(batches);
+        }
+    }
+}
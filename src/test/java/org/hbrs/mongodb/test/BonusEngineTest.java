@@ -0,0 +1,132 @@
+package org.hbrs.mongodb.test;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoDatabase;
+import org.hbrs.ia.bonus.BonusEngine;
+import org.hbrs.ia.bonus.BonusWeights;
+import org.hbrs.ia.model.BonusResult;
+import org.hbrs.ia.model.PerformanceCriterion;
+import org.hbrs.ia.model.SocialPerformanceRecord;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Bonus scoring over in-memory record batches - no MongoDB server needed,
+ * the engine's database is only used by computeAndStore
+ */
+class BonusEngineTest {
+
+    private static MongoClient client;
+    private static MongoDatabase database;
+
+    @BeforeAll
+    static void createClient() {
+        // never connects, compute() does not touch the database
+        client = MongoClients.create("mongodb://localhost:27017");
+        database = client.getDatabase("BonusEngineTest");
+    }
+
+    @AfterAll
+    static void closeClient() {
+        client.close();
+    }
+
+    @Test
+    @DisplayName("Should sum the weighted scores of all criteria")
+    void score_shouldWeightEveryCriterion() {
+        BonusWeights weights = new BonusWeights(10);
+        SocialPerformanceRecord record = new SocialPerformanceRecord(1, 1, 2, 3, 4, 5, 6, 2024);
+        assertEquals(21, weights.score(record), 0.0001);
+
+        weights.setWeight(PerformanceCriterion.LEADERSHIP, 2.5);
+        weights.setWeight(PerformanceCriterion.INTEGRITY, 0);
+        assertEquals(1 * 2.5 + 2 + 3 + 4 + 5, weights.score(record), 0.0001);
+        assertThrows(IllegalArgumentException.class, () -> weights.setWeight(PerformanceCriterion.OPENNESS, -1));
+    }
+
+    @Test
+    @DisplayName("Should average the scores per salesman across batches and apply the bonus per point")
+    void compute_shouldAverageAcrossBatchesAndSalesmen() {
+        BonusEngine engine = new BonusEngine(database, new BonusWeights(10), 2);
+        List<List<SocialPerformanceRecord>> batches = Arrays.asList(
+                Arrays.asList(record(1, 1), record(2, 2)),
+                Collections.singletonList(record(1, 3)),
+                Arrays.asList(record(2, 4), record(3, 5)));
+
+        Map<Integer, BonusResult> results = engine.compute(2024, batches.iterator());
+
+        assertEquals(3, results.size());
+        BonusResult first = results.get(1);
+        assertEquals(2024, first.getYear());
+        assertEquals(2, first.getRecordCount());
+        assertEquals((6 + 18) / 2.0, first.getScore(), 0.0001);
+        assertEquals(120, first.getBonus(), 0.0001);
+        assertEquals(18, results.get(2).getScore(), 0.0001);
+        assertEquals(1, results.get(3).getRecordCount());
+        assertEquals(300, results.get(3).getBonus(), 0.0001);
+    }
+
+    @Test
+    @DisplayName("Should count every record once when many batches are scored in parallel")
+    void compute_shouldCombineManyBatches() {
+        BonusEngine engine = new BonusEngine(database, new BonusWeights(1), 4);
+        List<List<SocialPerformanceRecord>> batches = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            List<SocialPerformanceRecord> batch = new ArrayList<>();
+            for (int sid = 1; sid <= 5; sid++) {
+                batch.add(record(sid, 1 + i % 2));
+            }
+            batches.add(batch);
+        }
+
+        Map<Integer, BonusResult> results = engine.compute(2024, batches.iterator());
+
+        assertEquals(5, results.size());
+        for (BonusResult result : results.values()) {
+            assertEquals(200, result.getRecordCount());
+            assertEquals(9, result.getScore(), 0.0001);
+        }
+        assertTrue(engine.compute(2024, Collections.emptyIterator()).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should fail the computation if scoring a batch fails")
+    void compute_shouldPropagateFailures() {
+        IllegalStateException failure = new IllegalStateException("broken record");
+        BonusWeights weights = new BonusWeights(1) {
+            @Override
+            public double score(SocialPerformanceRecord record) {
+                if (record.getSalesmanId() == 2) {
+                    throw failure;
+                }
+                return super.score(record);
+            }
+        };
+        BonusEngine engine = new BonusEngine(database, weights, 2);
+        List<List<SocialPerformanceRecord>> batches = Arrays.asList(
+                Collections.singletonList(record(1, 1)),
+                Collections.singletonList(record(2, 1)),
+                Collections.singletonList(record(3, 1)));
+
+        RuntimeException e = assertThrows(RuntimeException.class, () -> engine.compute(2024, batches.iterator()));
+        assertSame(failure, e.getCause());
+        assertTrue(e.getMessage().contains("2024"));
+        assertThrows(IllegalArgumentException.class, () -> new BonusEngine(database, weights, 0));
+    }
+
+    // a record with the same score for every criterion
+    private static SocialPerformanceRecord record(int salesmanId, int score) {
+        return new SocialPerformanceRecord(salesmanId, score, score, score, score, score, score, 2024);
+    }
+}
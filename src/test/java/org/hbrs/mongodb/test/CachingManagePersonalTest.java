@@ -0,0 +1,210 @@
+package org.hbrs.mongodb.test;
+
+import org.hbrs.ia.code.CachingManagePersonal;
+import org.hbrs.ia.code.InMemoryManagePersonal;
+import org.hbrs.ia.code.ManagePersonal;
+import org.hbrs.ia.model.SalesMan;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Contract tests through the salesman cache plus its own behaviour - no MongoDB server needed
+ */
+class CachingManagePersonalTest extends ManagePersonalContractTest {
+
+    @Override
+    protected ManagePersonal createEmptyManager() {
+        return new CachingManagePersonal(new InMemoryManagePersonal(), 1000, Duration.ofMinutes(1));
+    }
+
+    @Test
+    @DisplayName("Should count a miss for the first read and a hit for the second")
+    void readSalesMan_shouldCountHitsAndMisses() {
+        CachingManagePersonal cache = new CachingManagePersonal(store(1), 10, Duration.ZERO);
+
+        assertEquals("Alda", cache.readSalesMan(1).getLastname());
+        assertEquals("Alda", cache.readSalesMan(1).getLastname());
+        // salesmen that do not exist are not cached
+        assertNull(cache.readSalesMan(2));
+        assertNull(cache.readSalesMan(2));
+
+        assertEquals(1, cache.getHitCount());
+        assertEquals(3, cache.getMissCount());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    @DisplayName("Should evict the least recently used salesman beyond the maximum size")
+    void maximumSize_shouldEvictLeastRecentlyUsed() {
+        CachingManagePersonal cache = new CachingManagePersonal(store(3), 2, Duration.ZERO);
+        cache.readSalesMan(1);
+        cache.readSalesMan(2);
+        cache.readSalesMan(1);
+        cache.readSalesMan(3);
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        long misses = cache.getMissCount();
+        cache.readSalesMan(1);
+        assertEquals(misses, cache.getMissCount());
+        cache.readSalesMan(2);
+        assertEquals(misses + 1, cache.getMissCount());
+    }
+
+    @Test
+    @DisplayName("Should read an expired salesman from the delegate again")
+    void timeToLive_shouldExpireEntries() throws InterruptedException {
+        CachingManagePersonal cache = new CachingManagePersonal(store(1), 10, Duration.ofMillis(1));
+        cache.readSalesMan(1);
+        TimeUnit.MILLISECONDS.sleep(10);
+        cache.readSalesMan(1);
+
+        assertEquals(0, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(1, cache.getEvictionCount());
+    }
+
+    @Test
+    @DisplayName("Should invalidate a salesman on create, update and delete")
+    void writes_shouldInvalidate() {
+        CachingManagePersonal cache = new CachingManagePersonal(store(1), 10, Duration.ZERO);
+        cache.readSalesMan(1);
+
+        SalesMan changed = new SalesMan("Sascha", "Alda", 1);
+        changed.setLastname("Malton");
+        cache.updateSalesMan(changed);
+        assertEquals("Malton", cache.readSalesMan(1).getLastname());
+
+        cache.deleteSalesMan(1);
+        assertNull(cache.readSalesMan(1));
+        cache.createSalesMen(Arrays.asList(new SalesMan("Jane", "Doe", 1)));
+        assertEquals("Doe", cache.readSalesMan(1).getLastname());
+
+        // null collections are passed on like the delegate accepts them
+        assertTrue(cache.readSalesMen(null).isEmpty());
+        assertEquals(0, cache.createSalesMen(null).getRequestedCount());
+    }
+
+    @Test
+    @DisplayName("Should share one delegate read between concurrent misses of the same sid")
+    void concurrentMisses_shouldShareOneLoad() throws Exception {
+        BlockingStore store = new BlockingStore();
+        store.createSalesMan(new SalesMan("Sascha", "Alda", 1));
+        CachingManagePersonal cache = new CachingManagePersonal(store, 10, Duration.ZERO);
+
+        store.block = true;
+        CompletableFuture<SalesMan> first = CompletableFuture.supplyAsync(() -> cache.readSalesMan(1));
+        assertTrue(store.started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<SalesMan> second = CompletableFuture.supplyAsync(() -> cache.readSalesMan(1));
+        // the second reader has registered its miss and is waiting for the running load
+        while (cache.getMissCount() < 2) {
+            Thread.onSpinWait();
+        }
+        store.release.countDown();
+
+        assertEquals("Alda", first.get(5, TimeUnit.SECONDS).getLastname());
+        assertEquals("Alda", second.get(5, TimeUnit.SECONDS).getLastname());
+        assertEquals(1, store.reads.get());
+    }
+
+    @Test
+    @DisplayName("Should pass the exception of a shared load to every waiting reader")
+    void failingLoad_shouldFailEveryReader() throws Exception {
+        BlockingStore store = new BlockingStore();
+        CachingManagePersonal cache = new CachingManagePersonal(store, 10, Duration.ZERO);
+
+        store.block = true;
+        store.failure = new IllegalStateException("delegate down");
+        CompletableFuture<SalesMan> first = CompletableFuture.supplyAsync(() -> cache.readSalesMan(1));
+        assertTrue(store.started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<SalesMan> second = CompletableFuture.supplyAsync(() -> cache.readSalesMan(1));
+        while (cache.getMissCount() < 2) {
+            Thread.onSpinWait();
+        }
+        store.release.countDown();
+
+        for (CompletableFuture<SalesMan> reader : Arrays.asList(first, second)) {
+            Exception e = assertThrows(Exception.class, () -> reader.get(5, TimeUnit.SECONDS));
+            Throwable cause = e.getCause();
+            while (cause != null && !(cause instanceof IllegalStateException)) {
+                cause = cause.getCause();
+            }
+            assertNotNull(cause);
+            assertEquals("delegate down", cause.getMessage());
+        }
+        assertEquals(1, store.reads.get());
+        assertEquals(0, cache.size());
+    }
+
+    // regression: the read after the update used to join the load that started before it
+    @Test
+    @DisplayName("Should not return a load that started before an update to a later reader")
+    void readAfterUpdate_shouldNotJoinAnOlderLoad() throws Exception {
+        BlockingStore store = new BlockingStore();
+        store.createSalesMan(new SalesMan("Sascha", "Alda", 1));
+        CachingManagePersonal cache = new CachingManagePersonal(store, 10, Duration.ZERO);
+
+        store.block = true;
+        CompletableFuture<SalesMan> stale = CompletableFuture.supplyAsync(() -> cache.readSalesMan(1));
+        assertTrue(store.started.await(5, TimeUnit.SECONDS));
+        try {
+            SalesMan changed = new SalesMan("Sascha", "Alda", 1);
+            changed.setLastname("Malton");
+            cache.updateSalesMan(changed);
+
+            SalesMan fresh = assertTimeoutPreemptively(Duration.ofSeconds(5), () -> cache.readSalesMan(1));
+            assertEquals("Malton", fresh.getLastname());
+        } finally {
+            store.release.countDown();
+        }
+
+        // the racing load returns what it read, but it is not cached
+        assertEquals("Alda", stale.get(5, TimeUnit.SECONDS).getLastname());
+        assertEquals("Malton", cache.readSalesMan(1).getLastname());
+    }
+
+    private static InMemoryManagePersonal store(int salesMen) {
+        InMemoryManagePersonal store = new InMemoryManagePersonal();
+        for (int sid = 1; sid <= salesMen; sid++) {
+            store.createSalesMan(new SalesMan("Sascha", "Alda", sid));
+        }
+        return store;
+    }
+
+    // the first read after block is set waits for release after it has read the salesman
+    private static final class BlockingStore extends InMemoryManagePersonal {
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final AtomicInteger reads = new AtomicInteger();
+        private volatile boolean block;
+        private volatile RuntimeException failure;
+
+        @Override
+        public SalesMan readSalesMan(int sid) {
+            reads.incrementAndGet();
+            SalesMan salesMan = super.readSalesMan(sid);
+            if (block) {
+                block = false;
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                if (failure != null) {
+                    throw failure;
+                }
+            }
+            return salesMan;
+        }
+    }
+}
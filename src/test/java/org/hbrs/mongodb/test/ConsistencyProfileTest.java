@@ -0,0 +1,49 @@
+package org.hbrs.mongodb.test;
+
+import com.mongodb.ReadConcern;
+import com.mongodb.WriteConcern;
+import org.hbrs.ia.code.ConsistencyProfile;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Concerns and timeouts of the consistency profiles, no MongoDB server needed
+ */
+class ConsistencyProfileTest {
+
+    @Test
+    @DisplayName("Should acknowledge fast ingest on the primary without waiting for the journal")
+    void fastIngest_shouldUseW1WithoutJournal() {
+        WriteConcern writeConcern = ConsistencyProfile.FAST_INGEST.getWriteConcern();
+
+        assertEquals(1, writeConcern.getW());
+        assertEquals(Boolean.FALSE, writeConcern.getJournal());
+        assertEquals(ReadConcern.LOCAL, ConsistencyProfile.FAST_INGEST.getReadConcern());
+        assertEquals(0, ConsistencyProfile.FAST_INGEST.getMaxTimeMillis());
+    }
+
+    @Test
+    @DisplayName("Should leave the concerns of the client untouched by default")
+    void default_shouldNotOverrideClientConcerns() {
+        assertNull(ConsistencyProfile.DEFAULT.getWriteConcern());
+        assertNull(ConsistencyProfile.DEFAULT.getReadConcern());
+        assertEquals(0, ConsistencyProfile.DEFAULT.getMaxTimeMillis());
+    }
+
+    @Test
+    @DisplayName("Should wait for a journaled majority with timeouts when durable")
+    void durable_shouldUseJournaledMajorityWithTimeouts() {
+        WriteConcern writeConcern = ConsistencyProfile.DURABLE.getWriteConcern();
+
+        assertEquals("majority", writeConcern.getWString());
+        assertEquals(Boolean.TRUE, writeConcern.getJournal());
+        assertEquals(ConsistencyProfile.DURABLE.getWriteTimeoutMillis(),
+                writeConcern.getWTimeout(TimeUnit.MILLISECONDS).longValue());
+        assertEquals(ReadConcern.MAJORITY, ConsistencyProfile.DURABLE.getReadConcern());
+        assertTrue(ConsistencyProfile.DURABLE.getMaxTimeMillis() > 0);
+    }
+}
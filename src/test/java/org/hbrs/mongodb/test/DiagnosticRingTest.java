@@ -0,0 +1,114 @@
+package org.hbrs.mongodb.test;
+
+import org.hbrs.ia.metrics.DiagnosticEvent;
+import org.hbrs.ia.metrics.DiagnosticRing;
+import org.hbrs.ia.metrics.DiagnosticRing.Level;
+import org.hbrs.ia.metrics.DiagnosticRing.Outcome;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for the diagnostic event ring - no MongoDB server needed
+ */
+class DiagnosticRingTest {
+
+    @Test
+    @DisplayName("Should drop events below the level and keep the fields of the others")
+    void record_shouldFilterByLevel() {
+        DiagnosticRing ring = new DiagnosticRing(8, Level.INFO);
+        ring.record(Level.DEBUG, "addSocialPerformanceRecord", 90133, 2024, Outcome.OK, 1, System.nanoTime());
+        ring.record(Level.INFO, "deleteByYearSocialPerformanceRecord", 90133, 2023, Outcome.NOT_FOUND, 0,
+                System.nanoTime());
+
+        List<DiagnosticEvent> events = ring.snapshot();
+        assertEquals(1, events.size());
+        DiagnosticEvent event = events.get(0);
+        assertEquals("deleteByYearSocialPerformanceRecord", event.getOperation());
+        assertEquals(90133, event.getSalesmanId());
+        assertEquals(2023, event.getYear());
+        assertEquals(Outcome.NOT_FOUND, event.getOutcome());
+        assertTrue(event.toString().contains("sid=90133 year=2023 NOT_FOUND"));
+
+        ring.setLevel(Level.OFF);
+        ring.error("readAllSalesMen", 0, 0, System.nanoTime(), new RuntimeException("down"));
+        assertEquals(1, ring.getRecordedCount());
+    }
+
+    @Test
+    @DisplayName("Should keep the newest events when the ring wraps around")
+    void record_shouldOverwriteOldestEvents() {
+        DiagnosticRing ring = new DiagnosticRing(4, Level.DEBUG);
+        for (int i = 1; i <= 10; i++) {
+            ring.record(Level.DEBUG, "addSocialPerformanceRecord", i, 2024, Outcome.OK, 1, System.nanoTime());
+        }
+
+        List<DiagnosticEvent> events = ring.snapshot();
+        assertEquals(4, events.size());
+        assertEquals(7, events.get(0).getSalesmanId());
+        assertEquals(10, events.get(3).getSalesmanId());
+
+        ring.clear();
+        assertTrue(ring.snapshot().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should dump the ring when an error is recorded")
+    void error_shouldDumpOnError() {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        DiagnosticRing ring = new DiagnosticRing(16, Level.INFO);
+        ring.setDumpOnError(new PrintStream(output, true, StandardCharsets.UTF_8));
+        ring.record(Level.INFO, "readLastSocialPerformanceRecord", 90123, 0, Outcome.NOT_FOUND, 0, System.nanoTime());
+        assertEquals(0, output.size());
+
+        ring.error("deleteLastSocialPerformanceRecord", 90123, 0, System.nanoTime(), new RuntimeException("timeout"));
+        String dump = output.toString(StandardCharsets.UTF_8);
+        assertTrue(dump.contains("readLastSocialPerformanceRecord sid=90123"));
+        assertTrue(dump.contains("FAILED"));
+        assertTrue(dump.contains("timeout"));
+    }
+
+    @Test
+    @DisplayName("Should not lose or tear events of concurrent writers")
+    void record_shouldBeSafeForConcurrentWriters() throws Exception {
+        int threads = 4;
+        int eventsPerThread = 10_000;
+        DiagnosticRing ring = new DiagnosticRing(1024, Level.DEBUG);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 1; t <= threads; t++) {
+                int sid = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < eventsPerThread; i++) {
+                        // year mirrors the sid, so a torn event would show up as a mismatch
+                        ring.record(Level.DEBUG, "addSocialPerformanceRecord", sid, 2000 + sid, Outcome.OK, i,
+                                System.nanoTime());
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals((long) threads * eventsPerThread, ring.getRecordedCount());
+        List<DiagnosticEvent> events = ring.snapshot();
+        assertEquals(1024, events.size());
+        for (DiagnosticEvent event : events) {
+            assertEquals(2000 + event.getSalesmanId(), event.getYear());
+        }
+    }
+}
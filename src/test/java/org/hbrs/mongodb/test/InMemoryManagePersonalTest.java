@@ -0,0 +1,69 @@
+package org.hbrs.mongodb.test;
+
+import org.hbrs.ia.code.InMemoryManagePersonal;
+import org.hbrs.ia.code.ManagePersonal;
+import org.hbrs.ia.model.SalesMan;
+import org.hbrs.ia.model.SocialPerformanceRecord;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Contract tests against the in-memory engine - no MongoDB server needed
+ */
+class InMemoryManagePersonalTest extends ManagePersonalContractTest {
+
+    @Override
+    protected ManagePersonal createEmptyManager() {
+        // few stripes, so that many sids share a stripe and its map
+        return new InMemoryManagePersonal(4);
+    }
+
+    @Test
+    @DisplayName("Should keep every salesman and record under concurrent writers and readers")
+    void concurrentWriters_shouldNotLoseUpdates() throws Exception {
+        int threads = 4;
+        int salesMenPerThread = 500;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int offset = t * salesMenPerThread;
+                futures.add(executor.submit(() -> {
+                    for (int i = offset; i < offset + salesMenPerThread; i++) {
+                        SalesMan salesMan = new SalesMan("First" + i, "Last" + i, i);
+                        manager.createSalesMan(salesMan);
+                        manager.addSocialPerformanceRecord(new SocialPerformanceRecord(0, 1, 1, 1, 1, 1, 1, 2024), salesMan);
+                        manager.addSocialPerformanceRecord(new SocialPerformanceRecord(0, 2, 2, 2, 2, 2, 2, 2025), salesMan);
+                        assertNotNull(manager.readSalesMan(i));
+                        manager.readAllSalesMen();
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(threads * salesMenPerThread, manager.readAllSalesMen().size());
+        assertEquals(2L * threads * salesMenPerThread, manager.readCompanyPerformanceStatistics(null).getCount());
+
+        // removing every second salesman must not break the probe chains of the others
+        for (int i = 0; i < threads * salesMenPerThread; i += 2) {
+            manager.deleteSalesMan(i);
+        }
+        for (int i = 0; i < threads * salesMenPerThread; i++) {
+            assertEquals(i % 2 == 1, manager.readSalesMan(i) != null, "sid " + i);
+        }
+        assertEquals(2025, manager.readLastSocialPerformanceRecord(new SalesMan("First7", "Last7", 7)).getYear());
+    }
+}
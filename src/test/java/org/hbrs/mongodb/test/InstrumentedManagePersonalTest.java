@@ -0,0 +1,123 @@
+package org.hbrs.mongodb.test;
+
+import com.mongodb.ServerAddress;
+import com.mongodb.connection.ClusterId;
+import com.mongodb.connection.ConnectionId;
+import com.mongodb.connection.ConnectionPoolSettings;
+import com.mongodb.connection.ServerId;
+import com.mongodb.event.ConnectionCheckOutFailedEvent;
+import com.mongodb.event.ConnectionCheckOutStartedEvent;
+import com.mongodb.event.ConnectionCheckedInEvent;
+import com.mongodb.event.ConnectionCheckedOutEvent;
+import com.mongodb.event.ConnectionPoolCreatedEvent;
+import org.hbrs.ia.code.InMemoryManagePersonal;
+import org.hbrs.ia.code.InstrumentedManagePersonal;
+import org.hbrs.ia.code.ManagePersonal;
+import org.hbrs.ia.metrics.DriverMetrics;
+import org.hbrs.ia.metrics.LatencyHistogram;
+import org.hbrs.ia.metrics.ManagePersonalMetrics;
+import org.hbrs.ia.metrics.ManagePersonalMetrics.Operation;
+import org.hbrs.ia.model.SalesMan;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Contract tests through the metrics decorator (in-memory delegate) plus the metrics themselves
+ */
+class InstrumentedManagePersonalTest extends ManagePersonalContractTest {
+
+    @Override
+    protected ManagePersonal createEmptyManager() {
+        return new InstrumentedManagePersonal(new InMemoryManagePersonal());
+    }
+
+    @Test
+    @DisplayName("Should count calls and errors per operation")
+    void calls_shouldBeRecordedPerOperation() {
+        ManagePersonalMetrics metrics = ((InstrumentedManagePersonal) manager).getMetrics();
+        manager.createSalesMan(new SalesMan("Sascha", "Alda", 90133));
+        manager.readSalesMan(90133);
+        manager.readSalesMan(90134);
+        assertThrows(RuntimeException.class, () -> manager.createSalesMan(new SalesMan("Other", "Person", 90133)));
+
+        assertEquals(2, metrics.get(Operation.CREATE_SALES_MAN).getCount());
+        assertEquals(1, metrics.get(Operation.CREATE_SALES_MAN).getErrorCount());
+        assertEquals(2, metrics.get(Operation.READ_SALES_MAN).getCount());
+        assertEquals(0, metrics.get(Operation.READ_SALES_MAN).getErrorCount());
+        assertEquals(4, metrics.getCallCount());
+        assertTrue(metrics.dump().contains(
+                "managepersonal_operation_seconds_count{operation=\"readSalesMan\"} 2"));
+    }
+
+    @Test
+    @DisplayName("Should report percentiles within the bucket precision")
+    void histogram_shouldReportPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getValueAtPercentile(99));
+        for (long micros = 1; micros <= 1000; micros++) {
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(micros));
+        }
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(500_000, histogram.getValueAtPercentile(50), 500_000 * 0.04);
+        assertEquals(990_000, histogram.getValueAtPercentile(99), 990_000 * 0.04);
+        assertEquals(1_000_000, histogram.getValueAtPercentile(100));
+        assertEquals(500_500, histogram.getMeanNanos(), 0.001);
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+    }
+
+    @Test
+    @DisplayName("Should track pool saturation and check-out waits from driver events")
+    void driverMetrics_shouldTrackPool() {
+        DriverMetrics driver = new DriverMetrics();
+        ServerId server = new ServerId(new ClusterId(), new ServerAddress());
+        ConnectionId connection = new ConnectionId(server);
+        driver.connectionPoolCreated(new ConnectionPoolCreatedEvent(server,
+                ConnectionPoolSettings.builder().maxSize(4).build()));
+
+        driver.connectionCheckOutStarted(new ConnectionCheckOutStartedEvent(server, 1));
+        driver.connectionCheckOutStarted(new ConnectionCheckOutStartedEvent(server, 2));
+        assertEquals(2, driver.getWaitingForConnection());
+        driver.connectionCheckedOut(new ConnectionCheckedOutEvent(connection, 1, TimeUnit.MILLISECONDS.toNanos(3)));
+        driver.connectionCheckOutFailed(new ConnectionCheckOutFailedEvent(server, 2,
+                ConnectionCheckOutFailedEvent.Reason.TIMEOUT, TimeUnit.SECONDS.toNanos(2)));
+
+        assertEquals(0, driver.getWaitingForConnection());
+        assertEquals(1, driver.getCheckedOutConnections());
+        assertEquals(0.25, driver.getPoolSaturation(), 0.0001);
+        assertEquals(1, driver.getCheckOutTimeoutCount());
+        assertEquals(2, driver.getCheckOutWait().getCount());
+
+        driver.connectionCheckedIn(new ConnectionCheckedInEvent(connection, 1));
+        assertEquals(0, driver.getCheckedOutConnections());
+        assertEquals(1, driver.getPeakCheckedOutConnections());
+        assertTrue(driver.dump().contains("mongodb_pool_checkout_timeouts_total 1"));
+    }
+
+    @Test
+    @DisplayName("Should expose the operations as MBeans")
+    void registerMBeans_shouldPublishOperations() throws Exception {
+        ManagePersonalMetrics metrics = ((InstrumentedManagePersonal) manager).getMetrics();
+        manager.readSalesMan(1);
+        metrics.registerMBeans("test");
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName readSalesMan = new ObjectName("org.hbrs.ia:type=ManagePersonal,name=\"test\",operation=readSalesMan");
+            assertEquals(1L, server.getAttribute(readSalesMan, "Count"));
+            String dump = (String) server.invoke(new ObjectName("org.hbrs.ia:type=ManagePersonal,name=\"test\""),
+                    "dump", null, null);
+            assertTrue(dump.contains("operation=\"readSalesMan\""));
+        } finally {
+            metrics.unregisterMBeans();
+        }
+    }
+}
@@ -0,0 +1,355 @@
+package org.hbrs.mongodb.test;
+
+import org.hbrs.ia.code.BulkWriteReport;
+import org.hbrs.ia.code.ManagePersonal;
+import org.hbrs.ia.code.Page;
+import org.hbrs.ia.model.PerformanceCriterion;
+import org.hbrs.ia.model.PerformanceStatistics;
+import org.hbrs.ia.model.SalesMan;
+import org.hbrs.ia.model.SalesManView;
+import org.hbrs.ia.model.SocialPerformanceRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Behaviour every ManagePersonal implementation has to share.
+ * Subclasses provide an empty manager (no salesmen, no records) for every test.
+ */
+abstract class ManagePersonalContractTest {
+
+    protected ManagePersonal manager;
+
+    protected abstract ManagePersonal createEmptyManager();
+
+    @BeforeEach
+    void setUpManager() {
+        manager = createEmptyManager();
+    }
+
+    @AfterEach
+    void closeManager() {
+        if (manager != null) {
+            manager.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Should create, read and delete a salesman by sid")
+    void createReadDelete_shouldRoundTripSalesMan() {
+        manager.createSalesMan(new SalesMan("Sascha", "Alda", 90133));
+
+        SalesMan salesMan = manager.readSalesMan(90133);
+        assertNotNull(salesMan);
+        assertEquals("Sascha", salesMan.getFirstname());
+        assertEquals("Alda", salesMan.getLastname());
+        assertNull(manager.readSalesMan(90134));
+
+        manager.deleteSalesMan(90133);
+        assertNull(manager.readSalesMan(90133));
+    }
+
+    @Test
+    @DisplayName("Should write only the changed fields and report unknown sids in a batch")
+    void update_shouldWriteChangedFields() {
+        manager.createSalesMen(Arrays.asList(
+                new SalesMan("Sascha", "Alda", 90133),
+                new SalesMan("Leslie", "Malton", 90444)));
+
+        // a stale firstname is not written back because only the lastname changed
+        SalesMan salesMan = new SalesMan("Stale", "Alda", 90133);
+        salesMan.setLastname("Alda-Schmidt");
+        manager.updateSalesMan(salesMan);
+        assertFalse(salesMan.isDirty());
+        assertEquals("Sascha", manager.readSalesMan(90133).getFirstname());
+        assertEquals("Alda-Schmidt", manager.readSalesMan(90133).getLastname());
+
+        SalesMan leslie = manager.readSalesMan(90444);
+        leslie.setFirstname("Les");
+        SalesMan unknown = new SalesMan("No", "Body", 1);
+        unknown.setFirstname("Nobody");
+        BulkWriteReport<SalesMan> report = manager.updateSalesMen(Arrays.asList(
+                leslie, unknown, new SalesMan("Unchanged", "Unchanged", 90133)));
+        assertEquals(3, report.getRequestedCount());
+        assertEquals(2, report.getSucceededCount());
+        assertEquals(1, report.getFailures().size());
+        assertEquals(1, report.getFailures().get(0).getItem().getId());
+        assertTrue(unknown.isDirty());
+        assertFalse(leslie.isDirty());
+        assertEquals("Les", manager.readSalesMan(90444).getFirstname());
+        assertEquals("Sascha", manager.readSalesMan(90133).getFirstname());
+        assertNull(manager.readSalesMan(1));
+    }
+
+    @Test
+    @DisplayName("Should reject a duplicate sid and report it in a batch")
+    void duplicateSid_shouldBeRejected() {
+        manager.createSalesMan(new SalesMan("Sascha", "Alda", 90133));
+
+        assertThrows(RuntimeException.class, () -> manager.createSalesMan(new SalesMan("Other", "Person", 90133)));
+
+        BulkWriteReport<SalesMan> report = manager.createSalesMen(Arrays.asList(
+                new SalesMan("Leslie", "Malton", 90444),
+                new SalesMan("Other", "Person", 90133),
+                new SalesMan("Jane", "Doe", 90234)));
+        assertEquals(3, report.getRequestedCount());
+        assertEquals(2, report.getSucceededCount());
+        assertEquals(1, report.getFailures().size());
+        assertEquals(90133, report.getFailures().get(0).getItem().getId());
+        assertEquals(11000, report.getFailures().get(0).getCode());
+        assertEquals("Sascha", manager.readSalesMan(90133).getFirstname());
+    }
+
+    @Test
+    @DisplayName("Should read many, all and streamed salesmen")
+    void readMany_shouldReturnExistingSalesMen() {
+        manager.createSalesMen(Arrays.asList(
+                new SalesMan("Sascha", "Alda", 90133),
+                new SalesMan("Leslie", "Malton", 90444),
+                new SalesMan("Jane", "Doe", 90234)));
+
+        Map<Integer, SalesMan> some = manager.readSalesMen(Arrays.asList(90133, 90234, 1));
+        assertEquals(Set.of(90133, 90234), some.keySet());
+        assertEquals("Doe", some.get(90234).getLastname());
+
+        Set<Integer> all = manager.readAllSalesMen().stream().map(SalesMan::getId).collect(Collectors.toSet());
+        assertEquals(Set.of(90133, 90234, 90444), all);
+        try (Stream<SalesMan> stream = manager.streamAllSalesMen()) {
+            assertEquals(all, stream.map(SalesMan::getId).collect(Collectors.toSet()));
+        }
+
+        manager.deleteAllSalesMan();
+        assertTrue(manager.readAllSalesMen().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should return records newest year first and filter by year")
+    void readRecords_shouldBeOrderedByYearDescending() {
+        SalesMan salesMan = new SalesMan("Bob", "Johnson", 90345);
+        manager.createSalesMan(salesMan);
+        manager.addSocialPerformanceRecord(new SocialPerformanceRecord(0, 4, 4, 4, 4, 4, 4, 2024), salesMan);
+        manager.addSocialPerformanceRecord(new SocialPerformanceRecord(0, 3, 3, 3, 3, 3, 3, 2023), salesMan);
+        manager.addSocialPerformanceRecord(new SocialPerformanceRecord(0, 5, 5, 5, 5, 5, 5, 2025), salesMan);
+
+        List<SocialPerformanceRecord> records = manager.readSocialPerformanceRecord(salesMan);
+        assertEquals(Arrays.asList(2025, 2024, 2023),
+                records.stream().map(SocialPerformanceRecord::getYear).collect(Collectors.toList()));
+        assertEquals(90345, records.get(0).getSalesmanId());
+
+        List<SocialPerformanceRecord> of2024 = manager.readByYearSocialPerformanceRecord(salesMan, 2024);
+        assertEquals(1, of2024.size());
+        assertEquals(4, of2024.get(0).getLeadership());
+        assertTrue(manager.readByYearSocialPerformanceRecord(salesMan, 2000).isEmpty());
+        assertTrue(manager.readSocialPerformanceRecord(null).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should return the newest year as last record, the latest added one within a year")
+    void readLast_shouldFollowYearThenInsertionOrder() {
+        SalesMan salesMan = new SalesMan("John", "Smith", 90123);
+        manager.createSalesMan(salesMan);
+        assertNull(manager.readLastSocialPerformanceRecord(salesMan));
+
+        manager.addSocialPerformanceRecord(new SocialPerformanceRecord(0, 1, 1, 1, 1, 1, 1, 2025), salesMan);
+        manager.addSocialPerformanceRecord(new SocialPerformanceRecord(0, 2, 2, 2, 2, 2, 2, 2023), salesMan);
+        assertEquals(2025, manager.readLastSocialPerformanceRecord(salesMan).getYear());
+
+        manager.addSocialPerformanceRecord(new SocialPerformanceRecord(0, 3, 3, 3, 3, 3, 3, 2025), salesMan);
+        assertEquals(3, manager.readLastSocialPerformanceRecord(salesMan).getLeadership());
+    }
+
+    @Test
+    @DisplayName("Should keep the last record consistent after deletes")
+    void deleteRecords_shouldUpdateLastRecord() {
+        SalesMan salesMan = new SalesMan("Bob", "Johnson", 90345);
+        manager.createSalesMan(salesMan);
+        manager.addSocialPerformanceRecord(new SocialPerformanceRecord(0, 3, 3, 3, 3, 3, 3, 2023), salesMan);
+        manager.addSocialPerformanceRecord(new SocialPerformanceRecord(0, 4, 4, 4, 4, 4, 4, 2024), salesMan);
+        manager.addSocialPerformanceRecord(new SocialPerformanceRecord(0, 5, 5, 5, 5, 5, 5, 2025), salesMan);
+
+        manager.deleteLastSocialPerformanceRecord(salesMan);
+        assertEquals(2024, manager.readLastSocialPerformanceRecord(salesMan).getYear());
+
+        manager.deleteByYearSocialPerformanceRecord(salesMan, 2024);
+        assertEquals(2023, manager.readLastSocialPerformanceRecord(salesMan).getYear());
+        assertEquals(1, manager.readSocialPerformanceRecord(salesMan).size());
+
+        manager.deleteLastSocialPerformanceRecord(salesMan);
+        assertNull(manager.readLastSocialPerformanceRecord(salesMan));
+        assertDoesNotThrow(() -> manager.deleteLastSocialPerformanceRecord(salesMan));
+    }
+
+    @Test
+    @DisplayName("Should add records of many salesmen in one batch")
+    void addRecords_shouldReportAndStoreEveryRecord() {
+        SalesMan first = new SalesMan("John", "Smith", 90123);
+        SalesMan second = new SalesMan("Jane", "Doe", 90234);
+        manager.createSalesMen(Arrays.asList(first, second));
+
+        Map<SalesMan, List<SocialPerformanceRecord>> records = new LinkedHashMap<>();
+        records.put(first, Arrays.asList(
+                new SocialPerformanceRecord(0, 1, 1, 1, 1, 1, 1, 2023),
+                new SocialPerformanceRecord(0, 2, 2, 2, 2, 2, 2, 2024)));
+        records.put(second, Arrays.asList(new SocialPerformanceRecord(0, 5, 5, 5, 5, 5, 5, 2024)));
+
+        BulkWriteReport<SocialPerformanceRecord> report = manager.addSocialPerformanceRecords(records);
+
+        assertEquals(3, report.getRequestedCount());
+        assertEquals(3, report.getSucceededCount());
+        assertFalse(report.hasFailures());
+        assertEquals(2, manager.readSocialPerformanceRecord(first).size());
+        assertEquals(2024, manager.readLastSocialPerformanceRecord(first).getYear());
+        assertEquals(5, manager.readLastSocialPerformanceRecord(second).getLeadership());
+    }
+
+    @Test
+    @DisplayName("Should compute the same statistics per year, per salesman and company wide")
+    void statistics_shouldAggregateRecords() {
+        SalesMan first = new SalesMan("John", "Smith", 90123);
+        SalesMan second = new SalesMan("Jane", "Doe", 90234);
+        manager.createSalesMen(Arrays.asList(first, second));
+        manager.addSocialPerformanceRecord(new SocialPerformanceRecord(0, 2, 1, 1, 1, 1, 1, 2023), first);
+        manager.addSocialPerformanceRecord(new SocialPerformanceRecord(0, 4, 1, 1, 1, 1, 1, 2024), first);
+        manager.addSocialPerformanceRecord(new SocialPerformanceRecord(0, 5, 3, 1, 1, 1, 1, 2024), second);
+
+        List<PerformanceStatistics> perYear = manager.readPerformanceStatisticsPerYear();
+        assertEquals(2, perYear.size());
+        assertEquals(2023, perYear.get(0).getYear());
+        assertNull(perYear.get(0).getSalesmanId());
+        assertEquals(2, perYear.get(1).getCount());
+        assertEquals(4.5, perYear.get(1).getAverage(PerformanceCriterion.LEADERSHIP), 0.0001);
+        assertEquals(3, perYear.get(1).getMax(PerformanceCriterion.OPENNESS));
+
+        List<PerformanceStatistics> ofFirst = manager.readPerformanceStatisticsPerYear(first);
+        assertEquals(2, ofFirst.size());
+        assertEquals(90123, ofFirst.get(1).getSalesmanId());
+        assertEquals(2024, ofFirst.get(1).getYear());
+
+        List<PerformanceStatistics> perSalesMan = manager.readPerformanceStatisticsPerSalesMan(null);
+        assertEquals(2, perSalesMan.size());
+        assertEquals(90123, perSalesMan.get(0).getSalesmanId());
+        assertNull(perSalesMan.get(0).getYear());
+        assertEquals(3.0, perSalesMan.get(0).getAverage(PerformanceCriterion.LEADERSHIP), 0.0001);
+        assertEquals(1, manager.readPerformanceStatisticsPerSalesMan(2023).size());
+
+        PerformanceStatistics company = manager.readCompanyPerformanceStatistics(null);
+        assertEquals(3, company.getCount());
+        assertEquals(2, company.getMin(PerformanceCriterion.LEADERSHIP));
+        assertEquals(0, manager.readCompanyPerformanceStatistics(1999).getCount());
+        assertEquals(2024, manager.readCompanyPerformanceStatistics(2024).getYear());
+    }
+
+    @Test
+    @DisplayName("Should return only the fields of the requested view")
+    void readWithView_shouldFetchOnlyTheView() {
+        SalesMan first = new SalesMan("John", "Smith", 90123);
+        SalesMan second = new SalesMan("Jane", "Doe", 90234);
+        manager.createSalesMen(Arrays.asList(first, second));
+        manager.addSocialPerformanceRecord(new SocialPerformanceRecord(0, 1, 1, 1, 1, 1, 1, 2023), first);
+        manager.addSocialPerformanceRecord(new SocialPerformanceRecord(0, 2, 2, 2, 2, 2, 2, 2025), first);
+        manager.addSocialPerformanceRecord(new SocialPerformanceRecord(0, 3, 3, 3, 3, 3, 3, 2024), first);
+
+        SalesMan header = manager.readSalesMan(90123, SalesManView.HEADER);
+        assertEquals("Smith", header.getLastname());
+        assertNull(header.getLatestRecord());
+        assertTrue(header.getRecords().isEmpty());
+        assertNull(manager.readSalesMan(90123).getLatestRecord());
+
+        SalesMan withLatest = manager.readSalesMan(90123, SalesManView.HEADER_WITH_LATEST);
+        assertEquals(2025, withLatest.getLatestRecord().getYear());
+        assertTrue(withLatest.getRecords().isEmpty());
+
+        SalesMan full = manager.readSalesMan(90123, SalesManView.FULL);
+        assertEquals(2025, full.getLatestRecord().getYear());
+        assertEquals(Arrays.asList(2025, 2024, 2023),
+                full.getRecords().stream().map(SocialPerformanceRecord::getYear).collect(Collectors.toList()));
+
+        Map<Integer, SalesMan> many = manager.readSalesMen(Arrays.asList(90123, 90234), SalesManView.FULL);
+        assertEquals(3, many.get(90123).getRecords().size());
+        assertTrue(many.get(90234).getRecords().isEmpty());
+        assertNull(many.get(90234).getLatestRecord());
+
+        List<SalesMan> all = manager.readAllSalesMen(SalesManView.HEADER_WITH_LATEST);
+        assertEquals(2, all.size());
+        assertEquals(1, all.stream().filter(salesMan -> salesMan.getLatestRecord() != null).count());
+        assertNull(manager.readSalesMan(1, SalesManView.FULL));
+    }
+
+    @Test
+    @DisplayName("Should page through salesmen ordered by sid")
+    void readSalesMenPage_shouldSeekBySid() {
+        manager.createSalesMen(Arrays.asList(
+                new SalesMan("A", "A", 90300),
+                new SalesMan("B", "B", 90100),
+                new SalesMan("C", "C", 90500),
+                new SalesMan("D", "D", 90200),
+                new SalesMan("E", "E", 90400)));
+
+        Page<SalesMan> first = manager.readSalesMenPage(null, 2);
+        assertEquals(Arrays.asList(90100, 90200), ids(first.getItems()));
+        assertTrue(first.hasNext());
+        assertEquals(90200, first.getNextAfterSid());
+
+        Page<SalesMan> second = manager.readSalesMenPage(Page.afterKeyOf(first.getNextToken()), 2);
+        assertEquals(Arrays.asList(90300, 90400), ids(second.getItems()));
+
+        Page<SalesMan> last = manager.readSalesMenPage(second.getNextAfterSid(), 2);
+        assertEquals(Arrays.asList(90500), ids(last.getItems()));
+        assertFalse(last.hasNext());
+        assertNull(last.getNextToken());
+
+        assertTrue(manager.readSalesMenPage(90500, 2).getItems().isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> manager.readSalesMenPage(null, 0));
+    }
+
+    @Test
+    @DisplayName("Should page through records newest year first, the latest added first within a year")
+    void readRecordsPage_shouldSeekByYearAndId() {
+        SalesMan salesMan = new SalesMan("Bob", "Johnson", 90345);
+        manager.createSalesMan(salesMan);
+        manager.addSocialPerformanceRecord(new SocialPerformanceRecord(0, 1, 1, 1, 1, 1, 1, 2023), salesMan);
+        manager.addSocialPerformanceRecord(new SocialPerformanceRecord(0, 2, 2, 2, 2, 2, 2, 2024), salesMan);
+        manager.addSocialPerformanceRecord(new SocialPerformanceRecord(0, 3, 3, 3, 3, 3, 3, 2024), salesMan);
+        manager.addSocialPerformanceRecord(new SocialPerformanceRecord(0, 4, 4, 4, 4, 4, 4, 2025), salesMan);
+        manager.addSocialPerformanceRecord(new SocialPerformanceRecord(0, 5, 5, 5, 5, 5, 5, 2024), salesMan);
+
+        List<Integer> leadership = new ArrayList<>();
+        Page<SocialPerformanceRecord> page = manager.readSocialPerformanceRecordsPage(salesMan, null, null, 2);
+        int pages = 1;
+        leadership.addAll(leadership(page.getItems()));
+        while (page.hasNext()) {
+            page = manager.readSocialPerformanceRecordsPage(salesMan, page.getNextAfterYear(),
+                    page.getNextAfterId(), 2);
+            leadership.addAll(leadership(page.getItems()));
+            pages++;
+        }
+        assertEquals(Arrays.asList(4, 5, 3, 2, 1), leadership);
+        assertEquals(3, pages);
+
+        // without an id the page starts behind all records of the year
+        assertEquals(Arrays.asList(1),
+                leadership(manager.readSocialPerformanceRecordsPage(salesMan, 2024, null, 10).getItems()));
+        assertThrows(IllegalArgumentException.class,
+                () -> manager.readSocialPerformanceRecordsPage(salesMan, null, "1", 10));
+    }
+
+    private static List<Integer> ids(List<SalesMan> salesMen) {
+        return salesMen.stream().map(SalesMan::getId).collect(Collectors.toList());
+    }
+
+    private static List<Integer> leadership(List<SocialPerformanceRecord> records) {
+        return records.stream().map(SocialPerformanceRecord::getLeadership).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,150 @@
+package org.hbrs.mongodb.test;
+
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinaryWriter;
+import org.bson.Document;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+import org.bson.types.ObjectId;
+import org.hbrs.ia.codec.SalesManCodec;
+import org.hbrs.ia.codec.SocialPerformanceRecordCodec;
+import org.hbrs.ia.model.SalesMan;
+import org.hbrs.ia.model.SocialPerformanceRecord;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Codec tests - no MongoDB server needed, documents are encoded to raw BSON and decoded again
+ */
+class ModelCodecTest {
+
+    private final DocumentCodec documentCodec = new DocumentCodec();
+    private final SalesManCodec salesManCodec = new SalesManCodec();
+    private final SocialPerformanceRecordCodec recordCodec = new SocialPerformanceRecordCodec();
+
+    @Test
+    @DisplayName("Should decode a stored salesman document and skip unknown fields")
+    void salesManCodec_shouldDecodeDocumentWrittenByDocumentCodec() {
+        // Given - a salesman document with an embedded array (old layout) and the latestRecord summary
+        Document document = new Document("_id", new ObjectId())
+                .append("firstname", "Sascha")
+                .append("lastname", "Alda")
+                .append("sid", 90133)
+                .append("performanceRecords", List.of(
+                        new SocialPerformanceRecord(90133, 4, 3, 4, 5, 4, 4, 2024).toDocument(),
+                        new Document("leadership", 2).append("year", 2023)))
+                .append("latestRecord", new SocialPerformanceRecord(90133, 4, 3, 4, 5, 4, 4, 2024).toDocument())
+                .append("unknown", "skipped");
+
+        // When
+        SalesMan salesMan = salesManCodec.decode(reader(encode(document)), DecoderContext.builder().build());
+
+        // Then
+        assertEquals("Sascha", salesMan.getFirstname());
+        assertEquals("Alda", salesMan.getLastname());
+        assertEquals(90133, salesMan.getId());
+        assertEquals(2024, salesMan.getLatestRecord().getYear());
+        assertEquals(2, salesMan.getRecords().size());
+        assertEquals(5, salesMan.getRecords().get(0).getAttitude());
+        // embedded records without salesmanId get the sid of the salesman
+        assertEquals(90133, salesMan.getRecords().get(1).getSalesmanId());
+    }
+
+    @Test
+    @DisplayName("Should leave missing salesman fields null instead of failing")
+    void salesManCodec_shouldTolerateIncompleteDocument() {
+        Document document = new Document("firstname", "Sascha").append("sid", "not a number");
+
+        SalesMan salesMan = salesManCodec.decode(reader(encode(document)), DecoderContext.builder().build());
+
+        assertEquals("Sascha", salesMan.getFirstname());
+        assertNull(salesMan.getLastname());
+        assertNull(salesMan.getId());
+    }
+
+    @Test
+    @DisplayName("Should round-trip a salesman through the codec")
+    void salesManCodec_roundTrip_shouldPreserveFields() {
+        SalesMan original = new SalesMan("Leslie", "Malton", 90444);
+
+        BasicOutputBuffer buffer = new BasicOutputBuffer();
+        salesManCodec.encode(new BsonBinaryWriter(buffer), original, EncoderContext.builder().build());
+        Document stored = documentCodec.decode(reader(buffer.toByteArray()), DecoderContext.builder().build());
+        SalesMan decoded = SalesMan.fromDocument(stored);
+
+        assertEquals(original.getFirstname(), decoded.getFirstname());
+        assertEquals(original.getLastname(), decoded.getLastname());
+        assertEquals(original.getId(), decoded.getId());
+        // read salesmen start without changes, so updateSalesMan writes nothing for them
+        assertFalse(decoded.isDirty());
+    }
+
+    @Test
+    @DisplayName("Should track only the setters that changed a field")
+    void salesMan_setters_shouldTrackChangedFields() {
+        SalesMan salesMan = new SalesMan("Leslie", "Malton", 90444);
+        salesMan.setFirstname("Leslie");
+        assertFalse(salesMan.isDirty());
+
+        salesMan.setLastname("Malton-Alda");
+        assertEquals(Set.of("lastname"), salesMan.getDirtyFields());
+        assertEquals(new Document("lastname", "Malton-Alda"), salesMan.toChangesDocument());
+
+        salesMan.clearDirtyFields();
+        assertTrue(salesMan.toChangesDocument().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should round-trip a performance record through the codec")
+    void recordCodec_roundTrip_shouldPreserveAllScores() {
+        SocialPerformanceRecord original = new SocialPerformanceRecord(90123, 1, 2, 3, 4, 5, 6, 2025);
+
+        BasicOutputBuffer buffer = new BasicOutputBuffer();
+        recordCodec.encode(new BsonBinaryWriter(buffer), original, EncoderContext.builder().build());
+        SocialPerformanceRecord decoded = recordCodec.decode(reader(buffer.toByteArray()),
+                DecoderContext.builder().build());
+
+        assertEquals(original.getSalesmanId(), decoded.getSalesmanId());
+        assertEquals(original.getLeadership(), decoded.getLeadership());
+        assertEquals(original.getOpenness(), decoded.getOpenness());
+        assertEquals(original.getBehaviour(), decoded.getBehaviour());
+        assertEquals(original.getAttitude(), decoded.getAttitude());
+        assertEquals(original.getCommunication(), decoded.getCommunication());
+        assertEquals(original.getIntegrity(), decoded.getIntegrity());
+        assertEquals(original.getYear(), decoded.getYear());
+    }
+
+    @Test
+    @DisplayName("Should decode out-of-range stored values as 0 instead of failing")
+    void recordCodec_shouldTolerateOutOfRangeValues() {
+        Document stored = new SocialPerformanceRecord(90123, 1, 2, 3, 4, 5, 6, 2025).toDocument()
+                .append("integrity", 256)
+                .append("year", 70000);
+        long outOfRange = SocialPerformanceRecordCodec.getOutOfRangeValueCount();
+
+        SocialPerformanceRecord decoded = recordCodec.decode(reader(encode(stored)), DecoderContext.builder().build());
+
+        assertEquals(0, decoded.getIntegrity());
+        assertEquals(0, decoded.getYear());
+        assertEquals(5, decoded.getCommunication());
+        assertEquals(outOfRange + 2, SocialPerformanceRecordCodec.getOutOfRangeValueCount());
+    }
+
+    private byte[] encode(Document document) {
+        BasicOutputBuffer buffer = new BasicOutputBuffer();
+        documentCodec.encode(new BsonBinaryWriter(buffer), document, EncoderContext.builder().build());
+        return buffer.toByteArray();
+    }
+
+    private static BsonBinaryReader reader(byte[] bytes) {
+        return new BsonBinaryReader(ByteBuffer.wrap(bytes));
+    }
+}
@@ -0,0 +1,18 @@
+package org.hbrs.mongodb.test;
+
+import com.mongodb.client.MongoClient;
+import org.hbrs.ia.code.ManagePersonal;
+import org.hbrs.ia.code.ManagePersonalImpl;
+import org.hbrs.ia.code.RecordLayout;
+
+/**
+ * Contract tests against ManagePersonalImpl with bucketed records; buckets of two records,
+ * so reads, pages and deletes span several buckets
+ */
+class MongoBucketManagePersonalTest extends MongoManagePersonalTest {
+
+    @Override
+    protected ManagePersonal createManager(MongoClient client, String database) {
+        return new ManagePersonalImpl(client, database, RecordLayout.BUCKET, 2);
+    }
+}
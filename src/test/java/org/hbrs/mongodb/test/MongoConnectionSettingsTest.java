@@ -0,0 +1,80 @@
+package org.hbrs.mongodb.test;
+
+import com.mongodb.MongoClientSettings;
+import com.mongodb.MongoCompressor;
+import org.hbrs.ia.code.MongoConnectionSettings;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Driver settings built from MongoConnectionSettings - no MongoDB server needed
+ */
+class MongoConnectionSettingsTest {
+
+    private static final String URI = "mongodb://localhost:27017/?maxPoolSize=500&minPoolSize=5"
+            + "&compressors=zlib&serverSelectionTimeoutMS=2000&connectTimeoutMS=3000";
+
+    @Test
+    @DisplayName("Should keep the options of the connection string that were not set explicitly")
+    void connectionStringOptions_shouldBeKept() {
+        MongoConnectionSettings settings = new MongoConnectionSettings();
+        settings.setConnectionString(URI);
+
+        MongoClientSettings clientSettings = settings.toMongoClientSettings();
+
+        assertEquals(500, clientSettings.getConnectionPoolSettings().getMaxSize());
+        assertEquals(5, clientSettings.getConnectionPoolSettings().getMinSize());
+        assertEquals(2000, clientSettings.getClusterSettings().getServerSelectionTimeout(TimeUnit.MILLISECONDS));
+        assertEquals(3000, clientSettings.getSocketSettings().getConnectTimeout(TimeUnit.MILLISECONDS));
+        assertEquals(1, clientSettings.getCompressorList().size());
+        assertEquals("zlib", clientSettings.getCompressorList().get(0).getName());
+
+        // the getters report the effective values
+        assertEquals(500, settings.getMaxPoolSize());
+        assertEquals(2000, settings.getServerSelectionTimeoutMillis());
+        assertEquals(Collections.singletonList("zlib"), settings.getCompressors());
+    }
+
+    @Test
+    @DisplayName("Should let explicitly set options win over the connection string")
+    void explicitOptions_shouldOverrideConnectionString() {
+        MongoConnectionSettings settings = new MongoConnectionSettings();
+        settings.setConnectionString(URI);
+        settings.setMaxPoolSize(50);
+        settings.setServerSelectionTimeoutMillis(1000);
+        settings.setCompressors(Arrays.asList("zlib", "snappy"));
+
+        MongoClientSettings clientSettings = settings.toMongoClientSettings();
+
+        assertEquals(50, clientSettings.getConnectionPoolSettings().getMaxSize());
+        assertEquals(5, clientSettings.getConnectionPoolSettings().getMinSize());
+        assertEquals(1000, clientSettings.getClusterSettings().getServerSelectionTimeout(TimeUnit.MILLISECONDS));
+        assertEquals(Arrays.asList("zlib", "snappy"), clientSettings.getCompressorList().stream()
+                .map(MongoCompressor::getName).collect(Collectors.toList()));
+        assertEquals(50, settings.getMaxPoolSize());
+    }
+
+    @Test
+    @DisplayName("Should use the driver defaults without options")
+    void noOptions_shouldUseDriverDefaults() {
+        MongoConnectionSettings settings = new MongoConnectionSettings();
+        MongoClientSettings defaults = MongoClientSettings.builder().build();
+
+        MongoClientSettings clientSettings = settings.toMongoClientSettings();
+
+        assertEquals(defaults.getConnectionPoolSettings().getMaxSize(),
+                clientSettings.getConnectionPoolSettings().getMaxSize());
+        assertEquals(defaults.getClusterSettings().getServerSelectionTimeout(TimeUnit.MILLISECONDS),
+                clientSettings.getClusterSettings().getServerSelectionTimeout(TimeUnit.MILLISECONDS));
+        assertTrue(clientSettings.getCompressorList().isEmpty());
+        assertEquals(defaults.getConnectionPoolSettings().getMaxSize(), settings.getMaxPoolSize());
+        assertTrue(settings.getCompressors().isEmpty());
+    }
+}
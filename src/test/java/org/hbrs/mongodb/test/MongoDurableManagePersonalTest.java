@@ -0,0 +1,40 @@
+package org.hbrs.mongodb.test;
+
+import com.mongodb.client.MongoClient;
+import org.hbrs.ia.code.ConsistencyProfile;
+import org.hbrs.ia.code.ManagePersonal;
+import org.hbrs.ia.code.ManagePersonalImpl;
+import org.hbrs.ia.metrics.ManagePersonalMetrics.Operation;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Contract tests against ManagePersonalImpl with ConsistencyProfile.DURABLE for every operation
+ * (majority writes and reads, so every read sees the writes before it)
+ */
+class MongoDurableManagePersonalTest extends MongoManagePersonalTest {
+
+    @Override
+    protected ManagePersonal createManager(MongoClient client, String database) {
+        ManagePersonalImpl manager = new ManagePersonalImpl(client, database);
+        manager.setConsistencyProfile(ConsistencyProfile.DURABLE);
+        return manager;
+    }
+
+    @Test
+    @DisplayName("Should use the profile of the operation and fall back to the manager's profile")
+    void operationProfile_shouldOverrideManagerProfile() {
+        ManagePersonalImpl impl = (ManagePersonalImpl) manager;
+        impl.setConsistencyProfile(Operation.ADD_RECORDS, ConsistencyProfile.FAST_INGEST);
+
+        assertEquals(ConsistencyProfile.FAST_INGEST, impl.getConsistencyProfile(Operation.ADD_RECORDS));
+        assertEquals(ConsistencyProfile.DURABLE, impl.getConsistencyProfile(Operation.DELETE_RECORDS_BY_YEAR));
+
+        impl.setConsistencyProfile(Operation.ADD_RECORDS, null);
+        assertEquals(ConsistencyProfile.DURABLE, impl.getConsistencyProfile(Operation.ADD_RECORDS));
+        assertThrows(IllegalArgumentException.class, () -> impl.setConsistencyProfile(null));
+    }
+}
@@ -0,0 +1,17 @@
+package org.hbrs.mongodb.test;
+
+import com.mongodb.client.MongoClient;
+import org.hbrs.ia.code.ManagePersonal;
+import org.hbrs.ia.code.ManagePersonalImpl;
+import org.hbrs.ia.code.RecordLayout;
+
+/**
+ * Contract tests against ManagePersonalImpl with the records embedded in the salesman documents
+ */
+class MongoEmbeddedManagePersonalTest extends MongoManagePersonalTest {
+
+    @Override
+    protected ManagePersonal createManager(MongoClient client, String database) {
+        return new ManagePersonalImpl(client, database, RecordLayout.EMBEDDED);
+    }
+}
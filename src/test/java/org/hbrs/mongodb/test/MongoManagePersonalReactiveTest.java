@@ -0,0 +1,241 @@
+package org.hbrs.mongodb.test;
+
+import com.mongodb.MongoTimeoutException;
+import com.mongodb.MongoWriteException;
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.mongodb.reactivestreams.client.MongoClients;
+import org.bson.Document;
+import org.hbrs.ia.code.BulkWriteReport;
+import org.hbrs.ia.code.ConsistencyProfile;
+import org.hbrs.ia.code.ManagePersonalReactiveImpl;
+import org.hbrs.ia.code.MongoConnectionSettings;
+import org.hbrs.ia.code.RecordLayout;
+import org.hbrs.ia.model.SalesMan;
+import org.hbrs.ia.model.SocialPerformanceRecord;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * ManagePersonalReactiveImpl against a mongod on localhost:27017 (skipped without one),
+ * settings checks and error propagation without a server
+ */
+class MongoManagePersonalReactiveTest {
+
+    private static final String DATABASE = "ManagePersonalReactiveTest";
+
+    private static MongoClient client;
+
+    private ManagePersonalReactiveImpl manager;
+
+    @BeforeAll
+    static void connect() {
+        MongoConnectionSettings settings = new MongoConnectionSettings();
+        settings.setServerSelectionTimeoutMillis(1000);
+        MongoClient candidate = MongoClients.create(settings.toMongoClientSettings());
+        try {
+            await(collect(candidate.getDatabase("admin").runCommand(new Document("ping", 1))));
+            client = candidate;
+        } catch (Exception e) {
+            candidate.close();
+        }
+    }
+
+    @AfterAll
+    static void disconnect() throws Exception {
+        if (client != null) {
+            await(collect(client.getDatabase(DATABASE).drop()));
+            client.close();
+        }
+    }
+
+    @AfterEach
+    void closeManager() {
+        if (manager != null) {
+            manager.close();
+        }
+    }
+
+    private ManagePersonalReactiveImpl createEmptyManager() throws Exception {
+        assumeTrue(client != null, "No MongoDB server on localhost:27017");
+        await(collect(client.getDatabase(DATABASE).drop()));
+        manager = new ManagePersonalReactiveImpl(client, DATABASE);
+        await(manager.ensureIndexes());
+        return manager;
+    }
+
+    @Test
+    @DisplayName("Should read a created salesman and stream all salesmen")
+    void createSalesMan_shouldBeReadable() throws Exception {
+        createEmptyManager();
+        await(manager.createSalesMan(new SalesMan("Sascha", "Alda", 1)));
+        BulkWriteReport<SalesMan> report = await(manager.createSalesMen(Arrays.asList(
+                new SalesMan("Jane", "Doe", 2), new SalesMan("John", "Doe", 3))));
+
+        assertEquals(2, report.getSucceededCount());
+        assertEquals("Alda", await(manager.readSalesMan(1)).getLastname());
+        assertNull(await(manager.readSalesMan(4)));
+        assertEquals(3, await(collect(manager.readAllSalesMen())).size());
+    }
+
+    @Test
+    @DisplayName("Should read only the header of a salesman with embedded records")
+    void readSalesMan_shouldReadHeaderOnly() throws Exception {
+        createEmptyManager();
+        Document record = new SocialPerformanceRecord(1, 4, 3, 4, 5, 4, 4, 2024).toDocument();
+        await(collect(client.getDatabase(DATABASE).getCollection("salesmen").insertOne(
+                new SalesMan("Sascha", "Alda", 1).toDocument()
+                        .append("latestRecord", record)
+                        .append("performanceRecords", Collections.singletonList(record)))));
+
+        SalesMan salesMan = await(manager.readSalesMan(1));
+        assertEquals("Alda", salesMan.getLastname());
+        assertNull(salesMan.getLatestRecord());
+        assertTrue(salesMan.getRecords().isEmpty());
+        SalesMan streamed = await(collect(manager.readAllSalesMen())).get(0);
+        assertNull(streamed.getLatestRecord());
+        assertTrue(streamed.getRecords().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should return added records newest first and as last record")
+    void addSocialPerformanceRecord_shouldBeReadable() throws Exception {
+        createEmptyManager();
+        SalesMan salesMan = new SalesMan("Sascha", "Alda", 1);
+        await(manager.createSalesMan(salesMan));
+        await(manager.addSocialPerformanceRecord(new SocialPerformanceRecord(0, 4, 3, 4, 5, 4, 4, 2023), salesMan));
+        await(manager.addSocialPerformanceRecord(new SocialPerformanceRecord(0, 5, 5, 5, 5, 5, 5, 2024), salesMan));
+
+        List<SocialPerformanceRecord> records = await(collect(manager.readSocialPerformanceRecord(salesMan)));
+        assertEquals(2, records.size());
+        assertEquals(2024, records.get(0).getYear());
+        assertEquals(1, await(collect(manager.readByYearSocialPerformanceRecord(salesMan, 2023))).size());
+        assertEquals(2024, await(manager.readLastSocialPerformanceRecord(salesMan)).getYear());
+
+        await(manager.deleteLastSocialPerformanceRecord(salesMan));
+        assertEquals(2023, await(manager.readLastSocialPerformanceRecord(salesMan)).getYear());
+    }
+
+    @Test
+    @DisplayName("Should delete single and all salesmen")
+    void deleteSalesMan_shouldRemoveSalesMen() throws Exception {
+        createEmptyManager();
+        await(manager.createSalesMen(Arrays.asList(
+                new SalesMan("Sascha", "Alda", 1), new SalesMan("Jane", "Doe", 2), new SalesMan("John", "Doe", 3))));
+
+        await(manager.deleteSalesMan(1));
+        assertNull(await(manager.readSalesMan(1)));
+        assertEquals(2, await(collect(manager.readAllSalesMen())).size());
+
+        await(manager.deleteAllSalesMan());
+        assertTrue(await(collect(manager.readAllSalesMen())).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should complete the future exceptionally for a duplicate sid")
+    void duplicateSid_shouldFailTheFuture() throws Exception {
+        createEmptyManager();
+        await(manager.createSalesMan(new SalesMan("Sascha", "Alda", 1)));
+
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> await(manager.createSalesMan(new SalesMan("Jane", "Doe", 1))));
+        assertInstanceOf(MongoWriteException.class, e.getCause());
+
+        BulkWriteReport<SalesMan> report = await(manager.createSalesMen(Collections.singletonList(
+                new SalesMan("Jane", "Doe", 1))));
+        assertEquals(0, report.getSucceededCount());
+    }
+
+    @Test
+    @DisplayName("Should apply the write and read concern of the consistency profile")
+    void consistencyProfile_shouldBeApplied() throws Exception {
+        assumeTrue(client != null, "No MongoDB server on localhost:27017");
+        await(collect(client.getDatabase(DATABASE).drop()));
+        manager = new ManagePersonalReactiveImpl(client, DATABASE, ConsistencyProfile.FAST_INGEST);
+
+        assertEquals(ConsistencyProfile.FAST_INGEST, manager.getConsistencyProfile());
+        await(manager.createSalesMan(new SalesMan("Sascha", "Alda", 1)));
+        assertEquals("Alda", await(manager.readSalesMan(1)).getLastname());
+    }
+
+    @Test
+    @DisplayName("Should reject record layouts other than SEPARATE before connecting")
+    void recordLayout_shouldOnlyAllowSeparate() {
+        MongoConnectionSettings settings = new MongoConnectionSettings();
+        settings.setRecordLayout(RecordLayout.EMBEDDED);
+        assertThrows(IllegalArgumentException.class, () -> new ManagePersonalReactiveImpl(settings));
+
+        settings.setRecordLayout(RecordLayout.SEPARATE);
+        settings.setConsistencyProfile(null);
+        assertThrows(IllegalArgumentException.class, () -> new ManagePersonalReactiveImpl(settings));
+    }
+
+    @Test
+    @DisplayName("Should pass driver errors to the futures and publishers")
+    void unreachableServer_shouldFailFuturesAndPublishers() {
+        MongoConnectionSettings settings = new MongoConnectionSettings();
+        settings.setConnectionString("mongodb://localhost:1");
+        settings.setServerSelectionTimeoutMillis(200);
+        ManagePersonalReactiveImpl unreachable = new ManagePersonalReactiveImpl(settings);
+        try {
+            ExecutionException read = assertThrows(ExecutionException.class, () -> await(unreachable.readSalesMan(1)));
+            assertInstanceOf(MongoTimeoutException.class, read.getCause());
+
+            ExecutionException stream = assertThrows(ExecutionException.class,
+                    () -> await(collect(unreachable.readAllSalesMen())));
+            assertInstanceOf(MongoTimeoutException.class, stream.getCause());
+        } finally {
+            unreachable.close();
+        }
+    }
+
+    private static <T> T await(Future<T> future) throws Exception {
+        return future.get(10, TimeUnit.SECONDS);
+    }
+
+    // all elements of a publisher, or its error
+    private static <T> CompletableFuture<List<T>> collect(Publisher<T> publisher) {
+        CompletableFuture<List<T>> result = new CompletableFuture<>();
+        publisher.subscribe(new Subscriber<T>() {
+            private final List<T> items = new ArrayList<>();
+
+            @Override
+            public void onSubscribe(Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(T item) {
+                items.add(item);
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                result.completeExceptionally(error);
+            }
+
+            @Override
+            public void onComplete() {
+                result.complete(items);
+            }
+        });
+        return result;
+    }
+}
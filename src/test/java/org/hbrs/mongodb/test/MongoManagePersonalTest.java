@@ -0,0 +1,55 @@
+package org.hbrs.mongodb.test;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.bson.Document;
+import org.hbrs.ia.code.ManagePersonal;
+import org.hbrs.ia.code.ManagePersonalImpl;
+import org.hbrs.ia.code.MongoConnectionSettings;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Contract tests against ManagePersonalImpl, skipped if no mongod runs on localhost:27017
+ */
+class MongoManagePersonalTest extends ManagePersonalContractTest {
+
+    private static final String DATABASE = "ManagePersonalContractTest";
+
+    private static MongoClient client;
+
+    @BeforeAll
+    static void connect() {
+        MongoConnectionSettings settings = new MongoConnectionSettings();
+        settings.setServerSelectionTimeoutMillis(1000);
+        MongoClient candidate = MongoClients.create(settings.toMongoClientSettings());
+        try {
+            candidate.getDatabase("admin").runCommand(new Document("ping", 1));
+            client = candidate;
+        } catch (RuntimeException e) {
+            candidate.close();
+        }
+    }
+
+    @AfterAll
+    static void disconnect() {
+        if (client != null) {
+            client.getDatabase(DATABASE).drop();
+            client.close();
+        }
+    }
+
+    @Override
+    protected ManagePersonal createEmptyManager() {
+        assumeTrue(client != null, "No MongoDB server on localhost:27017");
+        client.getDatabase(DATABASE).drop();
+        // shared client: close() of the manager leaves it open for the next test
+        return createManager(client, DATABASE);
+    }
+
+    protected ManagePersonal createManager(MongoClient client, String database) {
+        return new ManagePersonalImpl(client, database);
+    }
+}
@@ -0,0 +1,115 @@
+package org.hbrs.mongodb.test;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.hbrs.ia.code.MongoConnectionSettings;
+import org.hbrs.ia.model.SocialPerformanceRecord;
+import org.hbrs.ia.snapshot.PerformanceSnapshot;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * PerformanceSnapshot.refresh against a mongod on localhost:27017, skipped without one
+ */
+class MongoPerformanceSnapshotTest {
+
+    private static final String DATABASE = "PerformanceSnapshotTest";
+
+    private static MongoClient client;
+
+    @TempDir
+    Path directory;
+
+    @BeforeAll
+    static void connect() {
+        MongoConnectionSettings settings = new MongoConnectionSettings();
+        settings.setServerSelectionTimeoutMillis(1000);
+        MongoClient candidate = MongoClients.create(settings.toMongoClientSettings());
+        try {
+            candidate.getDatabase("admin").runCommand(new Document("ping", 1));
+            client = candidate;
+        } catch (RuntimeException e) {
+            candidate.close();
+        }
+    }
+
+    @AfterAll
+    static void disconnect() {
+        if (client != null) {
+            client.getDatabase(DATABASE).drop();
+            client.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Should leave records younger than the settle time for the next refresh")
+    void refresh_shouldWaitForTheSettleTime() {
+        assumeTrue(client != null, "No MongoDB server on localhost:27017");
+        MongoDatabase database = client.getDatabase(DATABASE);
+        database.drop();
+        MongoCollection<Document> records = database.getCollection("performanceRecords");
+        long now = System.currentTimeMillis();
+
+        try (PerformanceSnapshot snapshot = PerformanceSnapshot.open(directory)) {
+            snapshot.setSettleTime(Duration.ofSeconds(30));
+            insert(records, now - 120_000, 2020);
+            insert(records, now - 2_000, 2024);
+            assertEquals(1, snapshot.refresh(database));
+
+            // inserted after the newer record, but its _id sorts before it: still picked up
+            insert(records, now - 10_000, 2023);
+            snapshot.setSettleTime(Duration.ZERO);
+            assertEquals(2, snapshot.refresh(database));
+            assertEquals(3, snapshot.size());
+        }
+    }
+
+    // documented limitation: a record that appears after the snapshot moved past its _id is skipped
+    @Test
+    @DisplayName("Should skip a record whose _id sorts below the last _id of the snapshot")
+    void refresh_shouldSkipRecordsOlderThanTheLastId() {
+        assumeTrue(client != null, "No MongoDB server on localhost:27017");
+        MongoDatabase database = client.getDatabase(DATABASE);
+        database.drop();
+        MongoCollection<Document> records = database.getCollection("performanceRecords");
+        long now = System.currentTimeMillis();
+
+        try (PerformanceSnapshot snapshot = PerformanceSnapshot.open(directory)) {
+            snapshot.setSettleTime(Duration.ofSeconds(5));
+            insert(records, now - 60_000, 2024);
+            assertEquals(1, snapshot.refresh(database));
+
+            insert(records, now - 120_000, 2023);
+            assertEquals(0, snapshot.refresh(database));
+            assertEquals(1, snapshot.size());
+        }
+    }
+
+    @Test
+    @DisplayName("Should reject a negative settle time")
+    void settleTime_shouldNotBeNegative() {
+        try (PerformanceSnapshot snapshot = PerformanceSnapshot.open(directory)) {
+            assertEquals(Duration.ofSeconds(5), snapshot.getSettleTime());
+            assertThrows(IllegalArgumentException.class, () -> snapshot.setSettleTime(Duration.ofSeconds(-1)));
+        }
+    }
+
+    private static void insert(MongoCollection<Document> records, long idMillis, int year) {
+        records.insertOne(new SocialPerformanceRecord(1, 1, 2, 3, 4, 5, 6, year).toDocument()
+                .append("_id", new ObjectId(new Date(idMillis))));
+    }
+}
@@ -0,0 +1,153 @@
+package org.hbrs.mongodb.test;
+
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinaryWriter;
+import org.bson.BsonType;
+import org.bson.Document;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+import org.bson.types.ObjectId;
+import org.hbrs.ia.model.PackedPerformanceRecord;
+import org.hbrs.ia.model.PerformanceCriterion;
+import org.hbrs.ia.model.PerformanceRecordBlock;
+import org.hbrs.ia.model.SocialPerformanceRecord;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Packed record tests - no MongoDB server needed
+ */
+class PackedPerformanceRecordTest {
+
+    private final DocumentCodec documentCodec = new DocumentCodec();
+
+    @Test
+    @DisplayName("Should keep every score and the year independent in the packed long")
+    void pack_shouldRoundTripBoundaryValues() {
+        long packed = PackedPerformanceRecord.pack(255, 0, 1, 128, 7, 254, 65535);
+
+        assertEquals(255, PackedPerformanceRecord.score(packed, PerformanceCriterion.LEADERSHIP));
+        assertEquals(0, PackedPerformanceRecord.score(packed, PerformanceCriterion.OPENNESS));
+        assertEquals(1, PackedPerformanceRecord.score(packed, PerformanceCriterion.BEHAVIOUR));
+        assertEquals(128, PackedPerformanceRecord.score(packed, PerformanceCriterion.ATTITUDE));
+        assertEquals(7, PackedPerformanceRecord.score(packed, PerformanceCriterion.COMMUNICATION));
+        assertEquals(254, PackedPerformanceRecord.score(packed, PerformanceCriterion.INTEGRITY));
+        assertEquals(65535, PackedPerformanceRecord.year(packed));
+
+        long changed = PackedPerformanceRecord.withScore(packed, PerformanceCriterion.ATTITUDE, 3);
+        assertEquals(3, PackedPerformanceRecord.score(changed, PerformanceCriterion.ATTITUDE));
+        assertEquals(254, PackedPerformanceRecord.score(changed, PerformanceCriterion.INTEGRITY));
+        assertEquals(65535, PackedPerformanceRecord.year(changed));
+    }
+
+    @Test
+    @DisplayName("Should reject values that do not fit into the packed form")
+    void record_shouldRejectOutOfRangeValues() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new SocialPerformanceRecord(1, 256, 0, 0, 0, 0, 0, 2024));
+        assertThrows(IllegalArgumentException.class,
+                () -> new SocialPerformanceRecord(1, 0, -1, 0, 0, 0, 0, 2024));
+
+        SocialPerformanceRecord record = new SocialPerformanceRecord(1, 1, 2, 3, 4, 5, 6, 2024);
+        assertThrows(IllegalArgumentException.class, () -> record.setYear(70000));
+        assertEquals(2024, record.getYear());
+
+        record.setLeadership(null);
+        assertEquals(0, record.getLeadership());
+        assertEquals(2, record.getOpenness());
+    }
+
+    @Test
+    @DisplayName("Should decode an array of record documents into the block and write it back")
+    void block_shouldRoundTripBsonArray() {
+        SocialPerformanceRecord first = new SocialPerformanceRecord(90123, 1, 2, 3, 4, 5, 6, 2024);
+        SocialPerformanceRecord second = new SocialPerformanceRecord(90124, 6, 5, 4, 3, 2, 1, 2025);
+        Document salesman = new Document("sid", 90123)
+                .append("performanceRecords", List.of(
+                        first.toDocument().append("_id", new ObjectId()),
+                        second.toDocument()));
+
+        PerformanceRecordBlock block = new PerformanceRecordBlock(1);
+        BsonBinaryReader reader = reader(encode(salesman));
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            if ("performanceRecords".equals(reader.readName())) {
+                block.appendArray(reader);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+
+        assertEquals(2, block.size());
+        assertEquals(90124, block.getSalesmanId(1));
+        assertEquals(2025, block.getYear(1));
+        assertEquals(6, block.getScore(0, PerformanceCriterion.INTEGRITY));
+        assertEquals(first.getPacked(), block.getPacked(0));
+
+        BasicOutputBuffer buffer = new BasicOutputBuffer();
+        BsonBinaryWriter writer = new BsonBinaryWriter(buffer);
+        writer.writeStartDocument();
+        block.writeArray(writer, "performanceRecords");
+        writer.writeEndDocument();
+        Document written = documentCodec.decode(reader(buffer.toByteArray()), DecoderContext.builder().build());
+
+        List<Document> records = written.getList("performanceRecords", Document.class);
+        assertEquals(second.toDocument(), records.get(1));
+        assertEquals(first.getPacked(), SocialPerformanceRecord.fromDocument(records.get(0)).getPacked());
+    }
+
+    @Test
+    @DisplayName("Should skip stored records that do not fit into the block instead of failing")
+    void block_shouldSkipOutOfRangeDocuments() {
+        Document salesman = new Document("performanceRecords", List.of(
+                new SocialPerformanceRecord(90123, 1, 2, 3, 4, 5, 6, 2024).toDocument(),
+                new SocialPerformanceRecord(90123, 1, 2, 3, 4, 5, 6, 2024).toDocument().append("leadership", 300),
+                new SocialPerformanceRecord(90123, 1, 2, 3, 4, 5, 6, 2024).toDocument().append("openness", -1),
+                new SocialPerformanceRecord(90124, 6, 5, 4, 3, 2, 1, 2025).toDocument().append("year", 70000),
+                new SocialPerformanceRecord(90125, 6, 5, 4, 3, 2, 1, 2025).toDocument()));
+
+        PerformanceRecordBlock block = new PerformanceRecordBlock();
+        BsonBinaryReader reader = reader(encode(salesman));
+        reader.readStartDocument();
+        reader.readName();
+        block.appendArray(reader);
+        reader.readEndDocument();
+
+        assertEquals(2, block.size());
+        assertEquals(3, block.getSkippedCount());
+        assertEquals(90123, block.getSalesmanId(0));
+        assertEquals(90125, block.getSalesmanId(1));
+    }
+
+    @Test
+    @DisplayName("Should read out-of-range stored values as 0 from a document")
+    void fromDocument_shouldTolerateOutOfRangeValues() {
+        Document stored = new SocialPerformanceRecord(90123, 1, 2, 3, 4, 5, 6, 2024).toDocument()
+                .append("leadership", 300)
+                .append("year", -5);
+
+        SocialPerformanceRecord record = SocialPerformanceRecord.fromDocument(stored);
+
+        assertEquals(0, record.getLeadership());
+        assertEquals(2, record.getOpenness());
+        assertEquals(0, record.getYear());
+    }
+
+    private byte[] encode(Document document) {
+        BasicOutputBuffer buffer = new BasicOutputBuffer();
+        documentCodec.encode(new BsonBinaryWriter(buffer), document, EncoderContext.builder().build());
+        return buffer.toByteArray();
+    }
+
+    private static BsonBinaryReader reader(byte[] bytes) {
+        return new BsonBinaryReader(ByteBuffer.wrap(bytes));
+    }
+}
@@ -0,0 +1,79 @@
+package org.hbrs.mongodb.test;
+
+import org.bson.types.ObjectId;
+import org.hbrs.ia.model.PerformanceCriterion;
+import org.hbrs.ia.model.PerformanceRecordBlock;
+import org.hbrs.ia.model.PerformanceStatistics;
+import org.hbrs.ia.model.SocialPerformanceRecord;
+import org.hbrs.ia.snapshot.PerformanceSnapshot;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Snapshot tests - no MongoDB server needed, blocks are appended directly
+ */
+class PerformanceSnapshotTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Should aggregate the appended records per year and over a year range")
+    void aggregate_shouldMatchAppendedRecords() {
+        try (PerformanceSnapshot snapshot = PerformanceSnapshot.open(directory)) {
+            PerformanceRecordBlock block = new PerformanceRecordBlock();
+            block.add(new SocialPerformanceRecord(1, 2, 3, 4, 5, 1, 2, 2023));
+            block.add(new SocialPerformanceRecord(1, 4, 3, 4, 5, 1, 2, 2024));
+            block.add(new SocialPerformanceRecord(2, 5, 1, 1, 1, 1, 1, 2024));
+            snapshot.append(block, new ObjectId());
+
+            PerformanceStatistics all = snapshot.aggregate(null, 2024, 2024);
+            assertEquals(2, all.getCount());
+            assertEquals(4.5, all.getAverage(PerformanceCriterion.LEADERSHIP), 0.0001);
+            assertEquals(1, all.getMin(PerformanceCriterion.OPENNESS));
+            assertEquals(3, all.getMax(PerformanceCriterion.OPENNESS));
+
+            List<PerformanceStatistics> trend = snapshot.aggregatePerYear(1);
+            assertEquals(2, trend.size());
+            assertEquals(2023, trend.get(0).getYear());
+            assertEquals(2.0, trend.get(0).getAverage(PerformanceCriterion.LEADERSHIP), 0.0001);
+            assertEquals(2024, trend.get(1).getYear());
+            assertEquals(4.0, trend.get(1).getAverage(PerformanceCriterion.LEADERSHIP), 0.0001);
+
+            assertEquals(0, snapshot.aggregate(3, 2000, 2100).getCount());
+        }
+    }
+
+    @Test
+    @DisplayName("Should reopen with all rows and the last _id after close, and keep growing")
+    void open_shouldRestorePersistedSnapshot() {
+        ObjectId lastId = new ObjectId();
+        try (PerformanceSnapshot snapshot = PerformanceSnapshot.open(directory)) {
+            PerformanceRecordBlock block = new PerformanceRecordBlock();
+            for (int i = 0; i < 5000; i++) {
+                block.add(new SocialPerformanceRecord(i % 10, i % 6, 1, 1, 1, 1, 1, 2000 + i % 5));
+            }
+            snapshot.append(block, lastId);
+        }
+
+        try (PerformanceSnapshot reopened = PerformanceSnapshot.open(directory)) {
+            assertEquals(5000, reopened.size());
+            assertEquals(lastId, reopened.getLastId());
+            assertEquals(1000, reopened.aggregate(null, 2003, 2003).getCount());
+            assertEquals(500, reopened.aggregate(7, 2000, 2004).getCount());
+
+            PerformanceRecordBlock more = new PerformanceRecordBlock();
+            more.add(new SocialPerformanceRecord(7, 255, 1, 1, 1, 1, 1, 2010));
+            reopened.append(more, new ObjectId());
+
+            assertEquals(5001, reopened.size());
+            assertEquals(255, reopened.aggregate(7, 2010, 2010).getMax(PerformanceCriterion.LEADERSHIP));
+        }
+    }
+}
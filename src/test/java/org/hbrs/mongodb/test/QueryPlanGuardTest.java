@@ -0,0 +1,43 @@
+package org.hbrs.mongodb.test;
+
+import org.bson.Document;
+import org.hbrs.ia.code.QueryPlanGuard;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Query plan guard tests - explain output is given as JSON, no MongoDB server needed
+ */
+class QueryPlanGuardTest {
+
+    @Test
+    @DisplayName("Should accept an index scan that provides the sort order")
+    void indexScan_shouldHaveNoViolations() {
+        Document explain = Document.parse("{queryPlanner: {winningPlan: {stage: 'LIMIT', inputStage: "
+                + "{stage: 'FETCH', inputStage: {stage: 'IXSCAN', indexName: 'salesmanId_year_id'}}}}}");
+
+        assertTrue(QueryPlanGuard.findViolations(explain).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should report a collection scan with a blocking sort")
+    void collectionScanWithSort_shouldReportBothStages() {
+        Document explain = Document.parse("{queryPlanner: {winningPlan: {stage: 'SORT', sortPattern: {year: -1}, "
+                + "inputStage: {stage: 'COLLSCAN', direction: 'forward'}}}}");
+
+        assertEquals(List.of("SORT", "COLLSCAN"), QueryPlanGuard.findViolations(explain));
+    }
+
+    @Test
+    @DisplayName("Should find violations in slot based engine plans")
+    void slotBasedEnginePlan_shouldBeWalked() {
+        Document explain = Document.parse("{queryPlanner: {winningPlan: {queryPlan: {stage: 'OR', "
+                + "inputStages: [{stage: 'IXSCAN'}, {stage: 'COLLSCAN'}]}, slotBasedPlan: {}}}}");
+
+        assertEquals(List.of("COLLSCAN"), QueryPlanGuard.findViolations(explain));
+    }
+}
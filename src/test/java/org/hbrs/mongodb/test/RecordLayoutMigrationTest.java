@@ -0,0 +1,151 @@
+package org.hbrs.mongodb.test;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Updates;
+import org.bson.Document;
+import org.hbrs.ia.code.ManagePersonalImpl;
+import org.hbrs.ia.code.MigrationPartition;
+import org.hbrs.ia.code.MongoConnectionSettings;
+import org.hbrs.ia.code.RecordLayout;
+import org.hbrs.ia.code.RecordLayoutMigration;
+import org.hbrs.ia.model.SalesMan;
+import org.hbrs.ia.model.SocialPerformanceRecord;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * RecordLayoutMigration on mixed data (old embedded arrays without _id and the performanceRecords
+ * collection), skipped if no mongod runs on localhost:27017
+ */
+class RecordLayoutMigrationTest {
+
+    private static final String DATABASE = "RecordLayoutMigrationTest";
+    private static final int SALESMEN = 20;
+
+    private static MongoClient client;
+
+    private MongoDatabase database;
+
+    @BeforeAll
+    static void connect() {
+        MongoConnectionSettings settings = new MongoConnectionSettings();
+        settings.setServerSelectionTimeoutMillis(1000);
+        MongoClient candidate = MongoClients.create(settings.toMongoClientSettings());
+        try {
+            candidate.getDatabase("admin").runCommand(new Document("ping", 1));
+            client = candidate;
+        } catch (RuntimeException e) {
+            candidate.close();
+        }
+    }
+
+    @AfterAll
+    static void disconnect() {
+        if (client != null) {
+            client.getDatabase(DATABASE).drop();
+            client.close();
+        }
+    }
+
+    // salesman i has i records: the even ones embedded (old documents), the odd ones in the collection
+    @BeforeEach
+    void populate() {
+        assumeTrue(client != null, "No MongoDB server on localhost:27017");
+        database = client.getDatabase(DATABASE);
+        database.drop();
+        for (int i = 1; i <= SALESMEN; i++) {
+            List<Document> embedded = new ArrayList<>();
+            for (int r = 0; r < i; r++) {
+                Document record = new SocialPerformanceRecord(1000 + i, r % 5 + 1, 1, 1, 1, 1, 1, 2000 + r)
+                        .toDocument();
+                if (i % 2 == 0) {
+                    embedded.add(record);
+                } else {
+                    database.getCollection("performanceRecords").insertOne(record);
+                }
+            }
+            Document salesMan = new Document("firstname", "F" + i).append("lastname", "L" + i).append("sid", 1000 + i);
+            if (!embedded.isEmpty()) {
+                salesMan.append("performanceRecords", embedded);
+            }
+            database.getCollection("salesmen").insertOne(salesMan);
+        }
+    }
+
+    @Test
+    @DisplayName("Should move every record into buckets and verify every partition")
+    void migrateToBuckets_shouldMoveAndVerify() {
+        List<MigrationPartition> partitions = migration(RecordLayout.BUCKET).run("to-buckets");
+
+        assertEquals(3, partitions.size());
+        assertTrue(partitions.stream().allMatch(MigrationPartition::isVerified));
+        assertEquals(SALESMEN * (SALESMEN + 1) / 2,
+                partitions.stream().mapToLong(MigrationPartition::getMigrated).sum());
+        assertEquals(0, database.getCollection("performanceRecords").countDocuments());
+        assertEquals(0, database.getCollection("salesmen").countDocuments(Filters.exists("performanceRecords")));
+        assertRecordsIn(RecordLayout.BUCKET);
+
+        // a finished migration is not repeated
+        long buckets = database.getCollection("performanceBuckets").countDocuments();
+        List<MigrationPartition> again = migration(RecordLayout.BUCKET).run("to-buckets");
+        assertTrue(again.stream().allMatch(MigrationPartition::isVerified));
+        assertEquals(buckets, database.getCollection("performanceBuckets").countDocuments());
+        assertThrows(IllegalStateException.class, () -> migration(RecordLayout.SEPARATE).run("to-buckets"));
+    }
+
+    @Test
+    @DisplayName("Should resume from the checkpoint without writing records twice")
+    void resume_shouldNotDuplicateRecords() {
+        migration(RecordLayout.SEPARATE).run("to-separate");
+
+        // pretend every partition crashed before its first checkpoint: the records are moved already,
+        // so the repeated batches write nothing
+        database.getCollection(RecordLayoutMigration.CHECKPOINTS).updateMany(
+                Filters.eq("migrationId", "to-separate"),
+                Updates.combine(Updates.set("state", "PENDING"), Updates.set("lastSid", null),
+                        Updates.set("migrated", 0L), Updates.set("expected", 0L)));
+        List<MigrationPartition> resumed = migration(RecordLayout.SEPARATE).run("to-separate");
+
+        assertTrue(resumed.stream().allMatch(MigrationPartition::isVerified));
+        assertEquals(0, resumed.stream().mapToLong(MigrationPartition::getMigrated).sum());
+        assertEquals(SALESMEN * (SALESMEN + 1) / 2, database.getCollection("performanceRecords").countDocuments());
+        assertRecordsIn(RecordLayout.SEPARATE);
+    }
+
+    private RecordLayoutMigration migration(RecordLayout target) {
+        RecordLayoutMigration migration = new RecordLayoutMigration(client, DATABASE, target, 4);
+        migration.setThreads(2);
+        migration.setPartitions(3);
+        migration.setBatchSize(3);
+        return migration;
+    }
+
+    // every salesman has all its records in the layout, newest year first
+    private void assertRecordsIn(RecordLayout layout) {
+        try (ManagePersonalImpl manager = new ManagePersonalImpl(client, DATABASE, layout, 4)) {
+            for (int i = 1; i <= SALESMEN; i++) {
+                int sid = 1000 + i;
+                List<SocialPerformanceRecord> records = manager.readSocialPerformanceRecord(
+                        new SalesMan("F" + i, "L" + i, sid));
+                assertEquals(i, records.size());
+                assertEquals(2000 + i - 1, records.get(0).getYear());
+                assertFalse(records.stream().anyMatch(record -> record.getSalesmanId() != sid));
+            }
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package org.hbrs.mongodb.test;
+
+import org.hbrs.ia.code.InMemoryManagePersonal;
+import org.hbrs.ia.code.ManagePersonal;
+import org.hbrs.ia.code.WriteBehindManagePersonal;
+import org.hbrs.ia.code.WriteBehindManagePersonal.Durability;
+import org.hbrs.ia.model.SalesMan;
+import org.hbrs.ia.model.SocialPerformanceRecord;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Contract tests through the write-behind buffer plus its own behaviour - no MongoDB server needed
+ */
+class WriteBehindManagePersonalTest extends ManagePersonalContractTest {
+
+    @Override
+    protected ManagePersonal createEmptyManager() {
+        // nothing is flushed by size or time during a test, reads have to merge the queue
+        return new WriteBehindManagePersonal(new InMemoryManagePersonal(), 1000, 1000,
+                Duration.ofMinutes(1), Durability.FIRE_AND_FORGET);
+    }
+
+    @Test
+    @DisplayName("Should keep records queued until flush and write them in one batch")
+    void flush_shouldWriteQueuedRecordsToDelegate() {
+        InMemoryManagePersonal store = new InMemoryManagePersonal();
+        SalesMan salesMan = new SalesMan("John", "Smith", 90123);
+        try (WriteBehindManagePersonal buffer = new WriteBehindManagePersonal(store, 100, 100,
+                Duration.ofMinutes(1), Durability.FIRE_AND_FORGET)) {
+            buffer.addSocialPerformanceRecord(new SocialPerformanceRecord(0, 1, 1, 1, 1, 1, 1, 2024), salesMan);
+            buffer.addSocialPerformanceRecord(new SocialPerformanceRecord(0, 2, 2, 2, 2, 2, 2, 2025), salesMan);
+
+            assertEquals(2, buffer.getQueueSize());
+            assertTrue(store.readSocialPerformanceRecord(salesMan).isEmpty());
+            assertEquals(2025, buffer.readLastSocialPerformanceRecord(salesMan).getYear());
+
+            buffer.flush();
+
+            assertEquals(0, buffer.getQueueSize());
+            assertEquals(1, buffer.getBatchCount());
+            assertEquals(2, store.readSocialPerformanceRecord(salesMan).size());
+            assertEquals(2, buffer.readSocialPerformanceRecord(salesMan).size());
+        }
+    }
+
+    @Test
+    @DisplayName("Should return from an acknowledged add only after the record is written")
+    void acknowledged_shouldWaitForTheBatch() {
+        InMemoryManagePersonal store = new InMemoryManagePersonal();
+        SalesMan salesMan = new SalesMan("John", "Smith", 90123);
+        try (WriteBehindManagePersonal buffer = new WriteBehindManagePersonal(store, 100, 10,
+                Duration.ofMillis(20), Durability.ACKNOWLEDGED)) {
+            buffer.addSocialPerformanceRecord(new SocialPerformanceRecord(0, 1, 1, 1, 1, 1, 1, 2024), salesMan);
+
+            assertEquals(1, store.readSocialPerformanceRecord(salesMan).size());
+            assertEquals(1, buffer.getWrittenRecordCount());
+        }
+    }
+
+    // regression: the caller was woken while its batch was still in flight, reads returned it twice
+    @Test
+    @DisplayName("Should read an acknowledged record through the buffer exactly once")
+    void acknowledged_shouldBeReadOnceThroughTheBuffer() {
+        InMemoryManagePersonal store = new InMemoryManagePersonal();
+        SalesMan salesMan = new SalesMan("John", "Smith", 90123);
+        try (WriteBehindManagePersonal buffer = new WriteBehindManagePersonal(store, 100, 10,
+                Duration.ofMillis(1), Durability.ACKNOWLEDGED)) {
+            for (int i = 1; i <= 200; i++) {
+                buffer.addSocialPerformanceRecord(new SocialPerformanceRecord(0, 1, 1, 1, 1, 1, 1, 2000 + i), salesMan);
+
+                assertEquals(i, buffer.readSocialPerformanceRecord(salesMan).size());
+                assertEquals(1, buffer.readByYearSocialPerformanceRecord(salesMan, 2000 + i).size());
+                assertEquals(2000 + i, buffer.readLastSocialPerformanceRecord(salesMan).getYear());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should flush by size and drain the rest on close")
+    void close_shouldDrainTheQueue() {
+        InMemoryManagePersonal store = new InMemoryManagePersonal();
+        SalesMan salesMan = new SalesMan("John", "Smith", 90123);
+        WriteBehindManagePersonal buffer = new WriteBehindManagePersonal(store, 4, 2,
+                Duration.ofMinutes(1), Durability.FIRE_AND_FORGET);
+        for (int i = 0; i < 25; i++) {
+            buffer.addSocialPerformanceRecord(new SocialPerformanceRecord(0, 1, 1, 1, 1, 1, 1, 2000 + i), salesMan);
+        }
+        buffer.close();
+
+        assertEquals(25, store.readSocialPerformanceRecord(salesMan).size());
+        assertEquals(2024, store.readLastSocialPerformanceRecord(salesMan).getYear());
+        assertThrows(IllegalStateException.class, () -> buffer.addSocialPerformanceRecord(
+                new SocialPerformanceRecord(0, 1, 1, 1, 1, 1, 1, 2030), salesMan));
+    }
+}